@@ -0,0 +1,595 @@
+/*====================================================================*\
+
+HashedArraySet.java
+
+Class: array set with hash index.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.common.collection;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import java.util.stream.Collector;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: ARRAY SET WITH HASH INDEX
+
+
+/**
+ * This class implements a set whose elements are stored in insertion order in an {@link ArrayList}, like {@link
+ * ArraySet}, and that maintains a hash index of its elements alongside the backing array.  The hash index allows the
+ * membership of an element to be tested in constant time, so that adding a collection of <i>n</i> elements to the set
+ * has a cost of <i>O</i>(<i>n</i>) rather than the <i>O</i>(<i>n</i><sup>2</sup>) cost of an {@code ArraySet}.
+ * <p>
+ * The set retains the semantics of a {@link List}: its elements may be accessed and removed by index, and it may be
+ * sorted.  As with {@code ArraySet}, the {@link #set(int, Object)} method does not impose the condition of distinct
+ * elements, so that methods such as {@link java.util.Collections#swap(List, int, int)}, which temporarily store an
+ * element at two indices, may be applied to the set.  The hash index records the number of occurrences of each
+ * element to allow for such transient duplicates.
+ * </p>
+ *
+ * @param <E>
+ *          the type of the elements in this set.
+ */
+
+public class HashedArraySet<E>
+	extends ArrayList<E>
+	implements Set<E>
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** A map from the elements of this set to the number of occurrences of each element in the backing array. */
+	private	HashMap<Object, Integer>	index;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of an empty set.
+	 */
+
+	public HashedArraySet()
+	{
+		index = new HashMap<>();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of an empty set with the specified initial capacity.
+	 *
+	 * @param capacity
+	 *          the initial capacity of the set.
+	 */
+
+	public HashedArraySet(
+		int	capacity)
+	{
+		super(capacity);
+		index = new HashMap<>(indexCapacity(capacity));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of a set that contains the specified element.
+	 *
+	 * @param element
+	 *          the element of the set.
+	 */
+
+	public HashedArraySet(
+		E	element)
+	{
+		this(1);
+		add(element);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of a set that contains the distinct elements of the specified array.
+	 *
+	 * @param elements
+	 *          the elements of the set.
+	 */
+
+	@SuppressWarnings("unchecked")
+	public HashedArraySet(
+		E...	elements)
+	{
+		this(elements.length);
+		for (E element : elements)
+			add(element);
+		trimToSize();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of a set that contains the distinct elements of the specified collection.
+	 *
+	 * @param collection
+	 *          the collection whose elements will be added to the set.
+	 */
+
+	public HashedArraySet(
+		Collection<? extends E>	collection)
+	{
+		this(collection.size());
+		for (E element : collection)
+			add(element);
+		trimToSize();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns a collector that accumulates elements into a new instance of {@link HashedArraySet}.
+	 *
+	 * @param  <E>
+	 *           the type of the elements.
+	 * @return a collector that accumulates elements into a new instance of {@code HashedArraySet}.
+	 */
+
+	public static <E> Collector<E, ?, HashedArraySet<E>> collector()
+	{
+		return Collector.of(HashedArraySet::new, HashedArraySet::add, (out, in) -> { out.addAll(in); return out; });
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the initial capacity of a hash index that will accommodate the specified number of elements without
+	 * being resized.
+	 *
+	 * @param  numElements
+	 *           the number of elements.
+	 * @return the initial capacity of a hash index that will accommodate {@code numElements} elements.
+	 */
+
+	private static int indexCapacity(
+		int	numElements)
+	{
+		return (int)Math.min((long)numElements * 4 / 3 + 1, Integer.MAX_VALUE);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods : overriding methods
+////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public boolean contains(
+		Object	obj)
+	{
+		return index.containsKey(obj);
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public int indexOf(
+		Object	obj)
+	{
+		return index.containsKey(obj) ? super.indexOf(obj) : -1;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public int lastIndexOf(
+		Object	obj)
+	{
+		return index.containsKey(obj) ? super.lastIndexOf(obj) : -1;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean add(
+		E	element)
+	{
+		if (index.containsKey(element))
+			return false;
+		super.add(element);
+		index.put(element, 1);
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public void add(
+		int	index,
+		E	element)
+	{
+		if (!this.index.containsKey(element))
+		{
+			super.add(index, element);
+			this.index.put(element, 1);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean addAll(
+		Collection<? extends E>	collection)
+	{
+		int oldLength = size();
+		ensureCapacity(oldLength + collection.size());
+		for (E element : collection)
+			add(element);
+		return (size() != oldLength);
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean addAll(
+		int						index,
+		Collection<? extends E>	collection)
+	{
+		// Create list of distinct elements that are not already in this set
+		ArrayList<E> elements = new ArrayList<>(collection.size());
+		HashSet<E> distinctElements = new HashSet<>(indexCapacity(collection.size()));
+		for (E element : collection)
+		{
+			if (!this.index.containsKey(element) && distinctElements.add(element))
+				elements.add(element);
+		}
+
+		// Insert elements
+		if (elements.isEmpty())
+			return false;
+		super.addAll(index, elements);
+		for (E element : elements)
+			this.index.put(element, 1);
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public E set(
+		int	index,
+		E	element)
+	{
+		E oldElement = super.set(index, element);
+		decrementCount(oldElement);
+		incrementCount(element);
+		return oldElement;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public E remove(
+		int	index)
+	{
+		E element = super.remove(index);
+		decrementCount(element);
+		return element;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean remove(
+		Object	obj)
+	{
+		if (!index.containsKey(obj))
+			return false;
+		super.remove(obj);
+		decrementCount(obj);
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean removeAll(
+		Collection<?>	collection)
+	{
+		Objects.requireNonNull(collection);
+		return removeIf(collection::contains);
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean retainAll(
+		Collection<?>	collection)
+	{
+		Objects.requireNonNull(collection);
+		return removeIf(element -> !collection.contains(element));
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean removeIf(
+		Predicate<? super E>	filter)
+	{
+		boolean removed = super.removeIf(filter);
+		if (removed)
+			rebuildIndex();
+		return removed;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public void replaceAll(
+		UnaryOperator<E>	operator)
+	{
+		super.replaceAll(operator);
+		rebuildIndex();
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public void clear()
+	{
+		super.clear();
+		index.clear();
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	protected void removeRange(
+		int	startIndex,
+		int	endIndex)
+	{
+		for (int i = startIndex; i < endIndex; i++)
+			decrementCount(get(i));
+		super.removeRange(startIndex, endIndex);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The sublist is a view of this set whose modifications are applied through the methods of this set, so that the
+	 * hash index is kept consistent with the backing array.
+	 * </p>
+	 */
+
+	@Override
+	public List<E> subList(
+		int	startIndex,
+		int	endIndex)
+	{
+		Objects.checkFromToIndex(startIndex, endIndex, size());
+		return new SubList(startIndex, endIndex);
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public HashedArraySet<E> clone()
+	{
+		HashedArraySet<E> copy = (HashedArraySet<E>)super.clone();
+		copy.index = new HashMap<>(index);
+		return copy;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Increments the number of occurrences of the specified element in the hash index.
+	 *
+	 * @param element
+	 *          the element whose number of occurrences will be incremented.
+	 */
+
+	private void incrementCount(
+		Object	element)
+	{
+		index.merge(element, 1, Integer::sum);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Decrements the number of occurrences of the specified element in the hash index, and removes the element from the
+	 * index if the resulting number is zero.
+	 *
+	 * @param element
+	 *          the element whose number of occurrences will be decremented.
+	 */
+
+	private void decrementCount(
+		Object	element)
+	{
+		index.computeIfPresent(element, (key, count) -> (count > 1) ? count - 1 : null);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Rebuilds the hash index from the backing array.
+	 */
+
+	private void rebuildIndex()
+	{
+		index.clear();
+		for (E element : this)
+			incrementCount(element);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: SUBLIST
+
+
+	/**
+	 * This class implements a view of a range of the elements of the enclosing set.  All modifications are delegated to
+	 * the enclosing set.
+	 */
+
+	private class SubList
+		extends AbstractList<E>
+		implements RandomAccess
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The index of the first element of this sublist in the enclosing set. */
+		private	int	offset;
+
+		/** The number of elements in this sublist. */
+		private	int	size;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a view of the specified range of the elements of the enclosing set.
+		 *
+		 * @param startIndex
+		 *          the index of the first element of the range (inclusive).
+		 * @param endIndex
+		 *          the index of the last element of the range (exclusive).
+		 */
+
+		private SubList(
+			int	startIndex,
+			int	endIndex)
+		{
+			// Initialise instance variables
+			offset = startIndex;
+			size = endIndex - startIndex;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		public int size()
+		{
+			return size;
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public E get(
+			int	index)
+		{
+			Objects.checkIndex(index, size);
+			return HashedArraySet.this.get(offset + index);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public E set(
+			int	index,
+			E	element)
+		{
+			Objects.checkIndex(index, size);
+			return HashedArraySet.this.set(offset + index, element);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public void add(
+			int	index,
+			E	element)
+		{
+			Objects.checkIndex(index, size + 1);
+			int oldSize = HashedArraySet.this.size();
+			HashedArraySet.this.add(offset + index, element);
+			size += HashedArraySet.this.size() - oldSize;
+			++modCount;
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public E remove(
+			int	index)
+		{
+			Objects.checkIndex(index, size);
+			E element = HashedArraySet.this.remove(offset + index);
+			--size;
+			++modCount;
+			return element;
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		protected void removeRange(
+			int	startIndex,
+			int	endIndex)
+		{
+			HashedArraySet.this.removeRange(offset + startIndex, offset + endIndex);
+			size -= endIndex - startIndex;
+			++modCount;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -19,6 +19,7 @@ package uk.blankaspect.common.filesystem;
 
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
@@ -27,15 +28,23 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
 
 import java.nio.file.attribute.BasicFileAttributes;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 import java.util.function.Predicate;
 
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import uk.blankaspect.common.exception2.FileException;
 import uk.blankaspect.common.exception2.OuterIOException;
 
@@ -76,18 +85,12 @@ public class DirectoryUtils
 		String	NOT_A_DIRECTORY =
 				"The location does not denote a directory.";
 
-		String	FAILED_TO_CREATE_DIRECTORY =
-				"Failed to create the directory.";
-
 		String	FAILED_TO_DELETE_FILE =
 				"Failed to delete the file.";
 
 		String	FAILED_TO_DELETE_DIRECTORY =
 				"Failed to delete the directory.";
 
-		String	FAILED_TO_COPY_FILE =
-				"Failed to copy the file.";
-
 		String	ERROR_LISTING_DIRECTORY =
 				"An error occurred when listing the entries of the directory.";
 
@@ -474,6 +477,103 @@ public class DirectoryUtils
 
 	//------------------------------------------------------------------
 
+	/**
+	 * Returns a lazily populated stream of the files in the directory structure whose root is the specified directory
+	 * that are accepted by the specified filter.  The stream has the same elements, in the same order, as the list that
+	 * is returned by {@link #findFiles(Path, Predicate)}; see {@link #streamLocations(Path, Predicate)} for the
+	 * properties of the stream.
+	 *
+	 * @param  directory
+	 *           the root of the directory structure that will be traversed.
+	 * @param  filter
+	 *           the filter that will be applied to the location of each file that is encountered in the traversal of
+	 *           the directory structure.
+	 * @return a stream of the locations of the files that are encountered in the traversal of the directory structure
+	 *         and that are accepted by {@code filter}.
+	 * @throws FileException
+	 *           if {@code directory} is not a directory or could not be opened.
+	 */
+
+	public static Stream<Path> streamFiles(
+		Path			directory,
+		Predicate<Path>	filter)
+		throws FileException
+	{
+		return streamLocations(directory, IS_REGULAR_FILE.and(filter));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a lazily populated stream of the directories in the directory structure whose root is the specified
+	 * directory that are accepted by the specified filter.  The stream has the same elements, in the same order, as the
+	 * list that is returned by {@link #findDirectories(Path, Predicate)}; see {@link #streamLocations(Path, Predicate)}
+	 * for the properties of the stream.
+	 *
+	 * @param  directory
+	 *           the root of the directory structure that will be traversed.
+	 * @param  filter
+	 *           the filter that will be applied to the location of each directory that is encountered in the traversal
+	 *           of the directory structure.
+	 * @return a stream of the locations of the directories that are encountered in the traversal of the directory
+	 *         structure and that are accepted by {@code filter}.
+	 * @throws FileException
+	 *           if {@code directory} is not a directory or could not be opened.
+	 */
+
+	public static Stream<Path> streamDirectories(
+		Path			directory,
+		Predicate<Path>	filter)
+		throws FileException
+	{
+		return streamLocations(directory, IS_DIRECTORY.and(filter));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a lazily populated stream of the files and directories in the directory structure whose root is the
+	 * specified directory that are accepted by the specified filter.  The stream has the same elements, in the same
+	 * order, as the list that is returned by {@link #findLocations(Path, Predicate)}, but the directory structure is
+	 * traversed only as far as is necessary to supply the elements that are consumed from the stream.  At any time,
+	 * only one directory stream is open for each level of the path from the root to the directory that is being
+	 * traversed, so the amount of memory that is used does not depend on the number of locations.  The traversal is
+	 * <i>depth-first</i>, and symbolic links are not followed.
+	 * <p>
+	 * The stream holds open directories, so it should be closed, for example with a {@code try}-with-resources
+	 * statement, if it is not fully consumed.  If an error occurs during the traversal, an {@link UncheckedIOException}
+	 * is thrown from the operation that consumes the stream; the cause of the exception is an {@link OuterIOException}
+	 * whose cause is a {@link FileException} that is equivalent to the one that would be thrown by {@link
+	 * #findLocations(Path, Predicate) findLocations}, so it can be recovered with {@link
+	 * FileException#throwCause(Throwable, boolean) FileException.throwCause(exception, true)}.
+	 * </p>
+	 *
+	 * @param  directory
+	 *           the root of the directory structure that will be traversed.
+	 * @param  filter
+	 *           the filter that will be applied to the location of each file or directory that is encountered in the
+	 *           traversal of the directory structure.
+	 * @return a stream of the locations of the files and directories that are encountered in the traversal of the
+	 *         directory structure and that are accepted by {@code filter}.
+	 * @throws FileException
+	 *           if {@code directory} is not a directory or could not be opened.
+	 */
+
+	public static Stream<Path> streamLocations(
+		Path			directory,
+		Predicate<Path>	filter)
+		throws FileException
+	{
+		LocationIterator iterator = new LocationIterator(directory, filter);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED
+																					| Spliterator.DISTINCT
+																					| Spliterator.NONNULL),
+									false)
+				.onClose(iterator::close);
+	}
+
+	//------------------------------------------------------------------
+
 	/**
 	 * Recursively deletes the directory at the specified location.
 	 *
@@ -580,7 +680,55 @@ public class DirectoryUtils
 	//------------------------------------------------------------------
 
 	/**
-	 * Copies the directory from the specified source location to the specified destination location.
+	 * Recursively deletes the directory at the specified location, deleting files and directories concurrently on
+	 * several threads.
+	 *
+	 * @param  location
+	 *           the location of the directory that will be deleted.
+	 * @throws FileException
+	 *           if an error occurs when listing a directory or when deleting a file or directory.
+	 * @see    ParallelDirectoryDeleter
+	 */
+
+	public static void deleteDirectoryConcurrently(
+		Path	location)
+		throws FileException
+	{
+		deleteDirectoryConcurrently(location, false);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Recursively deletes the contents of the directory at the specified location and, optionally, deletes the
+	 * directory itself, deleting files and directories concurrently on several threads.  Each directory is deleted as
+	 * soon as its last entry has been deleted, and failed deletions are retried without blocking a worker thread.
+	 *
+	 * @param  directory
+	 *           the location of the directory that will be deleted.
+	 * @param  contentsOnly
+	 *           if {@code true}, only the contents of the directory will be deleted; the directory itself will not be
+	 *           deleted.
+	 * @throws FileException
+	 *           if an error occurs when listing a directory or when deleting a file or directory.
+	 * @see    ParallelDirectoryDeleter
+	 */
+
+	public static void deleteDirectoryConcurrently(
+		Path	directory,
+		boolean	contentsOnly)
+		throws FileException
+	{
+		new ParallelDirectoryDeleter(ParallelDirectoryDeleter.DEFAULT_NUM_THREADS, NUM_DELETION_ATTEMPTS)
+				.delete(directory, contentsOnly);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Copies the directory from the specified source location to the specified destination location.  Directories are
+	 * created and files are copied in parallel by a {@link ParallelDirectoryCopier} that has the {@linkplain
+	 * ParallelDirectoryCopier#DEFAULT_NUM_THREADS default number} of worker threads.
 	 *
 	 * @param  srcDirectory
 	 *           the location of the source directory.
@@ -595,50 +743,270 @@ public class DirectoryUtils
 		Path	destDirectory)
 		throws FileException
 	{
-		// Test for source directory
-		if (!Files.isDirectory(srcDirectory, LinkOption.NOFOLLOW_LINKS))
-			throw new FileException(ErrorMsg.NOT_A_DIRECTORY, srcDirectory);
+		new ParallelDirectoryCopier().copy(srcDirectory, destDirectory);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: OPEN DIRECTORY
+
 
-		// If destination exists, test that it's a directory ...
-		if (Files.exists(destDirectory, LinkOption.NOFOLLOW_LINKS))
+	/**
+	 * This record encapsulates a directory that is being traversed and the stream and iterator over its entries.
+	 *
+	 * @param directory
+	 *          the location of the directory.
+	 * @param stream
+	 *          the stream of the entries of the directory.
+	 * @param entries
+	 *          the iterator over the entries of the directory.
+	 */
+
+	private record OpenDirectory(
+		Path					directory,
+		DirectoryStream<Path>	stream,
+		Iterator<Path>			entries)
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Opens the specified directory.
+		 *
+		 * @param  directory
+		 *           the location of the directory.
+		 * @return the open directory.
+		 * @throws FileException
+		 *           if the directory could not be opened.
+		 */
+
+		private static OpenDirectory open(
+			Path	directory)
+			throws FileException
 		{
-			if (!Files.isDirectory(destDirectory, LinkOption.NOFOLLOW_LINKS))
-				throw new FileException(ErrorMsg.NOT_A_DIRECTORY, destDirectory);
+			try
+			{
+				DirectoryStream<Path> stream = Files.newDirectoryStream(directory);
+				return new OpenDirectory(directory, stream, stream.iterator());
+			}
+			catch (IOException e)
+			{
+				throw new FileException(ErrorMsg.FAILED_TO_VISIT_FILE, e, directory);
+			}
 		}
 
-		// ... otherwise, create destination directory and any missing ancestors
-		else
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the next entry of this directory.
+		 *
+		 * @return the next entry of this directory, or {@code null} if there are no more entries.
+		 * @throws FileException
+		 *           if an error occurred when reading the entries of this directory.
+		 */
+
+		private Path nextEntry()
+			throws FileException
 		{
 			try
 			{
-				Files.createDirectories(destDirectory);
+				return entries.hasNext() ? entries.next() : null;
 			}
-			catch (IOException e)
+			catch (DirectoryIteratorException e)
 			{
-				throw new FileException(ErrorMsg.FAILED_TO_CREATE_DIRECTORY, destDirectory);
+				throw new FileException(ErrorMsg.ERROR_TRAVERSING_DIRECTORY, e.getCause(), directory);
 			}
 		}
 
-		// Copy files
-		for (Path file : listFiles(srcDirectory))
+		//--------------------------------------------------------------
+
+		/**
+		 * Closes the stream of the entries of this directory.
+		 */
+
+		private void close()
 		{
 			try
 			{
-				Files.copy(file, destDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING,
-						   StandardCopyOption.COPY_ATTRIBUTES);
+				stream.close();
 			}
 			catch (IOException e)
 			{
-				throw new FileException(ErrorMsg.FAILED_TO_COPY_FILE, e, file);
+				// ignore
 			}
 		}
 
-		// Copy subdirectories
-		for (Path directory : listDirectories(srcDirectory))
-			copyDirectory(directory, destDirectory.resolve(directory).getFileName());
+		//--------------------------------------------------------------
+
 	}
 
-	//------------------------------------------------------------------
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: ITERATOR OVER THE LOCATIONS OF A DIRECTORY STRUCTURE
+
+
+	/**
+	 * This class implements a lazy iterator over the files and directories of a directory structure.  The structure is
+	 * traversed depth-first with a stack of open directory streams; a directory is opened when it is encountered and
+	 * closed when its last entry has been visited.
+	 */
+
+	private static class LocationIterator
+		implements Iterator<Path>
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The filter that is applied to each location. */
+		private	Predicate<Path>						filter;
+
+		/** The stack of the directories that are being traversed, the innermost of which is at the top. */
+		private	Deque<OpenDirectory>				directories;
+
+		/** The next location that will be returned by this iterator, or {@code null} if it has not been found. */
+		private	Path								next;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an iterator over the locations of the directory structure whose root is the
+		 * specified directory.
+		 *
+		 * @param  directory
+		 *           the root of the directory structure.
+		 * @param  filter
+		 *           the filter that will be applied to each location.
+		 * @throws FileException
+		 *           if {@code directory} is not a directory or could not be opened.
+		 */
+
+		private LocationIterator(
+			Path			directory,
+			Predicate<Path>	filter)
+			throws FileException
+		{
+			// Validate arguments
+			if (directory == null)
+				throw new IllegalArgumentException(NULL_LOCATION_STR);
+
+			// Initialise instance variables
+			this.filter = filter;
+			directories = new ArrayDeque<>();
+
+			// Open root directory
+			if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS))
+				throw new FileException(ErrorMsg.NOT_A_DIRECTORY, directory);
+			directories.push(OpenDirectory.open(directory));
+
+			// If root directory is accepted by filter, it is the first location
+			if (filter.test(directory))
+				next = directory;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : Iterator interface
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		public boolean hasNext()
+		{
+			try
+			{
+				while ((next == null) && !directories.isEmpty())
+				{
+					// Get next entry of innermost directory
+					OpenDirectory directory = directories.peek();
+					Path entry = directory.nextEntry();
+
+					// If there are no more entries, close directory ...
+					if (entry == null)
+						directories.pop().close();
+
+					// ... otherwise, visit entry
+					else
+					{
+						// If entry is a directory, open it
+						BasicFileAttributes attrs = null;
+						try
+						{
+							attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+						}
+						catch (IOException e)
+						{
+							throw new FileException(ErrorMsg.FAILED_TO_VISIT_FILE, e, entry);
+						}
+						if (attrs.isDirectory())
+							directories.push(OpenDirectory.open(entry));
+
+						// If entry is accepted by filter, it is the next location
+						if (filter.test(entry))
+							next = entry;
+					}
+				}
+			}
+			catch (FileException e)
+			{
+				close();
+				throw new UncheckedIOException(new OuterIOException(e));
+			}
+			return (next != null);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public Path next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Path location = next;
+			next = null;
+			return location;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Closes all the directories that are open.
+		 */
+
+		private void close()
+		{
+			while (!directories.isEmpty())
+				directories.pop().close();
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
 
 }
 
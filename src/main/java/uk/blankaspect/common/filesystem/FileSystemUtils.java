@@ -34,8 +34,15 @@ import java.time.format.DateTimeFormatter;
 
 import java.util.Random;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import uk.blankaspect.common.exception2.UnexpectedRuntimeException;
 
+import uk.blankaspect.common.thread.DaemonFactory;
+
 //----------------------------------------------------------------------
 
 
@@ -81,6 +88,16 @@ public class FileSystemUtils
 	private static final	String	GIB_STR		= "GiB";
 	private static final	String	UNKNOWN_STR	= "Unknown";
 
+	/** The name of the thread on which retries of deletions are scheduled. */
+	private static final	String	DELETION_SCHEDULER_THREAD_NAME	= "deletion-retry-scheduler";
+
+////////////////////////////////////////////////////////////////////////
+//  Class variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The executor on which retries of deletions are scheduled by {@link #deleteWithRetriesAsync(Path, int, int)}. */
+	private static	ScheduledExecutorService	deletionScheduler;
+
 ////////////////////////////////////////////////////////////////////////
 //  Static initialiser
 ////////////////////////////////////////////////////////////////////////
@@ -171,19 +188,7 @@ public class FileSystemUtils
 			//   Clear the DOS read-only attribute, which, if set, can impede the deletion of a file or directory on a
 			//   FAT or exFAT file system
 			if (i == 0)
-			{
-				try
-				{
-					DosFileAttributeView fileAttrs =
-							Files.getFileAttributeView(location, DosFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
-					if (fileAttrs != null)
-						fileAttrs.setReadOnly(false);
-				}
-				catch (IOException e)
-				{
-					// ignore
-				}
-			}
+				clearReadOnly(location);
 
 			// Case: not the first attempt
 			//   Delay before attempting to delete file or directory
@@ -220,6 +225,137 @@ public class FileSystemUtils
 
 	//------------------------------------------------------------------
 
+	/**
+	 * Attempts to delete a file or directory at the specified location by calling {@link Files#deleteIfExists(Path)}
+	 * and, if the attempt fails, schedules further attempts on a shared background thread until either an attempt
+	 * succeeds or the specified number of attempts have been made.  Unlike {@link #deleteWithRetries(Path, int, int)},
+	 * this method does not block the calling thread between attempts: the first attempt is made on the calling thread,
+	 * and the outcome of the deletion is reported through the returned future.
+	 *
+	 * @param  location
+	 *           the location of the file or directory that will be deleted.
+	 * @param  maxNumAttempts
+	 *           the maximum number of attempts that will be made to delete the file or directory at {@code location}.
+	 * @param  interval
+	 *           the interval in milliseconds between successive attempts.
+	 * @return a future that will be completed with {@code true} if the file or directory was deleted or {@code false} if
+	 *         it did not exist, or completed exceptionally, on failure to delete the file or directory, with the
+	 *         exception that was thrown by the last call to {@link Files#deleteIfExists(Path)}.
+	 */
+
+	public static CompletableFuture<Boolean> deleteWithRetriesAsync(
+		Path	location,
+		int		maxNumAttempts,
+		int		interval)
+	{
+		// Validate arguments
+		if (location == null)
+			throw new IllegalArgumentException("Null location");
+		if (maxNumAttempts <= 0)
+			throw new IllegalArgumentException("Maximum number of attempts out of bounds: " + maxNumAttempts);
+
+		// Clear the DOS read-only attribute
+		clearReadOnly(location);
+
+		// Attempt to delete file or directory
+		CompletableFuture<Boolean> result = new CompletableFuture<>();
+		attemptDeletion(location, maxNumAttempts, interval, result);
+		return result;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Clears the DOS read-only attribute of the file or directory at the specified location, if the attribute is
+	 * supported.  The attribute, if set, can impede the deletion of a file or directory on a FAT or exFAT file system.
+	 *
+	 * @param location
+	 *          the location of the file or directory whose read-only attribute will be cleared.
+	 */
+
+	private static void clearReadOnly(
+		Path	location)
+	{
+		try
+		{
+			DosFileAttributeView fileAttrs =
+					Files.getFileAttributeView(location, DosFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+			if (fileAttrs != null)
+				fileAttrs.setReadOnly(false);
+		}
+		catch (IOException e)
+		{
+			// ignore
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Attempts to delete a file or directory at the specified location and, if the attempt fails and there are attempts
+	 * remaining, schedules the next attempt on the deletion scheduler.  Any exception other than an {@link IOException}
+	 * (including one that is thrown when the next attempt is scheduled) completes the specified future exceptionally,
+	 * so that the future is always completed.
+	 *
+	 * @param location
+	 *          the location of the file or directory that will be deleted.
+	 * @param numAttempts
+	 *          the number of attempts that remain, including this one.
+	 * @param interval
+	 *          the interval in milliseconds between successive attempts.
+	 * @param result
+	 *          the future that will be completed with the outcome of the deletion.
+	 */
+
+	private static void attemptDeletion(
+		Path						location,
+		int							numAttempts,
+		int							interval,
+		CompletableFuture<Boolean>	result)
+	{
+		try
+		{
+			try
+			{
+				result.complete(Files.deleteIfExists(location));
+			}
+			catch (IOException e)
+			{
+				if (numAttempts > 1)
+				{
+					deletionScheduler().schedule(() -> attemptDeletion(location, numAttempts - 1, interval, result),
+												 interval, TimeUnit.MILLISECONDS);
+				}
+				else
+					result.completeExceptionally(e);
+			}
+		}
+		catch (Throwable e)
+		{
+			result.completeExceptionally(e);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the executor on which retries of deletions are scheduled, creating it if necessary.
+	 *
+	 * @return the executor on which retries of deletions are scheduled.
+	 */
+
+	private static synchronized ScheduledExecutorService deletionScheduler()
+	{
+		if (deletionScheduler == null)
+		{
+			deletionScheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+					DaemonFactory.create(DELETION_SCHEDULER_THREAD_NAME, runnable));
+		}
+		return deletionScheduler;
+	}
+
+	//------------------------------------------------------------------
+
 	/**
 	 * Returns a string representation of the specified file size.
 	 *
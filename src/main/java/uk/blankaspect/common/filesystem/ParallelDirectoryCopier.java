@@ -0,0 +1,592 @@
+/*====================================================================*\
+
+ParallelDirectoryCopier.java
+
+Class: parallel copier of a directory structure.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.common.filesystem;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.IOException;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import uk.blankaspect.common.exception2.FileException;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: PARALLEL COPIER OF A DIRECTORY STRUCTURE
+
+
+/**
+ * This class implements a copier of a directory structure that creates directories and copies files in parallel on the
+ * worker threads of a {@link ForkJoinPool} whose parallelism is bounded.  Each directory is copied by a separate task
+ * that creates the destination directory, lists the source directory and forks a subtask for each regular file and
+ * subdirectory that it contains, so that the creation of directories and the copying of files of a large structure are
+ * overlapped.
+ * <p>
+ * A file whose size is less than a threshold is copied with {@link Files#copy(Path, Path,
+ * java.nio.file.CopyOption...)}; a larger file is copied with {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel) FileChannel.transferTo} in chunks, which allows the operating system to
+ * copy the data without passing it through a user-space buffer and allows the progress of the copy to be reported while
+ * the file is being copied.  In both cases, the last-modified time and, where supported, the POSIX permissions of the
+ * source file are copied to the destination file.  If the transfer of a large file is cancelled, fails or ends before
+ * the end of the file, the partial destination file is deleted and the file is not counted as copied.
+ * </p>
+ * <p>
+ * As in {@link DirectoryUtils#copyDirectory(Path, Path)}, only regular files and directories are copied; symbolic
+ * links are not followed.  The first error that occurs stops the copy, and it is thrown by {@link #copy(Path, Path)}.
+ * The number of files and the number of bytes that have been copied may be obtained on any thread while a copy is in
+ * progress.
+ * </p>
+ */
+
+public class ParallelDirectoryCopier
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The default number of worker threads. */
+	public static final		int		DEFAULT_NUM_THREADS	= 2 * Runtime.getRuntime().availableProcessors();
+
+	/** The minimum size of a file that is copied with {@link FileChannel#transferTo}. */
+	private static final	long	LARGE_FILE_THRESHOLD	= 1L << 20;
+
+	/** The maximum number of bytes of a file that are transferred in a single call to {@link
+		FileChannel#transferTo}. */
+	private static final	long	MAX_TRANSFER_LENGTH	= 1L << 23;
+
+	/** The name of the POSIX file-attribute view. */
+	private static final	String	POSIX_VIEW_NAME	= "posix";
+
+	/** Error messages. */
+	private interface ErrorMsg
+	{
+		String	NOT_A_DIRECTORY =
+				"The location does not denote a directory.";
+
+		String	FAILED_TO_CREATE_DIRECTORY =
+				"Failed to create the directory.";
+
+		String	FAILED_TO_COPY_FILE =
+				"Failed to copy the file.";
+
+		String	FILE_TRANSFER_INCOMPLETE =
+				"The file could not be copied completely; it may have been truncated during the copy.";
+
+		String	ERROR_LISTING_DIRECTORY =
+				"An error occurred when listing the entries of the directory.";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The number of worker threads. */
+	private	int									numThreads;
+
+	/** The number of files that have been copied. */
+	private	AtomicLong							numFilesCopied;
+
+	/** The number of bytes that have been copied. */
+	private	AtomicLong							numBytesCopied;
+
+	/** The first error that occurred in a copy. */
+	private	AtomicReference<FileException>		error;
+
+	/** Flag: if {@code true}, the copy has been cancelled. */
+	private volatile	boolean					cancelled;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a parallel copier of a directory structure that has the {@linkplain
+	 * #DEFAULT_NUM_THREADS default number} of worker threads.
+	 */
+
+	public ParallelDirectoryCopier()
+	{
+		// Call alternative constructor
+		this(DEFAULT_NUM_THREADS);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of a parallel copier of a directory structure that has the specified number of worker
+	 * threads.
+	 *
+	 * @param numThreads
+	 *          the maximum number of files and directories that will be copied concurrently.
+	 */
+
+	public ParallelDirectoryCopier(
+		int	numThreads)
+	{
+		// Validate arguments
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads out of bounds: " + numThreads);
+
+		// Initialise instance variables
+		this.numThreads = numThreads;
+		numFilesCopied = new AtomicLong();
+		numBytesCopied = new AtomicLong();
+		error = new AtomicReference<>();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Copies the directory structure whose root is the specified source directory to the specified destination
+	 * directory, which is created, along with any missing ancestors, if it does not exist.  Existing files in the
+	 * destination are replaced.  This method returns when the copy is complete, an error has occurred or the copy has
+	 * been {@linkplain #cancel() cancelled}.
+	 *
+	 * @param  srcDirectory
+	 *           the location of the source directory.
+	 * @param  destDirectory
+	 *           the location of the destination directory.
+	 * @throws FileException
+	 *           if an error occurs when copying the directory structure.
+	 */
+
+	public void copy(
+		Path	srcDirectory,
+		Path	destDirectory)
+		throws FileException
+	{
+		// Test for source directory
+		if (!Files.isDirectory(srcDirectory, LinkOption.NOFOLLOW_LINKS))
+			throw new FileException(ErrorMsg.NOT_A_DIRECTORY, srcDirectory);
+
+		// If destination exists, test that it's a directory
+		if (Files.exists(destDirectory, LinkOption.NOFOLLOW_LINKS)
+				&& !Files.isDirectory(destDirectory, LinkOption.NOFOLLOW_LINKS))
+			throw new FileException(ErrorMsg.NOT_A_DIRECTORY, destDirectory);
+
+		// Copy directory structure
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try
+		{
+			pool.invoke(new DirectoryTask(srcDirectory, destDirectory, true));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		// If an error occurred, throw it
+		FileException exception = error.get();
+		if (exception != null)
+			throw exception;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Cancels the copy.  Files that are being copied when this method is called may be copied completely; a large file
+	 * whose transfer is interrupted is deleted.  This method may be called on any thread.
+	 */
+
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the copy has been cancelled.
+	 *
+	 * @return {@code true} if the copy has been cancelled.
+	 */
+
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the number of files that have been copied.  This method may be called on any thread.
+	 *
+	 * @return the number of files that have been copied.
+	 */
+
+	public long getNumFilesCopied()
+	{
+		return numFilesCopied.get();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the number of bytes that have been copied.  This method may be called on any thread.
+	 *
+	 * @return the number of bytes that have been copied.
+	 */
+
+	public long getNumBytesCopied()
+	{
+		return numBytesCopied.get();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Records the specified error, if no error has already been recorded, and stops the copy.
+	 *
+	 * @param exception
+	 *          the error that will be recorded.
+	 */
+
+	private void onError(
+		FileException	exception)
+	{
+		error.compareAndSet(null, exception);
+		cancelled = true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Copies the specified source file, whose size is at least {@link #LARGE_FILE_THRESHOLD}, to the specified
+	 * destination file with {@link FileChannel#transferTo}, updating the number of bytes copied after each transfer.
+	 * The permissions and times of the source file are copied only if its entire contents were transferred; if the copy
+	 * is cancelled, ends early or fails, the destination file is deleted.
+	 *
+	 * @param  srcFile
+	 *           the location of the source file.
+	 * @param  destFile
+	 *           the location of the destination file.
+	 * @param  attrs
+	 *           the attributes of the source file.
+	 * @return {@code true} if the file was copied; {@code false} if the copy was cancelled.
+	 * @throws FileException
+	 *           if the contents of the source file could not be transferred completely.
+	 * @throws IOException
+	 *           if an error occurs when copying the file.
+	 */
+
+	private boolean transferFile(
+		Path				srcFile,
+		Path				destFile,
+		BasicFileAttributes	attrs)
+		throws FileException, IOException
+	{
+		boolean copied = false;
+		try
+		{
+			// Copy contents of file
+			try (FileChannel srcChannel = FileChannel.open(srcFile, StandardOpenOption.READ);
+				 FileChannel destChannel = FileChannel.open(destFile, StandardOpenOption.WRITE,
+															StandardOpenOption.CREATE,
+															StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				long size = srcChannel.size();
+				long position = 0;
+				while (position < size)
+				{
+					if (cancelled)
+						return false;
+					long length = srcChannel.transferTo(position, Math.min(size - position, MAX_TRANSFER_LENGTH),
+														destChannel);
+					if (length == 0)
+						throw new FileException(ErrorMsg.FILE_TRANSFER_INCOMPLETE, srcFile);
+					position += length;
+					numBytesCopied.addAndGet(length);
+				}
+			}
+
+			// Copy permissions
+			if (Files.getFileStore(destFile).supportsFileAttributeView(POSIX_VIEW_NAME))
+			{
+				Files.getFileAttributeView(destFile, PosixFileAttributeView.class)
+						.setPermissions(Files.readAttributes(srcFile, PosixFileAttributes.class).permissions());
+			}
+
+			// Copy times
+			Files.getFileAttributeView(destFile, BasicFileAttributeView.class)
+					.setTimes(attrs.lastModifiedTime(), attrs.lastAccessTime(), null);
+
+			// Indicate success
+			copied = true;
+		}
+		finally
+		{
+			// Delete incomplete destination file
+			if (!copied)
+			{
+				try
+				{
+					Files.deleteIfExists(destFile);
+				}
+				catch (IOException e)
+				{
+					// ignore
+				}
+			}
+		}
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: DIRECTORY TASK
+
+
+	/**
+	 * This class implements a task that creates a destination directory, lists the corresponding source directory and
+	 * forks a subtask for each regular file and subdirectory of the source directory.
+	 */
+
+	private class DirectoryTask
+		extends RecursiveAction
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The source directory. */
+		private	Path	srcDirectory;
+
+		/** The destination directory. */
+		private	Path	destDirectory;
+
+		/** Flag: if {@code true}, missing ancestors of the destination directory are created. */
+		private	boolean	createAncestors;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that copies the specified source directory to the specified destination
+		 * directory.
+		 *
+		 * @param srcDirectory
+		 *          the source directory.
+		 * @param destDirectory
+		 *          the destination directory.
+		 * @param createAncestors
+		 *          if {@code true}, missing ancestors of {@code destDirectory} will be created.
+		 */
+
+		private DirectoryTask(
+			Path	srcDirectory,
+			Path	destDirectory,
+			boolean	createAncestors)
+		{
+			// Initialise instance variables
+			this.srcDirectory = srcDirectory;
+			this.destDirectory = destDirectory;
+			this.createAncestors = createAncestors;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		protected void compute()
+		{
+			// Stop if copy has been cancelled
+			if (cancelled)
+				return;
+
+			// Create destination directory
+			try
+			{
+				if (createAncestors)
+					Files.createDirectories(destDirectory);
+				else if (!Files.isDirectory(destDirectory, LinkOption.NOFOLLOW_LINKS))
+					Files.createDirectory(destDirectory);
+			}
+			catch (IOException e)
+			{
+				onError(new FileException(ErrorMsg.FAILED_TO_CREATE_DIRECTORY, e, destDirectory));
+				return;
+			}
+
+			// List source directory
+			List<RecursiveAction> subtasks = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(srcDirectory))
+			{
+				for (Path entry : stream)
+				{
+					// Stop if copy has been cancelled
+					if (cancelled)
+						return;
+
+					// Create subtask for regular file or subdirectory
+					Path destination = destDirectory.resolve(entry.getFileName().toString());
+					if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+						subtasks.add(new DirectoryTask(entry, destination, false));
+					else if (Files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS))
+						subtasks.add(new FileTask(entry, destination));
+				}
+			}
+			catch (DirectoryIteratorException e)
+			{
+				onError(new FileException(ErrorMsg.ERROR_LISTING_DIRECTORY, e.getCause(), srcDirectory));
+				return;
+			}
+			catch (Exception e)
+			{
+				onError(new FileException(ErrorMsg.ERROR_LISTING_DIRECTORY, e, srcDirectory));
+				return;
+			}
+
+			// Copy files and subdirectories
+			if (!subtasks.isEmpty())
+				invokeAll(subtasks);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+	// CLASS: FILE TASK
+
+
+	/**
+	 * This class implements a task that copies a regular file.
+	 */
+
+	private class FileTask
+		extends RecursiveAction
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The source file. */
+		private	Path	srcFile;
+
+		/** The destination file. */
+		private	Path	destFile;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that copies the specified source file to the specified destination file.
+		 *
+		 * @param srcFile
+		 *          the source file.
+		 * @param destFile
+		 *          the destination file.
+		 */
+
+		private FileTask(
+			Path	srcFile,
+			Path	destFile)
+		{
+			// Initialise instance variables
+			this.srcFile = srcFile;
+			this.destFile = destFile;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		protected void compute()
+		{
+			// Stop if copy has been cancelled
+			if (cancelled)
+				return;
+
+			// Copy file
+			try
+			{
+				BasicFileAttributes attrs =
+						Files.readAttributes(srcFile, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+				if (attrs.size() < LARGE_FILE_THRESHOLD)
+				{
+					Files.copy(srcFile, destFile, StandardCopyOption.REPLACE_EXISTING,
+							   StandardCopyOption.COPY_ATTRIBUTES);
+					numBytesCopied.addAndGet(attrs.size());
+					numFilesCopied.incrementAndGet();
+				}
+				else if (transferFile(srcFile, destFile, attrs))
+					numFilesCopied.incrementAndGet();
+			}
+			catch (FileException e)
+			{
+				onError(e);
+			}
+			catch (Exception e)
+			{
+				onError(new FileException(ErrorMsg.FAILED_TO_COPY_FILE, e, srcFile));
+			}
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
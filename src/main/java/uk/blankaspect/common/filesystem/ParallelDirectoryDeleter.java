@@ -0,0 +1,631 @@
+/*====================================================================*\
+
+ParallelDirectoryDeleter.java
+
+Class: parallel deleter of a directory structure.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.common.filesystem;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.blankaspect.common.exception2.FileException;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: PARALLEL DELETER OF A DIRECTORY STRUCTURE
+
+
+/**
+ * This class implements a deleter of a directory structure that deletes files and directories in parallel on the
+ * worker threads of a {@link ForkJoinPool} whose parallelism is bounded.  Each directory is listed by a separate task,
+ * which forks a subtask for each subdirectory and for each batch of other entries, so that the leaves of a wide
+ * structure are deleted by all the workers at once.
+ * <p>
+ * The structure is deleted from the bottom up without a second traversal: each directory keeps a count of its entries
+ * that have not yet been deleted, and it is deleted as soon as the count falls to zero, on whichever thread deleted its
+ * last entry.  A file or directory that cannot be deleted at the first attempt (for example, because it is locked
+ * transiently by another process) is retried by {@link FileSystemUtils#deleteWithRetriesAsync(Path, int, int)} on a
+ * shared scheduler, so that a worker thread is not blocked while it waits for the next attempt.
+ * </p>
+ * <p>
+ * Symbolic links are not followed: a link is deleted, not its target.  The first error that occurs stops the deletion,
+ * and it is thrown by {@link #delete(Path, boolean)}.  The number of files and directories that have been deleted may
+ * be obtained on any thread while a deletion is in progress.
+ * </p>
+ * <p>
+ * A deleter may be used for several deletions in succession.  Each deletion has its own completion future, which is
+ * shared by the nodes of its directories, so that a retry that is still pending from an earlier deletion that was
+ * cancelled or failed does not affect a later one.
+ * </p>
+ */
+
+public class ParallelDirectoryDeleter
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The default number of worker threads. */
+	public static final		int		DEFAULT_NUM_THREADS	= Runtime.getRuntime().availableProcessors();
+
+	/** The default maximum number of attempts that are made to delete a file or directory. */
+	public static final		int		DEFAULT_MAX_NUM_ATTEMPTS	= 3;
+
+	/** The interval in milliseconds between successive attempts to delete a file or directory. */
+	private static final	int		DELETION_INTERVAL	= 100;
+
+	/** The maximum number of entries other than directories that are deleted by a single task. */
+	private static final	int		MAX_BATCH_SIZE	= 256;
+
+	/** Error messages. */
+	private interface ErrorMsg
+	{
+		String	NOT_A_DIRECTORY =
+				"The location does not denote a directory.";
+
+		String	FAILED_TO_DELETE_FILE =
+				"Failed to delete the file.";
+
+		String	FAILED_TO_DELETE_DIRECTORY =
+				"Failed to delete the directory.";
+
+		String	ERROR_LISTING_DIRECTORY =
+				"An error occurred when listing the entries of the directory.";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The number of worker threads. */
+	private	int									numThreads;
+
+	/** The maximum number of attempts that are made to delete a file or directory. */
+	private	int									maxNumAttempts;
+
+	/** The number of files and directories that have been deleted in the current deletion. */
+	private	AtomicLong							numDeleted;
+
+	/** The future that is completed when the current deletion is complete or has been cancelled, or is completed
+		exceptionally with the first error that occurred in the deletion. */
+	private volatile	CompletableFuture<Void>	completion;
+
+	/** Flag: if {@code true}, the deletion has been cancelled. */
+	private volatile	boolean					cancelled;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a parallel deleter of a directory structure that has the {@linkplain
+	 * #DEFAULT_NUM_THREADS default number} of worker threads and makes the {@linkplain #DEFAULT_MAX_NUM_ATTEMPTS
+	 * default number} of attempts to delete each file or directory.
+	 */
+
+	public ParallelDirectoryDeleter()
+	{
+		// Call alternative constructor
+		this(DEFAULT_NUM_THREADS, DEFAULT_MAX_NUM_ATTEMPTS);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of a parallel deleter of a directory structure that has the specified number of worker
+	 * threads and makes the specified maximum number of attempts to delete each file or directory.
+	 *
+	 * @param numThreads
+	 *          the number of worker threads.
+	 * @param maxNumAttempts
+	 *          the maximum number of attempts that will be made to delete each file or directory.
+	 */
+
+	public ParallelDirectoryDeleter(
+		int	numThreads,
+		int	maxNumAttempts)
+	{
+		// Validate arguments
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads out of bounds: " + numThreads);
+		if (maxNumAttempts < 1)
+			throw new IllegalArgumentException("Maximum number of attempts out of bounds: " + maxNumAttempts);
+
+		// Initialise instance variables
+		this.numThreads = numThreads;
+		this.maxNumAttempts = maxNumAttempts;
+		numDeleted = new AtomicLong();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Deletes the contents of the directory at the specified location and, optionally, the directory itself.  If the
+	 * directory does not exist, this method does nothing.  This method returns when the deletion is complete, including
+	 * any retries, an error has occurred or the deletion has been {@linkplain #cancel() cancelled}.  The state of any
+	 * earlier deletion, including its cancellation and the number of locations that it deleted, is discarded.
+	 *
+	 * @param  directory
+	 *           the location of the directory that will be deleted.
+	 * @param  contentsOnly
+	 *           if {@code true}, only the contents of the directory will be deleted; the directory itself will not be
+	 *           deleted.
+	 * @throws FileException
+	 *           if an error occurs when listing a directory or when deleting a file or directory.
+	 */
+
+	public void delete(
+		Path	directory,
+		boolean	contentsOnly)
+		throws FileException
+	{
+		// Validate arguments
+		if (directory == null)
+			throw new IllegalArgumentException("Null location");
+
+		// Test for directory
+		if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS))
+			return;
+		if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS))
+			throw new FileException(ErrorMsg.NOT_A_DIRECTORY, directory);
+
+		// Reset state
+		CompletableFuture<Void> completion = new CompletableFuture<>();
+		this.completion = completion;
+		cancelled = false;
+		numDeleted.set(0);
+
+		// Delete directory structure; if an error occurred, throw it
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try
+		{
+			pool.invoke(new DirectoryTask(new DirectoryNode(directory, null, !contentsOnly, completion)));
+			completion.join();
+		}
+		catch (CompletionException e)
+		{
+			throw (FileException)e.getCause();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Cancels the current deletion.  Files and directories whose deletion has been scheduled when this method is called
+	 * may still be deleted.  This method may be called on any thread.
+	 */
+
+	public void cancel()
+	{
+		cancelled = true;
+		CompletableFuture<Void> future = completion;
+		if (future != null)
+			future.complete(null);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the deletion has been cancelled.
+	 *
+	 * @return {@code true} if the deletion has been cancelled.
+	 */
+
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the number of files and directories that have been deleted.  This method may be called on any thread.
+	 *
+	 * @return the number of files and directories that have been deleted.
+	 */
+
+	public long getNumDeleted()
+	{
+		return numDeleted.get();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Completes the specified deletion exceptionally with the specified error and stops the deletion, unless the
+	 * deletion has already been completed.
+	 *
+	 * @param exception
+	 *          the error that will be recorded.
+	 * @param completion
+	 *          the future of the deletion in which the error occurred.
+	 */
+
+	private void onError(
+		FileException			exception,
+		CompletableFuture<Void>	completion)
+	{
+		if (completion.completeExceptionally(exception))
+			cancelled = true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Deletes the file or directory at the specified location.  If the first attempt fails, the deletion is retried on
+	 * a shared scheduler.  When the location has been deleted, the specified parent directory is notified.  Any
+	 * exception that is thrown, whether on the calling thread or on the scheduler, completes the deletion
+	 * exceptionally.
+	 *
+	 * @param location
+	 *          the location of the file or directory that will be deleted.
+	 * @param parent
+	 *          the directory that contains {@code location}, or {@code null} if {@code location} is the root of the
+	 *          structure.
+	 * @param errorMessage
+	 *          the message of the exception that will be recorded if the file or directory cannot be deleted.
+	 * @param completion
+	 *          the future of the deletion to which {@code location} belongs.
+	 */
+
+	private void deleteLocation(
+		Path					location,
+		DirectoryNode			parent,
+		String					errorMessage,
+		CompletableFuture<Void>	completion)
+	{
+		// Stop if deletion has been completed or cancelled
+		if (completion.isDone())
+			return;
+
+		// Delete location and notify parent
+		try
+		{
+			FileSystemUtils.deleteWithRetriesAsync(location, maxNumAttempts, DELETION_INTERVAL)
+					.whenComplete((deleted, exception) ->
+					{
+						try
+						{
+							if (exception != null)
+								onError(new FileException(errorMessage, exception, location), completion);
+							else if (!completion.isDone())
+							{
+								numDeleted.incrementAndGet();
+								if (parent == null)
+									completion.complete(null);
+								else
+									parent.onEntryDeleted();
+							}
+						}
+						catch (Throwable e)
+						{
+							onError(new FileException(errorMessage, e, location), completion);
+						}
+					});
+		}
+		catch (Throwable e)
+		{
+			onError(new FileException(errorMessage, e, location), completion);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: DIRECTORY NODE
+
+
+	/**
+	 * This class implements a node that represents a directory of the structure that is being deleted.  The node keeps
+	 * a count of the entries of the directory that have not yet been deleted, and it deletes the directory when the
+	 * count falls to zero.  While the directory is being listed, the count includes an extra unit, so that the
+	 * directory is not deleted before all its entries have been counted.
+	 */
+
+	private class DirectoryNode
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The location of the directory. */
+		private	Path					location;
+
+		/** The node of the parent of the directory, or {@code null} if the directory is the root of the structure. */
+		private	DirectoryNode			parent;
+
+		/** Flag: if {@code true}, the directory is deleted when it is empty. */
+		private	boolean					deleteSelf;
+
+		/** The number of entries of the directory that have not been deleted, plus one while it is being listed. */
+		private	AtomicInteger			numPending;
+
+		/** The future of the deletion to which the directory belongs. */
+		private	CompletableFuture<Void>	completion;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a node for the specified directory.
+		 *
+		 * @param location
+		 *          the location of the directory.
+		 * @param parent
+		 *          the node of the parent of the directory, or {@code null} if the directory is the root of the
+		 *          structure.
+		 * @param deleteSelf
+		 *          if {@code true}, the directory will be deleted when it is empty.
+		 * @param completion
+		 *          the future of the deletion to which the directory belongs.
+		 */
+
+		private DirectoryNode(
+			Path					location,
+			DirectoryNode			parent,
+			boolean					deleteSelf,
+			CompletableFuture<Void>	completion)
+		{
+			// Initialise instance variables
+			this.location = location;
+			this.parent = parent;
+			this.deleteSelf = deleteSelf;
+			this.completion = completion;
+			numPending = new AtomicInteger(1);
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Increments the number of entries of the directory that have not been deleted.
+		 */
+
+		private void onEntryFound()
+		{
+			numPending.incrementAndGet();
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Decrements the number of entries of the directory that have not been deleted and, if the directory is now
+		 * empty, deletes it or, if it is the root of the structure and is not to be deleted, completes the deletion.
+		 */
+
+		private void onEntryDeleted()
+		{
+			if (numPending.decrementAndGet() == 0)
+			{
+				if (deleteSelf)
+					deleteLocation(location, parent, ErrorMsg.FAILED_TO_DELETE_DIRECTORY, completion);
+				else
+					completion.complete(null);
+			}
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+	// CLASS: DIRECTORY TASK
+
+
+	/**
+	 * This class implements a task that lists a directory and forks a subtask for each subdirectory and for each batch
+	 * of other entries.
+	 */
+
+	private class DirectoryTask
+		extends RecursiveAction
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The node of the directory that will be listed. */
+		private	DirectoryNode	node;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that lists the directory of the specified node.
+		 *
+		 * @param node
+		 *          the node of the directory that will be listed.
+		 */
+
+		private DirectoryTask(
+			DirectoryNode	node)
+		{
+			// Initialise instance variables
+			this.node = node;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		protected void compute()
+		{
+			// Stop if deletion has been completed or cancelled
+			if (node.completion.isDone())
+				return;
+
+			// List directory
+			List<RecursiveAction> subtasks = new ArrayList<>();
+			List<Path> batch = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(node.location))
+			{
+				for (Path entry : stream)
+				{
+					// Stop if deletion has been completed or cancelled
+					if (node.completion.isDone())
+						return;
+
+					// Count entry
+					node.onEntryFound();
+
+					// Create subtask for subdirectory or add entry to batch
+					if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+						subtasks.add(new DirectoryTask(new DirectoryNode(entry, node, true, node.completion)));
+					else
+					{
+						batch.add(entry);
+						if (batch.size() == MAX_BATCH_SIZE)
+						{
+							subtasks.add(new BatchTask(batch, node));
+							batch = new ArrayList<>();
+						}
+					}
+				}
+			}
+			catch (DirectoryIteratorException e)
+			{
+				onError(new FileException(ErrorMsg.ERROR_LISTING_DIRECTORY, e.getCause(), node.location),
+						node.completion);
+				return;
+			}
+			catch (Exception e)
+			{
+				onError(new FileException(ErrorMsg.ERROR_LISTING_DIRECTORY, e, node.location), node.completion);
+				return;
+			}
+			if (!batch.isEmpty())
+				subtasks.add(new BatchTask(batch, node));
+
+			// Release the count that prevented the directory from being deleted while it was being listed
+			node.onEntryDeleted();
+
+			// Delete entries
+			if (!subtasks.isEmpty())
+				invokeAll(subtasks);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+	// CLASS: BATCH TASK
+
+
+	/**
+	 * This class implements a task that deletes a batch of entries of a directory, none of which is a directory.
+	 */
+
+	private class BatchTask
+		extends RecursiveAction
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The entries that will be deleted. */
+		private	List<Path>		entries;
+
+		/** The node of the directory that contains the entries. */
+		private	DirectoryNode	parent;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that deletes the specified entries of a directory.
+		 *
+		 * @param entries
+		 *          the entries that will be deleted.
+		 * @param parent
+		 *          the node of the directory that contains {@code entries}.
+		 */
+
+		private BatchTask(
+			List<Path>		entries,
+			DirectoryNode	parent)
+		{
+			// Initialise instance variables
+			this.entries = entries;
+			this.parent = parent;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		protected void compute()
+		{
+			for (Path entry : entries)
+				deleteLocation(entry, parent, ErrorMsg.FAILED_TO_DELETE_FILE, parent.completion);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,379 @@
+/*====================================================================*\
+
+ParallelFileTreeWalker.java
+
+Class: parallel walker of a file tree.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.common.filesystem;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import java.util.function.Predicate;
+
+import uk.blankaspect.common.exception2.FileException;
+
+import uk.blankaspect.common.function.IProcedure1;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: PARALLEL WALKER OF A FILE TREE
+
+
+/**
+ * This class implements a walker of a file tree that lists directories in parallel on the worker threads of a {@link
+ * ForkJoinPool}.  Each directory is listed by a separate task, and the subdirectories that it contains are listed by
+ * subtasks that idle workers may steal, so that a wide tree is traversed by all the workers at once.
+ * <p>
+ * The locations that are encountered in the walk are not collected: they are passed to a consumer in batches as soon as
+ * each directory has been listed, so that a client can process the first locations of a large tree while the rest of
+ * the tree is being traversed.  Each location is passed with the attributes that the walker read for it, so that a
+ * client does not need to read them again.  The consumer is invoked concurrently on several threads; if it blocks, the
+ * walk is suspended, which allows a client to apply back-pressure.
+ * </p>
+ * <p>
+ * Symbolic links are not followed.  The order in which locations are passed to the consumer is unspecified.
+ * </p>
+ */
+
+public class ParallelFileTreeWalker
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The value of the maximum depth of a walk that denotes that the depth is unlimited. */
+	public static final		int		UNLIMITED_DEPTH	= Integer.MAX_VALUE;
+
+	/** The maximum number of locations in a batch that is passed to the consumer. */
+	private static final	int		MAX_BATCH_SIZE	= 1024;
+
+	/** Error messages. */
+	private interface ErrorMsg
+	{
+		String	ERROR_LISTING_DIRECTORY =
+				"An error occurred when listing the entries of the directory.";
+
+		String	FAILED_TO_VISIT_FILE =
+				"The file or directory could not be processed.";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The filter that is applied to each location that is encountered in a walk. */
+	private	Predicate<Path>					filter;
+
+	/** Flag: if {@code true}, directories that are accepted by {@link #filter} are passed to the consumer. */
+	private	boolean							includeDirectories;
+
+	/** The maximum depth of a walk. */
+	private	int								maxDepth;
+
+	/** The procedure that is invoked with each batch of locations. */
+	private	IProcedure1<List<Entry>>		consumer;
+
+	/** The procedure that is invoked with each error that occurs in a walk. */
+	private	IProcedure1<FileException>		errorHandler;
+
+	/** Flag: if {@code true}, the walk has been cancelled. */
+	private volatile	boolean				cancelled;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a parallel walker of a file tree.
+	 *
+	 * @param filter
+	 *          the filter that will be applied to the location of each file and directory that is encountered in a
+	 *          walk.  If it is {@code null}, all locations will be accepted.
+	 * @param includeDirectories
+	 *          if {@code true}, the locations of directories that are accepted by {@code filter} will be passed to the
+	 *          consumer; otherwise, only the locations of other kinds of file will be passed to the consumer.
+	 * @param maxDepth
+	 *          the maximum depth of a walk.  The entries of the root directory of a walk have a depth of 1.  If it is
+	 *          {@link #UNLIMITED_DEPTH}, the depth of a walk is unlimited.
+	 * @param consumer
+	 *          the procedure that will be invoked with each batch of entries for the locations that are encountered in
+	 *          a walk and that are accepted by {@code filter}.  It may be invoked concurrently on several threads.
+	 * @param errorHandler
+	 *          the procedure that will be invoked with each error that occurs in a walk, which will then continue.  If
+	 *          it is {@code null}, errors will be ignored.
+	 */
+
+	public ParallelFileTreeWalker(
+		Predicate<Path>				filter,
+		boolean						includeDirectories,
+		int							maxDepth,
+		IProcedure1<List<Entry>>	consumer,
+		IProcedure1<FileException>	errorHandler)
+	{
+		// Validate arguments
+		if (maxDepth < 1)
+			throw new IllegalArgumentException("Maximum depth out of bounds: " + maxDepth);
+		if (consumer == null)
+			throw new IllegalArgumentException("Null consumer");
+
+		// Initialise instance variables
+		this.filter = filter;
+		this.includeDirectories = includeDirectories;
+		this.maxDepth = maxDepth;
+		this.consumer = consumer;
+		this.errorHandler = errorHandler;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Walks the file tree whose root is the specified directory, passing the locations of the files and directories
+	 * that are encountered in the walk (excluding the root) to the consumer of this walker.  This method returns when
+	 * the walk is complete or has been {@linkplain #cancel() cancelled}.
+	 *
+	 * @param directory
+	 *          the root of the file tree that will be walked.
+	 */
+
+	public void walk(
+		Path	directory)
+	{
+		ForkJoinPool pool = new ForkJoinPool();
+		try
+		{
+			pool.invoke(new DirectoryTask(directory, 0));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Cancels the walk.  Directories that are being listed when this method is called may still pass a batch of
+	 * locations to the consumer.  This method may be called on any thread.
+	 */
+
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the walk has been cancelled.
+	 *
+	 * @return {@code true} if the walk has been cancelled.
+	 */
+
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Reports the specified error to the error handler of this walker, if there is one.
+	 *
+	 * @param exception
+	 *          the error that will be reported.
+	 */
+
+	private void onError(
+		FileException	exception)
+	{
+		if (errorHandler != null)
+			errorHandler.invoke(exception);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: ENTRY OF A BATCH OF LOCATIONS
+
+
+	/**
+	 * This record encapsulates a location that is encountered in a walk and the attributes of the file or directory at
+	 * the location.  The attributes are read without following symbolic links.
+	 *
+	 * @param location
+	 *          the location.
+	 * @param attributes
+	 *          the attributes of the file or directory at {@code location}.
+	 */
+
+	public record Entry(
+		Path				location,
+		BasicFileAttributes	attributes)
+	{ }
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: DIRECTORY TASK
+
+
+	/**
+	 * This class implements a task that lists a directory, passes the accepted entries to the consumer and forks a
+	 * subtask for each subdirectory whose depth is less than the maximum depth.
+	 */
+
+	private class DirectoryTask
+		extends RecursiveAction
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The directory that will be listed. */
+		private	Path	directory;
+
+		/** The depth of the directory in the file tree. */
+		private	int		depth;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that lists the specified directory.
+		 *
+		 * @param directory
+		 *          the directory that will be listed.
+		 * @param depth
+		 *          the depth of {@code directory} in the file tree.
+		 */
+
+		private DirectoryTask(
+			Path	directory,
+			int		depth)
+		{
+			// Initialise instance variables
+			this.directory = directory;
+			this.depth = depth;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		protected void compute()
+		{
+			// Stop if walk has been cancelled
+			if (cancelled)
+				return;
+
+			// List directory
+			int entryDepth = depth + 1;
+			List<Entry> batch = new ArrayList<>();
+			List<DirectoryTask> subtasks = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+			{
+				for (Path entry : stream)
+				{
+					// Stop if walk has been cancelled
+					if (cancelled)
+						return;
+
+					// Get attributes of entry
+					BasicFileAttributes attrs = null;
+					try
+					{
+						attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					}
+					catch (Exception e)
+					{
+						onError(new FileException(ErrorMsg.FAILED_TO_VISIT_FILE, e, entry));
+						continue;
+					}
+
+					// Add entry to batch if it is accepted by filter
+					boolean isDirectory = attrs.isDirectory();
+					if ((!isDirectory || includeDirectories) && ((filter == null) || filter.test(entry)))
+					{
+						batch.add(new Entry(entry, attrs));
+						if (batch.size() == MAX_BATCH_SIZE)
+						{
+							consumer.invoke(batch);
+							batch = new ArrayList<>();
+						}
+					}
+
+					// Create subtask for subdirectory
+					if (isDirectory && (entryDepth < maxDepth))
+						subtasks.add(new DirectoryTask(entry, entryDepth));
+				}
+			}
+			catch (DirectoryIteratorException e)
+			{
+				onError(new FileException(ErrorMsg.ERROR_LISTING_DIRECTORY, e.getCause(), directory));
+			}
+			catch (Exception e)
+			{
+				onError(new FileException(ErrorMsg.ERROR_LISTING_DIRECTORY, e, directory));
+			}
+
+			// Pass remaining entries to consumer
+			if (!batch.isEmpty() && !cancelled)
+				consumer.invoke(batch);
+
+			// List subdirectories
+			if (!subtasks.isEmpty())
+				invokeAll(subtasks);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -252,6 +252,44 @@ public class PathnameUtils
 
 	//------------------------------------------------------------------
 
+	/**
+	 * Compiles the specified suffixes (filename extensions, for example) into a matcher that tests a pathname against
+	 * all of them in a single pass.  The matcher ignores letter case if {@link #ignoreFilenameCase} is {@code true} when
+	 * this method is called.  A matcher should be preferred to {@link #suffixMatches(String, Iterable)} when many
+	 * pathnames are tested against the same suffixes.
+	 *
+	 * @param  suffixes
+	 *           the suffixes that will be compiled.
+	 * @return a matcher for {@code suffixes}.
+	 */
+
+	public static SuffixMatcher suffixMatcher(
+		Iterable<String>	suffixes)
+	{
+		return new SuffixMatcher(suffixes, ignoreFilenameCase);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Compiles the specified suffixes (filename extensions, for example) into a matcher that tests a pathname against
+	 * all of them in a single pass.  The matcher ignores letter case if {@link #ignoreFilenameCase} is {@code true} when
+	 * this method is called.  A matcher should be preferred to {@link #suffixMatches(String, String...)} when many
+	 * pathnames are tested against the same suffixes.
+	 *
+	 * @param  suffixes
+	 *           the suffixes that will be compiled.
+	 * @return a matcher for {@code suffixes}.
+	 */
+
+	public static SuffixMatcher suffixMatcher(
+		String...	suffixes)
+	{
+		return suffixMatcher(List.of(suffixes));
+	}
+
+	//------------------------------------------------------------------
+
 }
 
 //----------------------------------------------------------------------
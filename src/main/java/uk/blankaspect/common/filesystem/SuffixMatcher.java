@@ -0,0 +1,426 @@
+/*====================================================================*\
+
+SuffixMatcher.java
+
+Class: matcher of a set of pathname suffixes.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.common.filesystem;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: MATCHER OF A SET OF PATHNAME SUFFIXES
+
+
+/**
+ * This class implements a matcher that tests whether a pathname ends with any of a set of suffixes (filename
+ * extensions, for example).
+ * <p>
+ * The suffixes are compiled into a trie of their characters in reverse order, so that a pathname is tested against all
+ * the suffixes in a single pass over its final characters, instead of being compared with each suffix in turn.  The
+ * cost of a test therefore depends on the length of the longest suffix rather than on the number of suffixes.  The
+ * trie is immutable once it has been built, so a matcher may be used by several threads concurrently.
+ * </p>
+ * <p>
+ * If letter case is ignored, two characters match if they are equal after conversion to upper case and then to lower
+ * case, which is the same test that is applied by {@link String#equalsIgnoreCase(String)}.
+ * </p>
+ */
+
+public class SuffixMatcher
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The maximum number of children of a node of the trie that are searched linearly rather than by bisection. */
+	private static final	int		MAX_LINEAR_SEARCH_LENGTH	= 8;
+
+	/** An empty array of keys of the children of a node. */
+	private static final	char[]	NO_KEYS	= new char[0];
+
+	/** An empty array of children of a node. */
+	private static final	Node[]	NO_CHILDREN	= new Node[0];
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** Flag: if {@code true}, letter case is ignored when a pathname is matched against the suffixes. */
+	private	boolean			ignoreCase;
+
+	/** The suffixes of this matcher, in the order in which they were specified. */
+	private	List<String>	suffixes;
+
+	/** The root of the trie of reversed suffixes. */
+	private	Node			root;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a matcher for the specified suffixes.
+	 *
+	 * @param suffixes
+	 *          the suffixes against which pathnames will be matched.  If two suffixes are equal (ignoring letter case if
+	 *          {@code ignoreCase} is {@code true}), the first one is reported as the matching suffix.
+	 * @param ignoreCase
+	 *          if {@code true}, letter case will be ignored when a pathname is matched against the suffixes.
+	 */
+
+	public SuffixMatcher(
+		Iterable<String>	suffixes,
+		boolean				ignoreCase)
+	{
+		// Initialise instance variables
+		this.ignoreCase = ignoreCase;
+		List<String> suffixList = new ArrayList<>();
+
+		// Build trie of reversed suffixes
+		Builder rootBuilder = new Builder();
+		for (String suffix : suffixes)
+		{
+			suffixList.add(suffix);
+			Builder builder = rootBuilder;
+			for (int i = suffix.length() - 1; i >= 0; i--)
+				builder = builder.children.computeIfAbsent(fold(suffix.charAt(i)), key -> new Builder());
+			if (builder.suffix == null)
+				builder.suffix = suffix;
+		}
+		this.suffixes = Collections.unmodifiableList(suffixList);
+
+		// Convert trie to compact form
+		root = rootBuilder.build();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of a matcher for the specified suffixes.
+	 *
+	 * @param ignoreCase
+	 *          if {@code true}, letter case will be ignored when a pathname is matched against the suffixes.
+	 * @param suffixes
+	 *          the suffixes against which pathnames will be matched.  If two suffixes are equal (ignoring letter case if
+	 *          {@code ignoreCase} is {@code true}), the first one is reported as the matching suffix.
+	 */
+
+	public SuffixMatcher(
+		boolean		ignoreCase,
+		String...	suffixes)
+	{
+		this(List.of(suffixes), ignoreCase);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns {@code true} if letter case is ignored when a pathname is matched against the suffixes of this matcher.
+	 *
+	 * @return {@code true} if letter case is ignored when a pathname is matched against the suffixes of this matcher.
+	 */
+
+	public boolean isIgnoreCase()
+	{
+		return ignoreCase;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns an unmodifiable list of the suffixes of this matcher, in the order in which they were specified.
+	 *
+	 * @return an unmodifiable list of the suffixes of this matcher.
+	 */
+
+	public List<String> getSuffixes()
+	{
+		return suffixes;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the specified pathname ends with any of the suffixes of this matcher.
+	 *
+	 * @param  pathname
+	 *           the pathname of interest.
+	 * @return {@code true} if {@code pathname} ends with any of the suffixes of this matcher.
+	 */
+
+	public boolean matches(
+		CharSequence	pathname)
+	{
+		Node node = root;
+		int index = pathname.length();
+		while (node.suffix == null)
+		{
+			if (index == 0)
+				return false;
+			node = node.child(fold(pathname.charAt(--index)));
+			if (node == null)
+				return false;
+		}
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the string representation of the specified file-system location ends with any of the
+	 * suffixes of this matcher.
+	 *
+	 * @param  location
+	 *           the location of interest.
+	 * @return {@code true} if the string representation of {@code location} ends with any of the suffixes of this
+	 *         matcher.
+	 */
+
+	public boolean matches(
+		Path	location)
+	{
+		return matches(location.toString());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the longest of the suffixes of this matcher that matches the end of the specified pathname.
+	 *
+	 * @param  pathname
+	 *           the pathname of interest.
+	 * @return the longest of the suffixes of this matcher that matches the end of {@code pathname}, or {@code null} if
+	 *         none of the suffixes matches.
+	 */
+
+	public String matchingSuffix(
+		CharSequence	pathname)
+	{
+		String result = null;
+		Node node = root;
+		int index = pathname.length();
+		while (node != null)
+		{
+			if (node.suffix != null)
+				result = node.suffix;
+			if (index == 0)
+				break;
+			node = node.child(fold(pathname.charAt(--index)));
+		}
+		return result;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the specified character folded for comparison: the character itself if letter case is not ignored;
+	 * otherwise, the character converted to upper case and then to lower case.
+	 *
+	 * @param  ch
+	 *           the character that will be folded.
+	 * @return {@code ch} folded for comparison.
+	 */
+
+	private char fold(
+		char	ch)
+	{
+		return ignoreCase ? Character.toLowerCase(Character.toUpperCase(ch)) : ch;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: NODE OF A TRIE
+
+
+	/**
+	 * This class implements an immutable node of a trie of reversed suffixes.  The keys of the children of the node are
+	 * held in ascending order in an array that is parallel to the array of children.
+	 */
+
+	private static class Node
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The keys of the children of this node, in ascending order. */
+		private	char[]	keys;
+
+		/** The children of this node. */
+		private	Node[]	children;
+
+		/** The suffix that ends at this node, or {@code null} if no suffix ends at this node. */
+		private	String	suffix;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a node of a trie of reversed suffixes.
+		 *
+		 * @param keys
+		 *          the keys of the children of the node, in ascending order.
+		 * @param children
+		 *          the children of the node.
+		 * @param suffix
+		 *          the suffix that ends at the node, or {@code null} if no suffix ends at the node.
+		 */
+
+		private Node(
+			char[]	keys,
+			Node[]	children,
+			String	suffix)
+		{
+			// Initialise instance variables
+			this.keys = keys;
+			this.children = children;
+			this.suffix = suffix;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the child of this node that has the specified key.
+		 *
+		 * @param  key
+		 *           the key of the required child.
+		 * @return the child of this node whose key is {@code key}, or {@code null} if there is no such child.
+		 */
+
+		private Node child(
+			char	key)
+		{
+			int numKeys = keys.length;
+			if (numKeys <= MAX_LINEAR_SEARCH_LENGTH)
+			{
+				for (int i = 0; i < numKeys; i++)
+				{
+					if (keys[i] == key)
+						return children[i];
+				}
+				return null;
+			}
+			int index = Arrays.binarySearch(keys, key);
+			return (index < 0) ? null : children[index];
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+	// CLASS: BUILDER OF A NODE OF A TRIE
+
+
+	/**
+	 * This class implements a mutable node of a trie of reversed suffixes from which an immutable {@link Node} is
+	 * built.
+	 */
+
+	private static class Builder
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** A map from the keys of the children of this node to the children. */
+		private	Map<Character, Builder>	children;
+
+		/** The suffix that ends at this node, or {@code null} if no suffix ends at this node. */
+		private	String					suffix;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a builder of a node of a trie of reversed suffixes.
+		 */
+
+		private Builder()
+		{
+			// Initialise instance variables
+			children = new TreeMap<>();
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Builds and returns an immutable node from this builder and its descendants.
+		 *
+		 * @return an immutable node that corresponds to this builder.
+		 */
+
+		private Node build()
+		{
+			// Case: leaf node
+			int numChildren = children.size();
+			if (numChildren == 0)
+				return new Node(NO_KEYS, NO_CHILDREN, suffix);
+
+			// Case: branch node
+			char[] keys = new char[numChildren];
+			Node[] nodes = new Node[numChildren];
+			int index = 0;
+			for (Map.Entry<Character, Builder> entry : children.entrySet())
+			{
+				keys[index] = entry.getKey();
+				nodes[index++] = entry.getValue().build();
+			}
+			return new Node(keys, nodes, suffix);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
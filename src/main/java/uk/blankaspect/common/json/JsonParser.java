@@ -28,8 +28,7 @@ import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 
 import org.w3c.dom.Element;
 
@@ -66,6 +65,10 @@ import uk.blankaspect.common.jsonxml.JsonXmlUtils;
  *     The {@code parseToXml(\u2026)} methods transform JSON text into a tree of {@linkplain Element XML elements}.
  *     Each XML element corresponds to a JSON value.
  *   </li>
+ *   <li>
+ *     The {@code tokenReader(\u2026)} methods create a {@linkplain TokenReader token reader} that returns the tokens
+ *     of JSON text one at a time without creating a tree.
+ *   </li>
  * </ul>
  * <p>
  * The input text of the parser is expected to conform to the JSON grammar as specified in <a
@@ -74,8 +77,10 @@ import uk.blankaspect.common.jsonxml.JsonXmlUtils;
  * <p>
  * The parser is implemented as a <a href="https://en.wikipedia.org/wiki/Finite-state_machine">finite-state machine</a>
  * (FSM) that terminates with an exception at the first error in the input text.  The FSM combines the lexical analysis
- * and parsing of the input text with the generation of the output (a tree of {@linkplain AbstractNode nodes} or
- * {@linkplain Element XML elements} that correspond to JSON values).
+ * and parsing of the input text, and it is driven by a {@linkplain TokenReader token reader} that returns one token
+ * at a time; the {@code parse(\u2026)} and {@code parseToXml(\u2026)} methods generate their output (a tree of
+ * {@linkplain AbstractNode nodes} or {@linkplain Element XML elements} that correspond to JSON values) from the tokens
+ * of a reader.
  * </p>
  */
 
@@ -89,6 +94,9 @@ public class JsonParser
 	/** Whitespace characters. */
 	private static final	String	WHITESPACE	= "\t\n\r ";
 
+	/** The length of the buffer that holds a block of the input text. */
+	private static final	int		INPUT_BUFFER_LENGTH	= 8192;
+
 	/** Structural characters. */
 	private static final	char[]	STRUCTURAL_CHARS	= new char[]
 	{
@@ -109,12 +117,11 @@ public class JsonParser
 	/** Miscellaneous strings. */
 	private static final	String	CHARACTER_NOT_ALLOWED_STR	= "the character %s at index %d is not allowed.";
 	private static final	String	ENDED_PREMATURELY_STR		= "it ended prematurely at index %d.";
-	private static final	String	UNSUPPORTED_OPERATION_STR	= "Unsupported operation";
 	private static final	String	NULL_INPUT_STREAM_STR		= "Null input stream";
 	private static final	String	NULL_READER_STR				= "Null reader";
 	private static final	String	NULL_TEXT_STR				= "Null text";
 	private static final	String	NO_XML_ELEMENT_FACADE_STR	= "No XML element facade";
-	private static final	String	INVALID_PARENT_STR			= "Unexpected error: invalid parent";
+	private static final	String	UNEXPECTED_TOKEN_STR		= "Unexpected token: %s";
 
 	/** Mappings from characters in an escape sequence to their corresponding literal characters. */
 	private static final	char[][]	ESCAPE_MAPPINGS	=
@@ -214,24 +221,40 @@ public class JsonParser
 
 		String	TOO_LARGE_FOR_INTEGER =
 				"The number is too large for an integer.";
+
+		String	NOT_AN_INT =
+				"The number cannot be represented as an int.";
+
+		String	NOT_A_LONG =
+				"The number cannot be represented as a long.";
 	}
 
 ////////////////////////////////////////////////////////////////////////
 //  Instance variables
 ////////////////////////////////////////////////////////////////////////
 
-	/** The reader of the character stream that is the source of the JSON text. */
+	/** The reader of the character stream that is the source of the JSON text, or {@code null} if the source is a
+		character sequence. */
 	private	Reader			inputReader;
 
-	/** The last character that was read from {@link #inputReader}. */
-	private	char			inputChar;
+	/** The character sequence that is the source of the JSON text, or {@code null} if the source is a reader. */
+	private	CharSequence	inputText;
+
+	/** The index of the first character of {@link #inputText} that has not yet been copied to the input buffer. */
+	private	int				inputTextIndex;
+
+	/** The buffer that holds the current block of the input text. */
+	private	char[]			inputBuffer;
+
+	/** The index of the next character in the input buffer. */
+	private	int				inputBufferIndex;
+
+	/** The number of characters in the input buffer. */
+	private	int				inputBufferLength;
 
 	/** Flag: if {@code true}, the end of the input has been reached. */
 	private	boolean			endOfInput;
 
-	/** Flag: if {@code true}, the last character that was read from the input has been pushed back. */
-	private	boolean			pushedBack;
-
 	/** The index of the next character in the input text. */
 	private	int				index;
 
@@ -272,6 +295,7 @@ public class JsonParser
 		Builder	builder)
 	{
 		// Initialise instance variables
+		inputBuffer = new char[INPUT_BUFFER_LENGTH];
 		tokenBuffer = new StringBuilder();
 		unicodeSeqChars = new char[StringNode.UNICODE_SEQUENCE_LENGTH];
 		xmlElementFacade = builder.elementFacade;
@@ -376,8 +400,12 @@ public class JsonParser
 		if (text == null)
 			throw new IllegalArgumentException(NULL_TEXT_STR);
 
+		// Initialise instance variables
+		inputReader = null;
+		inputText = text;
+
 		// Parse input text and return result
-		return parse(reader(text));
+		return parse(false).node;
 	}
 
 	//------------------------------------------------------------------
@@ -463,6 +491,7 @@ public class JsonParser
 
 		// Initialise instance variables
 		inputReader = reader;
+		inputText = null;
 
 		// Parse input text and return result
 		return parse(false).node;
@@ -494,8 +523,16 @@ public class JsonParser
 		if (text == null)
 			throw new IllegalArgumentException(NULL_TEXT_STR);
 
+		// Test for XML element facade
+		if (xmlElementFacade == null)
+			throw new IllegalStateException(NO_XML_ELEMENT_FACADE_STR);
+
+		// Initialise instance variables
+		inputReader = null;
+		inputText = text;
+
 		// Parse input text and return result
-		return parseToXml(reader(text));
+		return parse(true).xmlElement;
 	}
 
 	//------------------------------------------------------------------
@@ -591,6 +628,7 @@ public class JsonParser
 
 		// Initialise instance variables
 		inputReader = reader;
+		inputText = null;
 
 		// Parse input text and return result
 		return parse(true).xmlElement;
@@ -599,10 +637,119 @@ public class JsonParser
 	//------------------------------------------------------------------
 
 	/**
-	 * Parses the text that is read from a character stream by the reader that was set on this parser.  If the text
+	 * Creates and returns a new instance of a {@linkplain TokenReader token reader} for the specified text.  This
+	 * parser must not be used for anything else while the token reader is in use.
+	 *
+	 * @param  text
+	 *           the JSON text whose tokens will be read.
+	 * @return a new instance of a token reader for {@code text}.
+	 * @throws IllegalArgumentException
+	 *           if {@code text} is {@code null}.
+	 */
+
+	public TokenReader tokenReader(
+		CharSequence	text)
+	{
+		// Validate argument
+		if (text == null)
+			throw new IllegalArgumentException(NULL_TEXT_STR);
+
+		// Initialise instance variables
+		inputReader = null;
+		inputText = text;
+
+		// Create token reader and return it
+		return new TokenReader();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates and returns a new instance of a {@linkplain TokenReader token reader} for the text that is composed of
+	 * characters that are read from the specified byte stream using the UTF-8 character encoding.  This parser must
+	 * not be used for anything else while the token reader is in use.
+	 *
+	 * @param  inputStream
+	 *           the byte stream from which the JSON text will be read.
+	 * @return a new instance of a token reader for the text that is read from {@code inputStream}.
+	 * @throws IllegalArgumentException
+	 *           if {@code inputStream} is {@code null}.
+	 */
+
+	public TokenReader tokenReader(
+		InputStream	inputStream)
+	{
+		return tokenReader(inputStream, StandardCharsets.UTF_8);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates and returns a new instance of a {@linkplain TokenReader token reader} for the text that is composed of
+	 * characters that are read from the specified byte stream using the specified character encoding.  This parser
+	 * must not be used for anything else while the token reader is in use.
+	 *
+	 * @param  inputStream
+	 *           the byte stream from which the JSON text will be read.
+	 * @param  encoding
+	 *           the character encoding of {@code inputStream}; if {@code null}, the UTF-8 encoding will be used.
+	 * @return a new instance of a token reader for the text that is read from {@code inputStream}.
+	 * @throws IllegalArgumentException
+	 *           if {@code inputStream} is {@code null}.
+	 */
+
+	public TokenReader tokenReader(
+		InputStream	inputStream,
+		Charset		encoding)
+	{
+		// Validate arguments
+		if (inputStream == null)
+			throw new IllegalArgumentException(NULL_INPUT_STREAM_STR);
+
+		// Create reader for input stream; create token reader and return it
+		return tokenReader(reader(inputStream, encoding));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates and returns a new instance of a {@linkplain TokenReader token reader} for the text that is read from a
+	 * character stream by the specified reader.  This parser must not be used for anything else while the token reader
+	 * is in use.
+	 *
+	 * @param  reader
+	 *           the reader of the character stream that is the source of the JSON text.
+	 * @return a new instance of a token reader for the text that is read by {@code reader}.
+	 * @throws IllegalArgumentException
+	 *           if {@code reader} is {@code null}.
+	 */
+
+	public TokenReader tokenReader(
+		Reader	reader)
+	{
+		// Validate argument
+		if (reader == null)
+			throw new IllegalArgumentException(NULL_READER_STR);
+
+		// Initialise instance variables
+		inputReader = reader;
+		inputText = null;
+
+		// Create token reader and return it
+		return new TokenReader();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Parses the text that is read from the character sequence or reader that was set on this parser.  If the text
 	 * conforms to the JSON grammar, the JSON text is transformed into a tree of either {@linkplain AbstractNode nodes}
 	 * or {@linkplain Element XML elements} that correspond to JSON values; the {@code toXml} flag determines the kind
 	 * of tree.  The root of the tree is returned.
+	 * <p>
+	 * The text is read by a {@linkplain TokenReader token reader}, whose finite-state machine is the only one of this
+	 * parser, and the tree is created from the tokens of the root value.
+	 * </p>
 	 *
 	 * @param  toXml
 	 *           if {@code true}, the JSON text is transformed into a tree of {@linkplain Element XML elements};
@@ -617,1490 +764,2042 @@ public class JsonParser
 		boolean	toXml)
 		throws ParseException
 	{
-		// Reset instance variables
+		// Create token reader and read first token of root value
+		TokenReader tokenReader = new TokenReader();
+		tokenReader.nextToken();
+
+		// Create tree from tokens of root value
+		Result result = toXml ? new Result(null, tokenReader.readElement())
+							  : new Result(tokenReader.readNode(), null);
+
+		// Read remainder of input text, which must be whitespace
+		tokenReader.nextToken();
+
+		// Return result
+		return result;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Resets the input of this parser to the start of the character sequence or reader that was set on it.
+	 */
+
+	private void resetInput()
+	{
+		inputTextIndex = 0;
+		inputBufferIndex = 0;
+		inputBufferLength = 0;
+		endOfInput = false;
 		index = 0;
 		lineIndex = 0;
 		lineStartIndex = 0;
 		tokenIndex = 0;
 		tokenBuffer.setLength(0);
+	}
 
-		// Initialise local variables
-		Deque<MemberInfo> memberInfoStack = new ArrayDeque<>();
-		int memberIndex = 0;
-		int memberLineIndex = 0;
-		AbstractNode node = null;
-		Element xmlElement = null;
-		State state = State.VALUE_START;
+	//------------------------------------------------------------------
 
-		// Parse text
-		while (state != State.DONE)
-		{
-			// Get next character from input stream
-			char ch = nextChar();
+	/**
+	 * Returns the next character from the input buffer, refilling the buffer with the next block of the input text if
+	 * it is exhausted.  If a character has been {@linkplain #pushBackChar() pushed back}, the last character that was
+	 * read from the buffer is returned.
+	 *
+	 * @return the next character from the input, or a space character (U+0020) if the end of the input has been
+	 *         reached.
+	 * @throws ParseException
+	 *           if an error occurs when reading from the input stream.
+	 */
 
-			// Execute finite-state machine
-			switch (state)
-			{
-				//----  Start of JSON value
-				case VALUE_START:
-				{
-					// Case: character is whitespace
-					if (isWhitespace(ch))
-					{
-						// If end of input stream, test whether parsing is complete ...
-						if (endOfInput)
-						{
-							// If current value is not root, input stream has ended prematurely ...
-							if (toXml)
-							{
-								if ((xmlElement == null) || (xmlElement.getParentNode() != null))
-								{
-									throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex,
-															 index - lineStartIndex);
-								}
-							}
-							else
-							{
-								if ((node == null) || !node.isRoot())
-								{
-									throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex,
-															 index - lineStartIndex);
-								}
-							}
+	private char nextChar()
+		throws ParseException
+	{
+		// If input buffer is exhausted, refill it; if end of input, return space
+		if ((inputBufferIndex >= inputBufferLength) && !fillBuffer())
+			return ' ';
 
-							// ... otherwise, parsing is complete
-							state = State.DONE;
-						}
+		// Increment input index
+		++index;
 
-						// ... otherwise, if character is LF, start new line
-						else
-							newLine(ch);
-					}
+		// Return next character from input buffer
+		return inputBuffer[inputBufferIndex++];
+	}
 
-					// Case: character is not whitespace
-					else
-					{
-						// Update index of current token
-						tokenIndex = index - 1;
+	//------------------------------------------------------------------
 
-						// Test for extraneous text after root value
-						if (toXml)
-						{
-							if ((xmlElement != null) && (xmlElement.getParentNode() == null)
-									&& !ElementKind.isCompound(xmlElement))
-							{
-								throw new ParseException(ErrorMsg.EXTRANEOUS_TEXT, lineIndex,
-														 tokenIndex - lineStartIndex);
-							}
-						}
-						else
-						{
-							if ((node != null) && node.isRoot() && !node.isContainer())
-							{
-								throw new ParseException(ErrorMsg.EXTRANEOUS_TEXT, lineIndex,
-														 tokenIndex - lineStartIndex);
-							}
-						}
+	/**
+	 * Pushes the last character that was read from the input buffer back to the buffer.  This method may be called only
+	 * once after each call to {@link #nextChar()}.  The buffer is refilled only when it is exhausted, so the last
+	 * character that was read from it is always still in the buffer.  If the end of the input has been reached, this
+	 * method has no effect: the next call to {@link #nextChar()} will report the end of the input again.
+	 *
+	 * @throws IllegalStateException
+	 *           if there is no character in the input buffer to push back.
+	 */
 
-						// Clear token buffer
-						tokenBuffer.setLength(0);
+	private void pushBackChar()
+	{
+		// Test for end of input
+		if (endOfInput)
+			return;
 
-						// Set next state according to character
-						switch (ch)
-						{
-							case StringNode.START_CHAR:
-								state = State.STRING_VALUE;
-								break;
+		// Test for start of input buffer
+		if (inputBufferIndex == 0)
+			throw new IllegalStateException("No character to push back");
 
-							case JsonConstants.ARRAY_START_CHAR:
-								if (toXml)
-									xmlElement = addChild(xmlElement, ElementKind.ARRAY, null);
-								else
-									node = new ListNode(node);
-								state = State.ARRAY_ELEMENT_START;
-								break;
+		// Decrement indices
+		--inputBufferIndex;
+		--index;
+	}
 
-							case JsonConstants.OBJECT_START_CHAR:
-								if (toXml)
-									xmlElement = addChild(xmlElement, ElementKind.OBJECT, null);
-								else
-									node = new MapNode(node);
-								state = State.OBJECT_MEMBER_START;
-								break;
+	//------------------------------------------------------------------
 
-							case JsonConstants.ARRAY_END_CHAR:
-							case JsonConstants.OBJECT_END_CHAR:
-							case JsonConstants.OBJECT_NAME_VALUE_SEPARATOR_CHAR:
-							case JsonConstants.OBJECT_MEMBER_SEPARATOR_CHAR:
-								throw new ParseException(ErrorMsg.VALUE_EXPECTED, lineIndex,
-														 tokenIndex - lineStartIndex);
+	/**
+	 * Replaces the contents of the input buffer with the next block of the input text, which is copied from the
+	 * character sequence or read from the reader that is the source of the text.
+	 *
+	 * @return {@code true} if at least one character was put in the input buffer; {@code false} if the end of the input
+	 *         has been reached.
+	 * @throws ParseException
+	 *           if an error occurs when reading from the input stream.
+	 */
 
-							default:
-								// Push back start of number or literal
-								pushBackChar();
+	private boolean fillBuffer()
+		throws ParseException
+	{
+		// Test for end of input
+		if (endOfInput)
+			return false;
 
-								// Set next state
-								state = ((ch == '-') || ((ch >= '0') && (ch <= '9'))) ? State.NUMBER_VALUE
-																					  : State.LITERAL_VALUE;
-								break;
-						}
-					}
-					break;
-				}
+		// Case: source of input text is a character sequence
+		int length = 0;
+		if (inputText != null)
+		{
+			// Copy next block of characters to buffer
+			int startIndex = inputTextIndex;
+			int endIndex = Math.min(startIndex + inputBuffer.length, inputText.length());
+			if (inputText instanceof String text)
+				text.getChars(startIndex, endIndex, inputBuffer, 0);
+			else if (inputText instanceof StringBuilder text)
+				text.getChars(startIndex, endIndex, inputBuffer, 0);
+			else
+			{
+				for (int i = startIndex; i < endIndex; i++)
+					inputBuffer[i - startIndex] = inputText.charAt(i);
+			}
+			inputTextIndex = endIndex;
+			length = endIndex - startIndex;
+		}
 
-				//----  End of JSON value
-				case VALUE_END:
-				{
-					if (toXml)
-					{
-						// Get parent of current value
-						Element parent = (xmlElement == null) ? null : (Element)xmlElement.getParentNode();
+		// Case: source of input text is a reader
+		else
+		{
+			try
+			{
+				// Read next block of characters into buffer
+				length = Math.max(0, inputReader.read(inputBuffer, 0, inputBuffer.length));
+			}
+			catch (IOException e)
+			{
+				throw new ParseException(ErrorMsg.ERROR_READING_FROM_STREAM, e, lineIndex, index - lineStartIndex);
+			}
+		}
 
-						// If current value has no parent (ie, it is the root value), move to next value (which should
-						// not exist) ...
-						if (parent == null)
-							state = State.VALUE_START;
+		// Update buffer indices
+		inputBufferIndex = 0;
+		inputBufferLength = length;
 
-						// ... otherwise, if parent is array or object, add value to it ...
-						else if (ElementKind.isCompound(parent))
-						{
-							// Case: parent is JSON array
-							if (ElementKind.ARRAY.matches(parent))
-							{
-								// Add element to its parent array
-								parent.appendChild(xmlElement);
+		// Set flag to indicate end of input
+		endOfInput = (length == 0);
 
-								// Set next state
-								state = State.ARRAY_ELEMENT_END;
-							}
+		// Indicate whether the buffer contains any characters
+		return !endOfInput;
+	}
 
-							// Case: parent is JSON object
-							else
-							{
-								// Get info about current member from stack
-								MemberInfo memberInfo = memberInfoStack.removeFirst();
+	//------------------------------------------------------------------
 
-								// Set 'name' attribute of member
-								JsonXmlUtils.setName(xmlElementFacade, xmlElement, memberInfo.name);
+	/**
+	 * Increments the index of the current line in the input stream and resets the index of the start of the current
+	 * line in the input stream if the specified character (from the input stream) is a line feed (U+000A).
+	 *
+	 * @param ch
+	 *          the next character from the input stream.
+	 */
 
-								// Add member to its parent object
-								parent.appendChild(xmlElement);
+	private void newLine(
+		char	ch)
+	{
+		if (ch == '\n')
+		{
+			++lineIndex;
+			lineStartIndex = index;
+		}
+	}
 
-								// Set next state
-								state = State.OBJECT_MEMBER_END;
-							}
+	//------------------------------------------------------------------
 
-							// Push back element/member separator or array/object terminator
-							pushBackChar();
+	/**
+	 * Creates and returns a new instance of a node for the specified string representation of a valid JSON number.  If
+	 * the number is an integer, the node is of the smallest type that can hold it; otherwise, it is a {@link
+	 * DoubleNode}.
+	 *
+	 * @param  parent
+	 *           the parent of the new node, which may be {@code null}.
+	 * @param  numberStr
+	 *           the string representation of the number.
+	 * @return a new instance of a node for {@code numberStr}.
+	 * @throws ParseException
+	 *           if the number is an integer that is too large for a {@code long} and excessive integers are not stored
+	 *           as floating-point numbers, or if {@code numberStr} is not a valid number.
+	 */
 
-							// Set current value to previous parent
-							xmlElement = parent;
-						}
+	private AbstractNode numberNode(
+		AbstractNode	parent,
+		String			numberStr)
+		throws ParseException
+	{
+		try
+		{
+			// Create new instance of BigDecimal from number string
+			BigDecimal number = new BigDecimal(numberStr);
 
-						// ... otherwise, throw exception
-						else
-							throw new RuntimeException(INVALID_PARENT_STR);
+			// If number is integer, return node of smallest type ...
+			if (numberStr.indexOf('.') < 0)
+			{
+				try
+				{
+					return new IntNode(parent, number.intValueExact());
+				}
+				catch (ArithmeticException e)
+				{
+					try
+					{
+						return new LongNode(parent, number.longValueExact());
 					}
-					else
+					catch (ArithmeticException e0)
 					{
-						// Get parent of current value
-						AbstractNode parent = (node == null) ? null : node.getParent();
-
-						// If current value has no parent (ie, it is the root value), move to next value (which should
-						// not exist) ...
-						if (parent == null)
-							state = State.VALUE_START;
+						if (storeExcessiveIntegerAsFP)
+							return new DoubleNode(parent, number.doubleValue());
+						throw new ParseException(ErrorMsg.TOO_LARGE_FOR_INTEGER, lineIndex,
+												 tokenIndex - lineStartIndex);
+					}
+				}
+			}
 
-						// ... otherwise, if parent is array or object, add value to it ...
-						else if (parent.isContainer())
-						{
-							// Case: parent is JSON array
-							if (parent instanceof ListNode array)
-							{
-								// Add element to its parent array
-								array.add(node);
+			// ... otherwise, return node for double-precision FP
+			return new DoubleNode(parent, number.doubleValue());
+		}
+		catch (NumberFormatException e)
+		{
+			String causeMessage = e.getMessage();
+			throw new ParseException(((causeMessage == null) || causeMessage.isEmpty())
+											? ErrorMsg.NOT_A_VALID_NUMBER + "."
+											: ErrorMsg.NOT_A_VALID_NUMBER + ": " + causeMessage,
+									 lineIndex, tokenIndex - lineStartIndex, numberStr);
+		}
+	}
 
-								// Set next state
-								state = State.ARRAY_ELEMENT_END;
-							}
+	//------------------------------------------------------------------
 
-							// Case: parent is JSON object
-							else if (parent instanceof MapNode object)
-							{
-								// Get information about current object member from stack
-								MemberInfo memberInfo = memberInfoStack.removeFirst();
+	/**
+	 * Creates an element of the specified kind and with the specified value, and adds the new element to the specified
+	 * parent.
+	 *
+	 * @param  parent
+	 *           the parent to which the new element will be added.
+	 * @param  elementKind
+	 *           the kind of the new element.
+	 * @param  value
+	 *           the value of the new element.
+	 * @return the new element that was added to {@code parent}.
+	 */
 
-								// Test for duplicate member name
-								if (object.hasKey(memberInfo.name))
-								{
-									throw new ParseException(ErrorMsg.DUPLICATE_OBJECT_MEMBER_NAME,
-															 memberInfo.lineIndex, memberInfo.index - lineStartIndex,
-															 memberInfo.name);
-								}
+	private Element addChild(
+		Element		parent,
+		ElementKind	elementKind,
+		String		value)
+	{
+		Element element = elementKind.createElement(xmlElementFacade);
+		if (parent != null)
+			parent.appendChild(element);
+		if (value != null)
+			JsonXmlUtils.setValue(xmlElementFacade, element, value);
+		return element;
+	}
 
-								// Add member to its parent object value
-								object.add(memberInfo.name, node);
+	//------------------------------------------------------------------
 
-								// Set next state
-								state = State.OBJECT_MEMBER_END;
-							}
+	/**
+	 * Throws a {@link ParseException} when the validation of a JSON number with {@link #validateNumber(CharSequence)}
+	 * fails at the specified character.  The detail message of the exception contains a reference to the index of the
+	 * character at which validation failed.
+	 *
+	 * @param  ch
+	 *           the character that caused the validation of a number to fail.
+	 * @throws ParseException
+	 */
 
-							// Push back element/member separator or array/object terminator
-							pushBackChar();
+	private void throwNumberException(
+		char	ch)
+		throws ParseException
+	{
+		// Get index of character at which validation failed
+		int errorIndex = index - 1 - tokenIndex;
 
-							// Set current value to previous parent
-							node = parent;
-						}
+		// Initialise secondary message
+		String message = null;
 
-						// ... otherwise, throw exception
-						else
-							throw new RuntimeException(INVALID_PARENT_STR);
-					}
-					break;
-				}
+		// If character is terminator, secondary message is 'ended prematurely' ...
+		if (isValueTerminator(ch))
+			message = String.format(ENDED_PREMATURELY_STR, errorIndex);
 
-				//----  JSON literal value (null or Boolean)
-				case LITERAL_VALUE:
-				{
-					// If end of current token, add null node or Boolean node according to token ...
-					if (isValueTerminator(ch))
-					{
-						if (toXml)
-						{
-							String str = tokenBuffer.toString();
-							switch (str)
-							{
-								case NullNode.VALUE:
-									xmlElement = addChild(xmlElement, ElementKind.NULL, null);
-									break;
+		// ... otherwise, secondary message is 'character is not allowed'
+		else
+		{
+			String charStr = ((ch < '\u0020') || (ch > '\u007E')) ? UNICODE_PREFIX + StringNode.charToUnicodeHex(ch)
+																  : "'" + Character.toString(ch) + "'";
+			message = String.format(CHARACTER_NOT_ALLOWED_STR, charStr, errorIndex);
+		}
 
-								case BooleanNode.VALUE_FALSE:
-								case BooleanNode.VALUE_TRUE:
-									xmlElement = addChild(xmlElement, ElementKind.BOOLEAN, str);
-									break;
+		// Throw exception
+		throw new ParseException(ErrorMsg.INVALID_NUMBER + ": " + message, lineIndex, tokenIndex - lineStartIndex);
+	}
 
-								default:
-									throw new ParseException(ErrorMsg.ILLEGAL_VALUE, lineIndex,
-															 tokenIndex - lineStartIndex);
-							}
-						}
-						else
-						{
-							switch (tokenBuffer.toString())
-							{
-								case NullNode.VALUE:
-									node = new NullNode(node);
-									break;
+	//------------------------------------------------------------------
 
-								case BooleanNode.VALUE_FALSE:
-									node = new BooleanNode(node, false);
-									break;
+	/**
+	 * Validates a JSON number at the {@linkplain #index current index} within the input text.  This method only checks
+	 * that a number conforms to the JSON grammar; the number is subsequently parsed by calling {@link
+	 * BigDecimal#BigDecimal(String)}.
+	 * <p>
+	 * The use of a finite-state machine to validate a JSON number is preferred to a regular expression because it is
+	 * faster.
+	 * </p>
+	 *
+	 * @throws ParseException
+	 *           if the text at the current index is not a valid JSON representation of a number.
+	 */
 
-								case BooleanNode.VALUE_TRUE:
-									node = new BooleanNode(node, true);
-									break;
+	private void validateNumber()
+		throws ParseException
+	{
+		NumberState state = NumberState.INTEGER_PART_SIGN;
+		while (state != NumberState.DONE)
+		{
+			// Get next character from input stream
+			char ch = nextChar();
 
-								default:
-									throw new ParseException(ErrorMsg.ILLEGAL_VALUE, lineIndex,
-															 tokenIndex - lineStartIndex);
-							}
-						}
+			// Execute finite-state machine
+			switch (state)
+			{
+				//----  Sign of integer part
+				case INTEGER_PART_SIGN:
+				{
+					// If minus sign, append it to current token ...
+					if (ch == '-')
+						tokenBuffer.append(ch);
 
-						// Push back value terminator
+					// ... otherwise, push back first character of number
+					else
 						pushBackChar();
 
-						// Set next state
-						state = State.VALUE_END;
-					}
-
-					// ... otherwise, append character to current token
-					else
-						tokenBuffer.append(ch);
+					// Set next state
+					state = NumberState.INTEGER_PART_FIRST_DIGIT;
 					break;
 				}
 
-				//----  JSON number value
-				case NUMBER_VALUE:
+				//----  First digit of integer part
+				case INTEGER_PART_FIRST_DIGIT:
 				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+					// Test for decimal digit
+					if ((ch < '0') || (ch > '9'))
+						throwNumberException(ch);
 
-					// Push back start of number
-					pushBackChar();
+					// Append digit to current token
+					tokenBuffer.append(ch);
 
-					// Validate number; put valid number in token buffer
-					validateNumber();
+					// Set next state
+					state = NumberState.INTEGER_PART_DIGITS;
+					break;
+				}
 
-					// Get string representation of number
-					String numberStr = tokenBuffer.toString();
+				//----  Remaining digits of integer part
+				case INTEGER_PART_DIGITS:
+				{
+					// If end of number, stop validation ...
+					if (isValueTerminator(ch))
+						state = NumberState.DONE;
 
-					// Process number string
-					try
+					// ... otherwise, if decimal point, append it to token ...
+					else if (ch == '.')
 					{
-						// If generating XML, add number element to parent ...
-						if (toXml)
-							xmlElement = addChild(xmlElement, ElementKind.NUMBER, numberStr);
+						// Append decimal point to current token
+						tokenBuffer.append(ch);
 
-						// ... otherwise, parse number
-						else
-						{
-							// Create new instance of BigDecimal from token
-							BigDecimal number = new BigDecimal(numberStr);
+						// Set next state
+						state = NumberState.FRACTION_PART_FIRST_DIGIT;
+					}
 
-							// If number is integer, add node of smallest type ...
-							if (numberStr.indexOf('.') < 0)
-							{
-								try
+					// ... otherwise, if exponent prefix, append it to token ...
+					else if ((ch == 'E') || (ch == 'e'))
+					{
+						// Append exponent prefix to current token
+						tokenBuffer.append(ch);
+
+						// Set next state
+						state = NumberState.EXPONENT_SIGN;
+					}
+
+					// ... otherwise, if decimal digit, process it ...
+					else if ((ch >= '0') && (ch <= '9'))
+					{
+						switch (tokenBuffer.length())
+						{
+							// Positive number may not have leading zero
+							case 1:
+								if (tokenBuffer.charAt(0) == '0')
 								{
-									node = new IntNode(node, number.intValueExact());
+									pushBackChar();
+									throwNumberException('0');
 								}
-								catch (ArithmeticException e)
+								break;
+
+							// Negative number may not have leading zero
+							case 2:
+								if ((tokenBuffer.charAt(0) == '-') && (tokenBuffer.charAt(1) == '0'))
 								{
-									try
-									{
-										node = new LongNode(node, number.longValueExact());
-									}
-									catch (ArithmeticException e0)
-									{
-										if (storeExcessiveIntegerAsFP)
-											node = new DoubleNode(node, number.doubleValue());
-										else
-										{
-											throw new ParseException(ErrorMsg.TOO_LARGE_FOR_INTEGER, lineIndex,
-																	 tokenIndex - lineStartIndex);
-										}
-									}
+									pushBackChar();
+									throwNumberException('0');
 								}
-							}
+								break;
 
-							// ... otherwise, add node for double-precision FP
-							else
-								node = new DoubleNode(node, number.doubleValue());
+							default:
+								// do nothing
+								break;
 						}
 
-						// Push back terminator
-						pushBackChar();
-
-						// Set next state
-						state = State.VALUE_END;
-					}
-					catch (NumberFormatException e)
-					{
-						String causeMessage = e.getMessage();
-						throw new ParseException(((causeMessage == null) || causeMessage.isEmpty())
-														? ErrorMsg.NOT_A_VALID_NUMBER + "."
-														: ErrorMsg.NOT_A_VALID_NUMBER + ": " + causeMessage,
-												 lineIndex, tokenIndex - lineStartIndex, numberStr);
+						// Append digit to current token
+						tokenBuffer.append(ch);
 					}
+
+					// ... otherwise, throw an exception
+					else
+						throwNumberException(ch);
+
 					break;
 				}
 
-				//----  JSON string value
-				case STRING_VALUE:
+				//----  First digit of fraction part
+				case FRACTION_PART_FIRST_DIGIT:
 				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+					// Test for decimal digit
+					if ((ch < '0') || (ch > '9'))
+						throwNumberException(ch);
 
-					// Parse string; put valid string in token buffer; if string is valid, create JSON string value
-					if (parseString(ch))
-					{
-						// Add string node
-						if (toXml)
-							xmlElement = addChild(xmlElement, ElementKind.STRING, tokenBuffer.toString());
-						else
-							node = new StringNode(node, tokenBuffer.toString());
+					// Append digit to current token
+					tokenBuffer.append(ch);
 
-						// Set next state
-						state = State.VALUE_END;
-					}
+					// Set next state
+					state = NumberState.FRACTION_PART_DIGITS;
 					break;
 				}
 
-				//----  Start of member of JSON object
-				case OBJECT_MEMBER_START:
+				//----  Remaining digits of fraction part
+				case FRACTION_PART_DIGITS:
 				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+					// If end of number, stop validation ...
+					if (isValueTerminator(ch))
+						state = NumberState.DONE;
 
-					// Case: character is whitespace
-					if (isWhitespace(ch))
+					// ... otherwise, if exponent prefix, append it to token ...
+					else if ((ch == 'E') || (ch == 'e'))
 					{
-						// If character is LF, start new line
-						newLine(ch);
+						// Append exponent prefix to current token
+						tokenBuffer.append(ch);
+
+						// Set next state
+						state = NumberState.EXPONENT_SIGN;
 					}
 
-					// Case: character is not whitespace
-					else
-					{
-						// If end-of-object character, empty object has ended ...
-						if (ch == JsonConstants.OBJECT_END_CHAR)
-							state = State.VALUE_END;
+					// ... otherwise, if decimal digit, append it to current token ...
+					else if ((ch >= '0') && (ch <= '9'))
+						tokenBuffer.append(ch);
 
-						// ... otherwise, expect another member
-						else
-						{
-							// Push back start of member
-							pushBackChar();
-
-							// Set next state
-							state = State.OBJECT_MEMBER_NAME_START;
-						}
-					}
-					break;
-				}
-
-				//----  Start of name of member of JSON object
-				case OBJECT_MEMBER_NAME_START:
-				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
-
-					// Case: character is whitespace
-					if (isWhitespace(ch))
-					{
-						// If character is LF, start new line
-						newLine(ch);
-					}
-
-					// Case: character is not whitespace
-					else
-					{
-						// Update index of current token
-						tokenIndex = index - 1;
-
-						// Test for start of name of member
-						if (ch != StringNode.START_CHAR)
-						{
-							throw new ParseException(ErrorMsg.OBJECT_MEMBER_NAME_EXPECTED, lineIndex,
-													 tokenIndex - lineStartIndex);
-						}
-
-						// Update member-related variables
-						memberIndex = tokenIndex;
-						memberLineIndex = lineIndex;
-
-						// Clear token buffer
-						tokenBuffer.setLength(0);
-
-						// Set next state
-						state = State.OBJECT_MEMBER_NAME;
-					}
-					break;
-				}
-
-				//----  Name of member of JSON object
-				case OBJECT_MEMBER_NAME:
-				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
-
-					// Parse name of member; put valid name in token buffer; if name is valid, put information about
-					// member on stack
-					if (parseString(ch))
-					{
-						// Create information about member and put it on stack
-						memberInfoStack.addFirst(new MemberInfo(tokenBuffer.toString(), memberIndex, memberLineIndex));
-
-						// Set next state
-						state = State.OBJECT_MEMBER_NAME_END;
-					}
-					break;
-				}
-
-				//----  End of name of member of JSON object
-				case OBJECT_MEMBER_NAME_END:
-				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
-
-					// Case: character is whitespace
-					if (isWhitespace(ch))
-					{
-						// If character is LF, start new line
-						newLine(ch);
-					}
-
-					// Case: character is not whitespace
+					// ... otherwise, throw an exception
 					else
-					{
-						// Test for separator of object name and value
-						if (ch != JsonConstants.OBJECT_NAME_VALUE_SEPARATOR_CHAR)
-						{
-							throw new ParseException(ErrorMsg.NAME_SEPARATOR_EXPECTED, lineIndex,
-													 tokenIndex - lineStartIndex);
-						}
-
-						// Set next state
-						state = State.VALUE_START;
-					}
-
+						throwNumberException(ch);
 					break;
 				}
 
-				//----  End of member of JSON object
-				case OBJECT_MEMBER_END:
+				//----  Sign of exponent
+				case EXPONENT_SIGN:
 				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
-
-					// Case: character is whitespace
-					if (isWhitespace(ch))
-					{
-						// If character is LF, start new line
-						newLine(ch);
-					}
+					// If sign of exponent, append it to token ...
+					if ((ch == '-') || (ch == '+'))
+						tokenBuffer.append(ch);
 
-					// Case: character is not whitespace
+					// ... otherwise, push back first digit of exponent
 					else
-					{
-						// Update index of current token
-						tokenIndex = index - 1;
-
-						// Set next state according to current character
-						switch (ch)
-						{
-							case JsonConstants.OBJECT_MEMBER_SEPARATOR_CHAR:
-								state = State.OBJECT_MEMBER_NAME_START;
-								break;
-
-							case JsonConstants.OBJECT_END_CHAR:
-								state = State.VALUE_END;
-								break;
+						pushBackChar();
 
-							default:
-								throw new ParseException(ErrorMsg.END_OF_OBJECT_EXPECTED, lineIndex,
-														 tokenIndex - lineStartIndex);
-						}
-					}
+					// Set next state
+					state = NumberState.EXPONENT_FIRST_DIGIT;
 					break;
 				}
 
-				//----  Start of element of JSON array
-				case ARRAY_ELEMENT_START:
+				//----  First digit of exponent
+				case EXPONENT_FIRST_DIGIT:
 				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
-
-					// Case: character is whitespace
-					if (isWhitespace(ch))
-					{
-						// If character is LF, start new line
-						newLine(ch);
-					}
-
-					// Case: character is not whitespace
-					else
-					{
-						// If end-of-array character, array has ended ...
-						if (ch == JsonConstants.ARRAY_END_CHAR)
-						{
-							// Test for empty array
-							if (toXml)
-							{
-								if ((xmlElement == null) || (xmlElement.getChildNodes().getLength() > 0))
-								{
-									throw new ParseException(ErrorMsg.ARRAY_ELEMENT_EXPECTED, lineIndex,
-															 index - 1 - lineStartIndex);
-								}
-							}
-							else
-							{
-								if (!((node instanceof ListNode listNode) && listNode.isEmpty()))
-								{
-									throw new ParseException(ErrorMsg.ARRAY_ELEMENT_EXPECTED, lineIndex,
-															 index - 1 - lineStartIndex);
-								}
-							}
-
-							// Set next state
-							state = State.VALUE_END;
-						}
+					// Test for decimal digit
+					if ((ch < '0') || (ch > '9'))
+						throwNumberException(ch);
 
-						// ... otherwise, expect another element
-						else
-						{
-							// Push back start of element
-							pushBackChar();
+					// Append digit to current token
+					tokenBuffer.append(ch);
 
-							// Set next state
-							state = State.VALUE_START;
-						}
-					}
+					// Set next state
+					state = NumberState.EXPONENT_DIGITS;
 					break;
 				}
 
-				//----  End of element of JSON array
-				case ARRAY_ELEMENT_END:
+				//----  Remaining digits of exponent
+				case EXPONENT_DIGITS:
 				{
-					// Test for premature end of input stream
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+					// If end of number, stop validation ...
+					if (isValueTerminator(ch))
+						state = NumberState.DONE;
 
-					// Case: character is whitespace
-					if (isWhitespace(ch))
-					{
-						// If character is LF, start new line
-						newLine(ch);
-					}
+					// ... otherwise, if decimal digit, append it to current token ...
+					else if ((ch >= '0') && (ch <= '9'))
+						tokenBuffer.append(ch);
 
-					// Case: character is not whitespace
+					// ... otherwise, throw an exception
 					else
-					{
-						// Update index of current token
-						tokenIndex = index - 1;
-
-						// Set next state according to current character
-						switch (ch)
-						{
-							case JsonConstants.ARRAY_ELEMENT_SEPARATOR_CHAR:
-								state = State.ARRAY_ELEMENT_START;
-								break;
-
-							case JsonConstants.ARRAY_END_CHAR:
-								state = State.VALUE_END;
-								break;
-
-							default:
-								throw new ParseException(ErrorMsg.END_OF_ARRAY_EXPECTED, lineIndex,
-														 tokenIndex - lineStartIndex);
-						}
-					}
+						throwNumberException(ch);
 					break;
 				}
 
-				//----  Parsing completed successfully
+				//----  Validation completed successfully
 				case DONE:
 					// do nothing
 					break;
 			}
 		}
-
-		// Return result
-		return new Result(node, xmlElement);
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Reads and returns the next character from the input stream.  If a character has been {@linkplain #pushBackChar()
-	 * pushed back}, the last character that was read from the input stream is returned.
+	 * Parses a JSON string at the {@linkplain #index current index} within the input text, and sets the resulting
+	 * string in the {@linkplain #tokenBuffer token buffer}.  This method is not called on the quotation mark (U+0022)
+	 * at the start of the string.
 	 *
-	 * @return the next character from the input stream, or a space character (U+0020) if the end of the input stream
-	 *         has been reached.
+	 * @param  ch
+	 *           the current character of the JSON string representation.
+	 * @return {@code true} if the string has been parsed successfully, {@code false} if the end of the string has not
+	 *         been reached.
 	 * @throws ParseException
-	 *           if an error occurs when reading from the input stream.
+	 *           if an error occurs when parsing the JSON string.
 	 */
 
-	private char nextChar()
+	private boolean parseString(
+		char	ch)
 		throws ParseException
 	{
-		// Case: a character is pushed back
-		if (pushedBack)
-		{
-			// Clear 'pushed back' flag
-			pushedBack = false;
+		// Test for end of string
+		if (ch == StringNode.END_CHAR)
+			return true;
 
-			// Increment input index
-			++index;
+		// Test for control character
+		if (ch < '\u0020')
+		{
+			throw new ParseException(ErrorMsg.ILLEGAL_CHARACTER_IN_STRING, lineIndex, tokenIndex - lineStartIndex,
+									 UNICODE_PREFIX + StringNode.charToUnicodeHex(ch));
 		}
 
-		// Case: no character is pushed back
-		else
+		// If character is escape prefix, parse escape sequence
+		if (ch == StringNode.ESCAPE_PREFIX_CHAR)
 		{
-			try
+			// Get first character of escape sequence after prefix
+			ch = nextChar();
+
+			// Test whether input stream ended before first character of escape sequence after prefix
+			if (endOfInput)
+				throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+
+			// Initialise index of start of escape sequence without prefix
+			int startIndex = index;
+
+			// Case: Unicode escape sequence
+			if (ch == StringNode.UNICODE_ESCAPE_CHAR)
 			{
-				// Read next character from input
-				int ch = inputReader.read();
+				// Read Unicode escape sequence from input stream
+				for (int i = 0; i < StringNode.UNICODE_SEQUENCE_LENGTH; i++)
+				{
+					// Get next character from input stream
+					unicodeSeqChars[i] = nextChar();
 
-				// Set flag to indicate end of input
-				endOfInput = (ch < 0);
+					// Test whether input stream ended before end of Unicode escape sequence
+					if (endOfInput)
+						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+				}
 
-				// If not end of input, increment input index
-				if (!endOfInput)
-					++index;
+				// Parse Unicode escape sequence
+				int value = 0;
+				for (int i = 0; i < StringNode.UNICODE_SEQUENCE_LENGTH; i++)
+				{
+					// Decode hex-digit character
+					ch = unicodeSeqChars[i];
+					int digit = ((ch >= '0') && (ch <= '9'))
+										? ch - '0'
+										: ((ch >= 'A') && (ch <= 'F'))
+												? ch - 'A' + 10
+												: ((ch >= 'a') && (ch <= 'f'))
+														? ch - 'a' + 10
+														: -1;
+					if (digit < 0)
+					{
+						--startIndex;
+						throw new ParseException(ErrorMsg.ILLEGAL_UNICODE_ESCAPE_SEQUENCE, lineIndex,
+												 startIndex - lineStartIndex,
+												 StringNode.UNICODE_ESCAPE_PREFIX + new String(unicodeSeqChars));
+					}
 
-				// Update last character that was read from input
-				inputChar = endOfInput ? ' ' : (char)ch;
+					// Update value
+					value <<= 4;
+					value |= digit;
+				}
+				ch = (char)value;
 			}
-			catch (IOException e)
+
+			// Case: escape sequence other than Unicode
+			else
 			{
-				throw new ParseException(ErrorMsg.ERROR_READING_FROM_STREAM, e, lineIndex, index - lineStartIndex);
+				boolean found = false;
+				for (int i = 0; i < ESCAPE_MAPPINGS.length; i++)
+				{
+					char[] pair = ESCAPE_MAPPINGS[i];
+					if (ch == pair[0])
+					{
+						ch = pair[1];
+						found = true;
+						break;
+					}
+				}
+				if (!found)
+				{
+					--startIndex;
+					throw new ParseException(ErrorMsg.ILLEGAL_ESCAPE_SEQUENCE, lineIndex, startIndex - lineStartIndex,
+											 StringNode.ESCAPE_PREFIX + ch);
+				}
 			}
 		}
 
-		// Return last character that was read from input
-		return inputChar;
+		// Append character to buffer
+		tokenBuffer.append(ch);
+
+		// Append the run of literal characters that follows in the input buffer.  A literal character cannot be a line
+		// feed, so the line indices are not affected.
+		int startIndex = inputBufferIndex;
+		int endIndex = startIndex;
+		while (endIndex < inputBufferLength)
+		{
+			ch = inputBuffer[endIndex];
+			if ((ch == StringNode.END_CHAR) || (ch == StringNode.ESCAPE_PREFIX_CHAR) || (ch < '\u0020'))
+				break;
+			++endIndex;
+		}
+		if (endIndex > startIndex)
+		{
+			tokenBuffer.append(inputBuffer, startIndex, endIndex - startIndex);
+			index += endIndex - startIndex;
+			inputBufferIndex = endIndex;
+		}
+
+		// Indicate that the end of the string has not been reached
+		return false;
 	}
 
 	//------------------------------------------------------------------
 
-	/**
-	 * Pushes the last character that was read from input stream back to the stream.  This method may be called only
-	 * once after each call to {@link #nextChar()}.
-	 *
-	 * @throws IllegalStateException
-	 *           if a character is already pushed back or {@link #nextChar()} has not yet been called on the input
-	 *           stream.
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: RESULT OF PARSING JSON TEXT
+
+
+	/**
+	 * This record is a pairing of the result of transforming some JSON text to a tree of {@linkplain AbstractNode
+	 * nodes} and the result of transforming some JSON text to a tree of {@linkplain Element XML elements}.  The
+	 * inapplicable element of the pair is {@code null}.
+	 *
+	 * @param node
+	 *          the root of a tree of {@link AbstractNode}s.
+	 * @param xmlElement
+	 *          the root of a tree of {@link Element}s.
 	 */
 
-	private void pushBackChar()
-	{
-		// Test whether a character is already pushed back
-		if (pushedBack)
-			throw new IllegalStateException("Character already pushed back");
+	private record Result(
+		AbstractNode	node,
+		Element			xmlElement)
+	{ }
 
-		// Test for start of input stream
-		if (index == 0)
-			throw new IllegalStateException("Start of input stream");
+	//==================================================================
 
-		// Set 'pushed back' flag
-		pushedBack = true;
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
 
-		// Decrement input index
-		--index;
-	}
 
-	//------------------------------------------------------------------
+	// CLASS: BUILDER FOR JSON PARSER
+
 
 	/**
-	 * Increments the index of the current line in the input stream and resets the index of the start of the current
-	 * line in the input stream if the specified character (from the input stream) is a line feed (U+000A).
-	 *
-	 * @param ch
-	 *          the next character from the input stream.
+	 * This class implements a builder for a {@linkplain JsonParser JSON parser}.
 	 */
 
-	private void newLine(
-		char	ch)
+	public static class Builder
 	{
-		if (ch == '\n')
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The interface through which XML elements are created and their attributes accessed. */
+		private	IElementFacade	elementFacade;
+
+		/** Flag: if {@code true}, a JSON number that is deemed to be an integer but is too large to be stored as a
+			{@code long} will be stored as a {@code double}. */
+		private	boolean			storeExcessiveIntegerAsFP;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a builder for a {@linkplain JsonParser JSON parser}.
+		 */
+
+		private Builder()
 		{
-			++lineIndex;
-			lineStartIndex = index;
 		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Sets the interface through which XML elements are created and their attributes accessed.
+		 *
+		 * @param  elementFacade
+		 *           the interface through which XML elements will be created and their attributes accessed.
+		 * @return this builder.
+		 */
+
+		public Builder elementFacade(
+			IElementFacade	elementFacade)
+		{
+			// Update instance variable
+			this.elementFacade = elementFacade;
+
+			// Return this builder
+			return this;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Sets or clears the flag that determines whether a JSON number that is deemed to be an integer but is too
+		 * large to be stored as a signed 64-bit integer (ie, a {@code long}) will be stored as a double-precision
+		 * floating-point number (ie, a {@code double}).
+		 *
+		 * @param  storeExcessiveIntegerAsFP
+		 *           if {@code true} a JSON number that is deemed to be an integer but is too large for a {@code long}
+		 *           will be stored as a {@code double}.
+		 * @return this builder.
+		 */
+
+		public Builder storeExcessiveIntegerAsFP(
+			boolean	storeExcessiveIntegerAsFP)
+		{
+			// Update instance variable
+			this.storeExcessiveIntegerAsFP = storeExcessiveIntegerAsFP;
+
+			// Return this builder
+			return this;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Creates and returns a new instance of a JSON parser that is initialised from the state of this builder.
+		 *
+		 * @return a new instance of a JSON parser.
+		 */
+
+		public JsonParser build()
+		{
+			return new JsonParser(this);
+		}
+
+		//--------------------------------------------------------------
+
 	}
 
-	//------------------------------------------------------------------
+	//==================================================================
+
+
+	// CLASS: PARSE EXCEPTION
+
 
 	/**
-	 * Creates an element of the specified kind and with the specified value, and adds the new element to the specified
-	 * parent.
-	 *
-	 * @param  parent
-	 *           the parent to which the new element will be added.
-	 * @param  elementKind
-	 *           the kind of the new element.
-	 * @param  value
-	 *           the value of the new element.
-	 * @return the new element that was added to {@code parent}.
+	 * This class implements an exception that is thrown if an error occurs when parsing JSON text.
 	 */
 
-	private Element addChild(
-		Element		parent,
-		ElementKind	elementKind,
-		String		value)
+	public static class ParseException
+		extends Exception
 	{
-		Element element = elementKind.createElement(xmlElementFacade);
-		if (parent != null)
-			parent.appendChild(element);
-		if (value != null)
-			JsonXmlUtils.setValue(xmlElementFacade, element, value);
-		return element;
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The zero-based index of the line of the input text at which the exception occurred. */
+		private	int	lineIndex;
+
+		/** The zero-based index of the column of the input text at which the exception occurred. */
+		private	int	columnIndex;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an exception with the specified message, line index, column index and optional
+		 * replacements for placeholders in the message.
+		 *
+		 * @param message
+		 *          the message of the exception.
+		 * @param lineIndex
+		 *          the zero-based index of the line at which the exception occurred.
+		 * @param columnIndex
+		 *          the zero-based index of the column at which the exception occurred.
+		 * @param replacements
+		 *          the items whose string representations will replace placeholders in {@code message}.
+		 */
+
+		private ParseException(
+			String		message,
+			int			lineIndex,
+			int			columnIndex,
+			Object...	replacements)
+		{
+			// Call alternative constructor
+			this(message, null, lineIndex, columnIndex, replacements);
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Creates a new instance of an exception with the specified message, cause, line index, column index and
+		 * optional replacements for placeholders in the message.
+		 *
+		 * @param message
+		 *          the message of the exception.
+		 * @param cause
+		 *          the underlying cause of the exception, which may be {@code null}.
+		 * @param lineIndex
+		 *          the zero-based index of the line at which the exception occurred.
+		 * @param columnIndex
+		 *          the zero-based index of the column at which the exception occurred.
+		 * @param replacements
+		 *          the items whose string representations will replace placeholders in {@code message}.
+		 */
+
+		private ParseException(
+			String		message,
+			Throwable	cause,
+			int			lineIndex,
+			int			columnIndex,
+			Object...	replacements)
+		{
+			// Call superclass constructor
+			super("(" + (lineIndex + 1) + ", " + (columnIndex + 1) + "): " + String.format(message, replacements),
+				  cause);
+
+			// Initialise instance variables
+			this.lineIndex = lineIndex;
+			this.columnIndex = columnIndex;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the zero-based index of the line of the input text at which the exception occurred.
+		 *
+		 * @return the zero-based index of the line of the input text at which the exception occurred.
+		 * @see    #getColumnIndex()
+		 */
+
+		public int getLineIndex()
+		{
+			return lineIndex;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the zero-based index of the column of the input text at which the exception occurred.
+		 *
+		 * @return the zero-based index of the column of the input text at which the exception occurred.
+		 * @see    #getLineIndex()
+		 */
+
+		public int getColumnIndex()
+		{
+			return columnIndex;
+		}
+
+		//--------------------------------------------------------------
+
 	}
 
-	//------------------------------------------------------------------
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: TOKEN READER
+
 
 	/**
-	 * Throws a {@link ParseException} when the validation of a JSON number with {@link #validateNumber(CharSequence)}
-	 * fails at the specified character.  The detail message of the exception contains a reference to the index of the
-	 * character at which validation failed.
-	 *
-	 * @param  ch
-	 *           the character that caused the validation of a number to fail.
-	 * @throws ParseException
+	 * This class implements a reader that returns the tokens of JSON text one at a time, in the order in which they
+	 * occur in the text, without creating a tree of nodes.  The reader executes the finite-state machine of the
+	 * enclosing parser, which returns from {@link #nextToken()} at each token and resumes from the same state at the
+	 * next call.  The {@code parse(\u2026)} methods of the parser create their trees from the tokens of a reader, so a
+	 * reader reports an error in the same way, by throwing a {@link ParseException} that contains the line and column
+	 * of the error.
+	 * <p>
+	 * The value of the current token is available through typed accessors.  A compound value (array or object) can be
+	 * skipped with {@link #skipChildren()} or promoted to a tree of nodes with {@link #readNode()}.  The memory that is
+	 * used by a reader is proportional to the depth of nesting of the JSON text rather than to its length.
+	 * </p>
+	 * <p>
+	 * A token reader uses the state of the parser that created it, so the parser must not be used for anything else
+	 * while the reader is in use.
+	 * </p>
 	 */
 
-	private void throwNumberException(
-		char	ch)
-		throws ParseException
-	{
-		// Get index of character at which validation failed
-		int errorIndex = index - 1 - tokenIndex;
+	public class TokenReader
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/** The initial capacity of the stack of compound values that contain the current token. */
+		private static final	int		INITIAL_STACK_CAPACITY	= 16;
+
+		/** The maximum number of characters of an integer that can be converted to an {@code int} without overflow. */
+		private static final	int		MAX_INT_LENGTH	= 9;
+
+		/** The maximum number of characters of an integer that can be converted to a {@code long} without overflow. */
+		private static final	int		MAX_LONG_LENGTH	= 18;
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The state of the finite-state machine. */
+		private	State		state;
+
+		/** The current token. */
+		private	JsonToken	token;
+
+		/** The string representation of the current token, which is created when it is first requested. */
+		private	String		tokenStr;
+
+		/** The name of the object member whose value is the current token. */
+		private	String		name;
+
+		/** The zero-based index of the line of the name of the last object member. */
+		private	int			memberLineIndex;
+
+		/** The zero-based index of the column of the name of the last object member. */
+		private	int			memberColumnIndex;
+
+		/** Flag: if {@code true}, the root value has ended. */
+		private	boolean		rootEnded;
+
+		/** Flag: if {@code true}, an array element separator has been read, so another element is expected. */
+		private	boolean		elementExpected;
+
+		/** The number of compound values that contain the current position in the input text. */
+		private	int			depth;
+
+		/** Flags that indicate whether the compound values that contain the current position are objects. */
+		private	boolean[]	objects;
+
+		/** The names of the current members of the objects that contain the current position. */
+		private	String[]	memberNames;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a token reader for the character sequence or reader that was set on the enclosing
+		 * parser.
+		 */
+
+		private TokenReader()
+		{
+			// Reset input
+			resetInput();
+
+			// Initialise instance variables
+			state = State.VALUE_START;
+			objects = new boolean[INITIAL_STACK_CAPACITY];
+			memberNames = new String[INITIAL_STACK_CAPACITY];
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Reads the next token from the input text and returns it.
+		 *
+		 * @return the next token from the input text, or {@code null} if the root value has ended and the rest of the
+		 *         input text is whitespace.
+		 * @throws ParseException
+		 *           if an error occurs when reading or parsing the input text.
+		 */
+
+		public JsonToken nextToken()
+			throws ParseException
+		{
+			// Parse text until next token is found
+			while (state != State.DONE)
+			{
+				// Get next character from input stream
+				char ch = nextChar();
+
+				// Execute finite-state machine
+				switch (state)
+				{
+					//----  Start of JSON value
+					case VALUE_START:
+					{
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If end of input stream, test whether root value has ended ...
+							if (endOfInput)
+							{
+								// If root value has not ended, input stream has ended prematurely ...
+								if (!rootEnded)
+								{
+									throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex,
+															 index - lineStartIndex);
+								}
+
+								// ... otherwise, reading is complete
+								state = State.DONE;
+							}
 
-		// Initialise secondary message
-		String message = null;
+							// ... otherwise, if character is LF, start new line
+							else
+								newLine(ch);
+						}
 
-		// If character is terminator, secondary message is 'ended prematurely' ...
-		if (isValueTerminator(ch))
-			message = String.format(ENDED_PREMATURELY_STR, errorIndex);
+						// Case: character is not whitespace
+						else
+						{
+							// Update index of current token
+							tokenIndex = index - 1;
 
-		// ... otherwise, secondary message is 'character is not allowed'
-		else
-		{
-			String charStr = ((ch < '\u0020') || (ch > '\u007E')) ? UNICODE_PREFIX + StringNode.charToUnicodeHex(ch)
-																  : "'" + Character.toString(ch) + "'";
-			message = String.format(CHARACTER_NOT_ALLOWED_STR, charStr, errorIndex);
-		}
+							// Test for extraneous text after root value
+							if (rootEnded)
+							{
+								throw new ParseException(ErrorMsg.EXTRANEOUS_TEXT, lineIndex,
+														 tokenIndex - lineStartIndex);
+							}
 
-		// Throw exception
-		throw new ParseException(ErrorMsg.INVALID_NUMBER + ": " + message, lineIndex, tokenIndex - lineStartIndex);
-	}
+							// Clear token buffer
+							tokenBuffer.setLength(0);
 
-	//------------------------------------------------------------------
+							// Set next state according to character
+							switch (ch)
+							{
+								case StringNode.START_CHAR:
+									state = State.STRING_VALUE;
+									break;
 
-	/**
-	 * Validates a JSON number at the {@linkplain #index current index} within the input text.  This method only checks
-	 * that a number conforms to the JSON grammar; the number is subsequently parsed by calling {@link
-	 * BigDecimal#BigDecimal(String)}.
-	 * <p>
-	 * The use of a finite-state machine to validate a JSON number is preferred to a regular expression because it is
-	 * faster.
-	 * </p>
-	 *
-	 * @throws ParseException
-	 *           if the text at the current index is not a valid JSON representation of a number.
-	 */
+								case JsonConstants.ARRAY_START_CHAR:
+									elementExpected = false;
+									state = State.ARRAY_ELEMENT_START;
+									return startCompound(JsonToken.START_ARRAY);
 
-	private void validateNumber()
-		throws ParseException
-	{
-		NumberState state = NumberState.INTEGER_PART_SIGN;
-		while (state != NumberState.DONE)
-		{
-			// Get next character from input stream
-			char ch = nextChar();
+								case JsonConstants.OBJECT_START_CHAR:
+									state = State.OBJECT_MEMBER_START;
+									return startCompound(JsonToken.START_OBJECT);
 
-			// Execute finite-state machine
-			switch (state)
-			{
-				//----  Sign of integer part
-				case INTEGER_PART_SIGN:
-				{
-					// If minus sign, append it to current token ...
-					if (ch == '-')
-						tokenBuffer.append(ch);
+								case JsonConstants.ARRAY_END_CHAR:
+								case JsonConstants.OBJECT_END_CHAR:
+								case JsonConstants.OBJECT_NAME_VALUE_SEPARATOR_CHAR:
+								case JsonConstants.OBJECT_MEMBER_SEPARATOR_CHAR:
+									throw new ParseException(ErrorMsg.VALUE_EXPECTED, lineIndex,
+															 tokenIndex - lineStartIndex);
 
-					// ... otherwise, push back first character of number
-					else
+								default:
+									// Push back start of number or literal
+									pushBackChar();
+
+									// Set next state
+									state = ((ch == '-') || ((ch >= '0') && (ch <= '9'))) ? State.NUMBER_VALUE
+																						  : State.LITERAL_VALUE;
+									break;
+							}
+						}
+						break;
+					}
+
+					//----  End of JSON value
+					case VALUE_END:
+					{
+						// Push back element/member separator, array/object terminator or character after root value
 						pushBackChar();
 
-					// Set next state
-					state = NumberState.INTEGER_PART_FIRST_DIGIT;
-					break;
-				}
+						// Set next state according to parent of value
+						if (depth == 0)
+						{
+							rootEnded = true;
+							state = State.VALUE_START;
+						}
+						else
+							state = objects[depth - 1] ? State.OBJECT_MEMBER_END : State.ARRAY_ELEMENT_END;
+						break;
+					}
 
-				//----  First digit of integer part
-				case INTEGER_PART_FIRST_DIGIT:
-				{
-					// Test for decimal digit
-					if ((ch < '0') || (ch > '9'))
-						throwNumberException(ch);
+					//----  JSON literal value (null or Boolean)
+					case LITERAL_VALUE:
+					{
+						// If end of current token, return null token or Boolean token according to token ...
+						if (isValueTerminator(ch))
+						{
+							// Get kind of token
+							JsonToken literalToken = null;
+							if (NullNode.VALUE.contentEquals(tokenBuffer))
+								literalToken = JsonToken.NULL;
+							else if (BooleanNode.VALUE_FALSE.contentEquals(tokenBuffer)
+										|| BooleanNode.VALUE_TRUE.contentEquals(tokenBuffer))
+								literalToken = JsonToken.BOOLEAN;
+							else
+							{
+								throw new ParseException(ErrorMsg.ILLEGAL_VALUE, lineIndex,
+														 tokenIndex - lineStartIndex);
+							}
 
-					// Append digit to current token
-					tokenBuffer.append(ch);
+							// Push back value terminator
+							pushBackChar();
 
-					// Set next state
-					state = NumberState.INTEGER_PART_DIGITS;
-					break;
-				}
+							// Set next state
+							state = State.VALUE_END;
 
-				//----  Remaining digits of integer part
-				case INTEGER_PART_DIGITS:
-				{
-					// If end of number, stop validation ...
-					if (isValueTerminator(ch))
-						state = NumberState.DONE;
+							// Return token
+							return setToken(literalToken);
+						}
 
-					// ... otherwise, if decimal point, append it to token ...
-					else if (ch == '.')
-					{
-						// Append decimal point to current token
+						// ... otherwise, append character to current token
 						tokenBuffer.append(ch);
-
-						// Set next state
-						state = NumberState.FRACTION_PART_FIRST_DIGIT;
+						break;
 					}
 
-					// ... otherwise, if exponent prefix, append it to token ...
-					else if ((ch == 'E') || (ch == 'e'))
+					//----  JSON number value
+					case NUMBER_VALUE:
 					{
-						// Append exponent prefix to current token
-						tokenBuffer.append(ch);
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+
+						// Push back start of number
+						pushBackChar();
+
+						// Validate number; put valid number in token buffer
+						validateNumber();
+
+						// Push back terminator
+						pushBackChar();
 
 						// Set next state
-						state = NumberState.EXPONENT_SIGN;
+						state = State.VALUE_END;
+
+						// Return token
+						return setToken(JsonToken.NUMBER);
 					}
 
-					// ... otherwise, if decimal digit, process it ...
-					else if ((ch >= '0') && (ch <= '9'))
+					//----  JSON string value
+					case STRING_VALUE:
 					{
-						switch (tokenBuffer.length())
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+
+						// Parse string; put valid string in token buffer; if string is valid, return token
+						if (parseString(ch))
 						{
-							// Positive number may not have leading zero
-							case 1:
-								if (tokenBuffer.charAt(0) == '0')
-								{
-									pushBackChar();
-									throwNumberException('0');
-								}
-								break;
+							state = State.VALUE_END;
+							return setToken(JsonToken.STRING);
+						}
+						break;
+					}
 
-							// Negative number may not have leading zero
-							case 2:
-								if ((tokenBuffer.charAt(0) == '-') && (tokenBuffer.charAt(1) == '0'))
-								{
-									pushBackChar();
-									throwNumberException('0');
-								}
-								break;
+					//----  Start of member of JSON object
+					case OBJECT_MEMBER_START:
+					{
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-							default:
-								// do nothing
-								break;
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If character is LF, start new line
+							newLine(ch);
 						}
 
-						// Append digit to current token
-						tokenBuffer.append(ch);
+						// Case: character is not whitespace
+						else
+						{
+							// If end-of-object character, empty object has ended ...
+							if (ch == JsonConstants.OBJECT_END_CHAR)
+							{
+								tokenIndex = index - 1;
+								state = State.VALUE_END;
+								return endCompound(JsonToken.END_OBJECT);
+							}
+
+							// ... otherwise, expect another member
+							pushBackChar();
+							state = State.OBJECT_MEMBER_NAME_START;
+						}
+						break;
 					}
 
-					// ... otherwise, throw an exception
-					else
-						throwNumberException(ch);
+					//----  Start of name of member of JSON object
+					case OBJECT_MEMBER_NAME_START:
+					{
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-					break;
-				}
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If character is LF, start new line
+							newLine(ch);
+						}
 
-				//----  First digit of fraction part
-				case FRACTION_PART_FIRST_DIGIT:
-				{
-					// Test for decimal digit
-					if ((ch < '0') || (ch > '9'))
-						throwNumberException(ch);
+						// Case: character is not whitespace
+						else
+						{
+							// Update index of current token
+							tokenIndex = index - 1;
 
-					// Append digit to current token
-					tokenBuffer.append(ch);
+							// Test for start of name of member
+							if (ch != StringNode.START_CHAR)
+							{
+								throw new ParseException(ErrorMsg.OBJECT_MEMBER_NAME_EXPECTED, lineIndex,
+														 tokenIndex - lineStartIndex);
+							}
 
-					// Set next state
-					state = NumberState.FRACTION_PART_DIGITS;
-					break;
-				}
+							// Clear token buffer
+							tokenBuffer.setLength(0);
 
-				//----  Remaining digits of fraction part
-				case FRACTION_PART_DIGITS:
-				{
-					// If end of number, stop validation ...
-					if (isValueTerminator(ch))
-						state = NumberState.DONE;
+							// Set next state
+							state = State.OBJECT_MEMBER_NAME;
+						}
+						break;
+					}
 
-					// ... otherwise, if exponent prefix, append it to token ...
-					else if ((ch == 'E') || (ch == 'e'))
+					//----  Name of member of JSON object
+					case OBJECT_MEMBER_NAME:
 					{
-						// Append exponent prefix to current token
-						tokenBuffer.append(ch);
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-						// Set next state
-						state = NumberState.EXPONENT_SIGN;
-					}
+						// Parse name of member; put valid name in token buffer; if name is valid, return token
+						if (parseString(ch))
+						{
+							// Update member-related variables
+							memberNames[depth - 1] = tokenBuffer.toString();
+							memberLineIndex = lineIndex;
+							memberColumnIndex = tokenIndex - lineStartIndex;
 
-					// ... otherwise, if decimal digit, append it to current token ...
-					else if ((ch >= '0') && (ch <= '9'))
-						tokenBuffer.append(ch);
+							// Set next state
+							state = State.OBJECT_MEMBER_NAME_END;
 
-					// ... otherwise, throw an exception
-					else
-						throwNumberException(ch);
-					break;
-				}
+							// Return token
+							return setToken(JsonToken.MEMBER_NAME);
+						}
+						break;
+					}
 
-				//----  Sign of exponent
-				case EXPONENT_SIGN:
-				{
-					// If sign of exponent, append it to token ...
-					if ((ch == '-') || (ch == '+'))
-						tokenBuffer.append(ch);
+					//----  End of name of member of JSON object
+					case OBJECT_MEMBER_NAME_END:
+					{
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-					// ... otherwise, push back first digit of exponent
-					else
-						pushBackChar();
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If character is LF, start new line
+							newLine(ch);
+						}
+
+						// Case: character is not whitespace
+						else
+						{
+							// Test for separator of object name and value
+							if (ch != JsonConstants.OBJECT_NAME_VALUE_SEPARATOR_CHAR)
+							{
+								throw new ParseException(ErrorMsg.NAME_SEPARATOR_EXPECTED, lineIndex,
+														 tokenIndex - lineStartIndex);
+							}
 
-					// Set next state
-					state = NumberState.EXPONENT_FIRST_DIGIT;
-					break;
-				}
+							// Set next state
+							state = State.VALUE_START;
+						}
+						break;
+					}
 
-				//----  First digit of exponent
-				case EXPONENT_FIRST_DIGIT:
-				{
-					// Test for decimal digit
-					if ((ch < '0') || (ch > '9'))
-						throwNumberException(ch);
+					//----  End of member of JSON object
+					case OBJECT_MEMBER_END:
+					{
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-					// Append digit to current token
-					tokenBuffer.append(ch);
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If character is LF, start new line
+							newLine(ch);
+						}
 
-					// Set next state
-					state = NumberState.EXPONENT_DIGITS;
-					break;
-				}
+						// Case: character is not whitespace
+						else
+						{
+							// Update index of current token
+							tokenIndex = index - 1;
 
-				//----  Remaining digits of exponent
-				case EXPONENT_DIGITS:
-				{
-					// If end of number, stop validation ...
-					if (isValueTerminator(ch))
-						state = NumberState.DONE;
+							// Set next state according to current character
+							switch (ch)
+							{
+								case JsonConstants.OBJECT_MEMBER_SEPARATOR_CHAR:
+									state = State.OBJECT_MEMBER_NAME_START;
+									break;
 
-					// ... otherwise, if decimal digit, append it to current token ...
-					else if ((ch >= '0') && (ch <= '9'))
-						tokenBuffer.append(ch);
+								case JsonConstants.OBJECT_END_CHAR:
+									state = State.VALUE_END;
+									return endCompound(JsonToken.END_OBJECT);
 
-					// ... otherwise, throw an exception
-					else
-						throwNumberException(ch);
-					break;
-				}
+								default:
+									throw new ParseException(ErrorMsg.END_OF_OBJECT_EXPECTED, lineIndex,
+															 tokenIndex - lineStartIndex);
+							}
+						}
+						break;
+					}
 
-				//----  Validation completed successfully
-				case DONE:
-					// do nothing
-					break;
-			}
-		}
-	}
+					//----  Start of element of JSON array
+					case ARRAY_ELEMENT_START:
+					{
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-	//------------------------------------------------------------------
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If character is LF, start new line
+							newLine(ch);
+						}
 
-	/**
-	 * Parses a JSON string at the {@linkplain #index current index} within the input text, and sets the resulting
-	 * string in the {@linkplain #tokenBuffer token buffer}.  This method is not called on the quotation mark (U+0022)
-	 * at the start of the string.
-	 *
-	 * @param  ch
-	 *           the current character of the JSON string representation.
-	 * @return {@code true} if the string has been parsed successfully, {@code false} if the end of the string has not
-	 *         been reached.
-	 * @throws ParseException
-	 *           if an error occurs when parsing the JSON string.
-	 */
+						// Case: character is not whitespace
+						else
+						{
+							// If end-of-array character, array has ended ...
+							if (ch == JsonConstants.ARRAY_END_CHAR)
+							{
+								// Update index of current token
+								tokenIndex = index - 1;
 
-	private boolean parseString(
-		char	ch)
-		throws ParseException
-	{
-		// Test for end of string
-		if (ch == StringNode.END_CHAR)
-			return true;
+								// Test for element after separator
+								if (elementExpected)
+								{
+									throw new ParseException(ErrorMsg.ARRAY_ELEMENT_EXPECTED, lineIndex,
+															 tokenIndex - lineStartIndex);
+								}
 
-		// Test for control character
-		if (ch < '\u0020')
-		{
-			throw new ParseException(ErrorMsg.ILLEGAL_CHARACTER_IN_STRING, lineIndex, tokenIndex - lineStartIndex,
-									 UNICODE_PREFIX + StringNode.charToUnicodeHex(ch));
-		}
+								// Set next state
+								state = State.VALUE_END;
 
-		// If character is escape prefix, parse escape sequence
-		if (ch == StringNode.ESCAPE_PREFIX_CHAR)
-		{
-			// Get first character of escape sequence after prefix
-			ch = nextChar();
+								// Return token
+								return endCompound(JsonToken.END_ARRAY);
+							}
 
-			// Test whether input stream ended before first character of escape sequence after prefix
-			if (endOfInput)
-				throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
+							// ... otherwise, expect another element
+							pushBackChar();
+							state = State.VALUE_START;
+						}
+						break;
+					}
 
-			// Initialise index of start of escape sequence without prefix
-			int startIndex = index;
+					//----  End of element of JSON array
+					case ARRAY_ELEMENT_END:
+					{
+						// Test for premature end of input stream
+						if (endOfInput)
+							throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
 
-			// Case: Unicode escape sequence
-			if (ch == StringNode.UNICODE_ESCAPE_CHAR)
-			{
-				// Read Unicode escape sequence from input stream
-				for (int i = 0; i < StringNode.UNICODE_SEQUENCE_LENGTH; i++)
-				{
-					// Get next character from input stream
-					unicodeSeqChars[i] = nextChar();
+						// Case: character is whitespace
+						if (isWhitespace(ch))
+						{
+							// If character is LF, start new line
+							newLine(ch);
+						}
 
-					// Test whether input stream ended before end of Unicode escape sequence
-					if (endOfInput)
-						throw new ParseException(ErrorMsg.PREMATURE_END_OF_TEXT, lineIndex, index - lineStartIndex);
-				}
+						// Case: character is not whitespace
+						else
+						{
+							// Update index of current token
+							tokenIndex = index - 1;
 
-				// Parse Unicode escape sequence
-				int value = 0;
-				for (int i = 0; i < StringNode.UNICODE_SEQUENCE_LENGTH; i++)
-				{
-					// Decode hex-digit character
-					ch = unicodeSeqChars[i];
-					int digit = ((ch >= '0') && (ch <= '9'))
-										? ch - '0'
-										: ((ch >= 'A') && (ch <= 'F'))
-												? ch - 'A' + 10
-												: ((ch >= 'a') && (ch <= 'f'))
-														? ch - 'a' + 10
-														: -1;
-					if (digit < 0)
-					{
-						--startIndex;
-						throw new ParseException(ErrorMsg.ILLEGAL_UNICODE_ESCAPE_SEQUENCE, lineIndex,
-												 startIndex - lineStartIndex,
-												 StringNode.UNICODE_ESCAPE_PREFIX + new String(unicodeSeqChars));
-					}
+							// Set next state according to current character
+							switch (ch)
+							{
+								case JsonConstants.ARRAY_ELEMENT_SEPARATOR_CHAR:
+									elementExpected = true;
+									state = State.ARRAY_ELEMENT_START;
+									break;
 
-					// Update value
-					value <<= 4;
-					value |= digit;
-				}
-				ch = (char)value;
-			}
+								case JsonConstants.ARRAY_END_CHAR:
+									state = State.VALUE_END;
+									return endCompound(JsonToken.END_ARRAY);
 
-			// Case: escape sequence other than Unicode
-			else
-			{
-				boolean found = false;
-				for (int i = 0; i < ESCAPE_MAPPINGS.length; i++)
-				{
-					char[] pair = ESCAPE_MAPPINGS[i];
-					if (ch == pair[0])
-					{
-						ch = pair[1];
-						found = true;
+								default:
+									throw new ParseException(ErrorMsg.END_OF_ARRAY_EXPECTED, lineIndex,
+															 tokenIndex - lineStartIndex);
+							}
+						}
 						break;
 					}
-				}
-				if (!found)
-				{
-					--startIndex;
-					throw new ParseException(ErrorMsg.ILLEGAL_ESCAPE_SEQUENCE, lineIndex, startIndex - lineStartIndex,
-											 StringNode.ESCAPE_PREFIX + ch);
+
+					//----  Reading completed successfully
+					case DONE:
+						// do nothing
+						break;
 				}
 			}
+
+			// Indicate end of input
+			return setToken(null);
 		}
 
-		// Append character to buffer
-		tokenBuffer.append(ch);
+		//--------------------------------------------------------------
 
-		// Indicate that the end of the string has not been reached
-		return false;
-	}
+		/**
+		 * Returns the current token, which is the token that was returned by the last call to {@link #nextToken()}.
+		 *
+		 * @return the current token, or {@code null} if {@link #nextToken()} has not been called or the end of the
+		 *         input has been reached.
+		 */
 
-	//------------------------------------------------------------------
+		public JsonToken currentToken()
+		{
+			return token;
+		}
 
-	/**
-	 * Creates and returns a new instance of a {@linkplain Reader reader} for the specified text.
-	 *
-	 * @param  text
-	 *           the text for which a reader is desired.
-	 * @return a new instance of a {@linkplain Reader reader} for {@code text}.
-	 */
+		//--------------------------------------------------------------
 
-	private Reader reader(
-		CharSequence	text)
-	{
-		return new Reader()
+		/**
+		 * Returns the name of the object member that is associated with the current token.  If the current token is
+		 * {@link JsonToken#MEMBER_NAME MEMBER_NAME}, the name is that of the member; if the current token is the value
+		 * of a member (or the start or end of a compound value that is the value of a member), the name is that of the
+		 * member.
+		 *
+		 * @return the name of the object member that is associated with the current token, or {@code null} if the
+		 *         current token is not associated with an object member.
+		 */
+
+		public String currentName()
 		{
-			@Override
-			public int read()
-				throws IOException
-			{
-				return (index < text.length()) ? text.charAt(index) : -1;
-			}
+			return name;
+		}
 
-			@Override
-			public int read(
-				char[]	buffer,
-				int		offset,
-				int		length)
-				throws IOException
-			{
-				throw new IOException(UNSUPPORTED_OPERATION_STR);
-			}
+		//--------------------------------------------------------------
 
-			@Override
-			public void close()
-				throws IOException
-			{
-				throw new IOException(UNSUPPORTED_OPERATION_STR);
-			}
-		};
-	}
+		/**
+		 * Returns the number of compound values (arrays and objects) that contain the current token.  The start and
+		 * end tokens of a compound value are deemed to be outside the value.
+		 *
+		 * @return the number of compound values that contain the current token.
+		 */
 
-	//------------------------------------------------------------------
+		public int getDepth()
+		{
+			return ((token != null) && token.isStart()) ? depth - 1 : depth;
+		}
 
-////////////////////////////////////////////////////////////////////////
-//  Member records
-////////////////////////////////////////////////////////////////////////
+		//--------------------------------------------------------------
 
+		/**
+		 * Returns the zero-based index of the line of the input text at which the current token starts.
+		 *
+		 * @return the zero-based index of the line of the input text at which the current token starts.
+		 * @see    #getColumnIndex()
+		 */
 
-	// RECORD: INFORMATION ABOUT A MEMBER OF A JSON OBJECT
+		public int getLineIndex()
+		{
+			return lineIndex;
+		}
 
+		//--------------------------------------------------------------
 
-	/**
-	 * This record encapsulates information about a member of a JSON object.
-	 *
-	 * @param name
-	 *          the name of a member of a JSON object.
-	 * @param index
-	 *          the index of the name of the member in the input text.
-	 * @param lineIndex
-	 *          the index of the line containing the name of the member in the input text.
-	 */
+		/**
+		 * Returns the zero-based index of the column of the input text at which the current token starts.
+		 *
+		 * @return the zero-based index of the column of the input text at which the current token starts.
+		 * @see    #getLineIndex()
+		 */
 
-	private record MemberInfo(
-		String	name,
-		int		index,
-		int		lineIndex)
-	{ }
+		public int getColumnIndex()
+		{
+			return tokenIndex - lineStartIndex;
+		}
 
-	//==================================================================
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the text of the current token, which must be the name of an object member or a simple value.  The
+		 * text of a JSON string is its value with any escape sequences replaced by the characters that they denote; the
+		 * text of a JSON number or literal is its representation in the input text.
+		 *
+		 * @return the text of the current token.
+		 * @throws IllegalStateException
+		 *           if the current token is not the name of an object member or a simple value.
+		 */
+
+		public String getString()
+		{
+			// Test for current token
+			if ((token == null) || token.isStart() || token.isEnd())
+				throw new IllegalStateException(String.format(UNEXPECTED_TOKEN_STR, token));
+
+			// Create string representation of token
+			if (tokenStr == null)
+				tokenStr = tokenBuffer.toString();
 
+			// Return string representation of token
+			return tokenStr;
+		}
 
-	// RECORD: RESULT OF PARSING JSON TEXT
+		//--------------------------------------------------------------
 
+		/**
+		 * Returns the value of the current token, which must be a JSON Boolean value.
+		 *
+		 * @return the value of the current token.
+		 * @throws IllegalStateException
+		 *           if the current token is not a JSON Boolean value.
+		 */
 
-	/**
-	 * This record is a pairing of the result of transforming some JSON text to a tree of {@linkplain AbstractNode
-	 * nodes} and the result of transforming some JSON text to a tree of {@linkplain Element XML elements}.  The
-	 * inapplicable element of the pair is {@code null}.
-	 *
-	 * @param node
-	 *          the root of a tree of {@link AbstractNode}s.
-	 * @param xmlElement
-	 *          the root of a tree of {@link Element}s.
-	 */
+		public boolean getBoolean()
+		{
+			// Test for current token
+			expectToken(JsonToken.BOOLEAN);
 
-	private record Result(
-		AbstractNode	node,
-		Element			xmlElement)
-	{ }
+			// Return value of token
+			return BooleanNode.VALUE_TRUE.contentEquals(tokenBuffer);
+		}
 
-	//==================================================================
+		//--------------------------------------------------------------
 
-////////////////////////////////////////////////////////////////////////
-//  Member classes : non-inner classes
-////////////////////////////////////////////////////////////////////////
+		/**
+		 * Returns the value of the current token, which must be a JSON number that can be represented exactly as an
+		 * {@code int}.
+		 *
+		 * @return the value of the current token.
+		 * @throws IllegalStateException
+		 *           if the current token is not a JSON number.
+		 * @throws ParseException
+		 *           if the value of the current token cannot be represented exactly as an {@code int}.
+		 */
 
+		public int getInt()
+			throws ParseException
+		{
+			// Test for current token
+			expectToken(JsonToken.NUMBER);
 
-	// CLASS: BUILDER FOR JSON PARSER
+			// If token is short integer, parse it directly ...
+			if (isShortInteger(MAX_INT_LENGTH))
+				return Integer.parseInt(tokenBuffer, 0, tokenBuffer.length(), 10);
 
+			// ... otherwise, convert it from BigDecimal
+			try
+			{
+				return getBigDecimal().intValueExact();
+			}
+			catch (ArithmeticException e)
+			{
+				throw new ParseException(ErrorMsg.NOT_AN_INT, lineIndex, tokenIndex - lineStartIndex);
+			}
+		}
 
-	/**
-	 * This class implements a builder for a {@linkplain JsonParser JSON parser}.
-	 */
+		//--------------------------------------------------------------
 
-	public static class Builder
-	{
+		/**
+		 * Returns the value of the current token, which must be a JSON number that can be represented exactly as a
+		 * {@code long}.
+		 *
+		 * @return the value of the current token.
+		 * @throws IllegalStateException
+		 *           if the current token is not a JSON number.
+		 * @throws ParseException
+		 *           if the value of the current token cannot be represented exactly as a {@code long}.
+		 */
 
-	////////////////////////////////////////////////////////////////////
-	//  Instance variables
-	////////////////////////////////////////////////////////////////////
+		public long getLong()
+			throws ParseException
+		{
+			// Test for current token
+			expectToken(JsonToken.NUMBER);
 
-		/** The interface through which XML elements are created and their attributes accessed. */
-		private	IElementFacade	elementFacade;
+			// If token is short integer, parse it directly ...
+			if (isShortInteger(MAX_LONG_LENGTH))
+				return Long.parseLong(tokenBuffer, 0, tokenBuffer.length(), 10);
 
-		/** Flag: if {@code true}, a JSON number that is deemed to be an integer but is too large to be stored as a
-			{@code long} will be stored as a {@code double}. */
-		private	boolean			storeExcessiveIntegerAsFP;
+			// ... otherwise, convert it from BigDecimal
+			try
+			{
+				return getBigDecimal().longValueExact();
+			}
+			catch (ArithmeticException e)
+			{
+				throw new ParseException(ErrorMsg.NOT_A_LONG, lineIndex, tokenIndex - lineStartIndex);
+			}
+		}
 
-	////////////////////////////////////////////////////////////////////
-	//  Constructors
-	////////////////////////////////////////////////////////////////////
+		//--------------------------------------------------------------
 
 		/**
-		 * Creates a new instance of a builder for a {@linkplain JsonParser JSON parser}.
+		 * Returns the value of the current token, which must be a JSON number, as a {@code double}.
+		 *
+		 * @return the value of the current token as a {@code double}.
+		 * @throws IllegalStateException
+		 *           if the current token is not a JSON number.
 		 */
 
-		private Builder()
+		public double getDouble()
 		{
+			// Test for current token
+			expectToken(JsonToken.NUMBER);
+
+			// Return value of token
+			return Double.parseDouble(getString());
 		}
 
 		//--------------------------------------------------------------
 
-	////////////////////////////////////////////////////////////////////
-	//  Instance methods
-	////////////////////////////////////////////////////////////////////
-
 		/**
-		 * Sets the interface through which XML elements are created and their attributes accessed.
+		 * Returns the value of the current token, which must be a JSON number, as a {@link BigDecimal}.
 		 *
-		 * @param  elementFacade
-		 *           the interface through which XML elements will be created and their attributes accessed.
-		 * @return this builder.
+		 * @return the value of the current token as a {@code BigDecimal}.
+		 * @throws IllegalStateException
+		 *           if the current token is not a JSON number.
 		 */
 
-		public Builder elementFacade(
-			IElementFacade	elementFacade)
+		public BigDecimal getBigDecimal()
 		{
-			// Update instance variable
-			this.elementFacade = elementFacade;
+			// Test for current token
+			expectToken(JsonToken.NUMBER);
 
-			// Return this builder
-			return this;
+			// Return value of token
+			return new BigDecimal(getString());
 		}
 
 		//--------------------------------------------------------------
 
 		/**
-		 * Sets or clears the flag that determines whether a JSON number that is deemed to be an integer but is too
-		 * large to be stored as a signed 64-bit integer (ie, a {@code long}) will be stored as a double-precision
-		 * floating-point number (ie, a {@code double}).
+		 * Skips the elements or members of the compound value (array or object) whose start is the current token, so
+		 * that the current token becomes the end of the value.  If the current token is not the start of a compound
+		 * value, this method has no effect.
 		 *
-		 * @param  storeExcessiveIntegerAsFP
-		 *           if {@code true} a JSON number that is deemed to be an integer but is too large for a {@code long}
-		 *           will be stored as a {@code double}.
-		 * @return this builder.
+		 * @throws ParseException
+		 *           if an error occurs when reading or parsing the input text.
 		 */
 
-		public Builder storeExcessiveIntegerAsFP(
-			boolean	storeExcessiveIntegerAsFP)
+		public void skipChildren()
+			throws ParseException
 		{
-			// Update instance variable
-			this.storeExcessiveIntegerAsFP = storeExcessiveIntegerAsFP;
-
-			// Return this builder
-			return this;
+			if ((token != null) && token.isStart())
+			{
+				int startDepth = depth;
+				while (depth >= startDepth)
+					nextToken();
+			}
 		}
 
 		//--------------------------------------------------------------
 
 		/**
-		 * Creates and returns a new instance of a JSON parser that is initialised from the state of this builder.
+		 * Creates a tree of {@linkplain AbstractNode nodes} from the JSON value whose first token is the current token,
+		 * and returns the root of the tree.  If the current token is the name of an object member, the tree is created
+		 * from the value of the member.  After this method returns, the current token is the last token of the value:
+		 * the end of a compound value or the simple value itself.  The root of the tree has no parent; for example, the
+		 * root of the tree that is created from a JSON object is a {@link MapNode}.
 		 *
-		 * @return a new instance of a JSON parser.
+		 * @return the root of the tree of nodes that was created from the current JSON value.
+		 * @throws IllegalStateException
+		 *           if the current token is not the start of a JSON value or the name of an object member.
+		 * @throws ParseException
+		 *           if an error occurs when reading or parsing the input text, or if an object contains more than one
+		 *           member with the same name.
 		 */
 
-		public JsonParser build()
+		public AbstractNode readNode()
+			throws ParseException
 		{
-			return new JsonParser(this);
+			// If current token is name of object member, move to value of member
+			if (token == JsonToken.MEMBER_NAME)
+				nextToken();
+
+			// Test for start of value
+			if ((token == null) || token.isEnd())
+				throw new IllegalStateException(String.format(UNEXPECTED_TOKEN_STR, token));
+
+			// Create nodes from tokens until value has ended
+			AbstractNode root = null;
+			AbstractNode parent = null;
+			while (true)
+			{
+				// Create node for start of compound value or for simple value
+				AbstractNode node = null;
+				switch (token)
+				{
+					case START_ARRAY:
+						node = new ListNode(parent);
+						break;
+
+					case START_OBJECT:
+						node = new MapNode(parent);
+						break;
+
+					case END_ARRAY:
+					case END_OBJECT:
+						parent = parent.getParent();
+						break;
+
+					case MEMBER_NAME:
+						// do nothing
+						break;
+
+					case STRING:
+						node = new StringNode(parent, getString());
+						break;
+
+					case NUMBER:
+						node = numberNode(parent, getString());
+						break;
+
+					case BOOLEAN:
+						node = new BooleanNode(parent, getBoolean());
+						break;
+
+					case NULL:
+						node = new NullNode(parent);
+						break;
+				}
+
+				// Add new node to its parent
+				if (node != null)
+				{
+					// Case: parent is JSON array
+					if (parent instanceof ListNode array)
+						array.add(node);
+
+					// Case: parent is JSON object
+					else if (parent instanceof MapNode object)
+					{
+						// Test for duplicate member name
+						if (object.hasKey(name))
+						{
+							throw new ParseException(ErrorMsg.DUPLICATE_OBJECT_MEMBER_NAME, memberLineIndex,
+													 memberColumnIndex, name);
+						}
+
+						// Add member to its parent object
+						object.add(name, node);
+					}
+
+					// Case: no parent
+					else
+						root = node;
+
+					// If new node is compound value, make it the parent of subsequent nodes
+					if (node.isContainer())
+						parent = node;
+				}
+
+				// If value has ended, stop
+				if (parent == null)
+					break;
+
+				// Read next token
+				nextToken();
+			}
+
+			// Return root of tree
+			return root;
 		}
 
 		//--------------------------------------------------------------
 
-	}
+		/**
+		 * Creates a tree of {@linkplain Element XML elements} from the JSON value whose first token is the current
+		 * token, and returns the root of the tree.  The tree is created in the same way as a tree of nodes is created
+		 * by {@link #readNode()}, except that the members of an object are not required to have distinct names.
+		 *
+		 * @return the root of the tree of XML elements that was created from the current JSON value.
+		 * @throws IllegalStateException
+		 *           if the current token is not the start of a JSON value or the name of an object member.
+		 * @throws ParseException
+		 *           if an error occurs when reading or parsing the input text.
+		 */
 
-	//==================================================================
+		private Element readElement()
+			throws ParseException
+		{
+			// If current token is name of object member, move to value of member
+			if (token == JsonToken.MEMBER_NAME)
+				nextToken();
+
+			// Test for start of value
+			if ((token == null) || token.isEnd())
+				throw new IllegalStateException(String.format(UNEXPECTED_TOKEN_STR, token));
+
+			// Create elements from tokens until value has ended
+			Element root = null;
+			Element parent = null;
+			while (true)
+			{
+				// Create element for start of compound value or for simple value, and add it to its parent
+				Element element = null;
+				switch (token)
+				{
+					case START_ARRAY:
+						element = addChild(parent, ElementKind.ARRAY, null);
+						break;
 
+					case START_OBJECT:
+						element = addChild(parent, ElementKind.OBJECT, null);
+						break;
 
-	// CLASS: PARSE EXCEPTION
+					case END_ARRAY:
+					case END_OBJECT:
+						parent = (parent.getParentNode() instanceof Element parentElement) ? parentElement : null;
+						break;
 
+					case MEMBER_NAME:
+						// do nothing
+						break;
 
-	/**
-	 * This class implements an exception that is thrown if an error occurs when parsing JSON text.
-	 */
+					case STRING:
+						element = addChild(parent, ElementKind.STRING, getString());
+						break;
 
-	public static class ParseException
-		extends Exception
-	{
+					case NUMBER:
+						element = addChild(parent, ElementKind.NUMBER, getString());
+						break;
 
-	////////////////////////////////////////////////////////////////////
-	//  Instance variables
-	////////////////////////////////////////////////////////////////////
+					case BOOLEAN:
+						element = addChild(parent, ElementKind.BOOLEAN, getString());
+						break;
 
-		/** The zero-based index of the line of the input text at which the exception occurred. */
-		private	int	lineIndex;
+					case NULL:
+						element = addChild(parent, ElementKind.NULL, null);
+						break;
+				}
 
-		/** The zero-based index of the column of the input text at which the exception occurred. */
-		private	int	columnIndex;
+				// Set name of object member, and make compound value the parent of subsequent elements
+				if (element != null)
+				{
+					// Case: parent is JSON object
+					if ((parent != null) && ElementKind.OBJECT.matches(parent))
+						JsonXmlUtils.setName(xmlElementFacade, element, name);
 
-	////////////////////////////////////////////////////////////////////
-	//  Constructors
-	////////////////////////////////////////////////////////////////////
+					// Case: no parent
+					else if (parent == null)
+						root = element;
+
+					// If new element is compound value, make it the parent of subsequent elements
+					if (ElementKind.isCompound(element))
+						parent = element;
+				}
+
+				// If value has ended, stop
+				if (parent == null)
+					break;
+
+				// Read next token
+				nextToken();
+			}
+
+			// Return root of tree
+			return root;
+		}
+
+		//--------------------------------------------------------------
 
 		/**
-		 * Creates a new instance of an exception with the specified message, line index, column index and optional
-		 * replacements for placeholders in the message.
+		 * Sets the current token to the specified value and updates the name of the associated object member.
 		 *
-		 * @param message
-		 *          the message of the exception.
-		 * @param lineIndex
-		 *          the zero-based index of the line at which the exception occurred.
-		 * @param columnIndex
-		 *          the zero-based index of the column at which the exception occurred.
-		 * @param replacements
-		 *          the items whose string representations will replace placeholders in {@code message}.
+		 * @param  token
+		 *           the new value of the current token, which may be {@code null}.
+		 * @return {@code token}.
 		 */
 
-		private ParseException(
-			String		message,
-			int			lineIndex,
-			int			columnIndex,
-			Object...	replacements)
+		private JsonToken setToken(
+			JsonToken	token)
 		{
-			// Call alternative constructor
-			this(message, null, lineIndex, columnIndex, replacements);
+			// Update instance variables
+			this.token = token;
+			tokenStr = null;
+			name = ((depth > 0) && objects[depth - 1]) ? memberNames[depth - 1] : null;
+
+			// Return token
+			return token;
 		}
 
 		//--------------------------------------------------------------
 
 		/**
-		 * Creates a new instance of an exception with the specified message, cause, line index, column index and
-		 * optional replacements for placeholders in the message.
+		 * Sets the current token to the specified start of a compound value, and pushes the value onto the stack of
+		 * compound values that contain the current position.
 		 *
-		 * @param message
-		 *          the message of the exception.
-		 * @param cause
-		 *          the underlying cause of the exception, which may be {@code null}.
-		 * @param lineIndex
-		 *          the zero-based index of the line at which the exception occurred.
-		 * @param columnIndex
-		 *          the zero-based index of the column at which the exception occurred.
-		 * @param replacements
-		 *          the items whose string representations will replace placeholders in {@code message}.
+		 * @param  token
+		 *           the start of a compound value.
+		 * @return {@code token}.
 		 */
 
-		private ParseException(
-			String		message,
-			Throwable	cause,
-			int			lineIndex,
-			int			columnIndex,
-			Object...	replacements)
+		private JsonToken startCompound(
+			JsonToken	token)
 		{
-			// Call superclass constructor
-			super("(" + (lineIndex + 1) + ", " + (columnIndex + 1) + "): " + String.format(message, replacements),
-				  cause);
+			// Set current token
+			setToken(token);
 
-			// Initialise instance variables
-			this.lineIndex = lineIndex;
-			this.columnIndex = columnIndex;
+			// Increase capacity of stack, if necessary
+			if (depth == objects.length)
+			{
+				objects = Arrays.copyOf(objects, 2 * depth);
+				memberNames = Arrays.copyOf(memberNames, 2 * depth);
+			}
+
+			// Push compound value onto stack
+			objects[depth] = (token == JsonToken.START_OBJECT);
+			memberNames[depth] = null;
+			++depth;
+
+			// Return token
+			return token;
 		}
 
 		//--------------------------------------------------------------
 
-	////////////////////////////////////////////////////////////////////
-	//  Instance methods
-	////////////////////////////////////////////////////////////////////
+		/**
+		 * Pops the innermost compound value from the stack of compound values that contain the current position, and
+		 * sets the current token to the specified end of the value.
+		 *
+		 * @param  token
+		 *           the end of a compound value.
+		 * @return {@code token}.
+		 */
+
+		private JsonToken endCompound(
+			JsonToken	token)
+		{
+			// Pop compound value from stack
+			memberNames[--depth] = null;
+
+			// Set current token and return it
+			return setToken(token);
+		}
+
+		//--------------------------------------------------------------
 
 		/**
-		 * Returns the zero-based index of the line of the input text at which the exception occurred.
+		 * Throws an exception if the current token is not of the specified kind.
 		 *
-		 * @return the zero-based index of the line of the input text at which the exception occurred.
-		 * @see    #getColumnIndex()
+		 * @param  expectedToken
+		 *           the expected kind of the current token.
+		 * @throws IllegalStateException
+		 *           if the current token is not {@code expectedToken}.
 		 */
 
-		public int getLineIndex()
+		private void expectToken(
+			JsonToken	expectedToken)
 		{
-			return lineIndex;
+			if (token != expectedToken)
+				throw new IllegalStateException(String.format(UNEXPECTED_TOKEN_STR, token));
 		}
 
 		//--------------------------------------------------------------
 
 		/**
-		 * Returns the zero-based index of the column of the input text at which the exception occurred.
+		 * Returns {@code true} if the text of the current JSON number is an integer that has no more than the specified
+		 * number of characters, including any minus sign.
 		 *
-		 * @return the zero-based index of the column of the input text at which the exception occurred.
-		 * @see    #getLineIndex()
+		 * @param  maxLength
+		 *           the maximum number of characters of the integer.
+		 * @return {@code true} if the text of the current JSON number is an integer of no more than {@code maxLength}
+		 *         characters.
 		 */
 
-		public int getColumnIndex()
+		private boolean isShortInteger(
+			int	maxLength)
 		{
-			return columnIndex;
+			// Test length of number
+			int length = tokenBuffer.length();
+			if (length > maxLength)
+				return false;
+
+			// Test for fraction or exponent
+			for (int i = 0; i < length; i++)
+			{
+				char ch = tokenBuffer.charAt(i);
+				if ((ch == '.') || (ch == 'e') || (ch == 'E'))
+					return false;
+			}
+			return true;
 		}
 
 		//--------------------------------------------------------------
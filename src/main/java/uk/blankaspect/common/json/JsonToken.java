@@ -0,0 +1,125 @@
+/*====================================================================*\
+
+JsonToken.java
+
+Enumeration: kind of token of JSON text.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.common.json;
+
+//----------------------------------------------------------------------
+
+
+// ENUMERATION: KIND OF TOKEN OF JSON TEXT
+
+
+/**
+ * This is an enumeration of the kinds of token that a {@linkplain JsonParser.TokenReader token reader} returns as it
+ * reads JSON text.  A token of a simple value (string, number, Boolean or null) is followed by the next token, whereas
+ * a token of the start of a compound value (array or object) is followed by the tokens of the elements or members of
+ * the value and then by a token of the end of the value.
+ */
+
+public enum JsonToken
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * The start of a JSON array.
+	 */
+	START_ARRAY,
+
+	/**
+	 * The end of a JSON array.
+	 */
+	END_ARRAY,
+
+	/**
+	 * The start of a JSON object.
+	 */
+	START_OBJECT,
+
+	/**
+	 * The end of a JSON object.
+	 */
+	END_OBJECT,
+
+	/**
+	 * The name of a member of a JSON object.  The name is followed by the value of the member.
+	 */
+	MEMBER_NAME,
+
+	/**
+	 * A JSON string.
+	 */
+	STRING,
+
+	/**
+	 * A JSON number.
+	 */
+	NUMBER,
+
+	/**
+	 * A JSON Boolean value.
+	 */
+	BOOLEAN,
+
+	/**
+	 * A JSON null value.
+	 */
+	NULL;
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns {@code true} if this kind of token is the start of a compound value (array or object).
+	 *
+	 * @return {@code true} if this kind of token is the start of a compound value.
+	 */
+
+	public boolean isStart()
+	{
+		return (this == START_ARRAY) || (this == START_OBJECT);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if this kind of token is the end of a compound value (array or object).
+	 *
+	 * @return {@code true} if this kind of token is the end of a compound value.
+	 */
+
+	public boolean isEnd()
+	{
+		return (this == END_ARRAY) || (this == END_OBJECT);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if this kind of token is a simple value (string, number, Boolean or null).
+	 *
+	 * @return {@code true} if this kind of token is a simple value.
+	 */
+
+	public boolean isSimpleValue()
+	{
+		return (this == STRING) || (this == NUMBER) || (this == BOOLEAN) || (this == NULL);
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
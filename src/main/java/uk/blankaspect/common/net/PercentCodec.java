@@ -18,11 +18,9 @@ package uk.blankaspect.common.net;
 // IMPORTS
 
 
-import java.nio.ByteBuffer;
+import java.io.IOException;
 
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.CodingErrorAction;
-import java.nio.charset.StandardCharsets;
+import uk.blankaspect.common.exception2.UnexpectedRuntimeException;
 
 //----------------------------------------------------------------------
 
@@ -33,6 +31,11 @@ import java.nio.charset.StandardCharsets;
 /**
  * This class provides methods for encoding and decoding a string with <i>percent-encoding</i>, as specified by
  * <a href="https://www.rfc-editor.org/rfc/rfc3986.html#section-2.1">IETF RFC 3986</a>.
+ * <p>
+ * The classes of ASCII characters and the escape sequences of bytes are held in lookup tables.  Text is encoded
+ * directly to a {@link StringBuilder} or another {@link Appendable}, and decoded directly to a {@code StringBuilder},
+ * without intermediate arrays or buffers of bytes.
+ * </p>
  */
 
 public class PercentCodec
@@ -65,9 +68,75 @@ public class PercentCodec
 
 	private static final	String	EXTRA_UNRESERVED_CHARS	= "-._~";
 
+	private static final	String	PATH_DELIMITER_CHARS	= "!$&'()*+,;=:@/";
+
 	private static final	String	IN_HEX_DIGITS	= "0123456789ABCDEF";
 	private static final	char[]	OUT_HEX_DIGITS	= IN_HEX_DIGITS.toCharArray();
 
+	private static final	int		NUM_ASCII_CHARS	= 1 << 7;
+
+	// Classes of ASCII characters; each class is a single bit, so that classes may be combined in a mask
+	private static final	byte	CHAR_CLASS_OTHER			= 0;
+	private static final	byte	CHAR_CLASS_UNRESERVED		= 1 << 0;
+	private static final	byte	CHAR_CLASS_WHITESPACE		= 1 << 1;
+	private static final	byte	CHAR_CLASS_PATH_DELIMITER	= 1 << 2;
+
+	private static final	String	UNPAIRED_SURROGATE_STR	= "Unpaired surrogate";
+
+	/** The classes of ASCII characters, indexed by character. */
+	private static final	byte[]		CHAR_CLASSES	= new byte[NUM_ASCII_CHARS];
+
+	/** The values of hexadecimal digits, indexed by ASCII character; -1 denotes a character that is not a digit. */
+	private static final	byte[]		HEX_VALUES		= new byte[NUM_ASCII_CHARS];
+
+	/** The escape sequences of bytes, indexed by unsigned byte value. */
+	private static final	String[]	ESCAPES			= new String[1 << 8];
+
+	/** The number of continuation bytes that follow the first byte of a UTF-8 sequence, indexed by unsigned byte
+		value; -1 denotes a byte that cannot start a sequence. */
+	private static final	byte[]		UTF8_NUM_CONTINUATION_BYTES	= new byte[1 << 8];
+
+////////////////////////////////////////////////////////////////////////
+//  Static initialiser
+////////////////////////////////////////////////////////////////////////
+
+	static
+	{
+		// Initialise classes of ASCII characters
+		for (char ch = 0; ch < NUM_ASCII_CHARS; ch++)
+		{
+			CHAR_CLASSES[ch] =
+					(((ch >= '0') && (ch <= '9')) || ((ch >= 'A') && (ch <= 'Z')) || ((ch >= 'a') && (ch <= 'z'))
+							|| (EXTRA_UNRESERVED_CHARS.indexOf(ch) >= 0))
+						? CHAR_CLASS_UNRESERVED
+						: Character.isWhitespace(ch)
+								? CHAR_CLASS_WHITESPACE
+								: (PATH_DELIMITER_CHARS.indexOf(ch) >= 0)
+										? CHAR_CLASS_PATH_DELIMITER
+										: CHAR_CLASS_OTHER;
+		}
+
+		// Initialise values of hexadecimal digits
+		for (int i = 0; i < NUM_ASCII_CHARS; i++)
+			HEX_VALUES[i] = (byte)IN_HEX_DIGITS.indexOf(Character.toUpperCase((char)i));
+
+		// Initialise escape sequences of bytes
+		for (int i = 0; i < ESCAPES.length; i++)
+			ESCAPES[i] = new String(new char[] { ESCAPE_PREFIX, OUT_HEX_DIGITS[i >> 4], OUT_HEX_DIGITS[i & 0x0F] });
+
+		// Initialise numbers of continuation bytes of UTF-8 sequences.  Bytes C0 and C1 would start overlong
+		// sequences; bytes F5 to FF would start sequences of values greater than U+10FFFF.
+		for (int i = 0; i < UTF8_NUM_CONTINUATION_BYTES.length; i++)
+		{
+			UTF8_NUM_CONTINUATION_BYTES[i] = (byte)((i < 0x80) ? 0
+															   : (i < 0xC2) ? -1
+																			: (i < 0xE0) ? 1
+																						 : (i < 0xF0) ? 2
+																									  : (i < 0xF5) ? 3
+																												   : -1);
+		}
+	}
+
 ////////////////////////////////////////////////////////////////////////
 //  Constructors
 ////////////////////////////////////////////////////////////////////////
@@ -86,147 +155,312 @@ public class PercentCodec
 		CharSequence	text,
 		boolean			reduceWhitespace)
 	{
-		// Allocate buffer for encoded text
-		int length = text.length();
-		StringBuilder buffer = new StringBuilder(length * 2);
+		return encode(text, reduceWhitespace, new StringBuilder(text.length() * 2)).toString();
+	}
 
-		// Encode text
-		boolean whitespace = false;
+	//------------------------------------------------------------------
+
+	public static StringBuilder encode(
+		CharSequence	text,
+		boolean			reduceWhitespace,
+		StringBuilder	buffer)
+	{
+		try
+		{
+			encode(text, reduceWhitespace, (Appendable)buffer);
+		}
+		catch (IOException e)
+		{
+			// A StringBuilder does not throw an IOException
+			throw new UnexpectedRuntimeException(e);
+		}
+		return buffer;
+	}
+
+	//------------------------------------------------------------------
+
+	public static void encode(
+		CharSequence	text,
+		boolean			reduceWhitespace,
+		Appendable		output)
+		throws IOException
+	{
+		encode(text, CHAR_CLASS_UNRESERVED, reduceWhitespace, output);
+	}
+
+	//------------------------------------------------------------------
+
+	public static String encodePath(
+		CharSequence	path)
+	{
+		return encodePath(path, new StringBuilder(path.length() * 2)).toString();
+	}
+
+	//------------------------------------------------------------------
+
+	public static StringBuilder encodePath(
+		CharSequence	path,
+		StringBuilder	buffer)
+	{
+		// Escape the characters that are not allowed in the path component of a URI (RFC 3986, section 3.3).  The
+		// unreserved characters, the sub-delimiters, ':', '@' and the separator '/' are not escaped.
+		try
+		{
+			encode(path, CHAR_CLASS_UNRESERVED | CHAR_CLASS_PATH_DELIMITER, false, buffer);
+		}
+		catch (IOException e)
+		{
+			// A StringBuilder does not throw an IOException
+			throw new UnexpectedRuntimeException(e);
+		}
+		return buffer;
+	}
+
+	//------------------------------------------------------------------
+
+	public static String decode(
+		CharSequence	seq)
+	{
+		return decode(seq, new StringBuilder(seq.length())).toString();
+	}
+
+	//------------------------------------------------------------------
+
+	public static StringBuilder decode(
+		CharSequence	seq,
+		StringBuilder	buffer)
+	{
+		// The bytes that are denoted by the sequence are decoded from UTF-8 as they are parsed.  If the bytes are not
+		// valid UTF-8, parsing continues so that any syntax error in the rest of the sequence takes precedence, and
+		// the invalid UTF-8 is reported at the end.  If an exception is thrown, the buffer may contain some of the
+		// decoded text.
+		boolean malformed = false;
+		int code = 0;
+		int numContinuationBytes = 0;
+		int minContinuationByte = 0;
+		int maxContinuationByte = 0;
+		int length = seq.length();
 		int index = 0;
 		while (index < length)
 		{
 			// Get next character from sequence
-			char ch = text.charAt(index++);
+			char ch = seq.charAt(index);
 
-			// Case: unreserved character
-			if (((ch >= '0') && (ch <= '9')) || ((ch >= 'A') && (ch <= 'Z')) || ((ch >= 'a') && (ch <= 'z'))
-					|| (EXTRA_UNRESERVED_CHARS.indexOf(ch) >= 0))
+			if (ch >= NUM_ASCII_CHARS)
+				throw new IllegalArgumentException("Illegal character at index " + index);
+
+			// Case: run of literal characters outside a UTF-8 sequence
+			int b = ch;
+			if (ch != ESCAPE_PREFIX)
 			{
-				// Append any pending whitespace
-				if (whitespace)
+				if (numContinuationBytes == 0)
 				{
-					buffer.append(ESCAPED_SPACE);
-					whitespace = false;
+					// Append characters up to end of run
+					if (malformed)
+						++index;
+					else
+					{
+						do
+						{
+							buffer.append(ch);
+						}
+						while ((++index < length) && ((ch = seq.charAt(index)) < NUM_ASCII_CHARS)
+								&& (ch != ESCAPE_PREFIX));
+					}
+					continue;
 				}
-
-				// Append character
-				buffer.append(ch);
+				++index;
 			}
 
-			// Case: whitespace
-			else if (reduceWhitespace && Character.isWhitespace(ch))
-				whitespace = true;
-
-			// Case: not an allowed character
+			// Case: escape sequence
 			else
 			{
-				// Append any pending whitespace
-				if (whitespace)
-				{
-					buffer.append(ESCAPED_SPACE);
-					whitespace = false;
-				}
+				if (length - index < ESCAPE_SEQUENCE_LENGTH)
+					throw new IllegalArgumentException("Malformed escape sequence at index " + index);
 
-				// If character is high surrogate, get low surrogate from sequence, combine surrogates into code point,
-				// convert code point to UTF-8 and append escape sequence ...
-				if ((ch >= MIN_HIGH_SURROGATE) && (ch < MIN_LOW_SURROGATE))
+				char ch1 = seq.charAt(index + 1);
+				char ch2 = seq.charAt(index + 2);
+				int value1 = (ch1 < NUM_ASCII_CHARS) ? HEX_VALUES[ch1] : -1;
+				int value2 = (ch2 < NUM_ASCII_CHARS) ? HEX_VALUES[ch2] : -1;
+				if ((value1 < 0) || (value2 < 0))
+					throw new IllegalArgumentException("Illegal escape sequence at index " + index);
+
+				b = (value1 << 4) | value2;
+				index += ESCAPE_SEQUENCE_LENGTH;
+			}
+
+			// Decode byte from UTF-8
+			if (malformed)
+				continue;
+
+			// Case: continuation byte
+			if (numContinuationBytes > 0)
+			{
+				if ((b < minContinuationByte) || (b > maxContinuationByte))
+					malformed = true;
+				else
 				{
-					// Get low surrogate from sequence and combine surrogates into code point
-					int code = ch;
-					if (index < length)
+					code = (code << 6) | (b & 0x3F);
+					minContinuationByte = 0x80;
+					maxContinuationByte = 0xBF;
+					if (--numContinuationBytes == 0)
 					{
-						int code0 = text.charAt(index);
-						if ((code0 >= MIN_LOW_SURROGATE) && (code0 <= MAX_LOW_SURROGATE))
-						{
-							++index;
-							code = PLANE1_MIN_VALUE + ((code - MIN_HIGH_SURROGATE) << 10 | (code0 - MIN_LOW_SURROGATE));
-						}
+						if (code < PLANE1_MIN_VALUE)
+							buffer.append((char)code);
 						else
-							code = REPLACEMENT_CHAR;
-					}
-					else
-						code = REPLACEMENT_CHAR;
-
-					// Convert code point to UTF-8 and append escape sequence
-					for (byte b : codePointToUtf8(code))
-					{
-						buffer.append(ESCAPE_PREFIX);
-						buffer.append(OUT_HEX_DIGITS[(b >> 4) & 0x0F]);
-						buffer.append(OUT_HEX_DIGITS[b & 0x0F]);
+							buffer.appendCodePoint(code);
 					}
 				}
+			}
 
-				// ... otherwise, convert character to UTF-8 and append escape sequence
-				else
+			// Case: first byte of sequence
+			else
+			{
+				numContinuationBytes = UTF8_NUM_CONTINUATION_BYTES[b];
+				switch (numContinuationBytes)
 				{
-					for (byte b : charToUtf8(ch))
-					{
-						buffer.append(ESCAPE_PREFIX);
-						buffer.append(OUT_HEX_DIGITS[(b >> 4) & 0x0F]);
-						buffer.append(OUT_HEX_DIGITS[b & 0x0F]);
-					}
+					case -1:
+						malformed = true;
+						break;
+
+					case 0:
+						buffer.append((char)b);
+						break;
+
+					default:
+						// Restrict the first continuation byte to exclude overlong sequences, surrogates and values
+						// greater than U+10FFFF
+						code = b & (0x3F >> numContinuationBytes);
+						minContinuationByte = (b == 0xE0) ? 0xA0 : (b == 0xF0) ? 0x90 : 0x80;
+						maxContinuationByte = (b == 0xED) ? 0x9F : (b == 0xF4) ? 0x8F : 0xBF;
+						break;
 				}
 			}
 		}
 
-		// Return encoded text
-		return buffer.toString();
+		// Test for malformed or incomplete UTF-8 sequence
+		if (malformed || (numContinuationBytes > 0))
+			throw new IllegalArgumentException("Input contains malformed or unmappable UTF-8 sequence");
+
+		// Return buffer
+		return buffer;
 	}
 
 	//------------------------------------------------------------------
 
-	public static String decode(
-		CharSequence	seq)
+	private static void encode(
+		CharSequence	text,
+		int				literalClasses,
+		boolean			reduceWhitespace,
+		Appendable		output)
+		throws IOException
 	{
-		// Allocate buffer for decoded text
-		int length = seq.length();
-		ByteBuffer buffer = ByteBuffer.allocate(length);
-
+		boolean whitespace = false;
+		int length = text.length();
 		int index = 0;
 		while (index < length)
 		{
 			// Get next character from sequence
-			char ch = seq.charAt(index);
+			char ch = text.charAt(index);
 
-			if (ch >= MIN_VALUE_2SEQ)
-				throw new IllegalArgumentException("Illegal character at index " + index);
-
-			if (ch == ESCAPE_PREFIX)
+			// Case: run of characters that are not escaped
+			if ((ch < NUM_ASCII_CHARS) && ((CHAR_CLASSES[ch] & literalClasses) != 0))
 			{
-				if (length - index < ESCAPE_SEQUENCE_LENGTH)
-					throw new IllegalArgumentException("Malformed escape sequence at index " + index);
+				// Find end of run
+				int start = index;
+				while ((++index < length) && ((ch = text.charAt(index)) < NUM_ASCII_CHARS)
+						&& ((CHAR_CLASSES[ch] & literalClasses) != 0))
+				{
+					// do nothing
+				}
 
-				int value = IN_HEX_DIGITS.indexOf(Character.toUpperCase(seq.charAt(index + 1)));
-				if (value >= 0)
+				// Append any pending whitespace
+				if (whitespace)
 				{
-					int i = IN_HEX_DIGITS.indexOf(Character.toUpperCase(seq.charAt(index + 2)));
-					value = (i < 0) ? -1 : (value << 4) + i;
+					output.append(ESCAPED_SPACE);
+					whitespace = false;
 				}
-				if (value < 0)
-					throw new IllegalArgumentException("Illegal escape sequence at index " + index);
 
-				buffer.put((byte)value);
-				index += ESCAPE_SEQUENCE_LENGTH;
+				// Append run
+				output.append(text, start, index);
+				continue;
 			}
-			else
+			++index;
+
+			// Case: whitespace
+			if (reduceWhitespace && ((ch < NUM_ASCII_CHARS) ? (CHAR_CLASSES[ch] == CHAR_CLASS_WHITESPACE)
+															: Character.isWhitespace(ch)))
 			{
-				buffer.put((byte)ch);
-				++index;
+				whitespace = true;
+				continue;
+			}
+
+			// Case: not an allowed character
+
+			// Append any pending whitespace
+			if (whitespace)
+			{
+				output.append(ESCAPED_SPACE);
+				whitespace = false;
 			}
+
+			// If character is a high surrogate, get low surrogate from sequence and combine surrogates into code point.
+			// An unpaired high surrogate is replaced; an unpaired low surrogate is an error.
+			int code = ch;
+			if ((ch >= MIN_HIGH_SURROGATE) && (ch < MIN_LOW_SURROGATE))
+			{
+				code = REPLACEMENT_CHAR;
+				if (index < length)
+				{
+					int code0 = text.charAt(index);
+					if ((code0 >= MIN_LOW_SURROGATE) && (code0 <= MAX_LOW_SURROGATE))
+					{
+						++index;
+						code = PLANE1_MIN_VALUE + ((ch - MIN_HIGH_SURROGATE) << 10 | (code0 - MIN_LOW_SURROGATE));
+					}
+				}
+			}
+			else if ((ch >= MIN_LOW_SURROGATE) && (ch <= MAX_LOW_SURROGATE))
+				throw new IllegalArgumentException(UNPAIRED_SURROGATE_STR);
+
+			// Convert code point to UTF-8 and append escape sequences
+			appendUtf8Escapes(code, output);
 		}
+	}
 
-		try
+	//------------------------------------------------------------------
+
+	private static void appendUtf8Escapes(
+		int			code,
+		Appendable	output)
+		throws IOException
+	{
+		// Case: 1-byte sequence
+		if (code < MIN_VALUE_2SEQ)
+			output.append(ESCAPES[code]);
+
+		// Case: 2-byte sequence
+		else if (code < MIN_VALUE_3SEQ)
+		{
+			output.append(ESCAPES[0xC0 | (code >> 6)]);
+			output.append(ESCAPES[0x80 | (code & 0x3F)]);
+		}
+
+		// Case: 3-byte sequence
+		else if (code < MIN_VALUE_4SEQ)
 		{
-			buffer.flip();
-			return StandardCharsets.UTF_8.newDecoder()
-											.onMalformedInput(CodingErrorAction.REPORT)
-											.onUnmappableCharacter(CodingErrorAction.REPORT)
-											.decode(buffer)
-											.toString();
+			output.append(ESCAPES[0xE0 | (code >> 12)]);
+			output.append(ESCAPES[0x80 | (code >> 6 & 0x3F)]);
+			output.append(ESCAPES[0x80 | (code      & 0x3F)]);
 		}
-		catch (CharacterCodingException e)
+
+		// Case: 4-byte sequence
+		else
 		{
-			throw new IllegalArgumentException("Input contains malformed or unmappable UTF-8 sequence");
+			output.append(ESCAPES[0xF0 | (code >> 18)]);
+			output.append(ESCAPES[0x80 | (code >> 12 & 0x3F)]);
+			output.append(ESCAPES[0x80 | (code >> 6  & 0x3F)]);
+			output.append(ESCAPES[0x80 | (code       & 0x3F)]);
 		}
 	}
 
@@ -237,7 +471,7 @@ public class PercentCodec
 	{
 		// Test for unpaired surrogate
 		if ((ch >= MIN_HIGH_SURROGATE) && (ch <= MAX_LOW_SURROGATE))
-			throw new IllegalArgumentException("Unpaired surrogate");
+			throw new IllegalArgumentException(UNPAIRED_SURROGATE_STR);
 
 		// Case: 1-byte sequence
 		if (ch < MIN_VALUE_2SEQ)
@@ -269,7 +503,7 @@ public class PercentCodec
 	{
 		// Test for unpaired surrogate
 		if ((ch >= MIN_HIGH_SURROGATE) && (ch <= MAX_LOW_SURROGATE))
-			throw new IllegalArgumentException("Unpaired surrogate");
+			throw new IllegalArgumentException(UNPAIRED_SURROGATE_STR);
 
 		// Replace code that is out of bounds
 		if ((ch < 0) || (ch > MAX_VALUE))
@@ -0,0 +1,216 @@
+/*====================================================================*\
+
+BulkRenderer.java
+
+Class: bulk renderer of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import uk.blankaspect.common.function.IFunction1;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: BULK RENDERER OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class provides a method that converts a range of an array of {@linkplain Location file-system locations} to strings
+ * in parallel.  The range is divided into chunks that are rendered by the tasks of a {@link ForkJoinPool}; each task
+ * also computes the total length of its renderings, so that the renderings can be joined in a buffer whose capacity is
+ * the exact length of the text.
+ */
+
+class BulkRenderer
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The maximum number of locations that are rendered by a single task. */
+	private static final	int		CHUNK_SIZE	= 2048;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Prevents this class from being instantiated externally.
+	 */
+
+	private BulkRenderer()
+	{
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Converts each of the locations in the specified range of an array to a string with the specified renderer, stores
+	 * the strings in the specified array and returns their total length.  The locations are rendered in parallel by the
+	 * tasks of the common {@link ForkJoinPool}, so the renderer must be thread-safe.
+	 *
+	 * @param  locations
+	 *           the array of locations.
+	 * @param  startIndex
+	 *           the index of the first location of the range that will be rendered (inclusive).
+	 * @param  endIndex
+	 *           the index of the last location of the range that will be rendered (exclusive).
+	 * @param  renderer
+	 *           the function that converts a location to a string.
+	 * @param  renderings
+	 *           the array in which the rendering of the location at index <i>i</i> of {@code locations} will be stored
+	 *           at index <i>i</i>&nbsp;&minus;&nbsp;{@code startIndex}.
+	 * @return the total length of the renderings.
+	 */
+
+	static long render(
+		Location[]						locations,
+		int								startIndex,
+		int								endIndex,
+		IFunction1<String, Location>	renderer,
+		String[]						renderings)
+	{
+		return (startIndex < endIndex)
+					? ForkJoinPool.commonPool().invoke(new RenderTask(locations, renderer, renderings, startIndex,
+																	  startIndex, endIndex))
+					: 0;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: RENDERING TASK
+
+
+	/**
+	 * This class implements a task that renders a range of an array of locations, dividing the range between subtasks
+	 * if it is larger than {@link #CHUNK_SIZE}.  The result of the task is the total length of the renderings.
+	 */
+
+	private static class RenderTask
+		extends RecursiveTask<Long>
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The locations that will be rendered. */
+		private	Location[]						locations;
+
+		/** The function that converts a location to a string. */
+		private	IFunction1<String, Location>	renderer;
+
+		/** The array in which the renderings will be stored. */
+		private	String[]						renderings;
+
+		/** The index of the location whose rendering is stored at the start of {@link #renderings}. */
+		private	int								offset;
+
+		/** The index of the first location of the range of this task (inclusive). */
+		private	int								startIndex;
+
+		/** The index of the last location of the range of this task (exclusive). */
+		private	int								endIndex;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that renders the specified range of an array of locations.
+		 *
+		 * @param locations
+		 *          the locations that will be rendered.
+		 * @param renderer
+		 *          the function that converts a location to a string.
+		 * @param renderings
+		 *          the array in which the renderings will be stored.
+		 * @param offset
+		 *          the index of the location whose rendering will be stored at the start of {@code renderings}.
+		 * @param startIndex
+		 *          the index of the first location of the range (inclusive).
+		 * @param endIndex
+		 *          the index of the last location of the range (exclusive).
+		 */
+
+		private RenderTask(
+			Location[]						locations,
+			IFunction1<String, Location>	renderer,
+			String[]						renderings,
+			int								offset,
+			int								startIndex,
+			int								endIndex)
+		{
+			// Initialise instance variables
+			this.locations = locations;
+			this.renderer = renderer;
+			this.renderings = renderings;
+			this.offset = offset;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		protected Long compute()
+		{
+			// If range is large, divide it between two subtasks ...
+			if (endIndex - startIndex > CHUNK_SIZE)
+			{
+				int midIndex = (startIndex + endIndex) >>> 1;
+				RenderTask task = new RenderTask(locations, renderer, renderings, offset, startIndex, midIndex);
+				task.fork();
+				long length = new RenderTask(locations, renderer, renderings, offset, midIndex, endIndex).compute();
+				return length + task.join();
+			}
+
+			// ... otherwise, render locations of range
+			long length = 0;
+			for (int i = startIndex; i < endIndex; i++)
+			{
+				String rendering = renderer.invoke(locations[i]);
+				renderings[i - offset] = rendering;
+				length += rendering.length();
+			}
+			return length;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,406 @@
+/*====================================================================*\
+
+CollationKey.java
+
+Class: collation key of a file-system location.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Path;
+
+import java.util.Arrays;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: COLLATION KEY OF A FILE-SYSTEM LOCATION
+
+
+/**
+ * This class implements a collation key of a {@linkplain Path file-system location}.  The key is a packed array of
+ * bytes that encodes the components of the location (its root followed by its names) so that comparing two keys
+ * bytewise, as unsigned values, compares the locations component by component in the collation order of the key.
+ * <p>
+ * Each component is encoded as the UTF-8 form of its characters followed by a zero byte, which is less than any byte of
+ * an encoded character, so that a component precedes any longer component of which it is a prefix.  The characters
+ * may be converted to lower case.  In a <i>natural</i> key, each sequence of decimal digits is encoded as a marker
+ * byte followed by the number of significant digits and the significant digits themselves, so that sequences of digits
+ * are compared by their numeric values; the marker has the value of the character '0', so that a number is ordered
+ * relative to the other characters in the same way as a digit.
+ * </p>
+ * <p>
+ * The key also records the offsets of the encoded filename and filename extension, so that the parent, filename and
+ * extension of a location can be compared by comparing ranges of keys.
+ * </p>
+ */
+
+class CollationKey
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The byte that terminates an encoded component. */
+	private static final	byte	COMPONENT_TERMINATOR	= 0;
+
+	/** The byte that precedes an encoded sequence of decimal digits in a natural key. */
+	private static final	byte	NUMBER_MARKER	= '0';
+
+	/** The value of the first byte of the encoded number of significant digits that indicates that the number is
+		encoded in the following four bytes. */
+	private static final	int		LONG_NUM_DIGITS_PREFIX	= 0xFF;
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The encoded components of the location. */
+	private	byte[]	bytes;
+
+	/** The offset of the encoded filename of the location in {@link #bytes}. */
+	private	int		filenameOffset;
+
+	/** The offset of the encoded filename extension of the location in {@link #bytes}. */
+	private	int		extensionOffset;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a collation key for the specified location.
+	 *
+	 * @param location
+	 *          the location for which a collation key will be created.
+	 * @param ignoreCase
+	 *          if {@code true}, the characters of the location will be converted to lower case.
+	 * @param natural
+	 *          if {@code true}, sequences of decimal digits will be encoded so that they are compared by their numeric
+	 *          values.
+	 */
+
+	CollationKey(
+		Path	location,
+		boolean	ignoreCase,
+		boolean	natural)
+	{
+		// Initialise encoder
+		Encoder encoder = new Encoder(location.toString().length() + location.getNameCount() + 8, ignoreCase, natural);
+
+		// Encode root
+		Path root = location.getRoot();
+		if (root != null)
+			encoder.encodeComponent(root.toString());
+
+		// Encode names
+		int numNames = location.getNameCount();
+		for (int i = 0; i < numNames; i++)
+		{
+			String name = location.getName(i).toString();
+
+			// If name is filename, set offsets of filename and extension
+			if (i == numNames - 1)
+			{
+				filenameOffset = encoder.length;
+				int index = Location.extensionSeparatorIndex(name, 0);
+				if (index >= 0)
+				{
+					encoder.encode(name, 0, index + 1);
+					extensionOffset = encoder.length;
+					encoder.encode(name, index + 1, name.length());
+					encoder.put(COMPONENT_TERMINATOR);
+					break;
+				}
+			}
+
+			// Encode name
+			encoder.encodeComponent(name);
+		}
+
+		// Initialise instance variables
+		bytes = Arrays.copyOf(encoder.buffer, encoder.length);
+		if (numNames == 0)
+			filenameOffset = bytes.length;
+		if (extensionOffset == 0)
+			extensionOffset = bytes.length;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Compares the location of this key with the location of the specified key, component by component.
+	 *
+	 * @param  other
+	 *           the key with which this key will be compared.
+	 * @return a negative integer, zero or a positive integer, according to whether the location of this key is less
+	 *         than, equal to or greater than the location of {@code other}.
+	 */
+
+	int comparePathname(
+		CollationKey	other)
+	{
+		return Arrays.compareUnsigned(bytes, other.bytes);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Compares the parent of the location of this key with the parent of the location of the specified key.
+	 *
+	 * @param  other
+	 *           the key with which this key will be compared.
+	 * @return a negative integer, zero or a positive integer, according to whether the parent of the location of this
+	 *         key is less than, equal to or greater than the parent of the location of {@code other}.
+	 */
+
+	int compareParent(
+		CollationKey	other)
+	{
+		return Arrays.compareUnsigned(bytes, 0, filenameOffset, other.bytes, 0, other.filenameOffset);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Compares the filename of the location of this key with the filename of the location of the specified key.
+	 *
+	 * @param  other
+	 *           the key with which this key will be compared.
+	 * @return a negative integer, zero or a positive integer, according to whether the filename of the location of
+	 *         this key is less than, equal to or greater than the filename of the location of {@code other}.
+	 */
+
+	int compareFilename(
+		CollationKey	other)
+	{
+		return Arrays.compareUnsigned(bytes, filenameOffset, bytes.length, other.bytes, other.filenameOffset,
+									  other.bytes.length);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Compares the filename extension of the location of this key with the filename extension of the location of the
+	 * specified key.  A location that has no extension precedes one that has an extension.
+	 *
+	 * @param  other
+	 *           the key with which this key will be compared.
+	 * @return a negative integer, zero or a positive integer, according to whether the filename extension of the
+	 *         location of this key is less than, equal to or greater than the filename extension of the location of
+	 *         {@code other}.
+	 */
+
+	int compareExtension(
+		CollationKey	other)
+	{
+		return Arrays.compareUnsigned(bytes, extensionOffset, bytes.length, other.bytes, other.extensionOffset,
+									  other.bytes.length);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: ENCODER
+
+
+	/**
+	 * This class implements an encoder of the components of a location into a growable buffer.
+	 */
+
+	private static class Encoder
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The buffer. */
+		private	byte[]	buffer;
+
+		/** The number of bytes in the buffer. */
+		private	int		length;
+
+		/** Flag: if {@code true}, characters are converted to lower case. */
+		private	boolean	ignoreCase;
+
+		/** Flag: if {@code true}, sequences of decimal digits are encoded as numbers. */
+		private	boolean	natural;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an encoder.
+		 *
+		 * @param capacity
+		 *          the initial capacity of the buffer.
+		 * @param ignoreCase
+		 *          if {@code true}, characters will be converted to lower case.
+		 * @param natural
+		 *          if {@code true}, sequences of decimal digits will be encoded as numbers.
+		 */
+
+		private Encoder(
+			int		capacity,
+			boolean	ignoreCase,
+			boolean	natural)
+		{
+			// Initialise instance variables
+			buffer = new byte[capacity];
+			this.ignoreCase = ignoreCase;
+			this.natural = natural;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Encodes the specified component and appends a terminator.
+		 *
+		 * @param component
+		 *          the component that will be encoded.
+		 */
+
+		private void encodeComponent(
+			String	component)
+		{
+			encode(component, 0, component.length());
+			put(COMPONENT_TERMINATOR);
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Encodes the specified range of the specified string.
+		 *
+		 * @param str
+		 *          the string whose range will be encoded.
+		 * @param startIndex
+		 *          the index of the first character of the range (inclusive).
+		 * @param endIndex
+		 *          the index of the last character of the range (exclusive).
+		 */
+
+		private void encode(
+			String	str,
+			int		startIndex,
+			int		endIndex)
+		{
+			int index = startIndex;
+			while (index < endIndex)
+			{
+				int ch = str.codePointAt(index);
+
+				// Encode sequence of decimal digits as a number
+				if (natural && (ch >= '0') && (ch <= '9'))
+				{
+					// Skip leading zeros
+					while ((index < endIndex) && (str.charAt(index) == '0'))
+						++index;
+
+					// Find end of sequence of digits
+					int digitsStart = index;
+					while ((index < endIndex) && (str.charAt(index) >= '0') && (str.charAt(index) <= '9'))
+						++index;
+
+					// Encode marker and number of significant digits
+					int numDigits = index - digitsStart;
+					put(NUMBER_MARKER);
+					if (numDigits < LONG_NUM_DIGITS_PREFIX)
+						put(numDigits);
+					else
+					{
+						put(LONG_NUM_DIGITS_PREFIX);
+						put(numDigits >>> 24);
+						put(numDigits >>> 16);
+						put(numDigits >>> 8);
+						put(numDigits);
+					}
+
+					// Encode significant digits
+					for (int i = digitsStart; i < index; i++)
+						put(str.charAt(i));
+				}
+
+				// Encode character as UTF-8
+				else
+				{
+					index += Character.charCount(ch);
+					if (ignoreCase)
+						ch = Character.toLowerCase(ch);
+
+					if (ch < 0x80)
+						put(ch);
+					else if (ch < 0x800)
+					{
+						put(0xC0 | (ch >>> 6));
+						put(0x80 | (ch & 0x3F));
+					}
+					else if (ch < 0x10000)
+					{
+						put(0xE0 | (ch >>> 12));
+						put(0x80 | ((ch >>> 6) & 0x3F));
+						put(0x80 | (ch & 0x3F));
+					}
+					else
+					{
+						put(0xF0 | (ch >>> 18));
+						put(0x80 | ((ch >>> 12) & 0x3F));
+						put(0x80 | ((ch >>> 6) & 0x3F));
+						put(0x80 | (ch & 0x3F));
+					}
+				}
+			}
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Appends the low-order eight bits of the specified value to the buffer, expanding the buffer if necessary.
+		 *
+		 * @param value
+		 *          the value whose low-order eight bits will be appended.
+		 */
+
+		private void put(
+			int	value)
+		{
+			if (length == buffer.length)
+				buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+			buffer[length++] = (byte)value;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
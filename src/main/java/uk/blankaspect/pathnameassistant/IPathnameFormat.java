@@ -0,0 +1,94 @@
+/*====================================================================*\
+
+IPathnameFormat.java
+
+Interface: pathname format.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Path;
+
+import uk.blankaspect.common.function.IFunction1;
+
+//----------------------------------------------------------------------
+
+
+// INTERFACE: PATHNAME FORMAT
+
+
+/**
+ * This interface defines the methods that must be implemented by a format of a pathname of a file-system location.  It
+ * is implemented by the {@linkplain PathnameFormat built-in formats} and by {@linkplain PathnameTemplate user-defined
+ * templates}.
+ */
+
+interface IPathnameFormat
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns a string representation of the specified file-system location.  The representation of a location in a
+	 * relative format is absolute.
+	 *
+	 * @param  location
+	 *           the location for which a string representation is desired.
+	 * @return a string representation of {@code location}.
+	 */
+
+	String locationToString(
+		Path	location);
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a string representation of the specified location of a {@linkplain LocationStore store}, which is
+	 * created from the names of the location and its ancestors without creating its path.  The representation is the
+	 * same as that of the path of the location, whose pathname is absolute and normalised when it is added to the
+	 * store.
+	 *
+	 * @param  location
+	 *           the location for which a string representation is desired.
+	 * @return a string representation of {@code location}.
+	 */
+
+	String locationToString(
+		Location	location);
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a function that converts a file-system location to a string in this format.  The function is
+	 * thread-safe.
+	 *
+	 * @param  base
+	 *           the location relative to which a relative format represents a location.  It is ignored by an
+	 *           absolute format, and it may be {@code null}.
+	 * @return a function that converts a location to a string in this format.
+	 */
+
+	default IFunction1<String, Location> renderer(
+		Location	base)
+	{
+		return this::locationToString;
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
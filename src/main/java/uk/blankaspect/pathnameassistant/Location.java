@@ -0,0 +1,634 @@
+/*====================================================================*\
+
+Location.java
+
+Class: file-system location in a store of locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: FILE-SYSTEM LOCATION IN A STORE OF LOCATIONS
+
+
+/**
+ * This class implements a file-system location of the default file system that is held as a node of a {@linkplain
+ * LocationStore store of locations}.  A node holds the name of one element of a pathname and a reference to the node of
+ * its parent, so that the ancestor directories that locations have in common are held only once.  The {@linkplain Path
+ * path} of a location is created only when it is required.
+ * <p>
+ * A location is equal only to itself; a store has no more than one node for each pathname.  The name and parent of a
+ * node are immutable, so a location may be converted to a path or a string on any thread.  The other state of a node
+ * belongs to its store, and is accessed only on the thread of the store, with the exception of the flag that
+ * indicates whether the location is a directory.  The flag is read when the location is rendered, so that a rendering
+ * that depends on the kind of location does not have to query the file system; it is volatile, because a location
+ * that has already been published to other threads is marked as a directory when a descendant is added to its store.
+ * </p>
+ * <p>
+ * The children of a node are held in an open-addressing hash table with linear probing, which needs only one reference
+ * for each child.
+ * </p>
+ */
+
+final class Location
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The file system of locations. */
+	static final	FileSystem	FILE_SYSTEM	= FileSystems.getDefault();
+
+	/** The separator of the elements of a pathname. */
+	static final	char	SEPARATOR	= FILE_SYSTEM.getSeparator().charAt(0);
+
+	/** The character that separates the extension of a filename from the rest of the filename. */
+	static final	char	EXTENSION_SEPARATOR	= '.';
+
+	/** The name that denotes the parent directory in a relative pathname. */
+	private static final	String	PARENT_NAME	= "..";
+
+	/** The name that denotes the current directory in a relative pathname. */
+	private static final	String	CURRENT_NAME	= ".";
+
+	/** The minimum length of the hash table of the children of a node. */
+	private static final	int		MIN_TABLE_LENGTH	= 2;
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The parent of this location, or {@code null} if this location is a root. */
+	private final		Location	parent;
+
+	/** The name of this location: its filename, or the string representation of the root if this location is a root. */
+	private final		String		name;
+
+	/** The hash table of the children of this location, or {@code null} if this location has no children. */
+	private				Location[]	children;
+
+	/** The number of children of this location. */
+	private				int			numChildren;
+
+	/** Flag: if {@code true}, this location is a member of its store rather than only the ancestor of members. */
+	private				boolean		member;
+
+	/** Flag: if {@code true}, this location is a directory; if {@code null}, it is not known whether this location is a
+		directory. */
+	private volatile	Boolean		directory;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a file-system location.
+	 *
+	 * @param parent
+	 *          the parent of the location, or {@code null} if the location is a root.
+	 * @param name
+	 *          the name of the location.
+	 */
+
+	Location(
+		Location	parent,
+		String		name)
+	{
+		// Initialise instance variables
+		this.parent = parent;
+		this.name = name;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the hash code of the specified substring of a pathname.  The hash code is the same as the one that {@link
+	 * String#hashCode()} returns for the substring.
+	 *
+	 * @param  pathname
+	 *           the pathname.
+	 * @param  startIndex
+	 *           the start index of the substring.
+	 * @param  endIndex
+	 *           the end index of the substring.
+	 * @return the hash code of the substring of {@code pathname} from {@code startIndex} to {@code endIndex}.
+	 */
+
+	private static int hash(
+		String	pathname,
+		int		startIndex,
+		int		endIndex)
+	{
+		int hash = 0;
+		for (int i = startIndex; i < endIndex; i++)
+			hash = 31 * hash + pathname.charAt(i);
+		return hash;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the index of the hash table of the specified length at which a search for a name with the specified hash
+	 * code starts.
+	 *
+	 * @param  hash
+	 *           the hash code of the name.
+	 * @param  tableLength
+	 *           the length of the hash table, which must be a power of two.
+	 * @return the index at which a search for a name whose hash code is {@code hash} starts.
+	 */
+
+	private static int homeIndex(
+		int	hash,
+		int	tableLength)
+	{
+		return (hash ^ (hash >>> 16)) & (tableLength - 1);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the stem of the specified filename: the substring from the start of the filename to the first occurrence
+	 * of a dot, '.', but not including the dot.  If the filename does not contain a dot, or if its first dot is preceded
+	 * by fewer than two characters, the stem is the entire filename.
+	 *
+	 * @param  filename
+	 *           the filename of interest.
+	 * @return the stem of {@code filename}.
+	 */
+
+	static String filenameStem(
+		String	filename)
+	{
+		int index = filename.indexOf('.');
+		return (index > 1) ? filename.substring(0, index) : filename;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the index of the {@linkplain #EXTENSION_SEPARATOR separator} of the extension of the filename that starts
+	 * at the specified index of the specified string and extends to the end of the string.  The separator is the last
+	 * dot of the filename, provided that it is not the first character of the filename, so a filename such as
+	 * <i>.profile</i> has no extension.
+	 *
+	 * @param  str
+	 *           the string that contains the filename of interest.
+	 * @param  start
+	 *           the index of the start of the filename in {@code str}.
+	 * @return the index of the separator of the extension of the filename that starts at {@code start} in {@code str},
+	 *         or -1 if the filename has no extension.
+	 */
+
+	static int extensionSeparatorIndex(
+		String	str,
+		int		start)
+	{
+		int index = str.lastIndexOf(EXTENSION_SEPARATOR);
+		return (index > start) ? index : -1;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Inserts the specified location into the specified hash table, which must have a free slot.
+	 *
+	 * @param table
+	 *          the hash table.
+	 * @param location
+	 *          the location that will be inserted.
+	 */
+
+	private static void insert(
+		Location[]	table,
+		Location	location)
+	{
+		int mask = table.length - 1;
+		int index = homeIndex(location.name.hashCode(), table.length);
+		while (table[index] != null)
+			index = (index + 1) & mask;
+		table[index] = location;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods : overriding methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the pathname of this location.
+	 *
+	 * @return the pathname of this location.
+	 */
+
+	@Override
+	public String toString()
+	{
+		// Get ancestors of this location and length of pathname
+		Location[] ancestors = ancestors();
+		int length = 0;
+		for (Location location : ancestors)
+			length += location.name.length() + 1;
+
+		// Concatenate names, separating them where the name of the root does not end with a separator
+		StringBuilder buffer = new StringBuilder(length);
+		for (Location location : ancestors)
+		{
+			int bufferLength = buffer.length();
+			if ((bufferLength > 0) && (buffer.charAt(bufferLength - 1) != SEPARATOR))
+				buffer.append(SEPARATOR);
+			buffer.append(location.name);
+		}
+		return buffer.toString();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the parent of this location.
+	 *
+	 * @return the parent of this location, or {@code null} if this location is a root.
+	 */
+
+	Location getParent()
+	{
+		return parent;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the filename of this location.
+	 *
+	 * @return the filename of this location, or {@code null} if this location is a root.
+	 */
+
+	String getFileName()
+	{
+		return (parent == null) ? null : name;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates and returns the path of this location.  A new path is created by each call to this method.
+	 *
+	 * @return the path of this location.
+	 */
+
+	Path toPath()
+	{
+		return FILE_SYSTEM.getPath(toString());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the pathname of this location relative to the specified location, which is interpreted as a directory.
+	 * The names of the ancestors of the two locations are compared from their roots, so {@code base} need not be a
+	 * member of the store of this location.  The relative pathname consists of a parent reference, "..", for each
+	 * ancestor of {@code base} below the nearest ancestor that the locations have in common, followed by the names of
+	 * the ancestors of this location below the common ancestor.  The cost of this method is proportional to the sum of
+	 * the depths of the two locations.
+	 *
+	 * @param  base
+	 *           the location relative to which the pathname of this location is desired.
+	 * @return the pathname of this location relative to {@code base}; "." if this location has the same pathname as
+	 *         {@code base}; or {@code null} if the locations have different roots.
+	 */
+
+	String relativePathname(
+		Location	base)
+	{
+		// Get ancestors of both locations
+		Location[] ancestors = ancestors();
+		Location[] baseAncestors = base.ancestors();
+
+		// Find number of ancestors that locations have in common
+		int maxNumCommon = Math.min(ancestors.length, baseAncestors.length);
+		int numCommon = 0;
+		while (numCommon < maxNumCommon)
+		{
+			Location ancestor = ancestors[numCommon];
+			Location baseAncestor = baseAncestors[numCommon];
+			if ((ancestor != baseAncestor) && !ancestor.name.equals(baseAncestor.name))
+				break;
+			++numCommon;
+		}
+
+		// If locations have different roots, there is no relative pathname
+		if (numCommon == 0)
+			return null;
+
+		// Append a parent reference for each ancestor of base below common ancestor
+		StringBuilder buffer = new StringBuilder();
+		for (int i = numCommon; i < baseAncestors.length; i++)
+		{
+			if (!buffer.isEmpty())
+				buffer.append(SEPARATOR);
+			buffer.append(PARENT_NAME);
+		}
+
+		// Append names of ancestors of this location below common ancestor
+		for (int i = numCommon; i < ancestors.length; i++)
+		{
+			if (!buffer.isEmpty())
+				buffer.append(SEPARATOR);
+			buffer.append(ancestors[i].name);
+		}
+
+		// Return relative pathname
+		return buffer.isEmpty() ? CURRENT_NAME : buffer.toString();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the name of this location.
+	 *
+	 * @return the name of this location.
+	 */
+
+	String getName()
+	{
+		return name;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if this location is a member of its store.
+	 *
+	 * @return {@code true} if this location is a member of its store; {@code false} if it is only the ancestor of
+	 *         members or it has been removed from its store.
+	 */
+
+	boolean isMember()
+	{
+		return member;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the flag that indicates whether this location is a member of its store.
+	 *
+	 * @param member
+	 *          if {@code true}, this location is a member of its store.
+	 */
+
+	void setMember(
+		boolean	member)
+	{
+		this.member = member;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the flag that indicates whether this location is a directory.  Symbolic links are followed when the flag
+	 * is determined, so a symbolic link to a directory is a directory.
+	 *
+	 * @return {@code true} if this location is a directory; {@code false} if it is not a directory; {@code null} if it
+	 *         is not known whether this location is a directory.
+	 */
+
+	Boolean getDirectory()
+	{
+		return directory;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the flag that indicates whether this location is a directory.
+	 *
+	 * @param directory
+	 *          {@code true} if this location is a directory; {@code false} if it is not a directory; {@code null} if it
+	 *          is not known whether this location is a directory.
+	 */
+
+	void setDirectory(
+		Boolean	directory)
+	{
+		this.directory = directory;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the number of children of this location.
+	 *
+	 * @return the number of children of this location.
+	 */
+
+	int getNumChildren()
+	{
+		return numChildren;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the hash table of the children of this location.  Slots of the table that do not contain a child are
+	 * {@code null}.
+	 *
+	 * @return the hash table of the children of this location, or {@code null} if this location has no children.
+	 */
+
+	Location[] getChildTable()
+	{
+		return children;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the child of this location whose name is the specified substring of a pathname.
+	 *
+	 * @param  pathname
+	 *           the pathname.
+	 * @param  startIndex
+	 *           the start index of the name in {@code pathname}.
+	 * @param  endIndex
+	 *           the end index of the name in {@code pathname}.
+	 * @return the child of this location whose name is the substring of {@code pathname} from {@code startIndex} to
+	 *         {@code endIndex}, or {@code null} if there is no such child.
+	 */
+
+	Location getChild(
+		String	pathname,
+		int		startIndex,
+		int		endIndex)
+	{
+		if (children != null)
+		{
+			int length = endIndex - startIndex;
+			int mask = children.length - 1;
+			int index = homeIndex(hash(pathname, startIndex, endIndex), children.length);
+			Location child = null;
+			while ((child = children[index]) != null)
+			{
+				String childName = child.name;
+				if ((childName.length() == length) && childName.regionMatches(0, pathname, startIndex, length))
+					return child;
+				index = (index + 1) & mask;
+			}
+		}
+		return null;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified location to the children of this location.  The child must have this location as its parent,
+	 * and there must be no other child with the same name.
+	 *
+	 * @param child
+	 *          the location that will be added to the children of this location.
+	 */
+
+	void addChild(
+		Location	child)
+	{
+		// Create or expand table so that it is no more than two-thirds full
+		if (children == null)
+			children = new Location[MIN_TABLE_LENGTH];
+		else if (3 * (numChildren + 1) > 2 * children.length)
+		{
+			Location[] table = new Location[2 * children.length];
+			for (Location location : children)
+			{
+				if (location != null)
+					insert(table, location);
+			}
+			children = table;
+		}
+
+		// Insert child
+		insert(children, child);
+		++numChildren;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the only child of this location.
+	 *
+	 * @return the only child of this location, or {@code null} if this location does not have exactly one child.
+	 */
+
+	Location getOnlyChild()
+	{
+		if (numChildren == 1)
+		{
+			for (Location child : children)
+			{
+				if (child != null)
+					return child;
+			}
+		}
+		return null;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the specified location from the children of this location.  The slots that follow the slot of the child
+	 * are shifted back where necessary, so that no marker of a removed child is left in the table.
+	 *
+	 * @param child
+	 *          the location that will be removed from the children of this location.
+	 */
+
+	void removeChild(
+		Location	child)
+	{
+		// Find child
+		if (children == null)
+			return;
+		int mask = children.length - 1;
+		int index = homeIndex(child.name.hashCode(), children.length);
+		while (children[index] != child)
+		{
+			if (children[index] == null)
+				return;
+			index = (index + 1) & mask;
+		}
+
+		// Discard table if child was the only one
+		if (--numChildren == 0)
+		{
+			children = null;
+			return;
+		}
+
+		// Remove child, and move each following child of the same cluster that would no longer be found
+		children[index] = null;
+		int freeIndex = index;
+		index = (index + 1) & mask;
+		Location location = null;
+		while ((location = children[index]) != null)
+		{
+			int home = homeIndex(location.name.hashCode(), children.length);
+			if (((index - home) & mask) >= ((index - freeIndex) & mask))
+			{
+				children[freeIndex] = location;
+				children[index] = null;
+				freeIndex = index;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the ancestors of this location, starting with its root and ending with this location.
+	 *
+	 * @return the ancestors of this location, starting with its root and ending with this location.
+	 */
+
+	private Location[] ancestors()
+	{
+		int depth = 0;
+		for (Location location = this; location != null; location = location.parent)
+			++depth;
+		Location[] ancestors = new Location[depth];
+		for (Location location = this; location != null; location = location.parent)
+			ancestors[--depth] = location;
+		return ancestors;
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,359 @@
+/*====================================================================*\
+
+LocationExporter.java
+
+Class: exporter of file-system locations as text.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import uk.blankaspect.common.exception2.FileException;
+
+import uk.blankaspect.common.function.IFunction1;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: EXPORTER OF FILE-SYSTEM LOCATIONS AS TEXT
+
+
+/**
+ * This class provides a method that converts an array of {@linkplain Location file-system locations} to text.  The
+ * locations are rendered in parallel in batches.  While the length of the text does not exceed a specified limit, each
+ * batch is appended to a single buffer as soon as it has been rendered, and is then discarded.  The buffer is allocated
+ * once, with a capacity that is extrapolated from the length of the first batch and does not exceed the limit, so that
+ * the memory that is used is little more than twice the length of the text when the buffer is converted to a string.
+ * If the limit is exceeded, the buffer and the remaining text are streamed to a temporary file through a buffered
+ * channel instead, so that the amount of memory that is used does not depend on the number of locations.  A temporary
+ * file is deleted if an error occurs while it is being written, and it is otherwise deleted when the Java virtual
+ * machine terminates, if not before.
+ */
+
+class LocationExporter
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The maximum number of locations that are rendered in a single batch. */
+	private static final	int		BATCH_SIZE	= 1 << 16;
+
+	/** The size (in characters) of the buffer of the writer of a temporary file. */
+	private static final	int		BUFFER_SIZE	= 1 << 16;
+
+	/** The reciprocal of the fraction by which the estimated length of the text exceeds the length that is
+		extrapolated from the first batch. */
+	private static final	int		LENGTH_ESTIMATE_MARGIN	= 16;
+
+	/** The maximum length of a string. */
+	private static final	long	MAX_STRING_LENGTH	= Integer.MAX_VALUE - 8;
+
+	/** The prefix of the name of a temporary file. */
+	private static final	String	TEMP_FILE_PREFIX	= "pathnameAssistant-";
+
+	/** The suffix of the name of a temporary file. */
+	private static final	String	TEMP_FILE_SUFFIX	= ".txt";
+
+	/** Error messages. */
+	private interface ErrorMsg
+	{
+		String	FAILED_TO_CREATE_TEMPORARY_FILE =
+				"Failed to create a temporary file.";
+
+		String	ERROR_WRITING_FILE =
+				"An error occurred when writing the file.";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Prevents this class from being instantiated externally.
+	 */
+
+	private LocationExporter()
+	{
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Converts each of the specified locations to a string with the specified renderer and returns the result of
+	 * concatenating the strings.  If there is more than one location, a line-feed character (U+000A) is appended to
+	 * each string.  If the length of the text does not exceed the specified limit, the result contains the text;
+	 * otherwise, the text is written to a temporary file with the UTF-8 character encoding, and the result contains the
+	 * location of the file.
+	 *
+	 * @param  locations
+	 *           the locations that will be exported.
+	 * @param  renderer
+	 *           the function that converts a location to a string.  It must be thread-safe.
+	 * @param  maxTextLength
+	 *           the maximum length of text that will be returned in the result.
+	 * @return the result of the export.
+	 * @throws FileException
+	 *           if an error occurred when creating or writing a temporary file.
+	 */
+
+	static Result export(
+		Location[]						locations,
+		IFunction1<String, Location>	renderer,
+		long							maxTextLength)
+		throws FileException
+	{
+		// Initialise variables
+		int numLocations = locations.length;
+		boolean lineFeeds = (numLocations > 1);
+		maxTextLength = Math.min(maxTextLength, MAX_STRING_LENGTH);
+		StringBuilder buffer = null;
+		long length = 0;
+
+		// Render locations in batches
+		for (int startIndex = 0; startIndex < numLocations; startIndex += BATCH_SIZE)
+		{
+			// Render batch
+			int endIndex = Math.min(startIndex + BATCH_SIZE, numLocations);
+			String[] renderings = new String[endIndex - startIndex];
+			length += BulkRenderer.render(locations, startIndex, endIndex, renderer, renderings);
+			if (lineFeeds)
+				length += renderings.length;
+
+			// If text is too long, write buffer, batch and remaining locations to temporary file
+			if (length > maxTextLength)
+				return new Result(null, writeFile(buffer, renderings, locations, endIndex, renderer, lineFeeds));
+
+			// Allocate buffer for estimated length of text
+			if (buffer == null)
+			{
+				long estimatedLength = length;
+				if (endIndex < numLocations)
+				{
+					estimatedLength = length * numLocations / endIndex;
+					estimatedLength += estimatedLength / LENGTH_ESTIMATE_MARGIN;
+				}
+				buffer = new StringBuilder((int)Math.min(estimatedLength, maxTextLength));
+			}
+
+			// Append batch to buffer
+			for (String rendering : renderings)
+			{
+				buffer.append(rendering);
+				if (lineFeeds)
+					buffer.append('\n');
+			}
+		}
+		return new Result((buffer == null) ? "" : buffer.toString(), null);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Writes the specified text and batch of renderings to a new temporary file, followed by the renderings of the
+	 * specified locations from the specified index onwards, and returns the location of the file.  The storage of the
+	 * text is released after the text has been written.  The file is deleted if an exception is thrown while it is
+	 * being written; otherwise, it is marked for deletion when the Java virtual machine terminates.
+	 *
+	 * @param  text
+	 *           the text that will be written first, which may be {@code null}.
+	 * @param  renderings
+	 *           the batch of renderings that will be written after {@code text}.
+	 * @param  locations
+	 *           the locations whose renderings will be written after {@code renderings}.
+	 * @param  startIndex
+	 *           the index of the first element of {@code locations} that will be rendered and written.
+	 * @param  renderer
+	 *           the function that converts a location to a string.  It must be thread-safe.
+	 * @param  lineFeeds
+	 *           if {@code true}, a line feed will be written after each rendering.
+	 * @return the location of the temporary file.
+	 * @throws FileException
+	 *           if an error occurred when creating or writing the file.
+	 */
+
+	private static Path writeFile(
+		StringBuilder					text,
+		String[]						renderings,
+		Location[]						locations,
+		int								startIndex,
+		IFunction1<String, Location>	renderer,
+		boolean							lineFeeds)
+		throws FileException
+	{
+		// Create temporary file
+		Path file = null;
+		try
+		{
+			file = Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+			file.toFile().deleteOnExit();
+		}
+		catch (Exception e)
+		{
+			throw new FileException(ErrorMsg.FAILED_TO_CREATE_TEMPORARY_FILE, e, file);
+		}
+
+		// Write renderings to file; delete file if an exception is thrown
+		boolean written = false;
+		try
+		{
+			try (Writer writer = new BufferedWriter(Channels.newWriter(FileChannel.open(file, StandardOpenOption.WRITE),
+																	   StandardCharsets.UTF_8),
+													BUFFER_SIZE))
+			{
+				// Write text in chunks, and release its storage
+				if (text != null)
+				{
+					char[] chars = new char[BUFFER_SIZE];
+					int length = text.length();
+					for (int i = 0; i < length; i += BUFFER_SIZE)
+					{
+						int endIndex = Math.min(i + BUFFER_SIZE, length);
+						text.getChars(i, endIndex, chars, 0);
+						writer.write(chars, 0, endIndex - i);
+					}
+					text.setLength(0);
+					text.trimToSize();
+				}
+
+				// Write batch
+				write(writer, renderings, lineFeeds);
+
+				// Render and write remaining locations in batches
+				int numLocations = locations.length;
+				for (int i = startIndex; i < numLocations; i += BATCH_SIZE)
+				{
+					int endIndex = Math.min(i + BATCH_SIZE, numLocations);
+					renderings = new String[endIndex - i];
+					BulkRenderer.render(locations, i, endIndex, renderer, renderings);
+					write(writer, renderings, lineFeeds);
+				}
+			}
+			written = true;
+		}
+		catch (IOException e)
+		{
+			throw new FileException(ErrorMsg.ERROR_WRITING_FILE, e, file);
+		}
+		finally
+		{
+			if (!written)
+				deleteFile(file);
+		}
+
+		// Return location of file
+		return file;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Deletes the specified temporary file, ignoring any error.
+	 *
+	 * @param file
+	 *          the file that will be deleted.  If it is {@code null}, this method has no effect.
+	 */
+
+	static void deleteFile(
+		Path	file)
+	{
+		if (file != null)
+		{
+			try
+			{
+				Files.deleteIfExists(file);
+			}
+			catch (Exception e)
+			{
+				// ignore
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Writes the specified renderings to the specified writer.
+	 *
+	 * @param  writer
+	 *           the writer to which the renderings will be written.
+	 * @param  renderings
+	 *           the renderings that will be written.
+	 * @param  lineFeeds
+	 *           if {@code true}, a line feed will be written after each rendering.
+	 * @throws IOException
+	 *           if an error occurred when writing the renderings.
+	 */
+
+	private static void write(
+		Writer		writer,
+		String[]	renderings,
+		boolean		lineFeeds)
+		throws IOException
+	{
+		for (String rendering : renderings)
+		{
+			writer.write(rendering);
+			if (lineFeeds)
+				writer.write('\n');
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: RESULT OF EXPORT
+
+
+	/**
+	 * This record encapsulates the result of exporting file-system locations as text.
+	 *
+	 * @param text
+	 *          the text of the locations, or {@code null} if the text was written to a file.
+	 * @param file
+	 *          the location of the file to which the text was written, or {@code null} if the text was not written to
+	 *          a file.
+	 */
+
+	record Result(
+		String	text,
+		Path	file)
+	{ }
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
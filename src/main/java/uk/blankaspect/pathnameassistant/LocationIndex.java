@@ -0,0 +1,1857 @@
+/*====================================================================*\
+
+LocationIndex.java
+
+Class: trigram index of rendered file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import java.util.function.Predicate;
+
+import java.util.stream.IntStream;
+
+import javafx.application.Platform;
+
+import uk.blankaspect.common.function.IFunction1;
+import uk.blankaspect.common.function.IProcedure1;
+
+import uk.blankaspect.common.thread.DaemonFactory;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: TRIGRAM INDEX OF RENDERED FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements an index of the string representations of a list of {@linkplain Location file-system
+ * locations} that allows the list to be filtered incrementally by substring.
+ * <p>
+ * A filter consists of one or more terms separated by whitespace; a location satisfies the filter if its string
+ * representation contains all the terms, ignoring letter case.  Each location is assigned an integer ID, and the
+ * index maps each trigram (sequence of three characters) that occurs in the string representation of a location to
+ * the ascending sequence of the IDs of the locations in which it occurs.  The sequences are stored as variable-length
+ * differences between successive IDs, because the trigrams of pathnames that have a common prefix occur in long runs
+ * of consecutive IDs.  The candidates for a filter are found by intersecting the sequences of the trigrams of its
+ * terms, starting with the shortest; each candidate is then checked against the terms that the intersection did not
+ * match exactly.  A string representation is padded at each end when it is indexed, so that a term that is shorter
+ * than a trigram is matched exactly by the union of the sequences of the trigrams that contain it.  When a filter is
+ * extended (for example, by the next keystroke), only the locations that satisfied the previous filter are checked.
+ * </p>
+ * <p>
+ * The string representations of the locations are not retained: a candidate that must be checked against a term is
+ * rendered again, so the memory of the index is that of its sequences of IDs and its table of IDs.
+ * </p>
+ * <p>
+ * The index is built from the source list on a background thread when a filter is first applied after the index was
+ * discarded, and it is then updated incrementally as locations are added to and removed from the list.  Until the
+ * build has finished, the previous predicate of the client remains in effect and changes to the list are recorded;
+ * they are applied to the new index before the pending filter is applied to it.  A removed location is marked as dead,
+ * and the index is compacted when dead locations outnumber live ones.  The index is discarded when the {@linkplain
+ * #setRenderer(IFunction1) renderer} of the locations changes.
+ * </p>
+ * <p>
+ * The predicate that is passed to the client reads the current state of the index, so that it remains valid for
+ * locations that are added to the source list after it was created.  Apart from the building of the index, which
+ * touches none of the state that the predicate reads, the index is intended to be accessed only on the JavaFX
+ * application thread.
+ * </p>
+ */
+
+class LocationIndex
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The number of characters in a trigram. */
+	private static final	int		TRIGRAM_LENGTH	= 3;
+
+	/** The character with which the string representation of a location is padded at each end when its trigrams are
+		indexed, so that every character of a non-empty string representation occurs in a trigram. */
+	private static final	char	BOUNDARY	= '\0';
+
+	/** The minimum number of dead locations for which the index is compacted. */
+	private static final	int		MIN_NUM_DEAD_FOR_COMPACTION	= 1 << 12;
+
+	/** The maximum ratio of the length of a sequence of IDs to the number of candidates for which the sequence is
+		intersected with the candidates. */
+	private static final	int		MAX_INTERSECTION_RATIO	= 4;
+
+	/** The number of candidates in each chunk that is tested against a filter in parallel. */
+	private static final	int		CHUNK_SIZE	= 1 << 14;
+
+	/** The number of locations that are rendered in parallel in each step of a build, whose string representations
+		are discarded after they have been indexed. */
+	private static final	int		BUILD_CHUNK_SIZE	= 1 << 16;
+
+	/** The regular expression that separates the terms of a filter. */
+	private static final	String	TERM_SEPARATOR	= "\\s+";
+
+	/** The name of the thread on which the index is built. */
+	private static final	String	THREAD_NAME	= "location-indexer";
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The list of locations that is indexed. */
+	private	List<Location>							source;
+
+	/** The function that converts a location to its string representation. */
+	private	IFunction1<String, Location>			renderer;
+
+	/** The procedure that is invoked with the predicate of each filter that is applied. */
+	private	IProcedure1<Predicate<Location>>		consumer;
+
+	/** The procedure that is invoked with the exception that caused a build of this index to fail. */
+	private	IProcedure1<Exception>					errorHandler;
+
+	/** Flag: if {@code true}, this index reflects {@link #source} and {@link #renderer}. */
+	private	boolean									built;
+
+	/** A map from the live locations of this index to their IDs. */
+	private	IdTable									ids;
+
+	/** A map from trigrams to the IDs of the locations in whose string representation they occur. */
+	private	TrigramTable							postings;
+
+	/** The filter that was most recently applied to this index, or {@code null} if no filter has been applied since
+		this index was built. */
+	private	Filter									filter;
+
+	/** The case-folded terms of the filter that was most recently requested by the client, or {@code null} if no
+		filter is requested. */
+	private	List<String>							requestedTerms;
+
+	/** The task that is building this index, or {@code null} if no build is in progress. */
+	private	BuildTask								buildTask;
+
+	/** The changes to the source list that have been made since the active build took its snapshot of the list. */
+	private	List<Change>							pendingChanges;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of an index of the string representations of the specified list of locations.
+	 *
+	 * @param source
+	 *          the list of locations that will be indexed.
+	 * @param renderer
+	 *          the function that will convert a location to its string representation.
+	 * @param consumer
+	 *          the procedure that will be invoked on the JavaFX application thread with the predicate of each filter
+	 *          that is applied, or with {@code null} if a filter is removed.
+	 * @param errorHandler
+	 *          the procedure that will be invoked on the JavaFX application thread with the exception that caused a
+	 *          build of the index to fail.
+	 */
+
+	LocationIndex(
+		List<Location>						source,
+		IFunction1<String, Location>		renderer,
+		IProcedure1<Predicate<Location>>	consumer,
+		IProcedure1<Exception>				errorHandler)
+	{
+		// Initialise instance variables
+		this.source = source;
+		this.renderer = renderer;
+		this.consumer = consumer;
+		this.errorHandler = errorHandler;
+		ids = new IdTable();
+		postings = new TrigramTable();
+		pendingChanges = new ArrayList<>();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the specified string with each of its characters converted to upper case and then to lower case, which
+	 * allows strings to be compared with the same test as {@link String#equalsIgnoreCase(String)}.  Unlike {@link
+	 * String#toLowerCase()}, the conversion does not change the length of the string.
+	 *
+	 * @param  str
+	 *           the string that will be folded.
+	 * @return {@code str} with the case of its characters folded.
+	 */
+
+	private static String fold(
+		String	str)
+	{
+		char[] chars = str.toCharArray();
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		return new String(chars);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the trigram that starts at the specified index of the specified string, packed into a {@code long}.
+	 *
+	 * @param  str
+	 *           the string that contains the trigram.
+	 * @param  index
+	 *           the index of the first character of the trigram in {@code str}.
+	 * @return the trigram at {@code index} in {@code str}, packed into a {@code long}.
+	 */
+
+	private static long trigram(
+		String	str,
+		int		index)
+	{
+		return ((long)str.charAt(index) << 32) | ((long)str.charAt(index + 1) << 16) | str.charAt(index + 2);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the trigram that starts at the specified index of the specified string after the string has been padded
+	 * with a {@linkplain #BOUNDARY boundary character} at each end, packed into a {@code long}.
+	 *
+	 * @param  str
+	 *           the string that contains the trigram.
+	 * @param  index
+	 *           the index of the first character of the trigram in the padded string, which must be less than the
+	 *           length of {@code str}.
+	 * @return the trigram at {@code index} in the padded {@code str}, packed into a {@code long}.
+	 */
+
+	private static long paddedTrigram(
+		String	str,
+		int		index)
+	{
+		long trigram = 0;
+		for (int i = index - 1; i <= index + 1; i++)
+			trigram = (trigram << 16) | (((i < 0) || (i >= str.length())) ? BOUNDARY : str.charAt(i));
+		return trigram;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the specified trigram contains the specified string, which must not be longer than a
+	 * trigram.
+	 *
+	 * @param  trigram
+	 *           the trigram, packed into a {@code long}.
+	 * @param  str
+	 *           the string of interest.
+	 * @return {@code true} if {@code trigram} contains {@code str}.
+	 */
+
+	private static boolean contains(
+		long	trigram,
+		String	str)
+	{
+		int length = str.length();
+		for (int i = 0; i <= TRIGRAM_LENGTH - length; i++)
+		{
+			int j = 0;
+			while ((j < length)
+					&& ((char)(trigram >>> 16 * (TRIGRAM_LENGTH - 1 - i - j)) == str.charAt(j)))
+				++j;
+			if (j == length)
+				return true;
+		}
+		return false;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the elements of the specified ascending array of IDs that are also in the specified sequence of IDs.
+	 *
+	 * @param  ids
+	 *           the ascending array of IDs.
+	 * @param  postings
+	 *           the sequence of IDs with which {@code ids} will be intersected.
+	 * @return the intersection of {@code ids} and {@code postings}, in ascending order.
+	 */
+
+	private static int[] intersect(
+		int[]		ids,
+		Postings	postings)
+	{
+		int[] result = new int[ids.length];
+		int length = 0;
+		int index = 0;
+		Postings.Cursor cursor = postings.cursor();
+		int id = cursor.next();
+		while ((index < ids.length) && (id >= 0))
+		{
+			if (ids[index] < id)
+				++index;
+			else if (ids[index] > id)
+				id = cursor.next();
+			else
+			{
+				result[length++] = id;
+				++index;
+				id = cursor.next();
+			}
+		}
+		return Arrays.copyOf(result, length);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified location and its string representation to the specified tables.
+	 *
+	 * @param  ids
+	 *           the table of IDs to which {@code location} will be added.
+	 * @param  postings
+	 *           the table of sequences of IDs to which the ID of {@code location} will be added for each trigram of
+	 *           {@code text} when it is padded with a {@linkplain #BOUNDARY boundary character} at each end.
+	 * @param  location
+	 *           the location that will be added.
+	 * @param  text
+	 *           the case-folded string representation of {@code location}.
+	 * @return the ID that was assigned to {@code location}.
+	 */
+
+	private static int add(
+		IdTable			ids,
+		TrigramTable	postings,
+		Location		location,
+		String			text)
+	{
+		// Assign ID to location
+		int id = ids.add(location);
+
+		// Add ID to sequences of trigrams of padded text
+		for (int i = text.length() - 1; i >= 0; i--)
+			postings.getOrAdd(paddedTrigram(text, i)).add(id);
+
+		// Return ID
+		return id;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Sets the function that converts a location to its string representation.  The index is discarded; if a filter
+	 * is requested, the index is rebuilt with the new function on a background thread and the filter is then applied
+	 * to it.
+	 *
+	 * @param renderer
+	 *          the function that will convert a location to its string representation.
+	 */
+
+	void setRenderer(
+		IFunction1<String, Location>	renderer)
+	{
+		// Update instance variable
+		this.renderer = renderer;
+
+		// Discard index; rebuild it if a filter is requested, retaining the current state for the predicate of the
+		// client until the new index is built
+		cancelBuild();
+		built = false;
+		if (requestedTerms == null)
+			discard();
+		else
+			startBuild();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified locations, which have been added to the source list, to this index.  If a filter is active,
+	 * each location is tested against it.  If the index is being built, the locations are added when the build has
+	 * finished; if the index has not been built, this method has no effect.
+	 *
+	 * @param locations
+	 *          the locations that will be added to this index.
+	 */
+
+	void addAll(
+		Iterable<? extends Location>	locations)
+	{
+		if (buildTask != null)
+		{
+			for (Location location : locations)
+				pendingChanges.add(new Change(location, true));
+		}
+		else if (built)
+		{
+			for (Location location : locations)
+				add(location);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the specified locations, which have been removed from the source list, from this index.  If the index
+	 * is being built, the locations are removed when the build has finished; if the index has not been built, this
+	 * method has no effect.
+	 *
+	 * @param locations
+	 *          the locations that will be removed from this index.
+	 */
+
+	void removeAll(
+		Iterable<? extends Location>	locations)
+	{
+		if (buildTask != null)
+		{
+			for (Location location : locations)
+				pendingChanges.add(new Change(location, false));
+		}
+		else if (built)
+		{
+			for (Location location : locations)
+				remove(location);
+			compactIfSparse();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes all locations from this index.  A requested filter remains in effect for the locations that are
+	 * subsequently added to the source list.
+	 */
+
+	void clear()
+	{
+		// Discard index
+		boolean building = (buildTask != null);
+		cancelBuild();
+		discard();
+
+		// If a filter is requested, an empty index reflects the empty source list, except when the predicate of the
+		// filter has not yet been passed to the client, in which case the index is rebuilt so that the predicate is
+		// passed when the build has finished
+		if (requestedTerms == null)
+			built = false;
+		else if (building)
+			startBuild();
+		else
+		{
+			built = true;
+			filter = new Filter(requestedTerms);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Applies the specified filter to the locations of the source list and passes a predicate that is satisfied by
+	 * the locations whose string representation contains all the terms of the filter to the consumer of this index.
+	 * If the index has not been built, it is built on a background thread and the predicate is passed to the consumer
+	 * when the build has finished, provided that no other filter has been requested in the meantime.
+	 *
+	 * @param text
+	 *          the filter, which consists of terms separated by whitespace.
+	 */
+
+	void filter(
+		String	text)
+	{
+		// Parse terms
+		List<String> terms = new ArrayList<>();
+		for (String term : text.strip().split(TERM_SEPARATOR))
+		{
+			if (!term.isEmpty())
+				terms.add(fold(term));
+		}
+
+		// If there are no terms, remove filter
+		if (terms.isEmpty())
+		{
+			requestedTerms = null;
+			filter = null;
+			if (!built && (buildTask == null))
+				discard();
+			consumer.invoke(null);
+			return;
+		}
+
+		// Apply filter or, if the index has not been built, defer it until the index has been built
+		requestedTerms = terms;
+		if (built)
+			applyFilter();
+		else if (buildTask == null)
+			startBuild();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Applies the requested filter to this index and passes a predicate for it to the consumer of this index.  The
+	 * predicate reads the current state of the index rather than a snapshot, so that it remains valid as locations are
+	 * added and removed and when the index is compacted.
+	 */
+
+	private void applyFilter()
+	{
+		// Apply filter
+		Filter newFilter = new Filter(requestedTerms);
+		newFilter.apply(((filter != null) && newFilter.refines(filter)) ? filter.matches : null);
+		filter = newFilter;
+
+		// Pass predicate to consumer
+		consumer.invoke(location ->
+		{
+			Filter filter = this.filter;
+			if (filter == null)
+				return false;
+			int id = ids.get(location);
+			return (id >= 0) && filter.matches.get(id);
+		});
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified location to this index and, if a filter is active, tests the location against it.
+	 *
+	 * @param location
+	 *          the location that will be added.
+	 */
+
+	private void add(
+		Location	location)
+	{
+		if (ids.get(location) < 0)
+		{
+			String text = fold(renderer.invoke(location));
+			int id = add(ids, postings, location, text);
+			if ((filter != null) && filter.test(text))
+				filter.matches.set(id);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Marks the specified location as dead.
+	 *
+	 * @param location
+	 *          the location that will be removed.
+	 */
+
+	private void remove(
+		Location	location)
+	{
+		int id = ids.remove(location);
+		if ((id >= 0) && (filter != null))
+			filter.matches.clear(id);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Discards the contents of this index.
+	 */
+
+	private void discard()
+	{
+		ids = new IdTable();
+		postings = new TrigramTable();
+		filter = null;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Starts to build this index from a snapshot of the source list on a background thread.  Changes to the source
+	 * list are recorded until the build has finished.
+	 */
+
+	private void startBuild()
+	{
+		built = false;
+		pendingChanges.clear();
+		buildTask = new BuildTask(source.toArray(Location[]::new), renderer);
+		DaemonFactory.create(THREAD_NAME, buildTask).start();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Cancels the active build, if there is one, and discards the changes that were recorded for it.
+	 */
+
+	private void cancelBuild()
+	{
+		if (buildTask != null)
+		{
+			buildTask.cancelled = true;
+			buildTask = null;
+		}
+		pendingChanges.clear();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Installs the tables that were created by the specified build, applies the changes to the source list that were
+	 * recorded during the build and then applies the requested filter, if there is one.  The tables are ignored if the
+	 * build has been superseded.  If the build failed, the exception that caused it to fail is passed to the error
+	 * handler of this index.  This method is called on the JavaFX application thread.
+	 *
+	 * @param task
+	 *          the task that has finished.
+	 * @param ids
+	 *          the table of IDs that was created by {@code task}, or {@code null} if the build failed.
+	 * @param postings
+	 *          the table of sequences of IDs that was created by {@code task}, or {@code null} if the build failed.
+	 * @param exception
+	 *          the exception that caused the build to fail, or {@code null} if the build did not fail.
+	 */
+
+	private void onBuildFinished(
+		BuildTask		task,
+		IdTable			ids,
+		TrigramTable	postings,
+		Exception		exception)
+	{
+		// Ignore build if it has been superseded
+		if (task != buildTask)
+			return;
+		buildTask = null;
+
+		// If build failed, discard recorded changes and report error
+		if (ids == null)
+		{
+			pendingChanges.clear();
+			if (exception != null)
+				errorHandler.invoke(exception);
+			return;
+		}
+
+		// Install tables
+		this.ids = ids;
+		this.postings = postings;
+		filter = null;
+		built = true;
+
+		// Apply recorded changes
+		for (Change change : pendingChanges)
+		{
+			if (change.added())
+				add(change.location());
+			else
+				remove(change.location());
+		}
+		pendingChanges.clear();
+		compactIfSparse();
+
+		// Apply requested filter
+		if (requestedTerms != null)
+			applyFilter();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Compacts this index if its dead locations outnumber its live ones.
+	 */
+
+	private void compactIfSparse()
+	{
+		int numLive = ids.size();
+		int numDead = ids.numIds() - numLive;
+		if ((numDead >= MIN_NUM_DEAD_FOR_COMPACTION) && (numDead > numLive))
+			compact();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Rebuilds this index from its live locations without rendering them again.  The locations are assigned new IDs
+	 * in the order of their old IDs, the sequences of IDs are translated to the new IDs, and the matches of the current
+	 * filter are carried over.
+	 */
+
+	private void compact()
+	{
+		// Assign new IDs to live locations
+		IdTable oldIds = ids;
+		int oldNumIds = oldIds.numIds();
+		IdTable newIds = new IdTable();
+		int[] idMap = new int[oldNumIds];
+		for (int oldId = 0; oldId < oldNumIds; oldId++)
+		{
+			Location location = oldIds.location(oldId);
+			idMap[oldId] = (location == null) ? -1 : newIds.add(location);
+		}
+
+		// Translate sequences of IDs
+		postings.remap(idMap);
+		ids = newIds;
+
+		// Carry matches of filter over to new IDs
+		if (filter != null)
+		{
+			BitSet matches = new BitSet();
+			filter.matches.stream().forEach(oldId ->
+			{
+				if (idMap[oldId] >= 0)
+					matches.set(idMap[oldId]);
+			});
+			filter.matches = matches;
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: CHANGE TO THE SOURCE LIST
+
+
+	/**
+	 * This record encapsulates a change to the source list that was made while the index was being built.
+	 *
+	 * @param location
+	 *          the location that was added or removed.
+	 * @param added
+	 *          {@code true} if {@code location} was added; {@code false} if it was removed.
+	 */
+
+	private record Change(
+		Location	location,
+		boolean		added)
+	{ }
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: SEQUENCE OF IDS
+
+
+	/**
+	 * This class implements an ascending sequence of the IDs of locations.  Each ID is stored as its difference from
+	 * the previous ID, encoded as a sequence of bytes, each of which holds seven bits of the difference.
+	 */
+
+	private static class Postings
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/** The initial capacity of the array of encoded differences. */
+		private static final	int		INITIAL_CAPACITY	= 4;
+
+		/** The mask for the bits of a difference that are held in a byte. */
+		private static final	int		VALUE_MASK	= 0x7F;
+
+		/** The flag that indicates that a byte is followed by another byte of the same difference. */
+		private static final	int		CONTINUATION_FLAG	= 0x80;
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The encoded differences between successive IDs. */
+		private	byte[]	data;
+
+		/** The number of bytes of {@link #data} that are used. */
+		private	int		length;
+
+		/** The number of IDs in this sequence. */
+		private	int		count;
+
+		/** The last ID in this sequence, or -1 if the sequence is empty. */
+		private	int		lastId;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an empty sequence of IDs.
+		 */
+
+		private Postings()
+		{
+			// Initialise instance variables
+			data = new byte[INITIAL_CAPACITY];
+			lastId = -1;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Appends the specified ID to this sequence.  The ID is ignored if it is the last ID in the sequence.
+		 *
+		 * @param id
+		 *          the ID that will be appended.  It must not be less than the last ID in the sequence.
+		 */
+
+		private void add(
+			int	id)
+		{
+			if (id != lastId)
+			{
+				if (data.length - length < 5)
+					data = Arrays.copyOf(data, data.length * 2);
+				int delta = id - lastId;
+				while (delta > VALUE_MASK)
+				{
+					data[length++] = (byte)((delta & VALUE_MASK) | CONTINUATION_FLAG);
+					delta >>>= 7;
+				}
+				data[length++] = (byte)delta;
+				lastId = id;
+				++count;
+			}
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the IDs of this sequence as an array.
+		 *
+		 * @return an array of the IDs of this sequence, in ascending order.
+		 */
+
+		private int[] toArray()
+		{
+			int[] ids = new int[count];
+			Cursor cursor = cursor();
+			for (int i = 0; i < count; i++)
+				ids[i] = cursor.next();
+			return ids;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns a new sequence that contains the IDs of this sequence translated by the specified map.  IDs that the
+		 * map translates to -1 are omitted.
+		 *
+		 * @param  idMap
+		 *           the map from old IDs to new IDs, which must preserve the order of the IDs that it does not omit.
+		 * @return a new sequence of the translated IDs of this sequence.
+		 */
+
+		private Postings remap(
+			int[]	idMap)
+		{
+			Postings result = new Postings();
+			Cursor cursor = cursor();
+			for (int i = 0; i < count; i++)
+			{
+				int id = idMap[cursor.next()];
+				if (id >= 0)
+					result.add(id);
+			}
+			return result;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns a new cursor over the IDs of this sequence.
+		 *
+		 * @return a new cursor over the IDs of this sequence.
+		 */
+
+		private Cursor cursor()
+		{
+			return new Cursor();
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Member classes : inner classes
+	////////////////////////////////////////////////////////////////////
+
+
+		// CLASS: CURSOR OVER A SEQUENCE OF IDS
+
+
+		/**
+		 * This class implements a cursor that decodes the IDs of the enclosing sequence in ascending order.
+		 */
+
+		private class Cursor
+		{
+
+		////////////////////////////////////////////////////////////////
+		//  Instance variables
+		////////////////////////////////////////////////////////////////
+
+			/** The index of the next byte of the encoded differences. */
+			private	int	index;
+
+			/** The last ID that was decoded. */
+			private	int	id;
+
+		////////////////////////////////////////////////////////////////
+		//  Constructors
+		////////////////////////////////////////////////////////////////
+
+			/**
+			 * Creates a new instance of a cursor over the IDs of the enclosing sequence.
+			 */
+
+			private Cursor()
+			{
+				// Initialise instance variables
+				id = -1;
+			}
+
+			//----------------------------------------------------------
+
+		////////////////////////////////////////////////////////////////
+		//  Instance methods
+		////////////////////////////////////////////////////////////////
+
+			/**
+			 * Decodes and returns the next ID of the enclosing sequence.
+			 *
+			 * @return the next ID of the enclosing sequence, or -1 if there are no more IDs.
+			 */
+
+			private int next()
+			{
+				if (index >= length)
+					return -1;
+
+				int delta = 0;
+				int shift = 0;
+				int b;
+				do
+				{
+					b = data[index++];
+					delta |= (b & VALUE_MASK) << shift;
+					shift += 7;
+				}
+				while ((b & CONTINUATION_FLAG) != 0);
+				id += delta;
+				return id;
+			}
+
+			//----------------------------------------------------------
+
+		}
+
+		//==============================================================
+
+	}
+
+	//==================================================================
+
+
+	// CLASS: TABLE OF SEQUENCES OF IDS
+
+
+	/**
+	 * This class implements a map from trigrams to the {@linkplain Postings sequences of IDs} of the locations in which
+	 * they occur.  The map is a hash table with open addressing and linear probing whose keys are trigrams packed into
+	 * {@code long}s, which avoids the boxing of keys that a {@link java.util.HashMap HashMap} would require for each
+	 * occurrence of a trigram when the index is built.
+	 */
+
+	private static class TrigramTable
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/** The initial number of slots of the table. */
+		private static final	int		INITIAL_CAPACITY	= 1 << 12;
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The trigrams of the slots of the table. */
+		private	long[]		keys;
+
+		/** The sequences of IDs of the slots of the table.  The element for an empty slot is {@code null}. */
+		private	Postings[]	values;
+
+		/** The number of trigrams in the table. */
+		private	int			size;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an empty table of sequences of IDs.
+		 */
+
+		private TrigramTable()
+		{
+			// Initialise instance variables
+			clear();
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the hash code of the specified trigram.
+		 *
+		 * @param  trigram
+		 *           the trigram of interest.
+		 * @return the hash code of {@code trigram}.
+		 */
+
+		private static int hash(
+			long	trigram)
+		{
+			long hash = trigram * 0x9E3779B97F4A7C15L;
+			return (int)(hash ^ (hash >>> 32));
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the sequence of IDs for the specified trigram.
+		 *
+		 * @param  trigram
+		 *           the trigram of interest.
+		 * @return the sequence of IDs for {@code trigram}, or {@code null} if there is no such sequence.
+		 */
+
+		private Postings get(
+			long	trigram)
+		{
+			int mask = keys.length - 1;
+			int index = hash(trigram) & mask;
+			while (values[index] != null)
+			{
+				if (keys[index] == trigram)
+					return values[index];
+				index = (index + 1) & mask;
+			}
+			return null;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the sequence of IDs for the specified trigram, adding an empty sequence to this table if there is no
+		 * such sequence.
+		 *
+		 * @param  trigram
+		 *           the trigram of interest.
+		 * @return the sequence of IDs for {@code trigram}.
+		 */
+
+		private Postings getOrAdd(
+			long	trigram)
+		{
+			// Search for trigram
+			int mask = keys.length - 1;
+			int index = hash(trigram) & mask;
+			while (values[index] != null)
+			{
+				if (keys[index] == trigram)
+					return values[index];
+				index = (index + 1) & mask;
+			}
+
+			// Add empty sequence for trigram
+			Postings postings = new Postings();
+			keys[index] = trigram;
+			values[index] = postings;
+
+			// Expand table if it is more than half full
+			if (2 * ++size > keys.length)
+			{
+				long[] oldKeys = keys;
+				Postings[] oldValues = values;
+				keys = new long[2 * oldKeys.length];
+				values = new Postings[2 * oldValues.length];
+				mask = keys.length - 1;
+				for (int i = 0; i < oldKeys.length; i++)
+				{
+					if (oldValues[i] != null)
+					{
+						index = hash(oldKeys[i]) & mask;
+						while (values[index] != null)
+							index = (index + 1) & mask;
+						keys[index] = oldKeys[i];
+						values[index] = oldValues[i];
+					}
+				}
+			}
+
+			// Return new sequence
+			return postings;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the IDs of the sequences of the trigrams of this table that contain the specified string, which must
+		 * be shorter than a trigram.  Because the string representations of locations are padded at each end when
+		 * they are indexed, the IDs are exactly those of the locations whose string representations contain the
+		 * string.
+		 *
+		 * @param  str
+		 *           the string of interest.
+		 * @return the IDs of the sequences of the trigrams that contain {@code str}.
+		 */
+
+		private BitSet idsContaining(
+			String	str)
+		{
+			BitSet result = new BitSet();
+			for (int i = 0; i < values.length; i++)
+			{
+				if ((values[i] != null) && contains(keys[i], str))
+				{
+					Postings.Cursor cursor = values[i].cursor();
+					for (int id = cursor.next(); id >= 0; id = cursor.next())
+						result.set(id);
+				}
+			}
+			return result;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Translates the IDs of the sequences of this table by the specified map.
+		 *
+		 * @param idMap
+		 *          the map from old IDs to new IDs, which must preserve the order of the IDs that it does not translate
+		 *          to -1.  IDs that are translated to -1 are removed.
+		 */
+
+		private void remap(
+			int[]	idMap)
+		{
+			for (int i = 0; i < values.length; i++)
+			{
+				if (values[i] != null)
+					values[i] = values[i].remap(idMap);
+			}
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Removes all trigrams from this table.
+		 */
+
+		private void clear()
+		{
+			keys = new long[INITIAL_CAPACITY];
+			values = new Postings[INITIAL_CAPACITY];
+			size = 0;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+	// CLASS: TABLE OF IDS OF LOCATIONS
+
+
+	/**
+	 * This class implements a map from the live locations of an index to their IDs, which it assigns in ascending
+	 * order.  The map is a hash table with open addressing and linear probing whose slots hold IDs, and the location of
+	 * an ID is obtained from an array of locations that is indexed by ID.  A lookup therefore reads only an array of
+	 * {@code int}s, the array of locations and the identity hash code of the location; this is several times faster
+	 * than a {@link java.util.HashMap HashMap}, whose lookups read scattered entries and boxed values.  The table is
+	 * probed once for each location of the source list whenever a filter is applied.
+	 */
+
+	private static class IdTable
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/** The initial number of slots of the table. */
+		private static final	int		INITIAL_NUM_SLOTS	= 1 << 10;
+
+		/** The initial capacity of the array of locations. */
+		private static final	int		INITIAL_NUM_LOCATIONS	= 1 << 10;
+
+		/** The value of an empty slot. */
+		private static final	int		EMPTY	= -1;
+
+		/** The value of a slot whose ID has been removed. */
+		private static final	int		REMOVED	= -2;
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The slots of the table. */
+		private	int[]		slots;
+
+		/** The number of IDs in the table. */
+		private	int			size;
+
+		/** The number of slots that are not empty, including those whose IDs have been removed. */
+		private	int			numUsedSlots;
+
+		/** The locations of the table, indexed by ID.  The element for a removed (dead) location is {@code null}. */
+		private	Location[]	locations;
+
+		/** The number of IDs that have been assigned. */
+		private	int			numIds;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an empty table of IDs.
+		 */
+
+		private IdTable()
+		{
+			// Initialise instance variables
+			slots = new int[INITIAL_NUM_SLOTS];
+			Arrays.fill(slots, EMPTY);
+			locations = new Location[INITIAL_NUM_LOCATIONS];
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the hash code of the specified location, with its bits mixed so that the low-order bits, which
+		 * select a slot, depend on all the bits of the hash code.
+		 *
+		 * @param  location
+		 *           the location of interest.
+		 * @return the mixed hash code of {@code location}.
+		 */
+
+		private static int hash(
+			Location	location)
+		{
+			int hash = location.hashCode() * 0x9E3779B9;
+			return hash ^ (hash >>> 16);
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the number of live locations in this table.
+		 *
+		 * @return the number of live locations in this table.
+		 */
+
+		private int size()
+		{
+			return size;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the number of IDs that have been assigned by this table, including those of dead locations.
+		 *
+		 * @return the number of IDs that have been assigned by this table.
+		 */
+
+		private int numIds()
+		{
+			return numIds;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the location that has the specified ID.
+		 *
+		 * @param  id
+		 *           the ID of the location, which must be less than the number of IDs that have been assigned.
+		 * @return the location whose ID is {@code id}, or {@code null} if the location is dead.
+		 */
+
+		private Location location(
+			int	id)
+		{
+			return locations[id];
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the ID of the specified location.
+		 *
+		 * @param  location
+		 *           the location whose ID is required.
+		 * @return the ID of {@code location}, or -1 if it is not in this table.
+		 */
+
+		private int get(
+			Location	location)
+		{
+			int index = find(location);
+			return (index < 0) ? -1 : slots[index];
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Assigns the next ID to the specified location and adds it to this table.  The location must not be in this
+		 * table.
+		 *
+		 * @param  location
+		 *           the location that will be added.
+		 * @return the ID that was assigned to {@code location}.
+		 */
+
+		private int add(
+			Location	location)
+		{
+			// Store location
+			int id = numIds++;
+			if (id == locations.length)
+				locations = Arrays.copyOf(locations, locations.length * 3 / 2);
+			locations[id] = location;
+
+			// Add ID to table
+			insert(id);
+			return id;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Removes the specified location from this table.  Its ID is not reused.
+		 *
+		 * @param  location
+		 *           the location that will be removed.
+		 * @return the ID of {@code location}, or -1 if it was not in this table.
+		 */
+
+		private int remove(
+			Location	location)
+		{
+			int index = find(location);
+			if (index < 0)
+				return -1;
+			int id = slots[index];
+			slots[index] = REMOVED;
+			locations[id] = null;
+			--size;
+			return id;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Adds the specified ID to the slots of this table.  The location of the ID must already have been stored in
+		 * the array of locations, and it must not be in this table.
+		 *
+		 * @param id
+		 *          the ID that will be added.
+		 */
+
+		private void insert(
+			int	id)
+		{
+			// Expand table if it is at least half full
+			if (2 * (numUsedSlots + 1) > slots.length)
+				rehash((2 * (size + 1) > slots.length / 2) ? 2 * slots.length : slots.length);
+
+			// Add ID to first empty slot
+			int mask = slots.length - 1;
+			int index = hash(locations[id]) & mask;
+			while (slots[index] != EMPTY)
+				index = (index + 1) & mask;
+			slots[index] = id;
+			++size;
+			++numUsedSlots;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the index of the slot that holds the ID of the specified location.
+		 *
+		 * @param  location
+		 *           the location of interest.
+		 * @return the index of the slot that holds the ID of {@code location}, or -1 if it is not in this table.
+		 */
+
+		private int find(
+			Location	location)
+		{
+			int mask = slots.length - 1;
+			int index = hash(location) & mask;
+			while (true)
+			{
+				int id = slots[index];
+				if (id == EMPTY)
+					return -1;
+				if ((id >= 0) && (locations[id] == location))
+					return index;
+				index = (index + 1) & mask;
+			}
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Moves the IDs of this table to a new array of slots of the specified length, discarding the slots whose IDs
+		 * have been removed.
+		 *
+		 * @param capacity
+		 *          the number of slots of the new array, which must be a power of 2.
+		 */
+
+		private void rehash(
+			int	capacity)
+		{
+			int[] oldSlots = slots;
+			slots = new int[capacity];
+			Arrays.fill(slots, EMPTY);
+			size = 0;
+			numUsedSlots = 0;
+			for (int id : oldSlots)
+			{
+				if (id >= 0)
+					insert(id);
+			}
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: FILTER
+
+
+	/**
+	 * This class implements a filter that is applied to the locations of the enclosing index.
+	 */
+
+	private class Filter
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The case-folded terms of this filter. */
+		private	List<String>	terms;
+
+		/** The terms of this filter that must be tested against the string representation of a candidate. */
+		private	List<String>	unmatchedTerms;
+
+		/** The IDs of the locations that satisfy this filter. */
+		private	BitSet			matches;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a filter.
+		 *
+		 * @param terms
+		 *          the case-folded terms of the filter.
+		 */
+
+		private Filter(
+			List<String>	terms)
+		{
+			// Initialise instance variables
+			this.terms = terms;
+			unmatchedTerms = terms;
+			matches = new BitSet(ids.numIds());
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns {@code true} if every location that satisfies this filter also satisfies the specified filter, which
+		 * is the case if each term of the other filter is contained in a term of this filter.
+		 *
+		 * @param  other
+		 *           the filter of interest.
+		 * @return {@code true} if every location that satisfies this filter also satisfies {@code other}.
+		 */
+
+		private boolean refines(
+			Filter	other)
+		{
+			for (String otherTerm : other.terms)
+			{
+				if (terms.stream().noneMatch(term -> term.contains(otherTerm)))
+					return false;
+			}
+			return true;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns {@code true} if the specified string representation of a location contains all the terms of this
+		 * filter that are not matched exactly by the sequences of trigrams from which the location was selected.
+		 *
+		 * @param  text
+		 *           the case-folded string representation of the location.
+		 * @return {@code true} if {@code text} contains all the terms of this filter that must be tested.
+		 */
+
+		private boolean test(
+			String	text)
+		{
+			for (String term : unmatchedTerms)
+			{
+				if (!text.contains(term))
+					return false;
+			}
+			return true;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Applies this filter to the live locations of the enclosing index.  The candidates are either the locations
+		 * that satisfied a previous filter that this filter refines, or the intersection of the shortest sequences of
+		 * the trigrams of the terms of this filter, whichever is expected to be smaller; a term that is itself a
+		 * trigram is matched exactly if its sequence is part of the intersection.  A term that is shorter than a
+		 * trigram is matched exactly by the union of the sequences of the trigrams that contain it, and the candidates
+		 * are restricted to that union.  The candidates are tested against the remaining terms in parallel if there
+		 * are many of them.
+		 *
+		 * @param previousMatches
+		 *          the IDs of the locations that satisfied a previous filter that this filter refines, or {@code null}
+		 *          if there is no such filter.
+		 */
+
+		private void apply(
+			BitSet	previousMatches)
+		{
+			// Find sequences of trigrams of terms, and locations that contain terms that are shorter than a trigram
+			record TermPostings(String term, Postings postings) { }
+			List<TermPostings> termPostings = new ArrayList<>();
+			List<String> exactTerms = new ArrayList<>();
+			BitSet shortMatches = null;
+			for (String term : terms)
+			{
+				if (term.length() < TRIGRAM_LENGTH)
+				{
+					BitSet termMatches = postings.idsContaining(term);
+					if (shortMatches == null)
+						shortMatches = termMatches;
+					else
+						shortMatches.and(termMatches);
+					if (shortMatches.isEmpty())
+						return;
+					exactTerms.add(term);
+				}
+				else
+				{
+					for (int i = term.length() - TRIGRAM_LENGTH; i >= 0; i--)
+					{
+						Postings seq = postings.get(trigram(term, i));
+						if (seq == null)
+							return;
+						termPostings.add(new TermPostings(term, seq));
+					}
+				}
+			}
+			termPostings.sort(Comparator.comparingInt(tp -> tp.postings().count));
+
+			// Case: candidates are locations that satisfied previous filter
+			int[] candidates;
+			if ((previousMatches != null)
+					&& (termPostings.isEmpty()
+						|| (previousMatches.cardinality() <= termPostings.get(0).postings().count)))
+			{
+				BitSet bits = (BitSet)previousMatches.clone();
+				if (shortMatches != null)
+					bits.and(shortMatches);
+				candidates = bits.stream().toArray();
+			}
+
+			// Case: no term has a trigram, so candidates are locations that contain short terms or all locations
+			else if (termPostings.isEmpty())
+			{
+				candidates = (shortMatches == null) ? IntStream.range(0, ids.numIds()).toArray()
+													: shortMatches.stream().toArray();
+			}
+
+			// Case: candidates are intersection of sequences, starting with the shortest
+			else
+			{
+				candidates = termPostings.get(0).postings().toArray();
+				for (TermPostings tp : termPostings)
+				{
+					if (tp != termPostings.get(0))
+					{
+						if (tp.postings().count > MAX_INTERSECTION_RATIO * candidates.length)
+							break;
+						candidates = intersect(candidates, tp.postings());
+					}
+					if (tp.term().length() == TRIGRAM_LENGTH)
+						exactTerms.add(tp.term());
+				}
+				if (shortMatches != null)
+				{
+					BitSet bits = shortMatches;
+					candidates = Arrays.stream(candidates).filter(bits::get).toArray();
+				}
+			}
+
+			// Test candidates against terms that were not matched exactly
+			unmatchedTerms = terms.stream().filter(term -> !exactTerms.contains(term)).toList();
+			testCandidates(candidates);
+			unmatchedTerms = terms;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns {@code true} if the location that has the specified ID is live and its string representation
+		 * contains all the terms of this filter that must be tested.  The location is rendered only if there are such
+		 * terms.
+		 *
+		 * @param  id
+		 *           the ID of the location.
+		 * @return {@code true} if the location whose ID is {@code id} is live and satisfies this filter.
+		 */
+
+		private boolean testId(
+			int	id)
+		{
+			Location location = ids.location(id);
+			return (location != null) && (unmatchedTerms.isEmpty() || test(fold(renderer.invoke(location))));
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Tests the locations with the specified IDs against the terms of this filter that must be tested, and adds
+		 * the IDs of those that satisfy the terms to the matches of this filter.  If there are many candidates, they
+		 * are divided into chunks that are tested in parallel.
+		 *
+		 * @param candidates
+		 *          the IDs of the locations that will be tested, in ascending order.
+		 */
+
+		private void testCandidates(
+			int[]	candidates)
+		{
+			int numChunks = (candidates.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			if (numChunks <= 1)
+			{
+				for (int id : candidates)
+				{
+					if (testId(id))
+						matches.set(id);
+				}
+			}
+			else
+			{
+				BitSet[] chunkMatches = new BitSet[numChunks];
+				IntStream.range(0, numChunks).parallel().forEach(i ->
+				{
+					BitSet bits = new BitSet();
+					int end = Math.min((i + 1) * CHUNK_SIZE, candidates.length);
+					for (int j = i * CHUNK_SIZE; j < end; j++)
+					{
+						int id = candidates[j];
+						if (testId(id))
+							bits.set(id);
+					}
+					chunkMatches[i] = bits;
+				});
+				for (BitSet bits : chunkMatches)
+					matches.or(bits);
+			}
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+
+	// CLASS: BUILDING TASK
+
+
+	/**
+	 * This class implements a task that builds the tables of an index from a snapshot of the source list on a
+	 * background thread.  The locations are rendered in parallel in chunks, and the string representations of each
+	 * chunk are discarded once they have been indexed.
+	 */
+
+	private class BuildTask
+		implements Runnable
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The locations that will be indexed. */
+		private	Location[]						locations;
+
+		/** The function that converts a location to its string representation. */
+		private	IFunction1<String, Location>	renderer;
+
+		/** Flag: if {@code true}, this task has been cancelled. */
+		private volatile	boolean				cancelled;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that builds the tables of an index for the specified locations.
+		 *
+		 * @param locations
+		 *          the locations that will be indexed.
+		 * @param renderer
+		 *          the function that will convert a location to its string representation.
+		 */
+
+		private BuildTask(
+			Location[]						locations,
+			IFunction1<String, Location>	renderer)
+		{
+			// Initialise instance variables
+			this.locations = locations;
+			this.renderer = renderer;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : Runnable interface
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		public void run()
+		{
+			IdTable ids = null;
+			TrigramTable postings = null;
+			RuntimeException exception = null;
+			try
+			{
+				IdTable newIds = new IdTable();
+				TrigramTable newPostings = new TrigramTable();
+				String[] texts = new String[Math.min(locations.length, BUILD_CHUNK_SIZE)];
+				for (int start = 0; start < locations.length; start += BUILD_CHUNK_SIZE)
+				{
+					// Stop if task has been cancelled
+					if (cancelled)
+						return;
+
+					// Render chunk of locations in parallel, and index them
+					int offset = start;
+					int end = Math.min(start + BUILD_CHUNK_SIZE, locations.length);
+					IntStream.range(start, end).parallel()
+							.forEach(i -> texts[i - offset] = fold(renderer.invoke(locations[i])));
+					for (int i = start; i < end; i++)
+						add(newIds, newPostings, locations[i], texts[i - start]);
+				}
+				ids = newIds;
+				postings = newPostings;
+			}
+			catch (RuntimeException e)
+			{
+				exception = e;
+			}
+			finally
+			{
+				if (!cancelled)
+				{
+					IdTable resultIds = ids;
+					TrigramTable resultPostings = postings;
+					RuntimeException resultException = exception;
+					Platform.runLater(() -> onBuildFinished(this, resultIds, resultPostings, resultException));
+				}
+			}
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,532 @@
+/*====================================================================*\
+
+LocationIngester.java
+
+Class: ingester of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.File;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.Predicate;
+
+import javafx.animation.AnimationTimer;
+
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+import javafx.scene.control.ProgressIndicator;
+
+import uk.blankaspect.common.filesystem.ParallelFileTreeWalker;
+import uk.blankaspect.common.filesystem.PathUtils;
+
+import uk.blankaspect.common.function.IProcedure0;
+import uk.blankaspect.common.function.IProcedure1;
+
+import uk.blankaspect.common.thread.DaemonFactory;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: INGESTER OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements a staged pipeline that converts a list of files to normalised, distinct {@linkplain Path
+ * file-system locations} on a background thread and publishes the locations to a consumer on the JavaFX application
+ * thread in bounded chunks.  Optionally, each directory in the list is replaced by the files in the tree below it that
+ * are accepted by a filter, down to a maximum depth; the tree is walked in parallel by a {@link
+ * ParallelFileTreeWalker}.
+ * <p>
+ * Each location is published with a flag that indicates whether it is a directory, so that a client can render the
+ * location in a form that depends on its kind without querying the file system again.  The flag of an input file is
+ * determined once, on the background thread; the flag of a file that is found by a walker is taken from the attributes
+ * that the walker has already read.
+ * </p>
+ * <p>
+ * The background thread converts the files in batches and hands each batch to the JavaFX application thread through a
+ * bounded queue, so that the conversion (and the walk of a directory) is suspended if the consumer falls behind.  A
+ * full chunk is handed over outside the lock that guards the accumulation of chunks, so that the worker threads of a
+ * walker that are waiting for space in the queue do not block the others.  On the JavaFX application thread, at most
+ * one chunk is published on each pulse, so that the publication of a very large number of locations does not stall the
+ * user interface.
+ * </p>
+ */
+
+class LocationIngester
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The maximum number of locations in a chunk that is published to the consumer. */
+	static final	int		CHUNK_SIZE	= 2000;
+
+	/** The value of the depth of expansion that denotes that directories are not expanded. */
+	static final	int		NO_EXPANSION	= 0;
+
+	/** The maximum number of chunks that may await publication. */
+	private static final	int		MAX_NUM_PENDING_CHUNKS	= 4;
+
+	/** The interval (in milliseconds) at which the background thread tests for cancellation while it waits to hand a
+		chunk to the JavaFX application thread. */
+	private static final	long	OFFER_TIMEOUT	= 50;
+
+	/** The name of the background thread. */
+	private static final	String	THREAD_NAME	= "location-ingester";
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The files that will be converted to locations. */
+	private	List<File>					files;
+
+	/** The maximum depth to which directories are expanded, or {@link #NO_EXPANSION} if directories are not
+		expanded. */
+	private	int							expansionDepth;
+
+	/** The filter that is applied to the files that are found when a directory is expanded, or {@code null} if all
+		files are accepted. */
+	private	Predicate<Path>				expansionFilter;
+
+	/** The procedure that is invoked on the JavaFX application thread with each chunk of locations. */
+	private	IProcedure1<List<Entry>>	consumer;
+
+	/** The procedure that is invoked on the JavaFX application thread when ingestion has finished. */
+	private	IProcedure0					onFinished;
+
+	/** The chunks of locations that await publication. */
+	private	BlockingQueue<List<Entry>>	chunks;
+
+	/** The timer that publishes chunks of locations on each pulse. */
+	private	AnimationTimer				publisher;
+
+	/** The fraction of the input files that have been converted. */
+	private	ReadOnlyDoubleWrapper		progress;
+
+	/** The set of locations that have been handed to the JavaFX application thread. */
+	private	HashSet<Path>				distinctLocations;
+
+	/** The chunk of locations that is being accumulated by the background thread or the worker threads of a walker. */
+	private	List<Entry>					chunk;
+
+	/** The walker of the directory that is being expanded. */
+	private volatile	ParallelFileTreeWalker	walker;
+
+	/** The number of input files that have been converted by the background thread. */
+	private volatile	int				numConverted;
+
+	/** Flag: if {@code true}, the background thread has converted all the input files or has been cancelled. */
+	private volatile	boolean			converted;
+
+	/** Flag: if {@code true}, ingestion has been cancelled. */
+	private volatile	boolean			cancelled;
+
+	/** Flag: if {@code true}, ingestion has finished. */
+	private	boolean						finished;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of an ingester of file-system locations.
+	 *
+	 * @param files
+	 *          the files that will be converted to locations.
+	 * @param expansionDepth
+	 *          the maximum depth to which each directory in {@code files} will be replaced by the files
+	 *          in the tree below it, or {@link #NO_EXPANSION} if directories will not be expanded.
+	 *          The entries of a directory have a depth of 1.
+	 * @param expansionFilter
+	 *          the filter that will be applied to the files that are found when a directory is expanded, or {@code
+	 *          null} if all files will be accepted.
+	 * @param consumer
+	 *          the procedure that will be invoked on the JavaFX application thread with each chunk of locations.
+	 * @param onFinished
+	 *          the procedure that will be invoked on the JavaFX application thread when ingestion has finished or has
+	 *          been cancelled.
+	 */
+
+	LocationIngester(
+		List<File>					files,
+		int							expansionDepth,
+		Predicate<Path>				expansionFilter,
+		IProcedure1<List<Entry>>	consumer,
+		IProcedure0					onFinished)
+	{
+		// Initialise instance variables
+		this.files = files;
+		this.expansionDepth = expansionDepth;
+		this.expansionFilter = expansionFilter;
+		this.consumer = consumer;
+		this.onFinished = onFinished;
+		chunks = new ArrayBlockingQueue<>(MAX_NUM_PENDING_CHUNKS);
+		progress = new ReadOnlyDoubleWrapper();
+		publisher = new AnimationTimer()
+		{
+			@Override
+			public void handle(
+				long	now)
+			{
+				publish();
+			}
+		};
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the number of input files of this ingester.
+	 *
+	 * @return the number of input files of this ingester.
+	 */
+
+	int getNumFiles()
+	{
+		return files.size();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if this ingester replaces directories with the files in the trees below them.
+	 *
+	 * @return {@code true} if this ingester replaces directories with the files in the trees below them.
+	 */
+
+	boolean expandsDirectories()
+	{
+		return (expansionDepth != NO_EXPANSION);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the property that holds the fraction of the input files that have been converted to locations.
+	 *
+	 * @return the property that holds the fraction of the input files that have been converted to locations.
+	 */
+
+	ReadOnlyDoubleProperty progressProperty()
+	{
+		return progress.getReadOnlyProperty();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Starts ingestion.  This method must be called on the JavaFX application thread.
+	 */
+
+	void start()
+	{
+		publisher.start();
+		DaemonFactory.create(THREAD_NAME, this::convert).start();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Cancels ingestion.  Any chunks of locations that have already been published are not withdrawn.  This method
+	 * must be called on the JavaFX application thread.
+	 */
+
+	void cancel()
+	{
+		cancelled = true;
+		ParallelFileTreeWalker walker = this.walker;
+		if (walker != null)
+			walker.cancel();
+		chunks.clear();
+		finish();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Converts the input files to normalised absolute locations, expands directories if required, removes duplicates
+	 * and hands the resulting locations to the JavaFX application thread in chunks.  This method is called on the
+	 * background thread.
+	 */
+
+	private void convert()
+	{
+		try
+		{
+			distinctLocations = new HashSet<>();
+			chunk = new ArrayList<>(CHUNK_SIZE);
+			for (File file : files)
+			{
+				// Stop if ingestion has been cancelled
+				if (cancelled)
+					return;
+
+				// Convert file to normalised absolute location; ignore invalid pathnames
+				try
+				{
+					Path location = PathUtils.abs(file.toPath());
+					boolean directory = Files.isDirectory(location);
+
+					// If location is a directory and directories are expanded, walk the tree below it ...
+					if (expandsDirectories() && directory)
+					{
+						ParallelFileTreeWalker walker =
+								new ParallelFileTreeWalker(expansionFilter, false, expansionDepth, this::addAll, null);
+						this.walker = walker;
+						if (cancelled)
+							return;
+						walker.walk(location);
+						this.walker = null;
+					}
+
+					// ... otherwise, add location
+					else
+					{
+						List<Entry> fullChunk = add(location, directory);
+						if ((fullChunk != null) && !offer(fullChunk))
+							return;
+					}
+				}
+				catch (InvalidPathException e)
+				{
+					// ignore
+				}
+
+				// Update number of converted files
+				++numConverted;
+			}
+
+			// Hand remaining locations to JavaFX application thread
+			if (!chunk.isEmpty())
+				offer(chunk);
+		}
+		finally
+		{
+			converted = true;
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified location to the current chunk if it has not been added before.  If the chunk is then full, it
+	 * is replaced by an empty chunk and returned, so that the caller can hand it to the JavaFX application thread
+	 * without holding the lock of this ingester.  This method is called on the background thread or on a worker thread
+	 * of a walker.
+	 *
+	 * @param  location
+	 *           the location that will be added.
+	 * @param  directory
+	 *           {@code true} if {@code location} is a directory.
+	 * @return the chunk that was filled by {@code location}, or {@code null} if the current chunk is not full.
+	 */
+
+	private synchronized List<Entry> add(
+		Path	location,
+		boolean	directory)
+	{
+		if (distinctLocations.add(location))
+		{
+			chunk.add(new Entry(location, directory));
+			if (chunk.size() == CHUNK_SIZE)
+			{
+				List<Entry> fullChunk = chunk;
+				chunk = new ArrayList<>(CHUNK_SIZE);
+				return fullChunk;
+			}
+		}
+		return null;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the locations of the specified entries, which were found by the walker of a directory, to the current chunk,
+	 * and hands any chunks that they fill to the JavaFX application thread.  This method is called on a worker thread
+	 * of a walker.
+	 * <p>
+	 * The walker does not follow symbolic links and does not pass directories to this method, so the attributes that
+	 * it has read for each location determine whether the location is a directory without another query of the file
+	 * system, except for a symbolic link, whose target is queried.
+	 * </p>
+	 *
+	 * @param entries
+	 *          the entries whose locations will be added.
+	 */
+
+	private void addAll(
+		List<ParallelFileTreeWalker.Entry>	entries)
+	{
+		// Determine whether locations are directories, following symbolic links
+		int numEntries = entries.size();
+		boolean[] directories = new boolean[numEntries];
+		for (int i = 0; i < numEntries; i++)
+		{
+			ParallelFileTreeWalker.Entry entry = entries.get(i);
+			BasicFileAttributes attrs = entry.attributes();
+			directories[i] = attrs.isSymbolicLink() ? Files.isDirectory(entry.location()) : attrs.isDirectory();
+		}
+
+		// Add locations, collecting full chunks
+		List<List<Entry>> fullChunks = new ArrayList<>();
+		synchronized (this)
+		{
+			for (int i = 0; i < numEntries; i++)
+			{
+				List<Entry> fullChunk = add(entries.get(i).location(), directories[i]);
+				if (fullChunk != null)
+					fullChunks.add(fullChunk);
+			}
+		}
+
+		// Hand full chunks to JavaFX application thread outside lock; stop walk if ingestion was cancelled
+		for (List<Entry> fullChunk : fullChunks)
+		{
+			if (!offer(fullChunk))
+			{
+				ParallelFileTreeWalker walker = this.walker;
+				if (walker != null)
+					walker.cancel();
+				break;
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified chunk of locations to the queue of chunks that await publication, waiting for space in the
+	 * queue if necessary.  This method is called on the background thread or on a worker thread of a walker.
+	 *
+	 * @param  chunk
+	 *           the chunk of locations.
+	 * @return {@code true} if {@code chunk} was added to the queue; {@code false} if ingestion was cancelled.
+	 */
+
+	private boolean offer(
+		List<Entry>	chunk)
+	{
+		while (!cancelled)
+		{
+			try
+			{
+				if (chunks.offer(chunk, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+					return true;
+			}
+			catch (InterruptedException e)
+			{
+				cancelled = true;
+			}
+		}
+		return false;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Publishes at most one chunk of locations to the consumer and updates the progress of ingestion.  This method is
+	 * called on the JavaFX application thread on each pulse.
+	 */
+
+	private void publish()
+	{
+		// Test whether background thread has finished before polling queue, so that no chunk can be missed
+		boolean done = converted;
+
+		// Publish chunk
+		List<Entry> chunk = chunks.poll();
+		if (chunk != null)
+			consumer.invoke(chunk);
+
+		// Update progress; it is indeterminate while a directory is being expanded
+		int numFiles = files.size();
+		progress.set((walker != null)
+							? ProgressIndicator.INDETERMINATE_PROGRESS
+							: (numFiles == 0) ? 1.0 : (double)numConverted / (double)numFiles);
+
+		// Finish if all chunks have been published
+		if (done && chunks.isEmpty())
+			finish();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Stops the publication of chunks and notifies the client that ingestion has finished.
+	 */
+
+	private void finish()
+	{
+		if (!finished)
+		{
+			finished = true;
+			publisher.stop();
+			if (onFinished != null)
+				onFinished.invoke();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: ENTRY OF A CHUNK OF LOCATIONS
+
+
+	/**
+	 * This record encapsulates a file-system location that is published by an ingester, and a flag that indicates
+	 * whether it is a directory.
+	 *
+	 * @param location
+	 *          the normalised absolute location.
+	 * @param directory
+	 *          {@code true} if {@code location} is a directory.
+	 */
+
+	record Entry(
+		Path	location,
+		boolean	directory)
+	{
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
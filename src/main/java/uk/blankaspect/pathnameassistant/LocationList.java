@@ -0,0 +1,417 @@
+/*====================================================================*\
+
+LocationList.java
+
+Class: observable list of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.function.Predicate;
+
+import javafx.collections.ModifiableObservableListBase;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: OBSERVABLE LIST OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements an observable list of distinct {@linkplain Location file-system locations}.  The locations are
+ * held in a {@link LocationStore}, which shares the ancestor directories of locations and creates the {@linkplain Path
+ * path} of a location only when it is required, so that a large list needs a fraction of the memory of a list of paths.
+ * The store also serves as the index of the list, so that a test for the presence of a location does not search the
+ * list.
+ * <p>
+ * Locations are added to the list as {@linkplain LocationIngester.Entry entries} of an ingester, with {@link
+ * #addLocations(Iterable)}, which converts the path of each entry that is not already in the list to a location of the
+ * store, and records whether the location is a directory.  A location that is added or set through the operations of
+ * {@link List} is likewise converted to the location of the store that has the same pathname, which is the element of
+ * the list; a location whose pathname is already in the list is rejected.
+ * </p>
+ * <p>
+ * In addition to the operations of an observable list, the list can be {@linkplain #reorder(Location[]) reordered}
+ * according to a sequence of locations whose order has been determined elsewhere; the reordering is reported to
+ * listeners as a single permutation, and its cost is linear in the size of the list.  The cost of {@linkplain
+ * #removeIf(Predicate) removing the elements that satisfy a filter} is also linear in the size of the list.
+ * </p>
+ */
+
+class LocationList
+	extends ModifiableObservableListBase<Location>
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The prefix of the message of the exception that is thrown when a location is already in the list. */
+	private static final	String	DUPLICATE_LOCATION_STR	= "Location already in list: ";
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The list that backs this list. */
+	private	ArrayList<Location>	locations;
+
+	/** The store that holds the elements of this list. */
+	private	LocationStore		store;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of an empty observable list of file-system locations.
+	 */
+
+	LocationList()
+	{
+		// Initialise instance variables
+		locations = new ArrayList<>();
+		store = new LocationStore();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods : overriding methods
+////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public int size()
+	{
+		return locations.size();
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public Location get(
+		int	index)
+	{
+		return locations.get(index);
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public boolean contains(
+		Object	obj)
+	{
+		return store.contains(obj);
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public int indexOf(
+		Object	obj)
+	{
+		return store.contains(obj) ? locations.indexOf(obj) : -1;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public int lastIndexOf(
+		Object	obj)
+	{
+		return store.contains(obj) ? locations.lastIndexOf(obj) : -1;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	public void clear()
+	{
+		if (!locations.isEmpty())
+		{
+			beginChange();
+			nextRemove(0, new ArrayList<>(locations));
+			locations.clear();
+			store.clear();
+			++modCount;
+			endChange();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The elements that satisfy the filter are removed in a single pass over this list, and each run of consecutive
+	 * removed elements is reported to listeners as a single removal within one change.
+	 * </p>
+	 */
+
+	@Override
+	public boolean removeIf(
+		Predicate<? super Location>	filter)
+	{
+		// Partition elements into those that are retained and runs of those that are removed
+		int numLocations = locations.size();
+		ArrayList<Location> retained = new ArrayList<>(numLocations);
+		List<List<Location>> removedRuns = new ArrayList<>();
+		List<Integer> runIndices = new ArrayList<>();
+		List<Location> run = null;
+		for (int i = 0; i < numLocations; i++)
+		{
+			Location location = locations.get(i);
+			if (filter.test(location))
+			{
+				if (run == null)
+				{
+					run = new ArrayList<>();
+					removedRuns.add(run);
+					runIndices.add(retained.size());
+				}
+				run.add(location);
+			}
+			else
+			{
+				retained.add(location);
+				run = null;
+			}
+		}
+
+		// If no elements were removed, stop
+		if (removedRuns.isEmpty())
+			return false;
+
+		// Replace elements and report removals
+		beginChange();
+		locations = retained;
+		for (List<Location> removedRun : removedRuns)
+		{
+			for (Location location : removedRun)
+				store.remove(location);
+		}
+		++modCount;
+		for (int i = 0; i < removedRuns.size(); i++)
+			nextRemove(runIndices.get(i), removedRuns.get(i));
+		endChange();
+
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The element that is inserted is the location of the store of this list that has the same pathname as {@code
+	 * location}.
+	 * </p>
+	 *
+	 * @throws IllegalArgumentException
+	 *           if the pathname of {@code location} is already in this list.
+	 */
+
+	@Override
+	protected void doAdd(
+		int			index,
+		Location	location)
+	{
+		Location newLocation = store.add(location);
+		if (newLocation == null)
+			throw new IllegalArgumentException(DUPLICATE_LOCATION_STR + location);
+		locations.add(index, newLocation);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The element that replaces the existing element is the location of the store of this list that has the same
+	 * pathname as {@code location}.  If {@code location} has the same pathname as the existing element, the existing
+	 * element is retained.
+	 * </p>
+	 *
+	 * @throws IllegalArgumentException
+	 *           if the pathname of {@code location} is already in this list at another index.
+	 */
+
+	@Override
+	protected Location doSet(
+		int			index,
+		Location	location)
+	{
+		// Add pathname of location to store, unless it is the pathname of the existing element
+		Location oldLocation = locations.get(index);
+		Location newLocation = store.add(location);
+		if (newLocation == null)
+		{
+			if (store.get(location) != oldLocation)
+				throw new IllegalArgumentException(DUPLICATE_LOCATION_STR + location);
+			return oldLocation;
+		}
+
+		// Replace existing element
+		store.remove(oldLocation);
+		locations.set(index, newLocation);
+		return oldLocation;
+	}
+
+	//------------------------------------------------------------------
+
+	@Override
+	protected Location doRemove(
+		int	index)
+	{
+		Location location = locations.remove(index);
+		store.remove(location);
+		return location;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Appends the locations that correspond to the paths of the specified entries to this list.  Any path that is
+	 * already in this list is ignored, as is any repeated occurrence of a path.  The locations are reported to
+	 * listeners as a single addition.
+	 *
+	 * @param  entries
+	 *           the entries whose locations will be appended to this list.
+	 * @return the number of locations that were appended to this list.
+	 * @throws IllegalArgumentException
+	 *           if the path of any of {@code entries} is not an absolute path of the default file system.
+	 */
+
+	int addLocations(
+		Iterable<LocationIngester.Entry>	entries)
+	{
+		// Add paths to store, and append new locations to list
+		int startIndex = locations.size();
+		for (LocationIngester.Entry entry : entries)
+		{
+			Location location = store.add(entry.location(), entry.directory());
+			if (location != null)
+				locations.add(location);
+		}
+
+		// Report addition
+		int endIndex = locations.size();
+		if (endIndex > startIndex)
+		{
+			beginChange();
+			++modCount;
+			nextAdd(startIndex, endIndex);
+			endChange();
+		}
+
+		// Return number of added locations
+		return endIndex - startIndex;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the nearest common ancestor of the elements of this list, which is found in the {@linkplain
+	 * LocationStore#commonAncestor() store} that holds them.
+	 *
+	 * @return the nearest common ancestor of the elements of this list, or {@code null} if there is none.
+	 */
+
+	Location commonAncestor()
+	{
+		return store.commonAncestor();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns an estimate of the memory that is used by the store that holds the elements of this list.
+	 *
+	 * @return an estimate of the memory that is used by the store that holds the elements of this list.
+	 */
+
+	LocationStore.Footprint footprint()
+	{
+		return store.footprint();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Reorders this list so that the elements of the specified array that are in this list come first, in the order in
+	 * which they occur in the array, followed by the other elements of this list in their current order.  The change is
+	 * reported to listeners as a single permutation.
+	 *
+	 * @param order
+	 *          the locations in the order in which they will occur in this list.
+	 */
+
+	void reorder(
+		Location[]	order)
+	{
+		// Map current elements to their indices
+		int numLocations = locations.size();
+		Map<Location, Integer> oldIndices = new HashMap<>(numLocations * 4 / 3 + 1);
+		for (int i = 0; i < numLocations; i++)
+			oldIndices.put(locations.get(i), i);
+
+		// Create permutation from old indices to new indices
+		int[] permutation = new int[numLocations];
+		Arrays.fill(permutation, -1);
+		Location[] newLocations = new Location[numLocations];
+		int newIndex = 0;
+		for (Location location : order)
+		{
+			Integer oldIndex = oldIndices.remove(location);
+			if (oldIndex != null)
+			{
+				permutation[oldIndex] = newIndex;
+				newLocations[newIndex++] = location;
+			}
+		}
+		for (int i = 0; i < numLocations; i++)
+		{
+			if (permutation[i] < 0)
+			{
+				permutation[i] = newIndex;
+				newLocations[newIndex++] = locations.get(i);
+			}
+		}
+
+		// Replace elements and report permutation
+		beginChange();
+		locations.clear();
+		locations.addAll(Arrays.asList(newLocations));
+		++modCount;
+		nextPermutation(0, numLocations, permutation);
+		endChange();
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,532 @@
+/*====================================================================*\
+
+LocationMonitor.java
+
+Class: monitor of the existence of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.IOException;
+
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+
+import uk.blankaspect.common.function.IProcedure1;
+
+import uk.blankaspect.common.thread.DaemonFactory;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: MONITOR OF THE EXISTENCE OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements a monitor that detects when {@linkplain Location file-system locations} are deleted, renamed or
+ * restored, and reports the changes on the JavaFX application thread.
+ * <p>
+ * The monitor does not test the existence of each location periodically.  Instead, it registers the parent directory
+ * of each location with a {@link WatchService}, and tests the existence of a location only when an event is reported
+ * for it.  A registration is shared by all the locations in a directory: it is created when the first location in the
+ * directory is added and cancelled when the last one is removed, so that the number of registrations is the number of
+ * distinct parent directories.
+ * </p>
+ * <p>
+ * The events of a burst (for example, the deletion of a large directory) are coalesced: after the first event, the
+ * monitor continues to collect events until none has arrived for a short interval or a maximum delay has elapsed, and
+ * then reports all the changes in a single {@link Update}.
+ * </p>
+ * <p>
+ * Locations are added and removed on the JavaFX application thread; the requests are queued and performed on the
+ * background thread of the monitor, which owns all the state of the monitor.
+ * </p>
+ */
+
+class LocationMonitor
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The interval (in milliseconds) at which the background thread performs queued requests when it is idle. */
+	private static final	long	POLL_INTERVAL	= 250;
+
+	/** The interval (in milliseconds) without an event that ends a burst of events. */
+	private static final	long	COALESCENCE_INTERVAL	= 100;
+
+	/** The maximum delay (in milliseconds) between the first event of a burst and the report of its changes. */
+	private static final	long	MAX_COALESCENCE_DELAY	= 1000;
+
+	/** The name of the background thread. */
+	private static final	String	THREAD_NAME	= "location-monitor";
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The procedure that is invoked on the JavaFX application thread with each update. */
+	private	IProcedure1<Update>				consumer;
+
+	/** The procedure that is invoked on the JavaFX application thread with the exception that prevented the creation
+		of the watch service. */
+	private	IProcedure1<Exception>			errorHandler;
+
+	/** The requests that are waiting to be performed on the background thread. */
+	private	Queue<Runnable>					requests;
+
+	/** The watch service, or {@code null} if it has not been created. */
+	private	WatchService					watchService;
+
+	/** Flag: if {@code true}, the monitor is not available because the watch service could not be created. */
+	private	boolean							unavailable;
+
+	/** A map from parent directories to their registrations.  It is accessed only on the background thread. */
+	private	Map<Location, Registration>		registrations;
+
+	/** A map from the valid watch keys of parent directories to their registrations.  It is accessed only on the
+		background thread. */
+	private	Map<WatchKey, Registration>		keyRegistrations;
+
+	/** The locations that are known not to exist.  The set is accessed only on the background thread. */
+	private	Set<Location>					missingLocations;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a monitor of the existence of file-system locations.
+	 *
+	 * @param consumer
+	 *          the procedure that will be invoked on the JavaFX application thread with each update.
+	 * @param errorHandler
+	 *          the procedure that will be invoked on the JavaFX application thread with the exception that prevented
+	 *          the creation of the watch service, after which the monitor is unavailable.
+	 */
+
+	LocationMonitor(
+		IProcedure1<Update>		consumer,
+		IProcedure1<Exception>	errorHandler)
+	{
+		// Initialise instance variables
+		this.consumer = consumer;
+		this.errorHandler = errorHandler;
+		requests = new ConcurrentLinkedQueue<>();
+		registrations = new HashMap<>();
+		keyRegistrations = new HashMap<>();
+		missingLocations = new HashSet<>();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Starts monitoring the specified locations.  This method should be called on the JavaFX application thread.
+	 *
+	 * @param locations
+	 *          the locations that will be monitored.
+	 */
+
+	void addAll(
+		Collection<? extends Location>	locations)
+	{
+		// Start background thread if necessary
+		if (watchService == null)
+		{
+			if (unavailable)
+				return;
+			try
+			{
+				watchService = FileSystems.getDefault().newWatchService();
+			}
+			catch (IOException e)
+			{
+				unavailable = true;
+				Platform.runLater(() -> errorHandler.invoke(e));
+				return;
+			}
+			DaemonFactory.create(THREAD_NAME, this::run).start();
+		}
+
+		// Queue request
+		List<Location> locations0 = List.copyOf(locations);
+		requests.add(() -> register(locations0));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Stops monitoring the specified locations.  This method should be called on the JavaFX application thread.
+	 *
+	 * @param locations
+	 *          the locations that will no longer be monitored.
+	 */
+
+	void removeAll(
+		Collection<? extends Location>	locations)
+	{
+		if (watchService != null)
+		{
+			List<Location> locations0 = List.copyOf(locations);
+			requests.add(() -> deregister(locations0));
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Stops monitoring all locations.  This method should be called on the JavaFX application thread.
+	 */
+
+	void clear()
+	{
+		if (watchService != null)
+			requests.add(this::deregisterAll);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Waits for events from the watch service and reports the changes to the existence of monitored locations.  This
+	 * method is run on the background thread.
+	 */
+
+	private void run()
+	{
+		try
+		{
+			while (true)
+			{
+				// Perform queued requests
+				performRequests();
+
+				// Wait for first event of a burst
+				WatchKey key = watchService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (key == null)
+					continue;
+
+				// Collect the locations that are affected by the events of the burst
+				Set<Location> affectedLocations = new HashSet<>();
+				long deadline = System.currentTimeMillis() + MAX_COALESCENCE_DELAY;
+				while (key != null)
+				{
+					processEvents(key, affectedLocations);
+					long delay = Math.min(COALESCENCE_INTERVAL, deadline - System.currentTimeMillis());
+					key = (delay > 0) ? watchService.poll(delay, TimeUnit.MILLISECONDS) : null;
+				}
+
+				// Perform requests that were queued during the burst, so that removed locations are not reported
+				performRequests();
+
+				// Test the existence of affected locations
+				List<Location> missing = new ArrayList<>();
+				List<Location> restored = new ArrayList<>();
+				for (Location location : affectedLocations)
+				{
+					Registration registration = registrations.get(location.getParent());
+					if ((registration == null) || (registration.locations.get(location.getFileName()) != location))
+						continue;
+
+					if (Files.exists(location.toPath(), LinkOption.NOFOLLOW_LINKS))
+					{
+						if (missingLocations.remove(location))
+							restored.add(location);
+					}
+					else
+					{
+						if (missingLocations.add(location))
+							missing.add(location);
+					}
+				}
+
+				// Report changes
+				if (!missing.isEmpty() || !restored.isEmpty())
+				{
+					Update update = new Update(missing, restored);
+					Platform.runLater(() -> consumer.invoke(update));
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e)
+		{
+			// ignore
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Performs the requests that have been queued by the JavaFX application thread.
+	 */
+
+	private void performRequests()
+	{
+		Runnable request = null;
+		while ((request = requests.poll()) != null)
+			request.run();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the locations that are affected by the pending events of the specified watch key to the specified set, and
+	 * resets the key.  If the key is no longer valid (for example, because its directory has been deleted), all the
+	 * locations in the directory are affected.
+	 *
+	 * @param key
+	 *          the watch key whose events will be processed.
+	 * @param affectedLocations
+	 *          the set to which the affected locations will be added.
+	 */
+
+	private void processEvents(
+		WatchKey		key,
+		Set<Location>	affectedLocations)
+	{
+		Registration registration = keyRegistrations.get(key);
+		boolean allAffected = false;
+		for (WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+				allAffected = true;
+			else if (registration != null)
+			{
+				Location location = registration.locations.get(event.context().toString());
+				if (location != null)
+					affectedLocations.add(location);
+			}
+		}
+		if (!key.reset())
+		{
+			allAffected = true;
+			if (registration != null)
+			{
+				keyRegistrations.remove(key);
+				registration.key = null;
+			}
+		}
+		if (allAffected && (registration != null))
+			affectedLocations.addAll(registration.locations.values());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified locations to the registrations of their parent directories, registering each directory that
+	 * does not have a registration with the watch service.
+	 *
+	 * @param locations
+	 *          the locations that will be added.
+	 */
+
+	private void register(
+		List<Location>	locations)
+	{
+		for (Location location : locations)
+		{
+			Location directory = location.getParent();
+			if (directory == null)
+				continue;
+
+			Registration registration = registrations.get(directory);
+			if (registration == null)
+			{
+				try
+				{
+					WatchKey key = directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+															   StandardWatchEventKinds.ENTRY_DELETE);
+					registration = new Registration(key);
+					registrations.put(directory, registration);
+					keyRegistrations.put(key, registration);
+				}
+				catch (Exception e)
+				{
+					// Directory cannot be watched: ignore location
+					continue;
+				}
+			}
+			registration.locations.put(location.getFileName(), location);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the specified locations from the registrations of their parent directories, cancelling each
+	 * registration that no longer has any locations.
+	 *
+	 * @param locations
+	 *          the locations that will be removed.
+	 */
+
+	private void deregister(
+		List<Location>	locations)
+	{
+		for (Location location : locations)
+		{
+			missingLocations.remove(location);
+
+			Location directory = location.getParent();
+			Registration registration = (directory == null) ? null : registrations.get(directory);
+			if ((registration != null) && registration.locations.remove(location.getFileName(), location)
+					&& registration.locations.isEmpty())
+			{
+				if (registration.key != null)
+					keyRegistrations.remove(registration.key);
+				registration.cancel();
+				registrations.remove(directory);
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes all locations and cancels all registrations.
+	 */
+
+	private void deregisterAll()
+	{
+		for (Registration registration : registrations.values())
+			registration.cancel();
+		registrations.clear();
+		keyRegistrations.clear();
+		missingLocations.clear();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: UPDATE
+
+
+	/**
+	 * This record encapsulates the changes to the existence of monitored locations that were detected in a burst of
+	 * events.
+	 *
+	 * @param missing
+	 *          the locations that no longer exist.
+	 * @param restored
+	 *          the locations that had been reported as missing and that exist again.
+	 */
+
+	record Update(
+		List<Location>	missing,
+		List<Location>	restored)
+	{
+	}
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: REGISTRATION OF A DIRECTORY
+
+
+	/**
+	 * This class implements the registration of a directory with the watch service.  The registration is shared by the
+	 * monitored locations in the directory, the number of which is its reference count.  The locations are mapped from
+	 * their filenames, so that the location of an event is found from the context of the event without creating a
+	 * path.
+	 */
+
+	private static class Registration
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The watch key of the directory, or {@code null} if the key is no longer valid. */
+		private	WatchKey				key;
+
+		/** A map from the filenames of the monitored locations in the directory to the locations. */
+		private	Map<String, Location>	locations;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a registration of a directory.
+		 *
+		 * @param key
+		 *          the watch key of the directory.
+		 */
+
+		private Registration(
+			WatchKey	key)
+		{
+			// Initialise instance variables
+			this.key = key;
+			locations = new HashMap<>();
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Cancels the watch key of this registration.
+		 */
+
+		private void cancel()
+		{
+			if (key != null)
+				key.cancel();
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,1094 @@
+/*====================================================================*\
+
+LocationSorter.java
+
+Class: sorter of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.stream.IntStream;
+
+import javafx.application.Platform;
+
+import uk.blankaspect.common.filesystem.PathnameUtils;
+
+import uk.blankaspect.common.function.IProcedure1;
+
+import uk.blankaspect.common.thread.DaemonFactory;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: SORTER OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements a sorter of {@linkplain Location file-system locations} that determines the sorted order of a
+ * list of locations on a background thread.
+ * <p>
+ * The sort keys of each location are computed once and cached, so that the locations can be sorted in another {@link
+ * Order order} without computing the keys again.  The background thread does not modify the cache: the keys that it
+ * computes are added to the cache on the JavaFX application thread when the sort has finished, except for those of
+ * locations that were removed from the cache while the sort was running.  The {@linkplain Path paths} of the
+ * locations, which are needed to compare pathnames, are created for the duration of a sort and are not retained.  The
+ * result of a sort is an array of the locations in sorted order, which can be applied to a {@link LocationList} as a
+ * single permutation.
+ * </p>
+ * <p>
+ * Some orders compare the {@linkplain MetadataCache.Metadata metadata} of locations.  The metadata are obtained from a
+ * {@link MetadataCache}; those that are not in the cache are read on the background thread.
+ * </p>
+ */
+
+class LocationSorter
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The minimum number of locations for which sort keys are computed in parallel. */
+	private static final	int		PARALLEL_THRESHOLD	= 1 << 12;
+
+	/** The name of the background thread. */
+	private static final	String	THREAD_NAME	= "location-sorter";
+
+	/** The number of variants of collation key. */
+	private static final	int		NUM_KEY_VARIANTS	= 4;
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** A map from locations to their sort keys.  The map is modified only on the JavaFX application thread. */
+	private	Map<Location, SortKeys>	sortKeys;
+
+	/** The cache from which the metadata of locations are obtained. */
+	private	MetadataCache			metadataCache;
+
+	/** The procedure that is invoked with the exception that caused a sorting task to fail. */
+	private	IProcedure1<Exception>	errorHandler;
+
+	/** The active sorting task. */
+	private	SortTask				task;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a sorter of file-system locations.
+	 *
+	 * @param metadataCache
+	 *          the cache from which the metadata of locations will be obtained.
+	 * @param errorHandler
+	 *          the procedure that will be invoked on the JavaFX application thread with the exception that caused a
+	 *          sorting task to fail.  It may be {@code null} if the sorter will only {@linkplain #sortNow(Location[],
+	 *          Order, Collation) sort on the calling thread}.
+	 */
+
+	LocationSorter(
+		MetadataCache			metadataCache,
+		IProcedure1<Exception>	errorHandler)
+	{
+		// Initialise instance variables
+		sortKeys = new ConcurrentHashMap<>();
+		this.metadataCache = metadataCache;
+		this.errorHandler = errorHandler;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the index of the variant of collation key that has the specified properties.
+	 *
+	 * @param  ignoreCase
+	 *           if {@code true}, the key ignores letter case.
+	 * @param  natural
+	 *           if {@code true}, the key compares sequences of decimal digits by their numeric values.
+	 * @return the index of the variant of collation key that has the specified properties.
+	 */
+
+	private static int keyVariant(
+		boolean	ignoreCase,
+		boolean	natural)
+	{
+		return (ignoreCase ? 1 : 0) | (natural ? 2 : 0);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the specified sorting task has been cancelled.
+	 *
+	 * @param  task
+	 *           the sorting task of interest, which may be {@code null}.
+	 * @return {@code true} if {@code task} is not {@code null} and has been cancelled.
+	 */
+
+	private static boolean isCancelled(
+		SortTask	task)
+	{
+		return (task != null) && task.cancelled;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the locations of the specified entries.
+	 *
+	 * @param  entries
+	 *           the entries whose locations are required, which may be {@code null}.
+	 * @return the locations of {@code entries} in the same order, or {@code null} if {@code entries} is {@code null}.
+	 */
+
+	private static Location[] toLocations(
+		Entry[]	entries)
+	{
+		if (entries == null)
+			return null;
+
+		Location[] locations = new Location[entries.length];
+		for (int i = 0; i < entries.length; i++)
+			locations[i] = entries[i].location;
+		return locations;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns {@code true} if this sorter is sorting locations.  This method must be called on the JavaFX application
+	 * thread.
+	 *
+	 * @return {@code true} if this sorter is sorting locations.
+	 */
+
+	boolean isSorting()
+	{
+		return (task != null);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sorts the specified locations on a background thread.  When the locations have been sorted, the specified
+	 * consumer is invoked on the JavaFX application thread with an array of the locations in sorted order.  If the sort
+	 * is cancelled or fails, the consumer is invoked with {@code null}.  This method must be called on the JavaFX
+	 * application thread.
+	 *
+	 * @param locations
+	 *          the locations that will be sorted.  The array is not modified.
+	 * @param order
+	 *          the order in which the locations will be sorted.
+	 * @param collation
+	 *          the collation with which the locations will be compared.
+	 * @param consumer
+	 *          the procedure that will be invoked on the JavaFX application thread with the sorted locations, or with
+	 *          {@code null} if the sort is cancelled or fails.
+	 */
+
+	void sort(
+		Location[]				locations,
+		Order					order,
+		Collation				collation,
+		IProcedure1<Location[]>	consumer)
+	{
+		// Cancel any active task
+		cancel();
+
+		// Start new task
+		task = new SortTask(locations, order, collation, consumer);
+		DaemonFactory.create(THREAD_NAME, task).start();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Cancels the active sort, if there is one.  The consumer of the sort is invoked with {@code null}.  This method
+	 * must be called on the JavaFX application thread.
+	 */
+
+	void cancel()
+	{
+		if (task != null)
+		{
+			SortTask task = this.task;
+			task.cancelled = true;
+			this.task = null;
+			task.consumer.invoke(null);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the sort keys of the specified locations from the cache of this sorter.  If a sort is active, the sort
+	 * keys that it computes for the locations will not be added to the cache.  This method must be called on the JavaFX
+	 * application thread.
+	 *
+	 * @param locations
+	 *          the locations whose sort keys will be removed.
+	 */
+
+	void removeAll(
+		Iterable<? extends Location>	locations)
+	{
+		if (!sortKeys.isEmpty())
+		{
+			for (Location location : locations)
+				sortKeys.remove(location);
+		}
+		if ((task != null) && !task.keysDiscarded)
+		{
+			for (Location location : locations)
+				task.removedLocations.add(location);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes all sort keys from the cache of this sorter.  If a sort is active, the sort keys that it computes will
+	 * not be added to the cache.  This method must be called on the JavaFX application thread.
+	 */
+
+	void clear()
+	{
+		sortKeys.clear();
+		if (task != null)
+		{
+			task.keysDiscarded = true;
+			task.removedLocations.clear();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sorts the specified locations on the calling thread and returns them in sorted order.  Unlike {@link
+	 * #sort(Location[], Order, Collation, IProcedure1)}, this method does not require the JavaFX runtime, so it may be
+	 * used by a client that has no user interface.
+	 *
+	 * @param  locations
+	 *           the locations that will be sorted.  The array is not modified.
+	 * @param  order
+	 *           the order in which the locations will be sorted.
+	 * @param  collation
+	 *           the collation with which the locations will be compared.
+	 * @return the locations in sorted order.
+	 */
+
+	Location[] sortNow(
+		Location[]	locations,
+		Order		order,
+		Collation	collation)
+	{
+		return toLocations(sortEntries(locations, order, collation, null));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the sort keys that were computed by the specified task to the cache of this sorter and notifies the client
+	 * of this sorter of the result of the task, unless the task has been cancelled.  The keys of locations that were
+	 * removed from the cache while the task was running are not added.  If the task failed, the exception that caused
+	 * it to fail is then passed to the error handler of this sorter.  This method is called on the JavaFX application
+	 * thread.
+	 *
+	 * @param task
+	 *          the task that has finished.
+	 * @param entries
+	 *          the sorted entries of the task, or {@code null} if the task failed.
+	 * @param exception
+	 *          the exception that caused the task to fail, or {@code null} if the task did not fail.
+	 */
+
+	private void onTaskFinished(
+		SortTask	task,
+		Entry[]		entries,
+		Exception	exception)
+	{
+		if (this.task == task)
+		{
+			// Add sort keys to cache
+			if ((entries != null) && !task.keysDiscarded)
+			{
+				for (Entry entry : entries)
+				{
+					if (!task.removedLocations.contains(entry.location))
+						sortKeys.putIfAbsent(entry.location, entry.keys);
+				}
+			}
+
+			// Notify client
+			this.task = null;
+			task.consumer.invoke(toLocations(entries));
+
+			// Report error
+			if (exception != null)
+				errorHandler.invoke(exception);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates an entry for each of the specified locations, sorts the entries and returns them.  The sort keys of
+	 * locations that are not in the cache of this sorter are computed but not added to the cache.
+	 *
+	 * @param  locations
+	 *           the locations that will be sorted.  The array is not modified.
+	 * @param  order
+	 *           the order in which the locations will be sorted.
+	 * @param  collation
+	 *           the collation with which the locations will be compared.
+	 * @param  task
+	 *           the task that is performing the sort, or {@code null} if the sort cannot be cancelled.
+	 * @return the entries of the locations in sorted order, or {@code null} if {@code task} was cancelled.
+	 */
+
+	private Entry[] sortEntries(
+		Location[]	locations,
+		Order		order,
+		Collation	collation,
+		SortTask	task)
+	{
+		// Create entries, creating paths of locations and their parents, computing sort keys of locations that are not
+		// in the cache, computing collation keys and reading metadata that are not in the metadata cache
+		int numLocations = locations.length;
+		int keyVariant = collation.keyVariant();
+		boolean usesMetadata = order.usesMetadata;
+		Map<Location, Path> parents = new ConcurrentHashMap<>();
+		Entry[] entries = new Entry[numLocations];
+		IntStream indices = IntStream.range(0, numLocations);
+		if (usesMetadata || (numLocations >= PARALLEL_THRESHOLD))
+			indices = indices.parallel();
+		indices.forEach(i ->
+		{
+			if (!isCancelled(task))
+			{
+				Location location = locations[i];
+				Path path = location.toPath();
+				Location parentLocation = location.getParent();
+				Path parent = (parentLocation == null)
+									? null
+									: parents.computeIfAbsent(parentLocation, Location::toPath);
+				SortKeys keys = sortKeys.get(location);
+				if (keys == null)
+					keys = new SortKeys(location);
+				CollationKey collationKey = (keyVariant < 0) ? null : keys.collationKey(path, keyVariant);
+				MetadataCache.Metadata metadata = usesMetadata ? metadataCache.getOrRead(location) : null;
+				entries[i] = new Entry(location, path, parent, keys, collationKey, metadata);
+			}
+		});
+		if (isCancelled(task))
+			return null;
+
+		// Sort entries
+		Arrays.parallelSort(entries, (keyVariant < 0) ? order.comparator : order.collatedComparator);
+		return isCancelled(task) ? null : entries;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Enumerated types
+////////////////////////////////////////////////////////////////////////
+
+
+	// ENUMERATION: SORT ORDERS
+
+
+	/**
+	 * This is an enumeration of the orders in which file-system locations can be sorted.  In each order, locations whose
+	 * keys are equal are ordered by their pathnames.
+	 */
+
+	enum Order
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Locations are sorted by their pathnames, using the default comparator of their file system.
+		 */
+
+		PATHNAME
+		(
+			"pathname",
+			(entry1, entry2) -> 0,
+			(entry1, entry2) -> entry1.collationKey.comparePathname(entry2.collationKey)
+		),
+
+		/**
+		 * Locations are sorted by their filenames.
+		 */
+
+		FILENAME
+		(
+			"filename",
+			(entry1, entry2) -> entry1.keys.filename.compareTo(entry2.keys.filename),
+			(entry1, entry2) -> entry1.collationKey.compareFilename(entry2.collationKey)
+		),
+
+		/**
+		 * Locations are sorted by the extensions of their filenames, and then by their filenames.
+		 */
+
+		EXTENSION
+		(
+			"extension",
+			(entry1, entry2) ->
+			{
+				int result = entry1.keys.extension.compareTo(entry2.keys.extension);
+				return (result == 0) ? entry1.keys.filename.compareTo(entry2.keys.filename) : result;
+			},
+			(entry1, entry2) ->
+			{
+				int result = entry1.collationKey.compareExtension(entry2.collationKey);
+				return (result == 0) ? entry1.collationKey.compareFilename(entry2.collationKey) : result;
+			}
+		),
+
+		/**
+		 * Locations are sorted by the pathnames of their parent directories.
+		 */
+
+		PARENT
+		(
+			"parent",
+			(entry1, entry2) ->
+			{
+				Path parent1 = entry1.parent;
+				Path parent2 = entry2.parent;
+				return (parent1 == null)
+							? (parent2 == null) ? 0 : -1
+							: (parent2 == null) ? 1 : parent1.compareTo(parent2);
+			},
+			(entry1, entry2) -> entry1.collationKey.compareParent(entry2.collationKey)
+		),
+
+		/**
+		 * Locations are sorted by the number of elements in their pathnames.
+		 */
+
+		DEPTH
+		(
+			"depth",
+			(entry1, entry2) -> Integer.compare(entry1.keys.depth, entry2.keys.depth),
+			(entry1, entry2) -> Integer.compare(entry1.keys.depth, entry2.keys.depth)
+		),
+
+		/**
+		 * Locations are sorted by their kinds (file, directory, etc).
+		 */
+
+		KIND
+		(
+			"type",
+			Comparator.comparing(MetadataCache.Metadata::kind)
+		),
+
+		/**
+		 * Locations are sorted by their sizes.
+		 */
+
+		SIZE
+		(
+			"size",
+			Comparator.comparingLong(MetadataCache.Metadata::size)
+		),
+
+		/**
+		 * Locations are sorted by the times at which they were last modified.
+		 */
+
+		LAST_MODIFIED_TIME
+		(
+			"last-modified time",
+			Comparator.comparingLong(MetadataCache.Metadata::lastModifiedTime)
+		);
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The text that represents this order. */
+		private	String				text;
+
+		/** Flag: if {@code true}, this order compares the metadata of locations. */
+		private	boolean				usesMetadata;
+
+		/** The comparator for entries of this order in the {@link Collation#STANDARD STANDARD} collation, including the
+			final comparison of pathnames. */
+		private	Comparator<Entry>	comparator;
+
+		/** The comparator for entries of this order in a collation other than {@link Collation#STANDARD STANDARD},
+			including the final comparisons of collation keys and pathnames. */
+		private	Comparator<Entry>	collatedComparator;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an enumeration constant for a sort order.
+		 *
+		 * @param text
+		 *          the text that will represent the order.
+		 * @param keyComparator
+		 *          the comparator for the sort keys of the order in the {@link Collation#STANDARD STANDARD} collation.
+		 * @param collatedKeyComparator
+		 *          the comparator for the sort keys of the order in other collations, which may use the collation keys
+		 *          of entries.
+		 */
+
+		private Order(
+			String				text,
+			Comparator<Entry>	keyComparator,
+			Comparator<Entry>	collatedKeyComparator)
+		{
+			// Initialise instance variables
+			this.text = text;
+			comparator = (entry1, entry2) ->
+			{
+				int result = keyComparator.compare(entry1, entry2);
+				if (result == 0)
+					result = entry1.path.compareTo(entry2.path);
+				return result;
+			};
+			collatedComparator = (entry1, entry2) ->
+			{
+				int result = collatedKeyComparator.compare(entry1, entry2);
+				if (result == 0)
+				{
+					result = entry1.collationKey.comparePathname(entry2.collationKey);
+					if (result == 0)
+						result = entry1.path.compareTo(entry2.path);
+				}
+				return result;
+			};
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Creates a new instance of an enumeration constant for a sort order that compares the metadata of locations.
+		 *
+		 * @param text
+		 *          the text that will represent the order.
+		 * @param metadataComparator
+		 *          the comparator for the metadata of locations.
+		 */
+
+		private Order(
+			String								text,
+			Comparator<MetadataCache.Metadata>	metadataComparator)
+		{
+			// Call alternative constructor
+			this(text, (entry1, entry2) -> metadataComparator.compare(entry1.metadata, entry2.metadata),
+				 (entry1, entry2) -> metadataComparator.compare(entry1.metadata, entry2.metadata));
+
+			// Initialise instance variables
+			usesMetadata = true;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the sort order that is associated with the specified key.
+		 *
+		 * @param  key
+		 *           the key whose associated sort order is required.
+		 * @return the sort order that is associated with {@code key}, or {@code null} if there is no such order.
+		 */
+
+		static Order forKey(
+			String	key)
+		{
+			return Arrays.stream(values()).filter(value -> value.getKey().equals(key)).findFirst().orElse(null);
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * {@inheritDoc}
+		 */
+
+		@Override
+		public String toString()
+		{
+			return text;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the key of this sort order.
+		 *
+		 * @return the key of this sort order.
+		 */
+
+		String getKey()
+		{
+			return name().toLowerCase();
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+
+	// ENUMERATION: COLLATIONS
+
+
+	/**
+	 * This is an enumeration of the collations with which the pathnames of file-system locations can be compared.
+	 */
+
+	enum Collation
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Pathnames are compared with the default comparator of their file system.
+		 */
+
+		STANDARD
+		(
+			"Standard"
+		),
+
+		/**
+		 * Pathnames are compared component by component, ignoring letter case.
+		 */
+
+		IGNORE_CASE
+		(
+			"Ignore case"
+		),
+
+		/**
+		 * Pathnames are compared component by component, and sequences of decimal digits are compared by their numeric
+		 * values.  Letter case is ignored if {@link PathnameUtils#isIgnoreFilenameCase()} returns {@code true}.
+		 */
+
+		NATURAL
+		(
+			"Natural"
+		);
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The text that represents this collation. */
+		private	String	text;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an enumeration constant for a collation.
+		 *
+		 * @param text
+		 *          the text that will represent the collation.
+		 */
+
+		private Collation(
+			String	text)
+		{
+			// Initialise instance variables
+			this.text = text;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the collation that is associated with the specified key.
+		 *
+		 * @param  key
+		 *           the key whose associated collation is required.
+		 * @return the collation that is associated with {@code key}, or {@code null} if there is no such collation.
+		 */
+
+		static Collation forKey(
+			String	key)
+		{
+			return Arrays.stream(values()).filter(value -> value.getKey().equals(key)).findFirst().orElse(null);
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * {@inheritDoc}
+		 */
+
+		@Override
+		public String toString()
+		{
+			return text;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the key of this collation.
+		 *
+		 * @return the key of this collation.
+		 */
+
+		String getKey()
+		{
+			return name().toLowerCase();
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the index of the variant of collation key that is used by this collation, or -1 if this collation
+		 * does not use collation keys.
+		 *
+		 * @return the index of the variant of collation key that is used by this collation, or -1 if this collation
+		 *         does not use collation keys.
+		 */
+
+		private int keyVariant()
+		{
+			return switch (this)
+			{
+				case STANDARD    -> -1;
+				case IGNORE_CASE -> LocationSorter.keyVariant(true, false);
+				case NATURAL     -> LocationSorter.keyVariant(PathnameUtils.isIgnoreFilenameCase(), true);
+			};
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: ENTRY OF SORT
+
+
+	/**
+	 * This record encapsulates a location that is being sorted, its path and the path of its parent, its sort keys, its
+	 * collation key and its metadata.
+	 *
+	 * @param location
+	 *          the location.
+	 * @param path
+	 *          the path of the location.
+	 * @param parent
+	 *          the path of the parent of the location, or {@code null} if the location has no parent.  Locations that
+	 *          have the same parent share its path.
+	 * @param keys
+	 *          the sort keys of the location.
+	 * @param collationKey
+	 *          the collation key of the location, or {@code null} if the collation of the sort does not use collation
+	 *          keys.
+	 * @param metadata
+	 *          the metadata of the location, or {@code null} if the order of the sort does not use metadata.
+	 */
+
+	private record Entry(
+		Location				location,
+		Path					path,
+		Path					parent,
+		SortKeys				keys,
+		CollationKey			collationKey,
+		MetadataCache.Metadata	metadata)
+	{ }
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: SORT KEYS OF A LOCATION
+
+
+	/**
+	 * This class encapsulates the sort keys of a file-system location.
+	 */
+
+	private static class SortKeys
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The filename of the location, or an empty string if the location has no filename. */
+		private	String			filename;
+
+		/** The extension of the filename of the location, or an empty string if the filename has no extension. */
+		private	String			extension;
+
+		/** The number of elements in the pathname of the location. */
+		private	int				depth;
+
+		/** The collation keys of the location, indexed by variant.  The array is created when the first collation key is
+			required. */
+		private	CollationKey[]	collationKeys;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of the sort keys of the specified location.
+		 *
+		 * @param location
+		 *          the location whose sort keys will be created.
+		 */
+
+		private SortKeys(
+			Location	location)
+		{
+			// Initialise instance variables
+			String name = location.getFileName();
+			filename = (name == null) ? "" : name;
+			int index = Location.extensionSeparatorIndex(filename, 0);
+			extension = (index < 0) ? "" : filename.substring(index + 1);
+			for (Location parent = location.getParent(); parent != null; parent = parent.getParent())
+				++depth;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the specified variant of the collation key of the specified location, creating it if necessary.  The
+		 * location must be the path of the one for which these sort keys were created.  The method is synchronized
+		 * because cached sort keys may be used by the threads of successive sorts.
+		 *
+		 * @param  location
+		 *           the path of the location of these sort keys.
+		 * @param  variant
+		 *           the index of the variant of collation key.
+		 * @return the collation key of {@code location} of the specified variant.
+		 */
+
+		private synchronized CollationKey collationKey(
+			Path	location,
+			int		variant)
+		{
+			if (collationKeys == null)
+				collationKeys = new CollationKey[NUM_KEY_VARIANTS];
+			CollationKey key = collationKeys[variant];
+			if (key == null)
+			{
+				key = new CollationKey(location, (variant & 1) != 0, (variant & 2) != 0);
+				collationKeys[variant] = key;
+			}
+			return key;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: SORTING TASK
+
+
+	/**
+	 * This class implements a task that determines the sorted order of an array of locations on a background thread.
+	 */
+
+	private class SortTask
+		implements Runnable
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The locations that will be sorted. */
+		private	Location[]				locations;
+
+		/** The order in which the locations will be sorted. */
+		private	Order					order;
+
+		/** The collation with which the locations will be compared. */
+		private	Collation				collation;
+
+		/** The procedure that is invoked with the result of the task. */
+		private	IProcedure1<Location[]>	consumer;
+
+		/** The locations that were removed from the cache of the sorter while this task was running.  The set is
+			accessed only on the JavaFX application thread. */
+		private	Set<Location>			removedLocations;
+
+		/** Flag: if {@code true}, the sort keys that are computed by this task will not be added to the cache of the
+			sorter.  The flag is accessed only on the JavaFX application thread. */
+		private	boolean					keysDiscarded;
+
+		/** Flag: if {@code true}, this task has been cancelled. */
+		private volatile	boolean		cancelled;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of a task that determines the sorted order of the specified locations.
+		 *
+		 * @param locations
+		 *          the locations that will be sorted.
+		 * @param order
+		 *          the order in which the locations will be sorted.
+		 * @param collation
+		 *          the collation with which the locations will be compared.
+		 * @param consumer
+		 *          the procedure that will be invoked with the result of the task.
+		 */
+
+		private SortTask(
+			Location[]				locations,
+			Order					order,
+			Collation				collation,
+			IProcedure1<Location[]>	consumer)
+		{
+			// Initialise instance variables
+			this.locations = locations;
+			this.order = order;
+			this.collation = collation;
+			this.consumer = consumer;
+			removedLocations = new HashSet<>();
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : Runnable interface
+	////////////////////////////////////////////////////////////////////
+
+		@Override
+		public void run()
+		{
+			Entry[] entries = null;
+			RuntimeException exception = null;
+			try
+			{
+				entries = sort();
+			}
+			catch (RuntimeException e)
+			{
+				exception = e;
+			}
+			finally
+			{
+				Entry[] result = entries;
+				RuntimeException resultException = exception;
+				Platform.runLater(() -> onTaskFinished(this, result, resultException));
+			}
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Sorts the locations of this task and returns their entries in sorted order.
+		 *
+		 * @return the entries of the locations of this task in sorted order, or {@code null} if this task was
+		 *         cancelled.
+		 */
+
+		private Entry[] sort()
+		{
+			return sortEntries(locations, order, collation, this);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,719 @@
+/*====================================================================*\
+
+LocationStore.java
+
+Class: store of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Path;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.blankaspect.common.function.IProcedure1;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: STORE OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements a set of {@linkplain Location file-system locations} that is held as a trie of the elements of
+ * their pathnames.  Each directory that is an ancestor of a location is held once as a node of the trie, however many
+ * locations are below it, and the names of directories are interned, so that the names that recur in different parts
+ * of a file system (for example, <i>src</i> or <i>main</i>) are held once.  An interned name is discarded when the last
+ * node that uses it is removed from the trie.  The {@linkplain Path path} of a location is
+ * created only when it is required, so the memory that is needed to hold a large number of locations that share a few
+ * roots is a fraction of that needed to hold their paths.
+ * <p>
+ * The nodes of the trie are the locations themselves: a node is either a <i>member</i> of the store or only the ancestor
+ * of members.  When a location is removed from the store, the node of the location and any ancestors that are no
+ * longer needed are removed from the trie.  If the pathname of a removed location is added again, a new location is
+ * created for it.
+ * </p>
+ * <p>
+ * Only absolute locations of the default file system may be added to the store, and the names of the elements of
+ * pathnames are compared exactly.  The store is not thread-safe; it is intended to be accessed only on the JavaFX
+ * application thread.
+ * </p>
+ */
+
+class LocationStore
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The estimated size (in bytes) of the header of an object. */
+	private static final	int		OBJECT_HEADER_SIZE	= 12;
+
+	/** The estimated size (in bytes) of the header of an array. */
+	private static final	int		ARRAY_HEADER_SIZE	= 16;
+
+	/** The estimated size (in bytes) of an object reference. */
+	private static final	int		REFERENCE_SIZE	= 4;
+
+	/** The estimated size (in bytes) of a node of the trie. */
+	private static final	int		NODE_SIZE	= alignedSize(OBJECT_HEADER_SIZE + 4 * REFERENCE_SIZE + Integer.BYTES + 1);
+
+	/** The estimated size (in bytes) of a string, excluding its array of characters. */
+	private static final	int		STRING_SIZE	= alignedSize(OBJECT_HEADER_SIZE + REFERENCE_SIZE + Integer.BYTES + 2);
+
+	/** The estimated size (in bytes) of an entry of a hash map. */
+	private static final	int		MAP_ENTRY_SIZE	= alignedSize(OBJECT_HEADER_SIZE + 3 * REFERENCE_SIZE + Integer.BYTES);
+
+	/** The estimated size (in bytes) of an interned name, excluding its string. */
+	private static final	int		INTERNED_NAME_SIZE	=
+			alignedSize(OBJECT_HEADER_SIZE + REFERENCE_SIZE + Integer.BYTES);
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** A node whose children are the roots of the trie.  It is not the parent of the roots. */
+	private	Location					roots;
+
+	/** A map from the names of directories to their interned instances. */
+	private	Map<String, InternedName>	names;
+
+	/** The number of locations in this store. */
+	private	int							size;
+
+	/** The number of nodes of the trie. */
+	private	int							numNodes;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of an empty store of file-system locations.
+	 */
+
+	LocationStore()
+	{
+		// Initialise instance variables
+		roots = new Location(null, "");
+		names = new HashMap<>();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the specified size rounded up to the nearest multiple of eight, which is the alignment of objects.
+	 *
+	 * @param  size
+	 *           the size (in bytes) that will be aligned.
+	 * @return {@code size} rounded up to the nearest multiple of eight.
+	 */
+
+	private static int alignedSize(
+		int	size)
+	{
+		return (size + 7) & ~7;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the estimated size (in bytes) of the specified string, including its array of characters.
+	 *
+	 * @param  str
+	 *           the string of interest.
+	 * @return the estimated size of {@code str}.
+	 */
+
+	private static int stringSize(
+		String	str)
+	{
+		int length = str.length();
+		int charSize = 1;
+		for (int i = 0; i < length; i++)
+		{
+			if (str.charAt(i) > 0xFF)
+			{
+				charSize = 2;
+				break;
+			}
+		}
+		return STRING_SIZE + alignedSize(ARRAY_HEADER_SIZE + length * charSize);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the number of locations in this store.
+	 *
+	 * @return the number of locations in this store.
+	 */
+
+	int size()
+	{
+		return size;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the specified object is a location of this store.
+	 *
+	 * @param  obj
+	 *           the object of interest.
+	 * @return {@code true} if {@code obj} is a location of this store.
+	 */
+
+	boolean contains(
+		Object	obj)
+	{
+		return (obj instanceof Location location) && location.isMember();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the location of this store that corresponds to the specified path.
+	 *
+	 * @param  path
+	 *           the path of interest.
+	 * @return the location of this store that corresponds to {@code path}, or {@code null} if {@code path} is not in
+	 *         this store.
+	 * @throws IllegalArgumentException
+	 *           if {@code path} is not an absolute path of the default file system.
+	 */
+
+	Location get(
+		Path	path)
+	{
+		Location node = node(path, false);
+		return ((node != null) && node.isMember()) ? node : null;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the location of this store that has the same pathname as the specified location, which need not be a
+	 * location of this store.
+	 *
+	 * @param  location
+	 *           the location of interest.
+	 * @return the location of this store that has the same pathname as {@code location}, or {@code null} if there is no
+	 *         such location in this store.
+	 */
+
+	Location get(
+		Location	location)
+	{
+		Location node = node(location, false);
+		return ((node != null) && node.isMember()) ? node : null;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified path to this store, and returns the location that corresponds to it.  It is not known whether
+	 * the location is a directory.
+	 *
+	 * @param  path
+	 *           the path that will be added to this store.
+	 * @return the new location that corresponds to {@code path}, or {@code null} if {@code path} was already in this
+	 *         store.
+	 * @throws IllegalArgumentException
+	 *           if {@code path} is not an absolute path of the default file system.
+	 */
+
+	Location add(
+		Path	path)
+	{
+		return add(path, null);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the specified path to this store, and returns the location that corresponds to it.
+	 *
+	 * @param  path
+	 *           the path that will be added to this store.
+	 * @param  directory
+	 *           {@code true} if {@code path} is a directory; {@code false} if it is not a directory; {@code null} if it
+	 *           is not known whether {@code path} is a directory.
+	 * @return the new location that corresponds to {@code path}, or {@code null} if {@code path} was already in this
+	 *         store.
+	 * @throws IllegalArgumentException
+	 *           if {@code path} is not an absolute path of the default file system.
+	 */
+
+	Location add(
+		Path	path,
+		Boolean	directory)
+	{
+		return addNode(node(path, true), directory);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Adds the pathname of the specified location, which need not be a location of this store, to this store, and
+	 * returns the location of this store that corresponds to it.  The location of this store is {@code location}
+	 * itself if {@code location} is a node of the trie of this store; otherwise, it is a new location that has the
+	 * same pathname as {@code location} and the same {@linkplain Location#getDirectory() directory flag}.
+	 *
+	 * @param  location
+	 *           the location whose pathname will be added to this store.
+	 * @return the location of this store that corresponds to the pathname of {@code location}, or {@code null} if the
+	 *         pathname was already in this store.
+	 */
+
+	Location add(
+		Location	location)
+	{
+		return addNode(node(location, true), location.getDirectory());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the specified location from this store.  The node of the location and any of its ancestors that are
+	 * neither members nor the ancestors of other members are removed from the trie.
+	 *
+	 * @param location
+	 *          the location that will be removed from this store.
+	 */
+
+	void remove(
+		Location	location)
+	{
+		// If location is not a member, stop
+		if (!location.isMember())
+			return;
+
+		// Remove location
+		location.setMember(false);
+		if (--size == 0)
+		{
+			clear();
+			return;
+		}
+
+		// Remove nodes that are no longer needed
+		Location node = location;
+		while ((node != null) && !node.isMember() && (node.getNumChildren() == 0))
+		{
+			Location parent = node.getParent();
+			((parent == null) ? roots : parent).removeChild(node);
+			release(node.getName());
+			--numNodes;
+			node = parent;
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes all locations from this store.
+	 */
+
+	void clear()
+	{
+		// Remove membership of locations
+		forEachNode(node -> node.setMember(false));
+
+		// Reset instance variables
+		roots = new Location(null, "");
+		names.clear();
+		size = 0;
+		numNodes = 0;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the nearest common ancestor of the locations of this store: the deepest node of the trie of which every
+	 * location is a proper descendant.  The ancestor is found by descending from the root of the trie while a node has
+	 * only one child and that child is not a member, so the cost of this method is proportional to the depth of the
+	 * ancestor rather than to the number of locations.
+	 *
+	 * @return the nearest common ancestor of the locations of this store, or {@code null} if this store is empty, if
+	 *         its locations have more than one root or if a root is itself a location.
+	 */
+
+	Location commonAncestor()
+	{
+		// Get the only root
+		Location node = roots.getOnlyChild();
+		if ((node == null) || node.isMember())
+			return null;
+
+		// Descend while there is only one child and it is not a member
+		Location child = null;
+		while (((child = node.getOnlyChild()) != null) && !child.isMember())
+			node = child;
+		return node;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns an estimate of the memory that is used by this store.  The estimate assumes a 64-bit virtual machine that
+	 * uses compressed object references and compact strings.
+	 *
+	 * @return an estimate of the memory that is used by this store.
+	 */
+
+	Footprint footprint()
+	{
+		// Add sizes of nodes, their tables of children and their names that are not interned
+		long[] numBytes = { 0 };
+		forEachNode(node ->
+		{
+			numBytes[0] += NODE_SIZE;
+			Location[] table = node.getChildTable();
+			if (table != null)
+				numBytes[0] += alignedSize(ARRAY_HEADER_SIZE + table.length * REFERENCE_SIZE);
+			String name = node.getName();
+			InternedName internedName = names.get(name);
+			if ((internedName == null) || (internedName.name != name))
+				numBytes[0] += stringSize(name);
+		});
+
+		// Add sizes of interned names and the map that holds them
+		int tableLength = Integer.highestOneBit(Math.max(1, names.size() * 4 / 3)) * 2;
+		numBytes[0] += alignedSize(ARRAY_HEADER_SIZE + tableLength * REFERENCE_SIZE);
+		for (String name : names.keySet())
+			numBytes[0] += MAP_ENTRY_SIZE + INTERNED_NAME_SIZE + stringSize(name);
+
+		// Return footprint
+		return new Footprint(size, numNodes, names.size(), numBytes[0]);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the node of the trie that corresponds to the specified path, optionally creating it and any of its
+	 * ancestors that are not in the trie.  If nodes are created, the ancestors of the node of the path are marked as
+	 * directories.
+	 *
+	 * @param  path
+	 *           the path of interest.
+	 * @param  create
+	 *           if {@code true}, the node of {@code path} and its ancestors will be created if they are not in the trie.
+	 * @return the node of the trie that corresponds to {@code path}, or {@code null} if there is no such node and
+	 *         {@code create} is {@code false}.
+	 * @throws IllegalArgumentException
+	 *           if {@code path} is not an absolute path of the default file system.
+	 */
+
+	private Location node(
+		Path	path,
+		boolean	create)
+	{
+		// Validate argument
+		Path root = path.getRoot();
+		if ((root == null) || (path.getFileSystem() != Location.FILE_SYSTEM))
+			throw new IllegalArgumentException("Location not supported: " + path);
+
+		// Find or create node
+		return node(path.toString(), root.toString().length(), create);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the node of the trie that has the same pathname as the specified location, which need not be a node of
+	 * this store, optionally creating it and any of its ancestors that are not in the trie.
+	 *
+	 * @param  location
+	 *           the location of interest.
+	 * @param  create
+	 *           if {@code true}, the node of the pathname of {@code location} and its ancestors will be created if they
+	 *           are not in the trie.
+	 * @return the node of the trie that has the same pathname as {@code location}, or {@code null} if there is no such
+	 *         node and {@code create} is {@code false}.
+	 */
+
+	private Location node(
+		Location	location,
+		boolean		create)
+	{
+		// Find root of location
+		Location root = location;
+		while (root.getParent() != null)
+			root = root.getParent();
+
+		// Find or create node
+		return node(location.toString(), root.getName().length(), create);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the node of the trie that corresponds to the specified absolute pathname, optionally creating it and any
+	 * of its ancestors that are not in the trie.  If nodes are created, the ancestors of the node of the pathname are
+	 * marked as directories.
+	 *
+	 * @param  pathname
+	 *           the absolute pathname of interest.
+	 * @param  rootLength
+	 *           the length of the root component of {@code pathname}.
+	 * @param  create
+	 *           if {@code true}, the node of {@code pathname} and its ancestors will be created if they are not in the
+	 *           trie.
+	 * @return the node of the trie that corresponds to {@code pathname}, or {@code null} if there is no such node and
+	 *         {@code create} is {@code false}.
+	 */
+
+	private Location node(
+		String	pathname,
+		int		rootLength,
+		boolean	create)
+	{
+		// Find or create node of root
+		int length = pathname.length();
+		int startIndex = rootLength;
+		Location node = roots.getChild(pathname, 0, startIndex);
+		if (node == null)
+		{
+			if (!create)
+				return null;
+			node = new Location(null, intern(pathname.substring(0, rootLength)));
+			node.setDirectory(true);
+			roots.addChild(node);
+			++numNodes;
+		}
+
+		// Find or create node of each name of pathname
+		while (startIndex < length)
+		{
+			int endIndex = pathname.indexOf(Location.SEPARATOR, startIndex);
+			if (endIndex < 0)
+				endIndex = length;
+			if (endIndex > startIndex)
+			{
+				Location child = node.getChild(pathname, startIndex, endIndex);
+				if (child == null)
+				{
+					if (!create)
+						return null;
+					String name = pathname.substring(startIndex, endIndex);
+					child = new Location(node, (endIndex < length) ? intern(name) : name);
+					node.addChild(child);
+					++numNodes;
+				}
+				if (create && (endIndex < length))
+					child.setDirectory(true);
+				node = child;
+			}
+			startIndex = endIndex + 1;
+		}
+
+		// Return node
+		return node;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Makes the specified node of the trie a member of this store, if it is not already a member.
+	 *
+	 * @param  node
+	 *           the node that will be made a member of this store.
+	 * @param  directory
+	 *           {@code true} if {@code node} is a directory; {@code false} if it is not a directory; {@code null} if it
+	 *           is not known whether {@code node} is a directory.
+	 * @return {@code node}, or {@code null} if it was already a member of this store.
+	 */
+
+	private Location addNode(
+		Location	node,
+		Boolean		directory)
+	{
+		// If location is already a member, stop
+		if (node.isMember())
+			return null;
+
+		// Make location a member
+		node.setMember(true);
+		if (!Boolean.TRUE.equals(node.getDirectory()))
+			node.setDirectory(directory);
+		++size;
+		return node;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the interned instance of the specified name of a directory, and records that it is used by one more node
+	 * of the trie.
+	 *
+	 * @param  name
+	 *           the name of a directory.
+	 * @return the interned instance of {@code name}.
+	 */
+
+	private String intern(
+		String	name)
+	{
+		InternedName internedName = names.computeIfAbsent(name, InternedName::new);
+		++internedName.numUses;
+		return internedName.name;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Records that the specified name of a node that has been removed from the trie is used by one fewer node, if it
+	 * is an interned instance, and discards the interned instance if it is no longer used.
+	 *
+	 * @param name
+	 *          the name of the node that was removed.
+	 */
+
+	private void release(
+		String	name)
+	{
+		InternedName internedName = names.get(name);
+		if ((internedName != null) && (internedName.name == name) && (--internedName.numUses == 0))
+			names.remove(name);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Performs the specified action on each node of the trie.
+	 *
+	 * @param action
+	 *          the action that will be performed on each node.
+	 */
+
+	private void forEachNode(
+		IProcedure1<Location>	action)
+	{
+		Deque<Location> stack = new ArrayDeque<>();
+		stack.push(roots);
+		while (!stack.isEmpty())
+		{
+			Location node = stack.pop();
+			if (node != roots)
+				action.invoke(node);
+			Location[] table = node.getChildTable();
+			if (table != null)
+			{
+				for (Location child : table)
+				{
+					if (child != null)
+						stack.push(child);
+				}
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: MEMORY FOOTPRINT OF A STORE
+
+
+	/**
+	 * This record encapsulates an estimate of the memory that is used by a store of locations.
+	 *
+	 * @param numLocations
+	 *          the number of locations in the store.
+	 * @param numNodes
+	 *          the number of nodes of the trie of the store, which includes the ancestor directories of locations.
+	 * @param numNames
+	 *          the number of interned names of directories.
+	 * @param numBytes
+	 *          the estimated number of bytes that are used by the store.
+	 */
+
+	record Footprint(
+		int		numLocations,
+		int		numNodes,
+		int		numNames,
+		long	numBytes)
+	{ }
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: INTERNED NAME
+
+
+	/**
+	 * This class encapsulates the interned instance of the name of a directory and the number of nodes of the trie
+	 * that use it.
+	 */
+
+	private static class InternedName
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The interned instance of the name. */
+		private	String	name;
+
+		/** The number of nodes of the trie that use the name. */
+		private	int		numUses;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an interned name that is not yet used by any node.
+		 *
+		 * @param name
+		 *          the name.
+		 */
+
+		private InternedName(
+			String	name)
+		{
+			// Initialise instance variables
+			this.name = name;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
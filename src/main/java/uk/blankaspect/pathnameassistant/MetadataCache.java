@@ -0,0 +1,449 @@
+/*====================================================================*\
+
+MetadataCache.java
+
+Class: cache of the metadata of file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+
+import uk.blankaspect.common.function.IProcedure0;
+
+import uk.blankaspect.common.thread.DaemonFactory;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: CACHE OF THE METADATA OF FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements a cache of the {@linkplain Metadata metadata} (kind, size and last-modified time) of {@linkplain
+ * Location file-system locations}.
+ * <p>
+ * The metadata of locations are read on a pool of background threads when they are {@linkplain #prefetch(List)
+ * prefetched}.  The locations are divided into batches, each of which is read by a single thread, and the client is
+ * notified on the JavaFX application thread when batches have been loaded; notifications are coalesced, so that the
+ * client is not notified again until it has handled the previous notification.  The pool has more threads than there
+ * are processors, because the reading of metadata is dominated by latency rather than computation on some file
+ * systems (for example, network file systems).
+ * </p>
+ * <p>
+ * A location whose metadata are being read has a placeholder in the cache.  If the location is removed from the cache
+ * before its metadata have been read, the metadata are discarded when they are read.
+ * </p>
+ */
+
+class MetadataCache
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The number of threads that read metadata. */
+	private static final	int		NUM_THREADS	= Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+	/** The maximum number of locations in a batch whose metadata are read by a single thread. */
+	private static final	int		MAX_BATCH_SIZE	= 256;
+
+	/** The name of the background threads. */
+	private static final	String	THREAD_NAME	= "metadata-prefetcher";
+
+	/** The placeholder for the metadata of a location that are being read. */
+	private static final	Metadata	PENDING	= new Metadata(null, -1, -1);
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** A map from locations to their metadata. */
+	private	Map<Location, Metadata>	metadata;
+
+	/** The procedure that is invoked on the JavaFX application thread when metadata have been loaded. */
+	private	IProcedure0				consumer;
+
+	/** Flag: if {@code true}, the client has been notified that metadata have been loaded, but it has not yet handled
+		the notification. */
+	private	AtomicBoolean			notificationPending;
+
+	/** The executor that reads metadata, or {@code null} if it has not been created. */
+	private	ExecutorService			executor;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a cache of the metadata of file-system locations.
+	 *
+	 * @param consumer
+	 *          the procedure that will be invoked on the JavaFX application thread when metadata have been loaded.
+	 */
+
+	MetadataCache(
+		IProcedure0	consumer)
+	{
+		// Initialise instance variables
+		metadata = new ConcurrentHashMap<>();
+		this.consumer = consumer;
+		notificationPending = new AtomicBoolean();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Reads and returns the metadata of the specified location.  Symbolic links are not followed.
+	 *
+	 * @param  location
+	 *           the location whose metadata will be read.
+	 * @return the metadata of {@code location}, whose kind is {@link Kind#UNKNOWN UNKNOWN} if the metadata could not be
+	 *         read.
+	 */
+
+	private static Metadata read(
+		Location	location)
+	{
+		try
+		{
+			BasicFileAttributes attrs =
+					Files.readAttributes(location.toPath(), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			Kind kind = attrs.isRegularFile()
+							? Kind.FILE
+							: attrs.isDirectory()
+									? Kind.DIRECTORY
+									: attrs.isSymbolicLink()
+											? Kind.SYMBOLIC_LINK
+											: Kind.OTHER;
+			return new Metadata(kind, attrs.size(), attrs.lastModifiedTime().toMillis());
+		}
+		catch (Exception e)
+		{
+			return new Metadata(Kind.UNKNOWN, -1, -1);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the metadata of the specified location from this cache.
+	 *
+	 * @param  location
+	 *           the location whose metadata are required.
+	 * @return the metadata of {@code location}, or {@code null} if they are not in this cache or are being read.
+	 */
+
+	Metadata get(
+		Location	location)
+	{
+		Metadata result = metadata.get(location);
+		return (result == PENDING) ? null : result;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the metadata of the specified location, reading them on the calling thread if they are not in this cache
+	 * or are being read.  The metadata are added to this cache only if a prefetch of the location is pending.  This
+	 * method is intended to be called on a background thread.
+	 *
+	 * @param  location
+	 *           the location whose metadata are required.
+	 * @return the metadata of {@code location}.
+	 */
+
+	Metadata getOrRead(
+		Location	location)
+	{
+		Metadata result = metadata.get(location);
+		if ((result == null) || (result == PENDING))
+		{
+			result = read(location);
+			metadata.replace(location, PENDING, result);
+		}
+		return result;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Reads the metadata of those of the specified locations that are not in this cache on background threads.  This
+	 * method should be called on the JavaFX application thread.
+	 *
+	 * @param locations
+	 *          the locations whose metadata will be read.
+	 */
+
+	void prefetch(
+		List<? extends Location>	locations)
+	{
+		// Create executor
+		if (executor == null)
+		{
+			executor = Executors.newFixedThreadPool(NUM_THREADS, runnable ->
+					DaemonFactory.create(THREAD_NAME, runnable));
+		}
+
+		// Divide locations that are not in cache into batches and submit them to executor
+		List<Location> batch = new ArrayList<>(Math.min(locations.size(), MAX_BATCH_SIZE));
+		for (Location location : locations)
+		{
+			if (metadata.putIfAbsent(location, PENDING) == null)
+			{
+				batch.add(location);
+				if (batch.size() == MAX_BATCH_SIZE)
+				{
+					submit(batch);
+					batch = new ArrayList<>(MAX_BATCH_SIZE);
+				}
+			}
+		}
+		if (!batch.isEmpty())
+			submit(batch);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the metadata of the specified locations from this cache.  Any pending reads of the metadata are
+	 * discarded.
+	 *
+	 * @param locations
+	 *          the locations whose metadata will be removed.
+	 */
+
+	void removeAll(
+		Iterable<? extends Location>	locations)
+	{
+		if (!metadata.isEmpty())
+		{
+			for (Location location : locations)
+				metadata.remove(location);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes all metadata from this cache.  Any pending reads of metadata are discarded.
+	 */
+
+	void clear()
+	{
+		metadata.clear();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Submits a task to the executor to read the metadata of the specified batch of locations.
+	 *
+	 * @param batch
+	 *          the locations whose metadata will be read.
+	 */
+
+	private void submit(
+		List<Location>	batch)
+	{
+		executor.execute(() ->
+		{
+			// Read metadata of locations whose prefetch is still pending
+			boolean loaded = false;
+			for (Location location : batch)
+			{
+				if (metadata.get(location) == PENDING)
+					loaded |= metadata.replace(location, PENDING, read(location));
+			}
+
+			// Notify client
+			if (loaded && notificationPending.compareAndSet(false, true))
+			{
+				Platform.runLater(() ->
+				{
+					notificationPending.set(false);
+					consumer.invoke();
+				});
+			}
+		});
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Enumerated types
+////////////////////////////////////////////////////////////////////////
+
+
+	// ENUMERATION: KINDS OF LOCATION
+
+
+	/**
+	 * This is an enumeration of the kinds of file-system location.
+	 */
+
+	enum Kind
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * A regular file.
+		 */
+
+		FILE
+		(
+			"File"
+		),
+
+		/**
+		 * A directory.
+		 */
+
+		DIRECTORY
+		(
+			"Directory"
+		),
+
+		/**
+		 * A symbolic link.
+		 */
+
+		SYMBOLIC_LINK
+		(
+			"Link"
+		),
+
+		/**
+		 * A file-system object that is not a regular file, a directory or a symbolic link.
+		 */
+
+		OTHER
+		(
+			"Other"
+		),
+
+		/**
+		 * A location whose metadata could not be read.
+		 */
+
+		UNKNOWN
+		(
+			"?"
+		);
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The text that represents this kind. */
+		private	String	text;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an enumeration constant for a kind of location.
+		 *
+		 * @param text
+		 *          the text that will represent the kind.
+		 */
+
+		private Kind(
+			String	text)
+		{
+			// Initialise instance variables
+			this.text = text;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods : overriding methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * {@inheritDoc}
+		 */
+
+		@Override
+		public String toString()
+		{
+			return text;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: METADATA OF A LOCATION
+
+
+	/**
+	 * This record encapsulates the metadata of a file-system location.
+	 *
+	 * @param kind
+	 *          the kind of the location.
+	 * @param size
+	 *          the size of the location in bytes, or -1 if it is not known.
+	 * @param lastModifiedTime
+	 *          the time at which the location was last modified, in milliseconds since the epoch, or -1 if it is not
+	 *          known.
+	 */
+
+	record Metadata(
+		Kind	kind,
+		long	size,
+		long	lastModifiedTime)
+	{ }
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
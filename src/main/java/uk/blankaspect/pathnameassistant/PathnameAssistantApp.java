@@ -23,14 +23,28 @@ import java.io.IOException;
 
 import java.nio.file.Path;
 
+import java.time.Instant;
+import java.time.ZoneId;
+
+import java.time.format.DateTimeFormatter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import java.util.function.Predicate;
 
 import javafx.application.Application;
 import javafx.application.Platform;
 
-import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+
+import javafx.collections.transformation.FilteredList;
 
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -44,12 +58,16 @@ import javafx.geometry.VPos;
 
 import javafx.scene.Scene;
 
+import javafx.scene.control.Button;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
 
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
@@ -58,6 +76,7 @@ import javafx.scene.input.TransferMode;
 
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
@@ -71,8 +90,6 @@ import uk.blankaspect.common.build.BuildUtils;
 
 import uk.blankaspect.common.cls.ClassUtils;
 
-import uk.blankaspect.common.collection.ArraySet;
-
 import uk.blankaspect.common.config.AppAuxDirectory;
 import uk.blankaspect.common.config.AppConfig;
 
@@ -80,17 +97,23 @@ import uk.blankaspect.common.exception2.BaseException;
 import uk.blankaspect.common.exception2.FileException;
 import uk.blankaspect.common.exception2.LocationException;
 
-import uk.blankaspect.common.filesystem.PathUtils;
+import uk.blankaspect.common.filesystem.ParallelFileTreeWalker;
+import uk.blankaspect.common.filesystem.PathnameUtils;
+import uk.blankaspect.common.filesystem.SuffixMatcher;
 
-import uk.blankaspect.common.logging.ErrorLogger;
+import uk.blankaspect.common.function.IFunction1;
 
-import uk.blankaspect.common.misc.SystemUtils;
+import uk.blankaspect.common.logging.ErrorLogger;
 
 import uk.blankaspect.common.resource.ResourceProperties;
 import uk.blankaspect.common.resource.ResourceUtils;
 
 import uk.blankaspect.common.string.StringUtils;
 
+import uk.blankaspect.common.thread.DaemonFactory;
+
+import uk.blankaspect.ui.jfx.button.Buttons;
+
 import uk.blankaspect.ui.jfx.clipboard.ClipboardUtils;
 
 import uk.blankaspect.ui.jfx.dialog.ErrorDialog;
@@ -108,6 +131,8 @@ import uk.blankaspect.ui.jfx.spinner.CollectionSpinner;
 
 import uk.blankaspect.ui.jfx.style.StyleManager;
 
+import uk.blankaspect.ui.jfx.text.TextUtils;
+
 import uk.blankaspect.ui.jfx.window.WindowDims;
 import uk.blankaspect.ui.jfx.window.WindowState;
 
@@ -174,18 +199,60 @@ public class PathnameAssistantApp
 		the main window is within a screen. */
 	private static final	Insets	SCREEN_MARGINS	= new Insets(0.0, 32.0, 32.0, 0.0);
 
+	/** The maximum number of string representations of locations that are cached for each pathname format. */
+	private static final	int		RENDERING_CACHE_CAPACITY	= 8192;
+
+	/** The name of the thread on which locations are rendered for copying to the clipboard. */
+	private static final	String	COPY_THREAD_NAME	= "copy-locations";
+
+	/** The padding around the task pane. */
+	private static final	Insets	TASK_PANE_PADDING	= new Insets(0.0, 8.0, 6.0, 8.0);
+
+	/** The minimum number of input files for which the progress of ingestion is displayed. */
+	private static final	int		INGESTION_PROGRESS_THRESHOLD	= LocationIngester.CHUNK_SIZE;
+
+	/** The minimum number of locations for which the progress of sorting is displayed. */
+	private static final	int		SORT_PROGRESS_THRESHOLD	= 1 << 14;
+
+	/** The formatter for the last-modified time of a location. */
+	private static final	DateTimeFormatter	LAST_MODIFIED_TIME_FORMATTER	=
+			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+	/** The text from which the width of the column of the sizes of locations is determined. */
+	private static final	String	SIZE_PROTOTYPE_TEXT	= "9999.9 MiB";
+
+	/** The units of the size of a location. */
+	private static final	String[]	SIZE_UNITS	= { "B", "KiB", "MiB", "GiB", "TiB", "PiB", "EiB" };
+
+	/** The horizontal gap between the columns of the metadata of a location. */
+	private static final	double	METADATA_COLUMN_GAP	= 8.0;
+
+	/** The opacity of the label of a location that no longer exists. */
+	private static final	double	MISSING_LOCATION_OPACITY	= 0.5;
+
 	/** Miscellaneous strings. */
 	private static final	String	CONFIG_ERROR_STR	= "Configuration error";
 	private static final	String	FILE_STR			= "File";
 	private static final	String	EDIT_STR			= "Edit";
 	private static final	String	FORMAT_STR			= "Format";
 	private static final	String	LOCATIONS_STR		= "Locations";
+	private static final	String	FILTER_STR			= "Filter";
+	private static final	String	FILTER_PROMPT_STR	= "Type to show only matching locations";
+	private static final	String	INDEXING_STR		= "Indexing locations";
+	private static final	String	MONITORING_STR		= "Monitoring locations";
+	private static final	String	ADDING_STR			= "Adding locations";
+	private static final	String	SORTING_STR			= "Sorting locations";
+	private static final	String	SORT_BY_STR			= "Sort by ";
+	private static final	String	CANCEL_STR			= "Cancel";
+	private static final	String	PENDING_STR			= "\u2026";
+	private static final	String	FOOTPRINT_STR		= "%,d locations in %,d nodes\nEstimated memory: %s";
 
 	/** Keys of properties. */
 	private interface PropertyKey
 	{
 		String	APPEARANCE	= "appearance";
 		String	MAIN_WINDOW	= "mainWindow";
+		String	PREFERENCES	= "preferences";
 		String	THEME		= "theme";
 	}
 
@@ -195,7 +262,6 @@ public class PathnameAssistantApp
 		String	MAIN_WINDOW_DELAY_LOCATION	= "mainWindowDelay.location";
 		String	MAIN_WINDOW_DELAY_OPACITY	= "mainWindowDelay.opacity";
 		String	MAIN_WINDOW_DELAY_SIZE		= "mainWindowDelay.size";
-		String	SYSTEM_NAME					= "os.name";
 		String	USE_STYLE_SHEET_FILE		= "useStyleSheetFile";
 	}
 
@@ -209,6 +275,14 @@ public class PathnameAssistantApp
 				"There are no file-system locations on the clipboard.";
 	}
 
+	/** Information messages. */
+	private interface InfoMsg
+	{
+		String	TEXT_WRITTEN_TO_FILE =
+				"The text was longer than the maximum length of copied text.\n"
+				+ "It was written to the following file, which has been copied to the clipboard:\n%s";
+	}
+
 ////////////////////////////////////////////////////////////////////////
 //  Class variables
 ////////////////////////////////////////////////////////////////////////
@@ -229,8 +303,49 @@ public class PathnameAssistantApp
 	/** The state of the main window. */
 	private	WindowState					mainWindowState;
 
-	/** A list of the file-system locations that are displayed in {@link #locationsListView}. */
-	private	List<Path>					locations;
+	/** The user preferences. */
+	private	Preferences					preferences;
+
+	/** The list of the file-system locations that are displayed in {@link #locationsListView}.  The list is the model
+		of the list view, so that changes to it reach the list view as fine-grained change events. */
+	private	LocationList				locations;
+
+	/** The elements of {@link #locations} that satisfy the filter in {@link #filterField}.  The list is the model of
+		{@link #locationsListView}. */
+	private	FilteredList<Location>		filteredLocations;
+
+	/** The trigram index of the string representations of the elements of {@link #locations} in the current pathname
+		format, with which {@link #filteredLocations} is filtered. */
+	private	LocationIndex				locationIndex;
+
+	/** The elements of {@link #locations} that have been reported by {@link #monitor} as no longer existing. */
+	private	Set<Location>				missingLocations;
+
+	/** The monitor that detects when elements of {@link #locations} are deleted, renamed or restored. */
+	private	LocationMonitor				monitor;
+
+	/** The cache of the metadata of the elements of {@link #locations}. */
+	private	MetadataCache				metadataCache;
+
+	/** The widths of the columns of the metadata of a location: kind, size and last-modified time. */
+	private	double[]					metadataColumnWidths;
+
+	/** The filename patterns that were most recently used to filter {@link #locations} by suffix. */
+	private	String						suffixFilterPatterns;
+
+	/** The cache of the string representations of the elements of {@link #locations} in each pathname format. */
+	private	RenderingCache<IPathnameFormat>	renderingCache;
+
+	/** The nearest common ancestor of the elements of {@link #locations}, relative to which they are represented in
+		the {@link PathnameFormat#RELATIVE_TO_COMMON_ANCESTOR} format. */
+	private	Location					commonAncestor;
+
+	/** The location relative to which the elements of {@link #locations} are represented in the {@link
+		PathnameFormat#RELATIVE_TO_BASE} format. */
+	private	Location					baseLocation;
+
+	/** The temporary file of exported locations that is on the system clipboard, or {@code null} if there is none. */
+	private	Path						exportFile;
 
 	/** The main window of this application. */
 	private	Stage						primaryStage;
@@ -239,10 +354,28 @@ public class PathnameAssistantApp
 	private	Menu						editMenu;
 
 	/** The spinner for the pathname format. */
-	private	CollectionSpinner<Format>	formatSpinner;
+	private	CollectionSpinner<IPathnameFormat>	formatSpinner;
+
+	/** The text field for the filter that is applied to the list of locations. */
+	private	TextField					filterField;
 
 	/** The list view of file-system locations. */
-	private	SimpleTextListView<Path>	locationsListView;
+	private	SimpleTextListView<Location>	locationsListView;
+
+	/** The ingesters of file-system locations, the first of which is active and the rest of which are pending. */
+	private	ArrayDeque<LocationIngester>	ingesters;
+
+	/** The sorter of file-system locations. */
+	private	LocationSorter				sorter;
+
+	/** The pane that displays the progress of ingestion or sorting. */
+	private	HBox						taskPane;
+
+	/** The label of {@link #taskPane}. */
+	private	Label						taskLabel;
+
+	/** The progress bar of {@link #taskPane}. */
+	private	ProgressBar					taskProgressBar;
 
 ////////////////////////////////////////////////////////////////////////
 //  Constructors
@@ -307,6 +440,59 @@ public class PathnameAssistantApp
 
 	//------------------------------------------------------------------
 
+	/**
+	 * Returns the filename of the specified location.
+	 *
+	 * @param  location
+	 *           the location of interest.
+	 * @return the filename of {@code location}.
+	 */
+
+	private static String filename(
+		Location	location)
+	{
+		return String.valueOf(location.getFileName());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the filename stem of the specified location.
+	 *
+	 * @param  location
+	 *           the location of interest.
+	 * @return the filename stem of {@code location}.
+	 */
+
+	private static String filenameStem(
+		Location	location)
+	{
+		return Location.filenameStem(filename(location));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a compact string representation of the specified size of a location, in bytes or in the largest binary
+	 * multiple of bytes that is not greater than the size.
+	 *
+	 * @param  size
+	 *           the size of interest.
+	 * @return a compact string representation of {@code size}.
+	 */
+
+	private static String sizeString(
+		long	size)
+	{
+		if (size < 1024)
+			return size + " " + SIZE_UNITS[0];
+
+		int unitIndex = (63 - Long.numberOfLeadingZeros(size)) / 10;
+		return String.format("%.1f %s", (double)size / (double)(1L << (10 * unitIndex)), SIZE_UNITS[unitIndex]);
+	}
+
+	//------------------------------------------------------------------
+
 ////////////////////////////////////////////////////////////////////////
 //  Instance methods : overriding methods
 ////////////////////////////////////////////////////////////////////////
@@ -348,7 +534,18 @@ public class PathnameAssistantApp
 
 		// Initialise instance variables
 		mainWindowState = new WindowState(false, true);
-		locations = new ArraySet<>();
+		preferences = new Preferences();
+		locations = new LocationList();
+		locationIndex = new LocationIndex(locations, PathnameFormat.NATIVE::locationToString,
+										  predicate -> filteredLocations.setPredicate(predicate),
+										  exception -> ErrorDialog.show(primaryStage, INDEXING_STR, exception));
+		missingLocations = new HashSet<>();
+		monitor = new LocationMonitor(this::updateMissingLocations,
+									  exception -> ErrorDialog.show(primaryStage, MONITORING_STR, exception));
+		renderingCache = new RenderingCache<>(RENDERING_CACHE_CAPACITY);
+		ingesters = new ArrayDeque<>();
+		metadataCache = new MetadataCache(() -> locationsListView.refresh());
+		sorter = new LocationSorter(metadataCache, exception -> ErrorDialog.show(primaryStage, SORTING_STR, exception));
 		this.primaryStage = primaryStage;
 
 		// Read build properties and initialise version string
@@ -363,6 +560,58 @@ public class PathnameAssistantApp
 			e.printStackTrace();
 		}
 
+		// Remove the cached string representations, sort keys and metadata of locations when they are removed from the
+		// list; monitor the existence of locations while they are in the list, and prefetch their metadata
+		locations.addListener((ListChangeListener<Location>) change ->
+		{
+			while (change.next())
+			{
+				if (change.wasRemoved())
+				{
+					if (locations.isEmpty())
+					{
+						renderingCache.clear();
+						locationIndex.clear();
+						sorter.clear();
+						metadataCache.clear();
+						monitor.clear();
+						missingLocations.clear();
+					}
+					else
+					{
+						renderingCache.removeAll(change.getRemoved());
+						locationIndex.removeAll(change.getRemoved());
+						sorter.removeAll(change.getRemoved());
+						metadataCache.removeAll(change.getRemoved());
+						monitor.removeAll(change.getRemoved());
+						missingLocations.removeAll(change.getRemoved());
+					}
+				}
+				if (change.wasAdded())
+				{
+					locationIndex.addAll(change.getAddedSubList());
+					monitor.addAll(change.getAddedSubList());
+					if (preferences.isShowMetadata())
+						metadataCache.prefetch(change.getAddedSubList());
+				}
+			}
+
+			// Update common ancestor of locations.  If it has changed, discard the renderings that are relative to the
+			// old ancestor, and re-render the locations after the filtered list has processed the change.
+			Location ancestor = locations.commonAncestor();
+			if (ancestor != commonAncestor)
+			{
+				commonAncestor = ancestor;
+				renderingCache.remove(PathnameFormat.RELATIVE_TO_COMMON_ANCESTOR);
+				if (formatSpinner.getItem() == PathnameFormat.RELATIVE_TO_COMMON_ANCESTOR)
+					Platform.runLater(this::updateRenderer);
+			}
+		});
+
+		// Create filtered list of locations.  Its listener is added to the list of locations after the one above, so
+		// that added locations are indexed before they are tested against the filter.
+		filteredLocations = new FilteredList<>(locations);
+
 		// Create container for local variables
 		class Vars
 		{
@@ -428,24 +677,113 @@ public class PathnameAssistantApp
 		int row = 0;
 
 		// Spinner: format
-		formatSpinner = CollectionSpinner.leftRightH(HPos.CENTER, true, Format.class, Format.NATIVE, null, null);
-		formatSpinner.itemProperty().addListener(observable -> locationsListView.refresh());
+		formatSpinner = CollectionSpinner.leftRightH(HPos.CENTER, true, pathnameFormats(), PathnameFormat.NATIVE, null,
+													 null);
+		formatSpinner.itemProperty().addListener(observable -> updateRenderer());
 		controlPane.addRow(row++, new Label(FORMAT_STR), formatSpinner);
 
+		// Text field: filter
+		filterField = new TextField();
+		filterField.setPromptText(FILTER_PROMPT_STR);
+		filterField.textProperty().addListener(observable -> updateFilter());
+		filterField.setOnKeyPressed(event ->
+		{
+			if ((event.getCode() == KeyCode.ESCAPE) && !filterField.getText().isEmpty())
+			{
+				filterField.clear();
+				event.consume();
+			}
+		});
+		controlPane.addRow(row++, new Label(FILTER_STR), filterField);
+
+		// Initialise widths of columns of metadata
+		metadataColumnWidths = new double[]
+		{
+			Arrays.stream(MetadataCache.Kind.values())
+					.mapToDouble(kind -> TextUtils.textWidthCeil(kind.toString()))
+					.max()
+					.orElse(0.0),
+			TextUtils.textWidthCeil(SIZE_PROTOTYPE_TEXT),
+			TextUtils.textWidthCeil(LAST_MODIFIED_TIME_FORMATTER.format(Instant.EPOCH))
+		};
+
 		// Label: locations
 		Label locationsLabel = new Label(LOCATIONS_STR);
 		GridPane.setValignment(locationsLabel, VPos.TOP);
 		GridPane.setMargin(locationsLabel, new Insets(4.0, 0.0, 0.0, 0.0));
 
+		// Display estimate of memory that is used by locations in tooltip of label
+		Tooltip footprintTooltip = new Tooltip();
+		footprintTooltip.setOnShowing(event ->
+		{
+			LocationStore.Footprint footprint = locations.footprint();
+			footprintTooltip.setText(String.format(FOOTPRINT_STR, footprint.numLocations(), footprint.numNodes(),
+												   sizeString(footprint.numBytes())));
+		});
+		locationsLabel.setTooltip(footprintTooltip);
+
 		// List view: locations
-		locationsListView = new SimpleTextListView<>(location -> formatSpinner.getItem().locationToString(location));
+		locationsListView = new SimpleTextListView<>(location ->
+		{
+			IPathnameFormat format = formatSpinner.getItem();
+			return renderingCache.get(format, location, renderer(format));
+		})
+		{
+			@Override
+			protected Label createCellLabel(
+				Location	location)
+			{
+				// Create label
+				Label label = super.createCellLabel(location);
+
+				// Display metadata of location to the left of its pathname
+				if (preferences.isShowMetadata())
+				{
+					label.setGraphic(createMetadataPane(location, label));
+					label.setGraphicTextGap(METADATA_COLUMN_GAP);
+				}
+
+				// Dim label of location that no longer exists
+				if (missingLocations.contains(location))
+					label.setOpacity(MISSING_LOCATION_OPACITY);
+
+				// Return label
+				return label;
+			}
+		};
+		locationsListView.setItems(filteredLocations);
 		locationsListView.setPrefSize(LOCATIONS_LIST_VIEW_WIDTH, LOCATIONS_LIST_VIEW_HEIGHT);
 		GridPane.setHgrow(locationsListView, Priority.ALWAYS);
 		GridPane.setVgrow(locationsListView, Priority.ALWAYS);
 		controlPane.addRow(row++, locationsLabel, locationsListView);
 
+		// Label: task
+		taskLabel = new Label();
+
+		// Progress bar: task
+		taskProgressBar = new ProgressBar();
+		taskProgressBar.setMaxWidth(Double.MAX_VALUE);
+		HBox.setHgrow(taskProgressBar, Priority.ALWAYS);
+
+		// Button: cancel task
+		Button cancelTaskButton = Buttons.hNoShrink(CANCEL_STR);
+		cancelTaskButton.setOnAction(event ->
+		{
+			if (sorter.isSorting())
+				sorter.cancel();
+			else
+				cancelIngestion();
+		});
+
+		// Create task pane
+		taskPane = new HBox(CONTROL_H_GAP, taskLabel, taskProgressBar, cancelTaskButton);
+		taskPane.setAlignment(Pos.CENTER_LEFT);
+		taskPane.setPadding(TASK_PANE_PADDING);
+		taskPane.managedProperty().bind(taskPane.visibleProperty());
+		taskPane.setVisible(false);
+
 		// Create main pane
-		VBox mainPane = new VBox(createMenuBar(), controlPane);
+		VBox mainPane = new VBox(createMenuBar(), controlPane, taskPane);
 		mainPane.setAlignment(Pos.TOP_CENTER);
 		mainPane.setOnContextMenuRequested(event ->
 		{
@@ -455,12 +793,23 @@ public class PathnameAssistantApp
 				Command.COPY_FILENAME_STEMS.newMenuItem(),
 				Command.COPY_PATHNAMES.newMenuItem(),
 				Command.COPY_PARENT_PATHNAME.newMenuItem(),
+				Command.COPY_COMMON_PARENT.newMenuItem(),
 				Command.PASTE.newMenuItem(),
 				new SeparatorMenuItem(),
+				Command.SET_BASE_LOCATION.newMenuItem(),
 				Command.DELETE_LOCATION.newMenuItem(),
+				Command.REMOVE_MISSING_LOCATIONS.newMenuItem(),
+				Command.KEEP_LOCATIONS_BY_SUFFIX.newMenuItem(),
 				Command.CLEAR_LOCATIONS.newMenuItem(),
 				new SeparatorMenuItem(),
-				Command.SORT_LOCATIONS.newMenuItem()
+				Command.SORT_BY_PATHNAME.newMenuItem(),
+				Command.SORT_BY_FILENAME.newMenuItem(),
+				Command.SORT_BY_EXTENSION.newMenuItem(),
+				Command.SORT_BY_PARENT.newMenuItem(),
+				Command.SORT_BY_DEPTH.newMenuItem(),
+				Command.SORT_BY_KIND.newMenuItem(),
+				Command.SORT_BY_SIZE.newMenuItem(),
+				Command.SORT_BY_LAST_MODIFIED_TIME.newMenuItem()
 			);
 			updateMenuItems(menu.getItems());
 			menu.show(primaryStage, event.getScreenX(), event.getScreenY());
@@ -487,14 +836,14 @@ public class PathnameAssistantApp
 		// Handle 'drag dropped' events
 		scene.setOnDragDropped(event ->
 		{
-			// Get file-system locations from dragboard
-			List<Path> locations = ClipboardUtils.matchingLocations(event.getDragboard(), null);
+			// Get files from dragboard
+			List<File> files = ClipboardUtils.files(event.getDragboard());
 
 			// Indicate that drag-and-drop is complete
 			event.setDropCompleted(true);
 
 			// Append locations
-			if (!locations.isEmpty())
+			if (!files.isEmpty())
 			{
 				// Request focus on main window
 				primaryStage.requestFocus();
@@ -503,7 +852,7 @@ public class PathnameAssistantApp
 				Platform.runLater(() ->
 				{
 					// Append locations to list
-					appendLocations(locations);
+					ingestLocations(files);
 
 					// Request focus on list view
 					locationsListView.requestFocus();
@@ -655,6 +1004,9 @@ public class PathnameAssistantApp
 		MapNode windowStateNode = mainWindowState.encodeTree();
 		if (!windowStateNode.isEmpty())
 			rootNode.add(PropertyKey.MAIN_WINDOW, windowStateNode);
+
+		// Encode preferences
+		preferences.encode(rootNode.addMap(PropertyKey.PREFERENCES));
 	}
 
 	//------------------------------------------------------------------
@@ -681,6 +1033,11 @@ public class PathnameAssistantApp
 		key = PropertyKey.MAIN_WINDOW;
 		if (rootNode.hasMap(key))
 			mainWindowState.decodeTree(rootNode.getMapNode(key));
+
+		// Decode preferences
+		key = PropertyKey.PREFERENCES;
+		if (rootNode.hasMap(key))
+			preferences.decode(rootNode.getMapNode(key));
 	}
 
 	//------------------------------------------------------------------
@@ -714,12 +1071,23 @@ public class PathnameAssistantApp
 			Command.COPY_FILENAME_STEMS.newMenuItem(),
 			Command.COPY_PATHNAMES.newMenuItem(),
 			Command.COPY_PARENT_PATHNAME.newMenuItem(),
+			Command.COPY_COMMON_PARENT.newMenuItem(),
 			Command.PASTE.newMenuItem(),
 			new SeparatorMenuItem(),
+			Command.SET_BASE_LOCATION.newMenuItem(),
 			Command.DELETE_LOCATION.newMenuItem(),
+			Command.REMOVE_MISSING_LOCATIONS.newMenuItem(),
+			Command.KEEP_LOCATIONS_BY_SUFFIX.newMenuItem(),
 			Command.CLEAR_LOCATIONS.newMenuItem(),
 			new SeparatorMenuItem(),
-			Command.SORT_LOCATIONS.newMenuItem(),
+			Command.SORT_BY_PATHNAME.newMenuItem(),
+			Command.SORT_BY_FILENAME.newMenuItem(),
+			Command.SORT_BY_EXTENSION.newMenuItem(),
+			Command.SORT_BY_PARENT.newMenuItem(),
+			Command.SORT_BY_DEPTH.newMenuItem(),
+			Command.SORT_BY_KIND.newMenuItem(),
+			Command.SORT_BY_SIZE.newMenuItem(),
+			Command.SORT_BY_LAST_MODIFIED_TIME.newMenuItem(),
 			new SeparatorMenuItem(),
 			Command.EDIT_PREFERENCES.newMenuItem()
 		);
@@ -753,17 +1121,29 @@ public class PathnameAssistantApp
 				menuItem.setDisable(switch (command)
 				{
 					case CLEAR_LOCATIONS,
+						 KEEP_LOCATIONS_BY_SUFFIX,
 						 COPY_FILENAMES,
 						 COPY_FILENAME_STEMS,
-						 COPY_PATHNAMES       -> locations.isEmpty();
-					case COPY_PARENT_PATHNAME ->
+						 COPY_PATHNAMES             -> locations.isEmpty();
+					case COPY_PARENT_PATHNAME       ->
 					{
-						Path location = locationsListView.getSelectionModel().getSelectedItem();
+						Location location = locationsListView.getSelectionModel().getSelectedItem();
 						yield (location == null) || (location.getParent() == null);
 					}
-					case DELETE_LOCATION      -> locationsListView.getSelectionModel().isEmpty();
-					case SORT_LOCATIONS       -> (locations.size() < 2);
-					default                   -> false;
+					case COPY_COMMON_PARENT         -> (commonAncestor == null);
+					case SET_BASE_LOCATION,
+						 DELETE_LOCATION            -> locationsListView.getSelectionModel().isEmpty();
+					case REMOVE_MISSING_LOCATIONS   -> missingLocations.isEmpty();
+					case SORT_BY_PATHNAME,
+						 SORT_BY_FILENAME,
+						 SORT_BY_EXTENSION,
+						 SORT_BY_PARENT,
+						 SORT_BY_DEPTH,
+						 SORT_BY_KIND,
+						 SORT_BY_SIZE,
+						 SORT_BY_LAST_MODIFIED_TIME -> (locations.size() < 2) || !ingesters.isEmpty()
+								|| sorter.isSorting();
+					default                         -> false;
 				});
 			}
 		}
@@ -783,450 +1163,676 @@ public class PathnameAssistantApp
 	//------------------------------------------------------------------
 
 	/**
-	 * Updates the pathnames that are displayed in the list view.
+	 * Appends the specified file-system locations to the list of locations that is displayed in the list view.  Any
+	 * location that is already in the list is ignored.
+	 *
+	 * @param locations
+	 *          the locations that will be appended to the list that is displayed in the list view.
 	 */
 
-	private void updateListView()
+	private void appendLocations(
+		Collection<LocationIngester.Entry>	locations)
 	{
-		locationsListView.setItems(FXCollections.observableArrayList(locations));
+		// Update instance variable
+		this.locations.addLocations(locations);
+
+		// Update 'edit' menu
+		updateEditMenu();
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Appends the specified file-system locations to the list of locations that is displayed in the list view.
+	 * Creates and returns a pane that displays the metadata of the specified location in columns of fixed width.  If
+	 * the metadata have not yet been loaded, a placeholder is displayed.
 	 *
-	 * @param locations
-	 *          the locations that will be appended to the list that is displayed in the list view.
+	 * @param  location
+	 *           the location whose metadata will be displayed.
+	 * @param  cellLabel
+	 *           the label of the cell of the location, whose text colour will be applied to the pane.
+	 * @return a pane that displays the metadata of {@code location}.
 	 */
 
-	private void appendLocations(
-		Collection<Path>	locations)
+	private HBox createMetadataPane(
+		Location	location,
+		Label		cellLabel)
 	{
-		// Update instance variable
-		this.locations.addAll(locations);
+		// Get text of columns
+		MetadataCache.Metadata metadata = metadataCache.get(location);
+		String kindText = PENDING_STR;
+		String sizeText = "";
+		String timeText = "";
+		if (metadata != null)
+		{
+			kindText = metadata.kind().toString();
+			if (metadata.kind() == MetadataCache.Kind.FILE)
+				sizeText = sizeString(metadata.size());
+			if (metadata.lastModifiedTime() >= 0)
+				timeText = LAST_MODIFIED_TIME_FORMATTER.format(Instant.ofEpochMilli(metadata.lastModifiedTime()));
+		}
 
-		// Update list view
-		updateListView();
+		// Create labels of columns
+		String[] texts = { kindText, sizeText, timeText };
+		HBox pane = new HBox(METADATA_COLUMN_GAP);
+		for (int i = 0; i < texts.length; i++)
+		{
+			Label label = new Label(texts[i]);
+			label.setMinWidth(metadataColumnWidths[i]);
+			label.setPrefWidth(metadataColumnWidths[i]);
+			label.setAlignment((i == 1) ? Pos.CENTER_RIGHT : Pos.CENTER_LEFT);
+			label.setTextFill(cellLabel.getTextFill());
+			pane.getChildren().add(label);
+		}
 
-		// Update 'edit' menu
-		updateEditMenu();
+		// Return pane
+		return pane;
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Fires an event to request the closure of the main window.  If the event is not consumed, the application is
-	 * terminated.
+	 * Returns a function that converts a location to a string in the specified pathname format.  If the format is
+	 * relative, the function represents a location relative to the current base of the format.  The function is
+	 * thread-safe.
+	 *
+	 * @param  format
+	 *           the pathname format.
+	 * @return a function that converts a location to a string in {@code format}.
 	 */
 
-	private void onExit()
+	private IFunction1<String, Location> renderer(
+		IPathnameFormat	format)
 	{
-		primaryStage.fireEvent(new WindowEvent(primaryStage, WindowEvent.WINDOW_CLOSE_REQUEST));
+		Location base = null;
+		if (format == PathnameFormat.RELATIVE_TO_COMMON_ANCESTOR)
+			base = commonAncestor;
+		else if (format == PathnameFormat.RELATIVE_TO_BASE)
+			base = baseLocation;
+		return format.renderer(base);
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Copies the filename of each element of the list of locations to the system clipboard.  If there is more than one
-	 * location, a line-feed character (U+000A) is appended to each filename.
+	 * Returns the pathname formats that may be selected in the spinner: the built-in formats, followed by the
+	 * user-defined pathname templates of the preferences.
+	 *
+	 * @return a list of the pathname formats that may be selected in the spinner.
 	 */
 
-	private void onCopyFilenames()
+	private List<IPathnameFormat> pathnameFormats()
 	{
-		if (!locations.isEmpty())
-		{
-			// Create text
-			StringBuilder buffer = new StringBuilder(locations.size() * 32);
-			for (Path location : locations)
-			{
-				buffer.append(location.getFileName());
+		List<IPathnameFormat> formats = new ArrayList<>(List.of(PathnameFormat.values()));
+		formats.addAll(preferences.getPathnameTemplates());
+		return formats;
+	}
 
-				if (locations.size() > 1)
-					buffer.append('\n');
-			}
+	//------------------------------------------------------------------
 
-			// Put text on clipboard
-			try
-			{
-				ClipboardUtils.putTextThrow(buffer.toString());
-			}
-			catch (BaseException e)
-			{
-				ErrorDialog.show(primaryStage, Command.COPY_FILENAMES.text, e);
-			}
-		}
+	/**
+	 * Reindexes the list of locations with the renderer of the pathname format that is selected in the spinner,
+	 * reapplies the filter and redraws the list view.
+	 */
+
+	private void updateRenderer()
+	{
+		// Reindex locations with renderer of current format and reapply filter
+		locationIndex.setRenderer(renderer(formatSpinner.getItem()));
+		updateFilter();
+
+		// Redraw list view
+		locationsListView.refresh();
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Copies the filename stem of each element of the list of locations to the system clipboard.  The stem of a
-	 * filename is the substring from the start of the filename to the first occurrence of a dot, '.', but not including
-	 * the dot.  If the filename does not contain a dot, the stem is the entire filename.  If there is more than one
-	 * location, a line-feed character (U+000A) is appended to each filename stem.
+	 * Applies the filter in the filter field to the list of locations, so that the list view displays only the
+	 * locations whose string representation in the current pathname format contains all the terms of the filter.  If
+	 * the index of the locations is being built, the filter is applied when the build has finished.
 	 */
 
-	private void onCopyFilenameStems()
+	private void updateFilter()
 	{
-		if (!locations.isEmpty())
-		{
-			// Create text
-			StringBuilder buffer = new StringBuilder(locations.size() * 32);
-			for (Path location : locations)
-			{
-				String filename = location.getFileName().toString();
-				int index = filename.indexOf('.');
-				if (index > 1)
-					filename = filename.substring(0, index);
-				buffer.append(filename);
-
-				if (locations.size() > 1)
-					buffer.append('\n');
-			}
-
-			// Put text on clipboard
-			try
-			{
-				ClipboardUtils.putTextThrow(buffer.toString());
-			}
-			catch (BaseException e)
-			{
-				ErrorDialog.show(primaryStage, Command.COPY_FILENAME_STEMS.text, e);
-			}
-		}
+		locationIndex.filter(filterField.getText());
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Copies the pathname of each element of the list of locations to the system clipboard.  A location is converted to
-	 * a pathname according to the format that is selected in the spinner.  If there is more than one location, a
-	 * line-feed character (U+000A) is appended to each pathname.
+	 * Applies the specified update from the location monitor to the set of locations that no longer exist, and redraws
+	 * the list view so that the labels of those locations are dimmed.
+	 *
+	 * @param update
+	 *          the update from the location monitor.
 	 */
 
-	private void onCopyPathnames()
+	private void updateMissingLocations(
+		LocationMonitor.Update	update)
 	{
-		if (!locations.isEmpty())
+		// Update set of missing locations
+		for (Location location : update.missing())
 		{
-			// Create text
-			Format format = formatSpinner.getItem();
-			StringBuilder buffer = new StringBuilder(locations.size() * 128);
-			for (Path location : locations)
-			{
-				buffer.append(format.locationToString(location));
-
-				if (locations.size() > 1)
-					buffer.append('\n');
-			}
+			if (locations.contains(location))
+				missingLocations.add(location);
+		}
+		missingLocations.removeAll(update.restored());
 
-			// Put text on clipboard
-			try
+		// Reload metadata of locations whose existence has changed
+		metadataCache.removeAll(update.missing());
+		metadataCache.removeAll(update.restored());
+		if (preferences.isShowMetadata())
+		{
+			List<Location> changedLocations = new ArrayList<>();
+			for (Location location : update.missing())
 			{
-				ClipboardUtils.putTextThrow(buffer.toString());
+				if (locations.contains(location))
+					changedLocations.add(location);
 			}
-			catch (BaseException e)
+			for (Location location : update.restored())
 			{
-				ErrorDialog.show(primaryStage, Command.COPY_PATHNAMES.text, e);
+				if (locations.contains(location))
+					changedLocations.add(location);
 			}
+			metadataCache.prefetch(changedLocations);
 		}
+
+		// Redraw list view
+		locationsListView.refresh();
+
+		// Update 'edit' menu
+		updateEditMenu();
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Copies the pathname of the parent of the location that is selected in the list view to the system clipboard.  The
-	 * location is converted to a pathname according to the format that is selected in the spinner.
+	 * Converts the specified files to file-system locations on a background thread and appends the locations to the
+	 * list of locations that is displayed in the list view in chunks.  If the expansion of directories is enabled in
+	 * the user preferences, each directory is replaced by the files in the tree below it, optionally only those whose
+	 * filenames end with the suffixes of the filter of expansion.  If another ingestion is in progress, the ingestion
+	 * of the specified files will start when the earlier one has finished.
+	 *
+	 * @param files
+	 *          the files whose locations will be appended to the list that is displayed in the list view.
 	 */
 
-	private void onCopyParentPathname()
+	private void ingestLocations(
+		List<File>	files)
 	{
-		Path location = locationsListView.getSelectionModel().getSelectedItem();
-		if (location != null)
+		// Cancel any sort, which would be invalidated by the new locations
+		sorter.cancel();
+
+		// Get depth and filter of expansion of directories
+		int expansionDepth = LocationIngester.NO_EXPANSION;
+		Predicate<Path> expansionFilter = null;
+		if (preferences.isExpandDirectories())
 		{
-			Path parent = location.getParent();
-			if (parent != null)
+			expansionDepth = preferences.getMaxExpansionDepth();
+			if (expansionDepth == Preferences.UNLIMITED_EXPANSION_DEPTH)
+				expansionDepth = ParallelFileTreeWalker.UNLIMITED_DEPTH;
+
+			List<String> suffixes = SuffixFilterDialog.parseSuffixes(preferences.getExpansionFilterPatterns());
+			if (!suffixes.isEmpty())
 			{
-				try
-				{
-					ClipboardUtils.putTextThrow(formatSpinner.getItem().locationToString(parent));
-				}
-				catch (BaseException e)
-				{
-					ErrorDialog.show(primaryStage, Command.COPY_PARENT_PATHNAME.text, e);
-				}
+				SuffixMatcher matcher = PathnameUtils.suffixMatcher(suffixes);
+				expansionFilter = location -> matcher.matches(location.getFileName().toString());
 			}
 		}
+
+		// Add ingester to queue, and start it if there is no active ingester
+		ingesters.addLast(new LocationIngester(files, expansionDepth, expansionFilter, this::appendLocations, () ->
+		{
+			// Remove finished ingester
+			ingesters.removeFirst();
+
+			// Start next ingester, or hide task pane if there are no more ingesters
+			if (ingesters.isEmpty())
+				taskPane.setVisible(false);
+			else
+				startIngester(ingesters.getFirst());
+		}));
+		if (ingesters.size() == 1)
+			startIngester(ingesters.getFirst());
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Appends any file-system locations that are on the system clipboard to the list of locations that is displayed in
-	 * the list view.
+	 * Starts the specified ingester of file-system locations and displays its progress if it has a large number of
+	 * input files.
+	 *
+	 * @param ingester
+	 *          the ingester that will be started.
 	 */
 
-	private void onPaste()
+	private void startIngester(
+		LocationIngester	ingester)
 	{
-		List<Path> locations = ClipboardUtils.locations();
-		if (locations.isEmpty())
-		{
-			NotificationDialog.show(primaryStage, Command.PASTE.text, MessageIcon32.ALERT.get(),
-									ErrorMsg.NO_LOCATIONS_ON_CLIPBOARD);
-		}
-		else
-			appendLocations(locations);
+		taskLabel.setText(ADDING_STR);
+		taskProgressBar.progressProperty().bind(ingester.progressProperty());
+		taskPane.setVisible(ingester.expandsDirectories() || (ingester.getNumFiles() >= INGESTION_PROGRESS_THRESHOLD));
+		ingester.start();
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Removes the selected location from the list of locations that is displayed in the list view.
+	 * Cancels the active ingester of file-system locations and discards all pending ingesters.
 	 */
 
-	private void onDeleteLocation()
+	private void cancelIngestion()
 	{
-		int index = locationsListView.getSelectionModel().getSelectedIndex();
-		if (index >= 0)
+		if (!ingesters.isEmpty())
 		{
-			// Remove item from list
-			locations.remove(index);
-
-			// Update list view
-			updateListView();
-
-			// Select item at old index
-			if (!locations.isEmpty())
-				locationsListView.getSelectionModel().select(Math.min(index, locations.size() - 1));
-
-			// Update 'edit' menu
-			updateEditMenu();
+			LocationIngester ingester = ingesters.getFirst();
+			ingesters.clear();
+			ingesters.addFirst(ingester);
+			ingester.cancel();
 		}
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Removes all elements from the list of locations that is displayed in the list view.
+	 * Converts each element of the list of locations to a string with the specified renderer on a background thread,
+	 * and copies the concatenation of the strings to the system clipboard.  If there is more than one location, a
+	 * line-feed character (U+000A) is appended to each string.  If the length of the text exceeds the maximum length
+	 * that is specified in the user preferences, the text is written to a temporary file, and the file is copied to
+	 * the clipboard instead.
+	 *
+	 * @param command
+	 *          the command that invoked this method.
+	 * @param renderer
+	 *          the function that converts a location to a string.  It must be thread-safe.
 	 */
 
-	private void onClearLocations()
+	private void copyLocations(
+		Command							command,
+		IFunction1<String, Location>	renderer)
 	{
 		if (!locations.isEmpty())
 		{
-			// Update instance variable
-			locations.clear();
-
-			// Update list view
-			updateListView();
+			// Take snapshot of locations
+			Location[] locations = this.locations.toArray(Location[]::new);
+			long maxTextLength = preferences.getMaxClipboardTextNumChars();
 
-			// Update 'edit' menu
-			updateEditMenu();
+			// Render locations on background thread, and put resulting text or file on clipboard
+			DaemonFactory.create(COPY_THREAD_NAME, () ->
+			{
+				try
+				{
+					LocationExporter.Result result = LocationExporter.export(locations, renderer, maxTextLength);
+					Platform.runLater(() ->
+					{
+						try
+						{
+							// Put text on clipboard
+							if (result.text() != null)
+							{
+								ClipboardUtils.putTextThrow(result.text());
+								setExportFile(null);
+							}
+
+							// Put file on clipboard
+							else
+							{
+								ClipboardUtils.putLocationsAndTextThrow(result.file());
+								setExportFile(result.file());
+								NotificationDialog.show(primaryStage, command.text, MessageIcon32.INFORMATION.get(),
+														String.format(InfoMsg.TEXT_WRITTEN_TO_FILE, result.file()));
+							}
+						}
+						catch (BaseException e)
+						{
+							LocationExporter.deleteFile(result.file());
+							ErrorDialog.show(primaryStage, command.text, e);
+						}
+					});
+				}
+				catch (Exception e)
+				{
+					Platform.runLater(() -> ErrorDialog.show(primaryStage, command.text, e));
+				}
+			})
+			.start();
 		}
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Sorts the locations that are displayed in the list view lexicographically using the default comparator for the
-	 * file system.  Sorting is terminated prematurely if locations from different file systems are compared.
+	 * Sets the temporary file of exported locations that is on the system clipboard.  The previous file, which the
+	 * clipboard no longer contains, is deleted.
+	 *
+	 * @param file
+	 *          the temporary file of exported locations that is on the clipboard, or {@code null} if there is none.
 	 */
 
-	private void onSortLocations()
+	private void setExportFile(
+		Path	file)
 	{
-		if (locations.size() > 1)
-		{
-			// Sort locations using default comparator for the associated file system
-			try
-			{
-				locations.sort(null);
-			}
-			catch (ClassCastException e)
-			{
-				// ignore
-			}
-
-			// Update list view
-			updateListView();
-		}
+		if ((exportFile != null) && !exportFile.equals(file))
+			LocationExporter.deleteFile(exportFile);
+		exportFile = file;
 	}
 
 	//------------------------------------------------------------------
 
 	/**
-	 * Displays a modal dialog in which the user preferences can be edited.
+	 * Fires an event to request the closure of the main window.  If the event is not consumed, the application is
+	 * terminated.
 	 */
 
-	private void onEditPreferences()
+	private void onExit()
 	{
-		PreferencesDialog.show(primaryStage);
+		primaryStage.fireEvent(new WindowEvent(primaryStage, WindowEvent.WINDOW_CLOSE_REQUEST));
 	}
 
 	//------------------------------------------------------------------
 
-////////////////////////////////////////////////////////////////////////
-//  Enumerated types
-////////////////////////////////////////////////////////////////////////
+	/**
+	 * Copies the filename of each element of the list of locations to the system clipboard.  If there is more than one
+	 * location, a line-feed character (U+000A) is appended to each filename.
+	 */
+
+	private void onCopyFilenames()
+	{
+		copyLocations(Command.COPY_FILENAMES, PathnameAssistantApp::filename);
+	}
 
+	//------------------------------------------------------------------
 
-	// ENUMERATION: PATHNAME FORMAT
+	/**
+	 * Copies the filename stem of each element of the list of locations to the system clipboard.  The stem of a
+	 * filename is the substring from the start of the filename to the first occurrence of a dot, '.', but not including
+	 * the dot.  If the filename does not contain a dot, the stem is the entire filename.  If there is more than one
+	 * location, a line-feed character (U+000A) is appended to each filename stem.
+	 */
 
+	private void onCopyFilenameStems()
+	{
+		copyLocations(Command.COPY_FILENAME_STEMS, PathnameAssistantApp::filenameStem);
+	}
+
+	//------------------------------------------------------------------
 
 	/**
-	 * This is an enumeration of the available formats of a pathname of a file-system location.
+	 * Copies the pathname of each element of the list of locations to the system clipboard.  A location is converted to
+	 * a pathname according to the format that is selected in the spinner.  If there is more than one location, a
+	 * line-feed character (U+000A) is appended to each pathname.
 	 */
 
-	private enum Format
+	private void onCopyPathnames()
 	{
+		copyLocations(Command.COPY_PATHNAMES, renderer(formatSpinner.getItem()));
+	}
 
-	////////////////////////////////////////////////////////////////////
-	//  Constants
-	////////////////////////////////////////////////////////////////////
+	//------------------------------------------------------------------
 
-		/**
-		 * Adjacent elements of a pathname are separated with a {@linkplain File#separatorChar platform-dependent
-		 * character} ('/' for Unix-like platforms, '\' for Windows).
-		 */
+	/**
+	 * Copies the pathname of the parent of the location that is selected in the list view to the system clipboard.  The
+	 * location is converted to a pathname according to the format that is selected in the spinner.
+	 */
 
-		NATIVE
-		(
-			"Native"
-		)
+	private void onCopyParentPathname()
+	{
+		Location location = locationsListView.getSelectionModel().getSelectedItem();
+		if (location != null)
 		{
-			@Override
-			protected String locationToString(
-				Path	location)
+			Location parent = location.getParent();
+			if (parent != null)
 			{
-				return PathUtils.absString(location);
+				try
+				{
+					ClipboardUtils.putTextThrow(formatSpinner.getItem().locationToString(parent));
+					setExportFile(null);
+				}
+				catch (BaseException e)
+				{
+					ErrorDialog.show(primaryStage, Command.COPY_PARENT_PATHNAME.text, e);
+				}
 			}
-		},
+		}
+	}
 
-		/**
-		 * Adjacent elements of a pathname are separated with a '/'.
-		 */
+	//------------------------------------------------------------------
 
-		UNIX_SEPARATOR
-		(
-			"Unix separator"
-		)
+	/**
+	 * Copies the pathname of the nearest common ancestor of the elements of the list of locations to the system
+	 * clipboard.  The ancestor is converted to a pathname according to the format that is selected in the spinner; a
+	 * relative format converts it to an absolute pathname.
+	 */
+
+	private void onCopyCommonParent()
+	{
+		if (commonAncestor != null)
 		{
-			@Override
-			protected String locationToString(
-				Path	location)
+			try
 			{
-				return PathUtils.absStringStd(location);
+				ClipboardUtils.putTextThrow(formatSpinner.getItem().locationToString(commonAncestor));
+				setExportFile(null);
 			}
-		},
+			catch (BaseException e)
+			{
+				ErrorDialog.show(primaryStage, Command.COPY_COMMON_PARENT.text, e);
+			}
+		}
+	}
 
-		/**
-		 * Adjacent elements of a pathname are separated with a '/'.  If the location is the user's home directory or a
-		 * location below it, the pathname of the user's home directory is replaced by '~'.
-		 */
+	//------------------------------------------------------------------
 
-		REDUCED_UNIX
-		(
-			"Reduced Unix"
-		)
+	/**
+	 * Appends any file-system locations that are on the system clipboard to the list of locations that is displayed in
+	 * the list view.
+	 */
+
+	private void onPaste()
+	{
+		List<File> files = ClipboardUtils.files();
+		if (files.isEmpty())
 		{
-			@Override
-			protected String locationToString(
-				Path	location)
-			{
-				String pathname = PathUtils.absString(location);
-				String userHome = SystemUtils.userHomeDirectoryPathname();
-				if ((userHome != null) && pathname.startsWith(userHome))
-					pathname = "~" + pathname.substring(userHome.length());
-				return pathname.replace(File.separatorChar, '/');
-			}
-		},
+			NotificationDialog.show(primaryStage, Command.PASTE.text, MessageIcon32.ALERT.get(),
+									ErrorMsg.NO_LOCATIONS_ON_CLIPBOARD);
+		}
+		else
+			ingestLocations(files);
+	}
 
-		/**
-		 * The file-system location is represented by a file-scheme URI.
-		 */
+	//------------------------------------------------------------------
 
-		URI
-		(
-			"URI"
-		)
+	/**
+	 * Sets the location that is selected in the list view as the base relative to which locations are represented in
+	 * the {@link PathnameFormat#RELATIVE_TO_BASE} format, and selects that format.  The base remains in effect if the
+	 * location is later removed from the list.
+	 */
+
+	private void onSetBaseLocation()
+	{
+		Location location = locationsListView.getSelectionModel().getSelectedItem();
+		if (location != null)
 		{
-			@Override
-			protected String locationToString(
-				Path	location)
-			{
-				return location.toUri().toASCIIString();
-			}
-		};
+			baseLocation = location;
+			renderingCache.remove(PathnameFormat.RELATIVE_TO_BASE);
+			if (formatSpinner.getItem() == PathnameFormat.RELATIVE_TO_BASE)
+				updateRenderer();
+			else
+				formatSpinner.setItem(PathnameFormat.RELATIVE_TO_BASE);
+		}
+	}
 
-	////////////////////////////////////////////////////////////////////
-	//  Instance variables
-	////////////////////////////////////////////////////////////////////
+	//------------------------------------------------------------------
 
-		/** The text that represents this format. */
-		private	String	text;
+	/**
+	 * Removes the selected location from the list of locations that is displayed in the list view.
+	 */
 
-	////////////////////////////////////////////////////////////////////
-	//  Constructors
-	////////////////////////////////////////////////////////////////////
+	private void onDeleteLocation()
+	{
+		int index = locationsListView.getSelectionModel().getSelectedIndex();
+		if (index >= 0)
+		{
+			// Remove item from list
+			locations.remove(filteredLocations.get(index));
 
-		/**
-		 * Creates a new instance of an enumeration constant for a pathname format.
-		 *
-		 * @param text
-		 *          the text that will represent the format.
-		 */
+			// Select item at old index
+			if (!filteredLocations.isEmpty())
+				locationsListView.getSelectionModel().select(Math.min(index, filteredLocations.size() - 1));
+
+			// Update 'edit' menu
+			updateEditMenu();
+		}
+	}
+
+	//------------------------------------------------------------------
 
-		private Format(
-			String	text)
+	/**
+	 * Removes the locations that no longer exist from the list of locations that is displayed in the list view.
+	 */
+
+	private void onRemoveMissingLocations()
+	{
+		if (!missingLocations.isEmpty())
 		{
-			// Initialise instance variables
-			this.text = text;
+			// Update instance variable
+			locations.removeIf(missingLocations::contains);
+
+			// Update 'edit' menu
+			updateEditMenu();
 		}
+	}
 
-		//--------------------------------------------------------------
+	//------------------------------------------------------------------
 
-	////////////////////////////////////////////////////////////////////
-	//  Abstract methods
-	////////////////////////////////////////////////////////////////////
+	/**
+	 * Displays a modal dialog in which the user may enter a list of filename patterns of the form <code>*<i>suffix</i>
+	 * </code>, and removes from the list of locations that is displayed in the list view all the elements whose
+	 * filenames do not end with any of the suffixes.  The suffixes are compiled into a single matcher, so that the cost
+	 * of filtering does not depend on the number of suffixes, and the matcher is applied to the filename of each
+	 * location, so that no pathname is created.
+	 */
 
-		/**
-		 * Returns a string representation of the specified file-system location.
-		 *
-		 * @param  location
-		 *           the location for which a string representation is desired.
-		 * @return a string representation of {@code location}.
-		 */
+	private void onKeepLocationsBySuffix()
+	{
+		// Get filename patterns from user
+		String patterns = SuffixFilterDialog.show(primaryStage, suffixFilterPatterns);
+		if (patterns != null)
+		{
+			// Update instance variable
+			suffixFilterPatterns = patterns;
 
-		protected abstract String locationToString(
-			Path	location);
+			// Remove locations that do not match any suffix
+			SuffixMatcher matcher = PathnameUtils.suffixMatcher(SuffixFilterDialog.parseSuffixes(patterns));
+			locations.removeIf(location ->
+			{
+				String filename = location.getFileName();
+				return (filename == null) || !matcher.matches(filename);
+			});
 
-		//--------------------------------------------------------------
+			// Update 'edit' menu
+			updateEditMenu();
+		}
+	}
 
-	////////////////////////////////////////////////////////////////////
-	//  Instance methods : overriding methods
-	////////////////////////////////////////////////////////////////////
+	//------------------------------------------------------------------
 
-		/**
-		 * {@inheritDoc}
-		 */
+	/**
+	 * Removes all elements from the list of locations that is displayed in the list view.
+	 */
+
+	private void onClearLocations()
+	{
+		if (!locations.isEmpty())
+		{
+			// Update instance variable
+			locations.clear();
+
+			// Update 'edit' menu
+			updateEditMenu();
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sorts the locations that are displayed in the list view in the specified order, comparing them with the collation
+	 * that is specified in the user preferences.  The sorted order is determined on a background thread, and the list
+	 * view is then notified of it as a single permutation.
+	 *
+	 * @param order
+	 *          the order in which the locations will be sorted.
+	 */
 
-		@Override
-		public String toString()
+	private void onSortLocations(
+		LocationSorter.Order	order)
+	{
+		if ((locations.size() > 1) && ingesters.isEmpty())
 		{
-			String str = text;
-			if (this == NATIVE)
+			// Start sort
+			sorter.sort(locations.toArray(Location[]::new), order, preferences.getSortCollation(), sortedLocations ->
 			{
-				String osName = System.getProperty(SystemPropertyKey.SYSTEM_NAME);
-				if (osName != null)
-					str += " (" + osName + ")";
-			}
-			return str;
+				// Hide task pane
+				taskPane.setVisible(false);
+
+				// Apply sorted order to list
+				if (sortedLocations != null)
+					locations.reorder(sortedLocations);
+			});
+
+			// Display indeterminate progress of a large sort
+			taskLabel.setText(SORTING_STR);
+			taskProgressBar.progressProperty().unbind();
+			taskProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+			taskPane.setVisible(locations.size() >= SORT_PROGRESS_THRESHOLD);
 		}
+	}
 
-		//--------------------------------------------------------------
+	//------------------------------------------------------------------
 
+	/**
+	 * Displays a modal dialog in which the user preferences can be edited.
+	 */
+
+	private void onEditPreferences()
+	{
+		Preferences result = PreferencesDialog.show(primaryStage, preferences);
+		if (result != null)
+		{
+			// Prefetch metadata of locations if they are now displayed
+			if (result.isShowMetadata() && !preferences.isShowMetadata())
+				metadataCache.prefetch(locations);
+
+			// Discard renderings of pathname templates that have been removed
+			List<PathnameTemplate> templates = result.getPathnameTemplates();
+			boolean templatesChanged = !templates.equals(preferences.getPathnameTemplates());
+			for (PathnameTemplate template : preferences.getPathnameTemplates())
+			{
+				if (!templates.contains(template))
+					renderingCache.remove(template);
+			}
+
+			// Update instance variable
+			preferences = result;
+
+			// Update pathname formats of spinner, retaining the selected format if it has not been removed
+			if (templatesChanged)
+			{
+				IPathnameFormat format = formatSpinner.getItem();
+				List<IPathnameFormat> formats = pathnameFormats();
+				formatSpinner.setItems(formats);
+				formatSpinner.setItem(formats.contains(format) ? format : PathnameFormat.NATIVE);
+			}
+
+			// Redraw list view
+			locationsListView.refresh();
+		}
 	}
 
-	//==================================================================
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Enumerated types
+////////////////////////////////////////////////////////////////////////
 
 
 	// ENUMERATION: COMMAND
@@ -1293,6 +1899,17 @@ public class PathnameAssistantApp
 			PathnameAssistantApp.instance::onCopyParentPathname
 		),
 
+		/**
+		 * Copy the pathname of the nearest common ancestor of the items in the list of locations to the system
+		 * clipboard.
+		 */
+		COPY_COMMON_PARENT
+		(
+			"Copy common parent",
+			null,
+			PathnameAssistantApp.instance::onCopyCommonParent
+		),
+
 		/**
 		 * Append file-system locations from the system clipboard to the list of locations.
 		 */
@@ -1303,6 +1920,16 @@ public class PathnameAssistantApp
 			PathnameAssistantApp.instance::onPaste
 		),
 
+		/**
+		 * Represent the items in the list of locations relative to the selected item.
+		 */
+		SET_BASE_LOCATION
+		(
+			"Set base location",
+			null,
+			PathnameAssistantApp.instance::onSetBaseLocation
+		),
+
 		/**
 		 * Remove the selected item from the list of locations.
 		 */
@@ -1313,6 +1940,26 @@ public class PathnameAssistantApp
 			PathnameAssistantApp.instance::onDeleteLocation
 		),
 
+		/**
+		 * Remove the items that no longer exist from the list of locations.
+		 */
+		REMOVE_MISSING_LOCATIONS
+		(
+			"Remove missing locations",
+			null,
+			PathnameAssistantApp.instance::onRemoveMissingLocations
+		),
+
+		/**
+		 * Keep only the items of the list of locations that end with any of a list of suffixes.
+		 */
+		KEEP_LOCATIONS_BY_SUFFIX
+		(
+			"Keep locations by suffix",
+			null,
+			PathnameAssistantApp.instance::onKeepLocationsBySuffix
+		),
+
 		/**
 		 * Remove all items from the list of locations.
 		 */
@@ -1324,13 +1971,75 @@ public class PathnameAssistantApp
 		),
 
 		/**
-		 * Sort the list of locations lexicographically.
+		 * Sort the list of locations by pathname.
+		 */
+		SORT_BY_PATHNAME
+		(
+			LocationSorter.Order.PATHNAME,
+			new KeyCodeCombination(KeyCode.F9)
+		),
+
+		/**
+		 * Sort the list of locations by filename.
+		 */
+		SORT_BY_FILENAME
+		(
+			LocationSorter.Order.FILENAME,
+			null
+		),
+
+		/**
+		 * Sort the list of locations by filename extension.
 		 */
-		SORT_LOCATIONS
+		SORT_BY_EXTENSION
 		(
-			"Sort locations",
-			new KeyCodeCombination(KeyCode.F9),
-			PathnameAssistantApp.instance::onSortLocations
+			LocationSorter.Order.EXTENSION,
+			null
+		),
+
+		/**
+		 * Sort the list of locations by the pathname of the parent directory.
+		 */
+		SORT_BY_PARENT
+		(
+			LocationSorter.Order.PARENT,
+			null
+		),
+
+		/**
+		 * Sort the list of locations by the number of elements in the pathname.
+		 */
+		SORT_BY_DEPTH
+		(
+			LocationSorter.Order.DEPTH,
+			null
+		),
+
+		/**
+		 * Sort the list of locations by kind (file, directory, etc).
+		 */
+		SORT_BY_KIND
+		(
+			LocationSorter.Order.KIND,
+			null
+		),
+
+		/**
+		 * Sort the list of locations by size.
+		 */
+		SORT_BY_SIZE
+		(
+			LocationSorter.Order.SIZE,
+			null
+		),
+
+		/**
+		 * Sort the list of locations by last-modified time.
+		 */
+		SORT_BY_LAST_MODIFIED_TIME
+		(
+			LocationSorter.Order.LAST_MODIFIED_TIME,
+			null
 		),
 
 		/**
@@ -1384,6 +2093,24 @@ public class PathnameAssistantApp
 
 		//--------------------------------------------------------------
 
+		/**
+		 * Creates a new instance of an enumeration constant for a command that sorts the list of locations.
+		 *
+		 * @param order
+		 *          the order in which the command will sort the list of locations.
+		 * @param keyCombo
+		 *          the key combination that will invoke the command.
+		 */
+
+		private Command(
+			LocationSorter.Order	order,
+			KeyCombination			keyCombo)
+		{
+			this(SORT_BY_STR + order, keyCombo, () -> PathnameAssistantApp.instance.onSortLocations(order));
+		}
+
+		//--------------------------------------------------------------
+
 	////////////////////////////////////////////////////////////////////
 	//  Instance methods
 	////////////////////////////////////////////////////////////////////
@@ -0,0 +1,724 @@
+/*====================================================================*\
+
+PathnameAssistantCli.java
+
+Class: headless command-line interface.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+
+import java.nio.channels.Channels;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.stream.Collectors;
+
+import uk.blankaspect.common.exception2.BaseException;
+import uk.blankaspect.common.exception2.FileException;
+
+import uk.blankaspect.common.filesystem.PathUtils;
+
+import uk.blankaspect.common.function.IFunction1;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: HEADLESS COMMAND-LINE INTERFACE
+
+
+/**
+ * This class implements a command-line interface to the conversions of file-system locations that are performed by the
+ * PathnameAssistant application.  It reads pathnames, one per line, from the standard input or from files that are
+ * named on the command line, and writes the result of converting each pathname to the standard output.  The JavaFX
+ * runtime is neither started nor required.
+ * <p>
+ * Unless the locations are sorted or represented relative to their common ancestor, each line is converted and
+ * written as soon as it has been read, so that the memory that is used does not depend on the number of lines.  If
+ * repeated locations are omitted, the distinct locations are held in a {@link LocationStore}.  If the locations are
+ * sorted or represented relative to their common ancestor, all the locations are read before any are written.
+ * </p>
+ * <p>
+ * The output is encoded into a large buffer that is written directly to the channel of the standard output.
+ * </p>
+ */
+
+public class PathnameAssistantCli
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The size (in bytes) of the buffer of the standard output. */
+	private static final	int		OUTPUT_BUFFER_SIZE	= 1 << 20;
+
+	/** The size (in characters) of the buffer of an input. */
+	private static final	int		INPUT_BUFFER_SIZE	= 1 << 16;
+
+	/** The name that denotes the standard input. */
+	private static final	String	STANDARD_INPUT_NAME	= "-";
+
+	/** The prefix of an option. */
+	private static final	String	OPTION_PREFIX	= "--";
+
+	/** The character that separates the name of an option from its value. */
+	private static final	char	OPTION_VALUE_SEPARATOR	= '=';
+
+	/** The separator of the keys of a list of values. */
+	private static final	String	KEY_SEPARATOR	= ", ";
+
+	/** The exit status that denotes an error in the arguments. */
+	private static final	int		EXIT_STATUS_USAGE	= 2;
+
+	/** The exit status that denotes any other error. */
+	private static final	int		EXIT_STATUS_ERROR	= 1;
+
+	/** The line separator of the output. */
+	private static final	char	LINE_SEPARATOR	= '\n';
+
+	/** The usage message. */
+	private static final	String	USAGE_STR	=
+			"Usage: " + PathnameAssistantCli.class.getName() + " [option ...] [file ...]\n"
+			+ "Reads pathnames, one per line, from each file, or from the standard input if there are no files or\n"
+			+ "a file is '" + STANDARD_INPUT_NAME + "', and writes the converted pathnames to the standard output.\n"
+			+ "Options:\n"
+			+ "  --format=FORMAT        the pathname format (default: native):\n"
+			+ "                           " + keys(PathnameFormat.values(), PathnameFormat::getKey) + "\n"
+			+ "  --template=TEMPLATE    a user-defined pathname template, which replaces the format:\n"
+			+ "                           " + PathnameTemplate.SYNTAX_STR.replace("\n", "\n                           ")
+					+ "\n"
+			+ "  --base=PATHNAME        the base of the relative_to_base format\n"
+			+ "  --extract=PART         the part of each location that is written (default: pathname):\n"
+			+ "                           " + keys(Extract.values(), Extract::getKey) + "\n"
+			+ "  --dedupe               omit repeated locations\n"
+			+ "  --sort=ORDER           sort the locations:\n"
+			+ "                           " + keys(LocationSorter.Order.values(), LocationSorter.Order::getKey) + "\n"
+			+ "  --collation=COLLATION  the collation of a sort (default: standard):\n"
+			+ "                           "
+					+ keys(LocationSorter.Collation.values(), LocationSorter.Collation::getKey) + "\n"
+			+ "  --help                 display this message";
+
+	/** Names of options. */
+	private interface Option
+	{
+		String	BASE		= "base";
+		String	COLLATION	= "collation";
+		String	DEDUPE		= "dedupe";
+		String	EXTRACT		= "extract";
+		String	FORMAT		= "format";
+		String	HELP		= "help";
+		String	SORT		= "sort";
+		String	TEMPLATE	= "template";
+	}
+
+	/** Error messages. */
+	private interface ErrorMsg
+	{
+		String	UNKNOWN_OPTION =
+				"'%s' is not a recognised option.";
+
+		String	OPTION_HAS_NO_VALUE =
+				"The '%s' option does not take a value.";
+
+		String	OPTION_VALUE_MISSING =
+				"The '%s' option requires a value.";
+
+		String	INVALID_OPTION_VALUE =
+				"'%s' is not a valid value of the '%s' option.";
+
+		String	INVALID_BASE =
+				"The base pathname is not valid.";
+
+		String	INVALID_INPUT_PATHNAME =
+				"'%s' is not a valid pathname of a file.";
+
+		String	NO_BASE =
+				"The '%s' format requires the '%s' option.";
+
+		String	ERROR_READING_FILE =
+				"An error occurred when reading the file.";
+
+		String	ERROR_READING_STANDARD_INPUT =
+				"An error occurred when reading the standard input.";
+
+		String	ERROR_WRITING_STANDARD_OUTPUT =
+				"An error occurred when writing the standard output.";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The format in which pathnames are written. */
+	private	IPathnameFormat					format;
+
+	/** The base of the {@link PathnameFormat#RELATIVE_TO_BASE} format. */
+	private	Path							base;
+
+	/** The part of each location that is written. */
+	private	Extract							extract;
+
+	/** Flag: if {@code true}, repeated locations are omitted. */
+	private	boolean							dedupe;
+
+	/** The order in which locations are sorted, or {@code null} if they are not sorted. */
+	private	LocationSorter.Order			order;
+
+	/** The collation with which locations are compared when they are sorted. */
+	private	LocationSorter.Collation		collation;
+
+	/** The names of the inputs. */
+	private	List<String>					inputs;
+
+	/** The charset of the inputs and the standard output. */
+	private	Charset							charset;
+
+	/** The store of locations. */
+	private	LocationStore					store;
+
+	/** The locations that have been read, if they are written only after all inputs have been read. */
+	private	List<Location>					locations;
+
+	/** The function that converts a location to a string in a relative format, or {@code null} if the format is not
+		relative or the base is not known yet. */
+	private	IFunction1<String, Location>	relativeRenderer;
+
+	/** The writer of the standard output. */
+	private	Writer							writer;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of the command-line interface with default options.
+	 */
+
+	private PathnameAssistantCli()
+	{
+		// Initialise instance variables
+		format = PathnameFormat.NATIVE;
+		extract = Extract.PATHNAME;
+		collation = LocationSorter.Collation.STANDARD;
+		inputs = new ArrayList<>();
+		charset = Charset.defaultCharset();
+		store = new LocationStore();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * This is the main method of the command-line interface.
+	 *
+	 * @param args
+	 *          the command-line arguments.
+	 */
+
+	public static void main(
+		String[]	args)
+	{
+		// Parse arguments
+		PathnameAssistantCli cli = new PathnameAssistantCli();
+		try
+		{
+			if (!cli.parseArguments(args))
+			{
+				System.out.println(USAGE_STR);
+				return;
+			}
+		}
+		catch (BaseException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println(USAGE_STR);
+			System.exit(EXIT_STATUS_USAGE);
+		}
+
+		// Convert pathnames
+		try
+		{
+			cli.run();
+		}
+		catch (BaseException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(EXIT_STATUS_ERROR);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a list of the keys of the specified values, separated by commas.
+	 *
+	 * @param  <T>
+	 *           the type of the values.
+	 * @param  values
+	 *           the values whose keys are required.
+	 * @param  keyFunction
+	 *           the function that returns the key of a value.
+	 * @return a list of the keys of {@code values}, separated by commas.
+	 */
+
+	private static <T> String keys(
+		T[]						values,
+		IFunction1<String, T>	keyFunction)
+	{
+		return Arrays.stream(values).map(keyFunction::invoke).collect(Collectors.joining(KEY_SEPARATOR));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the value that is associated with the specified key by the specified function.
+	 *
+	 * @param  <T>
+	 *           the type of the value.
+	 * @param  option
+	 *           the name of the option whose value is {@code key}.
+	 * @param  key
+	 *           the key of the value.
+	 * @param  valueFunction
+	 *           the function that returns the value that is associated with a key, or {@code null} if there is no
+	 *           such value.
+	 * @return the value that is associated with {@code key}.
+	 * @throws BaseException
+	 *           if no value is associated with {@code key}.
+	 */
+
+	private static <T> T optionValue(
+		String					option,
+		String					key,
+		IFunction1<T, String>	valueFunction)
+		throws BaseException
+	{
+		T value = (key == null) ? null : valueFunction.invoke(key);
+		if (value == null)
+		{
+			if (key == null)
+				throw new BaseException(ErrorMsg.OPTION_VALUE_MISSING, option);
+			throw new BaseException(ErrorMsg.INVALID_OPTION_VALUE, key, option);
+		}
+		return value;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Parses the specified command-line arguments and sets the options of this interface from them.
+	 *
+	 * @param  args
+	 *           the command-line arguments.
+	 * @return {@code false} if the usage message was requested; {@code true} otherwise.
+	 * @throws BaseException
+	 *           if an argument is not valid.
+	 */
+
+	private boolean parseArguments(
+		String[]	args)
+		throws BaseException
+	{
+		// Parse arguments
+		boolean options = true;
+		for (String arg : args)
+		{
+			// Add name of input
+			if (!options || !arg.startsWith(OPTION_PREFIX))
+			{
+				inputs.add(arg);
+				continue;
+			}
+
+			// Split option into name and value
+			String name = arg.substring(OPTION_PREFIX.length());
+			String value = null;
+			int index = name.indexOf(OPTION_VALUE_SEPARATOR);
+			if (index >= 0)
+			{
+				value = name.substring(index + 1);
+				name = name.substring(0, index);
+			}
+
+			// An empty option ends the options
+			if (name.isEmpty() && (value == null))
+			{
+				options = false;
+				continue;
+			}
+
+			// Set option
+			switch (name)
+			{
+				case Option.FORMAT    -> format = optionValue(name, value, PathnameFormat::forKey);
+				case Option.TEMPLATE  -> format = PathnameTemplate.compile(optionValue(name, value, key -> key));
+				case Option.EXTRACT   -> extract = optionValue(name, value, Extract::forKey);
+				case Option.SORT      -> order = optionValue(name, value, LocationSorter.Order::forKey);
+				case Option.COLLATION -> collation = optionValue(name, value, LocationSorter.Collation::forKey);
+				case Option.BASE      ->
+				{
+					try
+					{
+						base = PathUtils.abs(Location.FILE_SYSTEM.getPath(optionValue(name, value, key -> key)));
+					}
+					catch (InvalidPathException e)
+					{
+						throw new BaseException(ErrorMsg.INVALID_BASE, e);
+					}
+				}
+				case Option.DEDUPE    ->
+				{
+					if (value != null)
+						throw new BaseException(ErrorMsg.OPTION_HAS_NO_VALUE, name);
+					dedupe = true;
+				}
+				case Option.HELP      ->
+				{
+					return false;
+				}
+				default               -> throw new BaseException(ErrorMsg.UNKNOWN_OPTION, arg);
+			}
+		}
+
+		// Validate base
+		if ((format == PathnameFormat.RELATIVE_TO_BASE) && (base == null))
+			throw new BaseException(ErrorMsg.NO_BASE, PathnameFormat.RELATIVE_TO_BASE.getKey(), Option.BASE);
+
+		// Read from standard input if there are no named inputs
+		if (inputs.isEmpty())
+			inputs.add(STANDARD_INPUT_NAME);
+
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Reads pathnames from the inputs of this interface, and writes the converted locations to the standard output.
+	 *
+	 * @throws BaseException
+	 *           if an error occurs when reading an input or writing the standard output.
+	 */
+
+	private void run()
+		throws BaseException
+	{
+		// Hold locations until all inputs have been read if they are sorted or relative to their common ancestor
+		if ((order != null) || (format == PathnameFormat.RELATIVE_TO_COMMON_ANCESTOR))
+			locations = new ArrayList<>();
+
+		// Set renderer of relative-to-base format
+		if (format == PathnameFormat.RELATIVE_TO_BASE)
+			relativeRenderer = format.renderer(new LocationStore().add(base));
+
+		// Open standard output
+		writer = Channels.newWriter(new FileOutputStream(FileDescriptor.out).getChannel(),
+									charset.newEncoder()
+											.onMalformedInput(CodingErrorAction.REPLACE)
+											.onUnmappableCharacter(CodingErrorAction.REPLACE),
+									OUTPUT_BUFFER_SIZE);
+
+		try
+		{
+			// Read inputs
+			for (String input : inputs)
+			{
+				if (input.equals(STANDARD_INPUT_NAME))
+				{
+					try
+					{
+						read(System.in);
+					}
+					catch (IOException e)
+					{
+						throw new BaseException(ErrorMsg.ERROR_READING_STANDARD_INPUT, e);
+					}
+				}
+				else
+				{
+					Path file = null;
+					try
+					{
+						file = Location.FILE_SYSTEM.getPath(input);
+					}
+					catch (InvalidPathException e)
+					{
+						throw new BaseException(ErrorMsg.INVALID_INPUT_PATHNAME, input);
+					}
+					try (InputStream inStream = Files.newInputStream(file))
+					{
+						read(inStream);
+					}
+					catch (IOException e)
+					{
+						throw new FileException(ErrorMsg.ERROR_READING_FILE, e, file);
+					}
+				}
+			}
+
+			// Write held locations
+			if (locations != null)
+				writeLocations();
+
+			// Flush standard output
+			writer.flush();
+		}
+		catch (IOException e)
+		{
+			throw new BaseException(ErrorMsg.ERROR_WRITING_STANDARD_OUTPUT, e);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Reads pathnames from the specified input stream, one per line, and writes or holds the location of each one.
+	 * Empty lines and invalid pathnames are ignored.
+	 *
+	 * @param  inStream
+	 *           the input stream.
+	 * @throws IOException
+	 *           if an error occurs when reading the input stream or writing the standard output.
+	 */
+
+	private void read(
+		InputStream	inStream)
+		throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inStream, charset), INPUT_BUFFER_SIZE);
+		String line = null;
+		while ((line = reader.readLine()) != null)
+		{
+			// Ignore empty line
+			if (line.isEmpty())
+				continue;
+
+			// Convert line to normalised absolute location; ignore invalid pathname
+			Path path = null;
+			try
+			{
+				path = PathUtils.abs(Location.FILE_SYSTEM.getPath(line));
+			}
+			catch (InvalidPathException e)
+			{
+				continue;
+			}
+
+			// Hold location until all inputs have been read
+			if (locations != null)
+			{
+				Location location = store.add(path);
+				if ((location == null) && !dedupe)
+					location = store.get(path);
+				if (location != null)
+					locations.add(location);
+			}
+
+			// Write location if it is not a repeat
+			else if (dedupe)
+			{
+				Location location = store.add(path);
+				if (location != null)
+					write(path, location);
+			}
+
+			// Write location
+			else
+				write(path, null);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sorts the held locations if a sort order was specified, and writes them to the standard output.
+	 *
+	 * @throws IOException
+	 *           if an error occurs when writing the standard output.
+	 */
+
+	private void writeLocations()
+		throws IOException
+	{
+		// Sort locations
+		Location[] sortedLocations = locations.toArray(Location[]::new);
+		locations = null;
+		if (order != null)
+		{
+			sortedLocations =
+					new LocationSorter(new MetadataCache(null), null).sortNow(sortedLocations, order, collation);
+		}
+
+		// Set renderer of relative-to-common-ancestor format
+		if (format == PathnameFormat.RELATIVE_TO_COMMON_ANCESTOR)
+			relativeRenderer = format.renderer(store.commonAncestor());
+
+		// Write locations
+		for (Location location : sortedLocations)
+			write(null, location);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Writes the specified location to the standard output, followed by a line separator.  Either the path or the
+	 * location from the store may be specified, or both; the path is used when possible, so that the location does not
+	 * have to be converted to a path.
+	 *
+	 * @param  path
+	 *           the path of the location, which may be {@code null} if {@code location} is not {@code null}.
+	 * @param  location
+	 *           the location in the store, which may be {@code null} if {@code path} is not {@code null}.
+	 * @throws IOException
+	 *           if an error occurs when writing the standard output.
+	 */
+
+	private void write(
+		Path		path,
+		Location	location)
+		throws IOException
+	{
+		// Write filename or filename stem
+		if (extract != Extract.PATHNAME)
+		{
+			String filename = String.valueOf((path == null) ? location.getFileName() : path.getFileName());
+			writer.write((extract == Extract.STEM) ? Location.filenameStem(filename) : filename);
+		}
+
+		// Write pathname in absolute format
+		else if (relativeRenderer == null)
+			writer.write((path == null) ? format.locationToString(location) : format.locationToString(path));
+
+		// Write pathname in relative format
+		else if (location != null)
+			writer.write(relativeRenderer.invoke(location));
+
+		// Write pathname of path in relative format, creating a location for it in the store temporarily
+		else
+		{
+			location = store.add(path);
+			writer.write(relativeRenderer.invoke(location));
+			store.remove(location);
+		}
+
+		writer.write(LINE_SEPARATOR);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Enumerated types
+////////////////////////////////////////////////////////////////////////
+
+
+	// ENUMERATION: PART OF LOCATION
+
+
+	/**
+	 * This is an enumeration of the parts of a file-system location that may be written to the standard output.
+	 */
+
+	private enum Extract
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * The pathname of the location, in the selected pathname format.
+		 */
+
+		PATHNAME,
+
+		/**
+		 * The filename of the location.
+		 */
+
+		FILENAME,
+
+		/**
+		 * The filename stem of the location.
+		 */
+
+		STEM;
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the part that is associated with the specified key.
+		 *
+		 * @param  key
+		 *           the key whose associated part is required.
+		 * @return the part that is associated with {@code key}, or {@code null} if there is no such part.
+		 */
+
+		private static Extract forKey(
+			String	key)
+		{
+			return Arrays.stream(values()).filter(value -> value.getKey().equals(key)).findFirst().orElse(null);
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the key of this part.
+		 *
+		 * @return the key of this part.
+		 */
+
+		private String getKey()
+		{
+			return name().toLowerCase();
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
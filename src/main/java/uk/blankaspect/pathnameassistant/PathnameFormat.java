@@ -0,0 +1,574 @@
+/*====================================================================*\
+
+PathnameFormat.java
+
+Enumeration: pathname format.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.File;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+
+import uk.blankaspect.common.filesystem.PathUtils;
+
+import uk.blankaspect.common.function.IFunction1;
+
+import uk.blankaspect.common.misc.SystemUtils;
+
+import uk.blankaspect.common.net.PercentCodec;
+
+//----------------------------------------------------------------------
+
+
+// ENUMERATION: PATHNAME FORMAT
+
+
+/**
+ * This is an enumeration of the available formats of a pathname of a file-system location.
+ */
+
+enum PathnameFormat
+	implements IPathnameFormat
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Adjacent elements of a pathname are separated with a {@linkplain File#separatorChar platform-dependent
+	 * character} ('/' for Unix-like platforms, '\' for Windows).
+	 */
+
+	NATIVE
+	(
+		"Native"
+	)
+	{
+		@Override
+		public String locationToString(
+			Path	location)
+		{
+			return PathUtils.absString(location);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public String locationToString(
+			Location	location)
+		{
+			return location.toString();
+		}
+	},
+
+	/**
+	 * Adjacent elements of a pathname are separated with a '/'.
+	 */
+
+	UNIX_SEPARATOR
+	(
+		"Unix separator"
+	)
+	{
+		@Override
+		public String locationToString(
+			Path	location)
+		{
+			return PathUtils.absStringStd(location);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public String locationToString(
+			Location	location)
+		{
+			return location.toString().replace(File.separatorChar, '/');
+		}
+	},
+
+	/**
+	 * Adjacent elements of a pathname are separated with a '/'.  If the location is the user's home directory or a
+	 * location below it, the pathname of the user's home directory is replaced by '~'.
+	 */
+
+	REDUCED_UNIX
+	(
+		"Reduced Unix"
+	)
+	{
+		@Override
+		public String locationToString(
+			Path	location)
+		{
+			return reducedUnix(PathUtils.absString(location));
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public String locationToString(
+			Location	location)
+		{
+			return reducedUnix(location.toString());
+		}
+	},
+
+	/**
+	 * The file-system location is represented by a file-scheme URI, which is the same as the ASCII string of the
+	 * {@linkplain Path#toUri() URI of its path}.  The URI of a location of a store is composed from its pathname and
+	 * the {@linkplain Location#getDirectory() flag} that indicates whether it is a directory, so that the file system
+	 * is not queried.
+	 */
+
+	URI
+	(
+		"URI"
+	)
+	{
+		@Override
+		public String locationToString(
+			Path	location)
+		{
+			String pathname = location.toAbsolutePath().toString();
+			return composesUri(pathname) ? fileUri(pathname, Files.isDirectory(location))
+										 : location.toUri().toASCIIString();
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public String locationToString(
+			Location	location)
+		{
+			return fileUri(location.toString(), location.getDirectory());
+		}
+	},
+
+	/**
+	 * The pathname of the file-system location is relative to the nearest common ancestor of the list of locations,
+	 * and its elements are separated with a {@linkplain File#separatorChar platform-dependent character}.  If the
+	 * locations have no common ancestor, or if the location is represented on its own, its pathname is absolute.
+	 */
+
+	RELATIVE_TO_COMMON_ANCESTOR
+	(
+		"Relative to common ancestor",
+		true
+	)
+	{
+		@Override
+		public String locationToString(
+			Path	location)
+		{
+			return PathUtils.absString(location);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public String locationToString(
+			Location	location)
+		{
+			return location.toString();
+		}
+	},
+
+	/**
+	 * The pathname of the file-system location is relative to a base location that is chosen by the user, and its
+	 * elements are separated with a {@linkplain File#separatorChar platform-dependent character}.  If no base has
+	 * been chosen, if the location and the base have different roots, or if the location is represented on its
+	 * own, its pathname is absolute.
+	 */
+
+	RELATIVE_TO_BASE
+	(
+		"Relative to base",
+		true
+	)
+	{
+		@Override
+		public String locationToString(
+			Path	location)
+		{
+			return PathUtils.absString(location);
+		}
+
+		//--------------------------------------------------------------
+
+		@Override
+		public String locationToString(
+			Location	location)
+		{
+			return location.toString();
+		}
+	};
+
+	/** The key of the system property whose value is the name of the operating system. */
+	private static final	String	SYSTEM_NAME_KEY	= "os.name";
+
+	/** The pathname of the user's home directory. */
+	private static final	String	USER_HOME_PATHNAME	= SystemUtils.userHomeDirectoryPathname();
+
+	/** The prefix of the file-scheme URI of an absolute pathname. */
+	private static final	String	FILE_URI_PREFIX	= "file://";
+
+	/** The separator of the elements of the path of a URI. */
+	private static final	char	URI_PATH_SEPARATOR	= '/';
+
+	/** A pathname that contains a non-ASCII character, with which the composition of a URI is tested. */
+	private static final	String	NON_ASCII_TEST_PATHNAME	= "/\u00E9";
+
+	/** Flag: if {@code true}, the file-scheme URI of a pathname that contains only ASCII characters may be composed
+		from the pathname.  The URIs of pathnames of the default file system of Unix-like platforms have a path
+		component that is the percent-encoded pathname. */
+	private static final	boolean	COMPOSES_URIS	= (Location.SEPARATOR == URI_PATH_SEPARATOR);
+
+	/** Flag: if {@code true}, the file-scheme URI of any pathname may be composed from the pathname.  The bytes of a
+		pathname that are encoded in a URI are those of the encoding of file names of the platform, which may not be
+		UTF-8, so the composition of a URI of a non-ASCII pathname is tested once. */
+	private static final	boolean	COMPOSES_NON_ASCII_URIS	=
+			COMPOSES_URIS && canComposeUri(NON_ASCII_TEST_PATHNAME);
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The text that represents this format. */
+	private	String	text;
+
+	/** Flag: if {@code true}, this format represents a location relative to a base location. */
+	private	boolean	relative;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of an enumeration constant for a pathname format.
+	 *
+	 * @param text
+	 *          the text that will represent the format.
+	 */
+
+	private PathnameFormat(
+		String	text)
+	{
+		// Call alternative constructor
+		this(text, false);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of an enumeration constant for a pathname format.
+	 *
+	 * @param text
+	 *          the text that will represent the format.
+	 * @param relative
+	 *          if {@code true}, the format represents a location relative to a base location.
+	 */
+
+	private PathnameFormat(
+		String	text,
+		boolean	relative)
+	{
+		// Initialise instance variables
+		this.text = text;
+		this.relative = relative;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Abstract methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	@Override
+	public abstract String locationToString(
+		Path	location);
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	@Override
+	public abstract String locationToString(
+		Location	location);
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the pathname format that is associated with the specified key.
+	 *
+	 * @param  key
+	 *           the key whose associated pathname format is required.
+	 * @return the pathname format that is associated with {@code key}, or {@code null} if there is no such format.
+	 */
+
+	static PathnameFormat forKey(
+		String	key)
+	{
+		return Arrays.stream(values()).filter(value -> value.getKey().equals(key)).findFirst().orElse(null);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the specified pathname in the {@link #REDUCED_UNIX} format.
+	 *
+	 * @param  pathname
+	 *           the pathname of interest.
+	 * @return {@code pathname} in the reduced Unix format.
+	 */
+
+	static String reducedUnix(
+		String	pathname)
+	{
+		StringBuilder buffer = new StringBuilder(pathname.length());
+		appendReducedUnix(pathname, buffer);
+		return buffer.toString();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Appends the specified pathname to the specified buffer in the {@link #REDUCED_UNIX} format: if the pathname
+	 * starts with the pathname of the user's home directory, that prefix is replaced by '~', and each {@linkplain
+	 * File#separatorChar platform-dependent separator} is replaced by '/'.
+	 *
+	 * @param pathname
+	 *          the pathname that will be appended to {@code buffer}.
+	 * @param buffer
+	 *          the buffer to which the reduced form of {@code pathname} will be appended.
+	 */
+
+	private static void appendReducedUnix(
+		String			pathname,
+		StringBuilder	buffer)
+	{
+		// Replace prefix of user's home directory
+		int index = 0;
+		if (pathname.startsWith(USER_HOME_PATHNAME))
+		{
+			buffer.append('~');
+			index = USER_HOME_PATHNAME.length();
+		}
+
+		// Append remainder of pathname, replacing separators
+		char separator = File.separatorChar;
+		int length = pathname.length();
+		if (separator == '/')
+			buffer.append(pathname, index, length);
+		else
+		{
+			buffer.ensureCapacity(buffer.length() + length - index);
+			for (int i = index; i < length; i++)
+			{
+				char ch = pathname.charAt(i);
+				buffer.append((ch == separator) ? '/' : ch);
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the file-scheme URI of the location that has the specified absolute pathname.  The URI is the same as the
+	 * ASCII string of the {@linkplain Path#toUri() URI of the path} of the location.  If possible, it is composed from
+	 * the percent-encoded pathname, to which a '/' is appended if the location is a directory; otherwise, it is
+	 * obtained from the path.
+	 *
+	 * @param  pathname
+	 *           the absolute pathname of the location.
+	 * @param  directory
+	 *           {@code true} if the location is a directory; {@code false} if it is not a directory; {@code null} if it
+	 *           is not known whether the location is a directory, in which case the file system is queried.
+	 * @return the file-scheme URI of the location whose pathname is {@code pathname}.
+	 */
+
+	static String fileUri(
+		String	pathname,
+		Boolean	directory)
+	{
+		// If URI cannot be composed from pathname, get it from path
+		if (!composesUri(pathname))
+			return Location.FILE_SYSTEM.getPath(pathname).toUri().toASCIIString();
+
+		// Compose URI from encoded pathname
+		StringBuilder buffer = new StringBuilder(FILE_URI_PREFIX.length() + 2 * pathname.length() + 1);
+		buffer.append(FILE_URI_PREFIX);
+		PercentCodec.encodePath(pathname, buffer);
+
+		// Append separator if location is a directory
+		if ((buffer.charAt(buffer.length() - 1) != URI_PATH_SEPARATOR)
+				&& ((directory == null) ? Files.isDirectory(Location.FILE_SYSTEM.getPath(pathname)) : directory))
+			buffer.append(URI_PATH_SEPARATOR);
+
+		// Return URI
+		return buffer.toString();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the file-scheme URI of the specified absolute pathname may be {@linkplain
+	 * #fileUri(String, Boolean) composed} from the pathname.
+	 *
+	 * @param  pathname
+	 *           the absolute pathname of interest.
+	 * @return {@code true} if the file-scheme URI of {@code pathname} may be composed from it.
+	 */
+
+	private static boolean composesUri(
+		String	pathname)
+	{
+		return COMPOSES_URIS && (COMPOSES_NON_ASCII_URIS || isAscii(pathname));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the URI that is {@linkplain #fileUri(String, Boolean) composed} from the specified
+	 * absolute pathname is the same as the URI of its path.
+	 *
+	 * @param  pathname
+	 *           the absolute pathname of interest.
+	 * @return {@code true} if the URI that is composed from {@code pathname} is the same as the URI of its path.
+	 */
+
+	private static boolean canComposeUri(
+		String	pathname)
+	{
+		try
+		{
+			String uri = Location.FILE_SYSTEM.getPath(pathname).toUri().toASCIIString();
+			String composedUri = FILE_URI_PREFIX + PercentCodec.encodePath(pathname);
+			return uri.equals(composedUri) || uri.equals(composedUri + URI_PATH_SEPARATOR);
+		}
+		catch (InvalidPathException e)
+		{
+			return false;
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the specified string contains only ASCII characters.
+	 *
+	 * @param  str
+	 *           the string of interest.
+	 * @return {@code true} if {@code str} contains only ASCII characters.
+	 */
+
+	private static boolean isAscii(
+		String	str)
+	{
+		int length = str.length();
+		for (int i = 0; i < length; i++)
+		{
+			if (str.charAt(i) >= 0x80)
+				return false;
+		}
+		return true;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the key of this pathname format.
+	 *
+	 * @return the key of this pathname format.
+	 */
+
+	String getKey()
+	{
+		return name().toLowerCase();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods : overriding methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If this format is relative and a base location is specified, the function converts a location to its pathname
+	 * relative to the base, or to its {@linkplain #locationToString(Location) absolute representation} if the location
+	 * and the base have different roots.
+	 * </p>
+	 */
+
+	@Override
+	public IFunction1<String, Location> renderer(
+		Location	base)
+	{
+		if (!relative || (base == null))
+			return this::locationToString;
+
+		return location ->
+		{
+			String pathname = location.relativePathname(base);
+			return (pathname == null) ? locationToString(location) : pathname;
+		};
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	@Override
+	public String toString()
+	{
+		String str = text;
+		if (this == NATIVE)
+		{
+			String osName = System.getProperty(SYSTEM_NAME_KEY);
+			if (osName != null)
+				str += " (" + osName + ")";
+		}
+		return str;
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,937 @@
+/*====================================================================*\
+
+PathnameTemplate.java
+
+Class: user-defined pathname template.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.io.File;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import uk.blankaspect.common.exception2.BaseException;
+
+import uk.blankaspect.common.filesystem.PathUtils;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: USER-DEFINED PATHNAME TEMPLATE
+
+
+/**
+ * This class implements a {@linkplain IPathnameFormat pathname format} that is defined by the user as a template, such
+ * as <code>{parent}/{stem}.{ext}</code>.  A template consists of literal text and placeholders: a placeholder is the
+ * key of a {@linkplain Placeholder part of a location} between braces, optionally followed by a colon and a modifier,
+ * such as <code>{abs:shell}</code>.  A literal brace is denoted by a pair of braces.
+ * <p>
+ * A template is {@linkplain #compile(String) compiled} once into a sequence of literal and placeholder segments, so
+ * that a location is rendered in a single pass over the segments without parsing the template again.  A template
+ * represents a location by its absolute path; it is not relative to a base location.
+ * </p>
+ * <p>
+ * Instances of this class are immutable.  Two templates are equal if their sources are equal.
+ * </p>
+ */
+
+class PathnameTemplate
+	implements IPathnameFormat
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The character that starts a placeholder. */
+	private static final	char	PLACEHOLDER_PREFIX	= '{';
+
+	/** The character that ends a placeholder. */
+	private static final	char	PLACEHOLDER_SUFFIX	= '}';
+
+	/** The character that separates the key of a placeholder from its modifier. */
+	private static final	char	MODIFIER_SEPARATOR	= ':';
+
+	/** The modifier that quotes the value of a placeholder for a POSIX shell. */
+	private static final	String	SHELL_MODIFIER	= "shell";
+
+	/** The character that quotes a string for a POSIX shell. */
+	private static final	char	SHELL_QUOTE	= '\'';
+
+	/** The sequence that replaces a quote character within a quoted string for a POSIX shell. */
+	private static final	String	ESCAPED_SHELL_QUOTE	= "'\\''";
+
+	/** The characters, other than ASCII letters and digits, that need not be quoted for a POSIX shell. */
+	private static final	String	SHELL_SAFE_CHARS	= "%+,-./:=@_";
+
+	/** Flags that indicate whether each ASCII character need not be quoted for a POSIX shell, indexed by character. */
+	private static final	boolean[]	SHELL_SAFE	= new boolean[128];
+
+	/** The number of characters in addition to the length of the absolute pathname of a location that is allowed for
+		the value of each placeholder when the buffer for the rendering of the location is allocated. */
+	private static final	int		PLACEHOLDER_EXTRA_CAPACITY	= 16;
+
+	/** The separator of the keys of a list of placeholders. */
+	private static final	String	KEY_SEPARATOR	= ", ";
+
+	/** A description of the syntax of a template. */
+	static final	String	SYNTAX_STR	=
+			"A template contains placeholders between braces, such as {parent}/{stem}.{ext}.\n"
+			+ "Placeholders: " + Arrays.stream(Placeholder.values())
+										.map(Placeholder::getKey)
+										.collect(Collectors.joining(KEY_SEPARATOR)) + ".\n"
+			+ "The value of a placeholder is quoted for a shell with a modifier, such as {abs:"
+					+ SHELL_MODIFIER + "}.\n"
+			+ "A literal brace is denoted by a pair of braces.";
+
+	/** Error messages. */
+	private interface ErrorMsg
+	{
+		String	EMPTY_TEMPLATE =
+				"The template is empty.";
+
+		String	NO_PLACEHOLDER =
+				"The template '%s' contains no placeholder.";
+
+		String	UNCLOSED_PLACEHOLDER =
+				"The placeholder at position %d of the template '%s' is not closed.";
+
+		String	UNMATCHED_SUFFIX =
+				"The '%c' at position %d of the template '%s' does not end a placeholder.";
+
+		String	UNKNOWN_PLACEHOLDER =
+				"'%s' is not a recognised placeholder.";
+
+		String	UNKNOWN_MODIFIER =
+				"'%s' is not a recognised modifier of a placeholder.";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The source of this template. */
+	private	String		source;
+
+	/** The literal and placeholder segments of this template. */
+	private	Segment[]	segments;
+
+	/** The total length of the literal segments of this template. */
+	private	int			literalLength;
+
+	/** The number of placeholder segments of this template. */
+	private	int			numPlaceholders;
+
+////////////////////////////////////////////////////////////////////////
+//  Static initialiser
+////////////////////////////////////////////////////////////////////////
+
+	static
+	{
+		for (char ch = '0'; ch <= '9'; ch++)
+			SHELL_SAFE[ch] = true;
+		for (char ch = 'A'; ch <= 'Z'; ch++)
+			SHELL_SAFE[ch] = true;
+		for (char ch = 'a'; ch <= 'z'; ch++)
+			SHELL_SAFE[ch] = true;
+		for (int i = 0; i < SHELL_SAFE_CHARS.length(); i++)
+			SHELL_SAFE[SHELL_SAFE_CHARS.charAt(i)] = true;
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a pathname template.
+	 *
+	 * @param source
+	 *          the source of the template.
+	 * @param segments
+	 *          the segments of the template.
+	 */
+
+	private PathnameTemplate(
+		String			source,
+		List<Segment>	segments)
+	{
+		// Initialise instance variables
+		this.source = source;
+		this.segments = segments.toArray(Segment[]::new);
+		for (Segment segment : segments)
+		{
+			if (segment.placeholder == null)
+				literalLength += segment.literal.length();
+			else
+				++numPlaceholders;
+		}
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Compiles the specified source of a template and returns the resulting template.
+	 *
+	 * @param  source
+	 *           the source of the template.
+	 * @return the template that was compiled from {@code source}.
+	 * @throws BaseException
+	 *           if {@code source} is not a valid template.
+	 */
+
+	static PathnameTemplate compile(
+		String	source)
+		throws BaseException
+	{
+		// Test for empty template
+		if (source.isEmpty())
+			throw new BaseException(ErrorMsg.EMPTY_TEMPLATE);
+
+		// Split source into literal and placeholder segments
+		List<Segment> segments = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		boolean hasPlaceholder = false;
+		int length = source.length();
+		int index = 0;
+		while (index < length)
+		{
+			char ch = source.charAt(index);
+
+			// Append pair of braces to literal as single brace
+			if (((ch == PLACEHOLDER_PREFIX) || (ch == PLACEHOLDER_SUFFIX)) && (index + 1 < length)
+					&& (source.charAt(index + 1) == ch))
+			{
+				literal.append(ch);
+				index += 2;
+			}
+
+			// Parse placeholder
+			else if (ch == PLACEHOLDER_PREFIX)
+			{
+				// Find end of placeholder
+				int end = source.indexOf(PLACEHOLDER_SUFFIX, index + 1);
+				if (end < 0)
+					throw new BaseException(ErrorMsg.UNCLOSED_PLACEHOLDER, index + 1, source);
+
+				// Split placeholder into key and modifier
+				String key = source.substring(index + 1, end);
+				String modifier = null;
+				int separatorIndex = key.indexOf(MODIFIER_SEPARATOR);
+				if (separatorIndex >= 0)
+				{
+					modifier = key.substring(separatorIndex + 1);
+					key = key.substring(0, separatorIndex);
+				}
+
+				// Validate key and modifier
+				Placeholder placeholder = Placeholder.forKey(key);
+				if (placeholder == null)
+					throw new BaseException(ErrorMsg.UNKNOWN_PLACEHOLDER, key);
+				if ((modifier != null) && !modifier.equals(SHELL_MODIFIER))
+					throw new BaseException(ErrorMsg.UNKNOWN_MODIFIER, modifier);
+
+				// Add pending literal and placeholder to segments
+				if (!literal.isEmpty())
+				{
+					segments.add(new Segment(literal.toString(), null, false));
+					literal.setLength(0);
+				}
+				segments.add(new Segment(null, placeholder, modifier != null));
+				hasPlaceholder = true;
+
+				// Advance index to end of placeholder
+				index = end + 1;
+			}
+
+			// Report unmatched end of placeholder
+			else if (ch == PLACEHOLDER_SUFFIX)
+				throw new BaseException(ErrorMsg.UNMATCHED_SUFFIX, ch, index + 1, source);
+
+			// Append character to literal
+			else
+			{
+				literal.append(ch);
+				++index;
+			}
+		}
+
+		// Test for placeholder
+		if (!hasPlaceholder)
+			throw new BaseException(ErrorMsg.NO_PLACEHOLDER, source);
+
+		// Add final literal to segments
+		if (!literal.isEmpty())
+			segments.add(new Segment(literal.toString(), null, false));
+
+		// Create template and return it
+		return new PathnameTemplate(source, segments);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Appends the specified substring of the specified string to the specified buffer, optionally quoting it for a
+	 * POSIX shell.  The substring is quoted only if it is empty or it contains a character that the shell would
+	 * interpret.  A quoted substring is enclosed in single quotes, and each single quote within it is replaced by a
+	 * sequence that closes the quotes, appends an escaped quote and reopens the quotes.
+	 *
+	 * @param str
+	 *          the string that contains the substring that will be appended to {@code buffer}.
+	 * @param start
+	 *          the start index of the substring in {@code str}.
+	 * @param end
+	 *          the end index of the substring in {@code str}.
+	 * @param shellQuoted
+	 *          if {@code true}, the substring will be quoted for a POSIX shell if necessary.
+	 * @param buffer
+	 *          the buffer to which the substring will be appended.
+	 */
+
+	private static void append(
+		String			str,
+		int				start,
+		int				end,
+		boolean			shellQuoted,
+		StringBuilder	buffer)
+	{
+		// Test whether substring needs to be quoted
+		boolean quote = false;
+		if (shellQuoted)
+		{
+			quote = (start == end);
+			for (int i = start; (i < end) && !quote; i++)
+			{
+				char ch = str.charAt(i);
+				quote = (ch >= SHELL_SAFE.length) || !SHELL_SAFE[ch];
+			}
+		}
+
+		// Append quoted substring
+		if (quote)
+		{
+			buffer.append(SHELL_QUOTE);
+			int index;
+			while (((index = str.indexOf(SHELL_QUOTE, start)) >= 0) && (index < end))
+			{
+				buffer.append(str, start, index).append(ESCAPED_SHELL_QUOTE);
+				start = index + 1;
+			}
+			buffer.append(str, start, end).append(SHELL_QUOTE);
+		}
+
+		// Append unquoted substring; append an entire string as a string, which is faster than appending a range
+		else if ((start == 0) && (end == str.length()))
+			buffer.append(str);
+		else
+			buffer.append(str, start, end);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods : overriding methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The location is rendered by appending the literal segments of this template and the values of its placeholder
+	 * segments to a single buffer.  The values of the parent, filename, stem and extension of the location are
+	 * appended as substrings of its absolute pathname, which is obtained only once.  A template that consists of a
+	 * single unmodified placeholder for a pathname returns the pathname directly.
+	 * </p>
+	 */
+
+	@Override
+	public String locationToString(
+		Path	location)
+	{
+		Path absLocation = PathUtils.abs(location);
+		return render(new Parts(absLocation.toString(), absLocation.getNameCount(), null));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The pathname of the location is composed from its name and those of its ancestors, and the {@linkplain
+	 * Location#getDirectory() flag} that indicates whether the location is a directory is used by a placeholder for a
+	 * URI, so that neither a path is created nor the file system queried.
+	 * </p>
+	 */
+
+	@Override
+	public String locationToString(
+		Location	location)
+	{
+		int numNames = 0;
+		for (Location parent = location.getParent(); parent != null; parent = parent.getParent())
+			++numNames;
+		return render(new Parts(location.toString(), numNames, location.getDirectory()));
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	@Override
+	public boolean equals(
+		Object	obj)
+	{
+		if (this == obj)
+			return true;
+
+		return (obj instanceof PathnameTemplate other) && source.equals(other.source);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	@Override
+	public int hashCode()
+	{
+		return source.hashCode();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	@Override
+	public String toString()
+	{
+		return source;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the source of this template.
+	 *
+	 * @return the source of this template.
+	 */
+
+	String getSource()
+	{
+		return source;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Renders the location of the specified parts with this template.
+	 *
+	 * @param  parts
+	 *           the parts of the location that will be rendered.
+	 * @return the rendering of the location of {@code parts}.
+	 */
+
+	private String render(
+		Parts	parts)
+	{
+		// Return value of single unmodified placeholder
+		if (segments.length == 1)
+		{
+			Segment segment = segments[0];
+			if (!segment.shellQuoted)
+				return segment.placeholder.value(parts);
+		}
+
+		// Append segments to buffer
+		StringBuilder buffer = new StringBuilder(literalLength
+									+ numPlaceholders * (parts.pathname.length() + PLACEHOLDER_EXTRA_CAPACITY));
+		for (Segment segment : segments)
+		{
+			if (segment.placeholder == null)
+				buffer.append(segment.literal);
+			else
+				segment.placeholder.append(parts, segment.shellQuoted, buffer);
+		}
+
+		// Return rendering
+		return buffer.toString();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Enumerated types
+////////////////////////////////////////////////////////////////////////
+
+
+	// ENUMERATION: PLACEHOLDER
+
+
+	/**
+	 * This is an enumeration of the parts of a file-system location that may be denoted by a placeholder of a
+	 * template.  The value of a placeholder for a pathname is created as a string; the value of a placeholder for a
+	 * part of a pathname is appended to a buffer as a substring of the absolute pathname of the location.
+	 */
+
+	private enum Placeholder
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Constants
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * The absolute pathname of the location in the {@linkplain PathnameFormat#NATIVE native format}.
+		 */
+
+		ABS
+		(
+			"abs"
+		)
+		{
+			@Override
+			String value(
+				Parts	parts)
+			{
+				return parts.pathname;
+			}
+		},
+
+		/**
+		 * The absolute pathname of the location in the {@linkplain PathnameFormat#UNIX_SEPARATOR Unix-separator
+		 * format}.
+		 */
+
+		UNIX
+		(
+			"unix"
+		)
+		{
+			@Override
+			String value(
+				Parts	parts)
+			{
+				return parts.pathname.replace(File.separatorChar, '/');
+			}
+		},
+
+		/**
+		 * The absolute pathname of the location in the {@linkplain PathnameFormat#REDUCED_UNIX reduced Unix format}.
+		 */
+
+		REDUCED
+		(
+			"reduced"
+		)
+		{
+			@Override
+			String value(
+				Parts	parts)
+			{
+				return PathnameFormat.reducedUnix(parts.pathname);
+			}
+		},
+
+		/**
+		 * The file-scheme URI of the location.
+		 */
+
+		URI
+		(
+			"uri"
+		)
+		{
+			@Override
+			String value(
+				Parts	parts)
+			{
+				return PathnameFormat.fileUri(parts.pathname, parts.directory);
+			}
+		},
+
+		/**
+		 * The absolute pathname of the parent of the location in the native format, or an empty string if the
+		 * location is a root.
+		 */
+
+		PARENT
+		(
+			"parent"
+		)
+		{
+			@Override
+			void append(
+				Parts			parts,
+				boolean			shellQuoted,
+				StringBuilder	buffer)
+			{
+				PathnameTemplate.append(parts.pathname, 0, parts.parentEnd(), shellQuoted, buffer);
+			}
+		},
+
+		/**
+		 * The filename of the location, or an empty string if the location is a root.
+		 */
+
+		NAME
+		(
+			"name"
+		)
+		{
+			@Override
+			void append(
+				Parts			parts,
+				boolean			shellQuoted,
+				StringBuilder	buffer)
+			{
+				String pathname = parts.pathname;
+				PathnameTemplate.append(pathname, parts.nameStart(), pathname.length(), shellQuoted, buffer);
+			}
+		},
+
+		/**
+		 * The filename of the location without its extension and the {@linkplain
+		 * Location#extensionSeparatorIndex(String, int) separator} of the extension, or an empty string if the location
+		 * is a root.
+		 */
+
+		STEM
+		(
+			"stem"
+		)
+		{
+			@Override
+			void append(
+				Parts			parts,
+				boolean			shellQuoted,
+				StringBuilder	buffer)
+			{
+				int separatorIndex = parts.extensionSeparatorIndex();
+				int end = (separatorIndex < 0) ? parts.pathname.length() : separatorIndex;
+				PathnameTemplate.append(parts.pathname, parts.nameStart(), end, shellQuoted, buffer);
+			}
+		},
+
+		/**
+		 * The extension of the filename of the location: the part that follows the {@linkplain
+		 * Location#extensionSeparatorIndex(String, int) separator} of the extension, or an empty string if the filename
+		 * has no extension.
+		 */
+
+		EXT
+		(
+			"ext"
+		)
+		{
+			@Override
+			void append(
+				Parts			parts,
+				boolean			shellQuoted,
+				StringBuilder	buffer)
+			{
+				int separatorIndex = parts.extensionSeparatorIndex();
+				int length = parts.pathname.length();
+				int start = (separatorIndex < 0) ? length : separatorIndex + 1;
+				PathnameTemplate.append(parts.pathname, start, length, shellQuoted, buffer);
+			}
+		};
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The key of this placeholder. */
+		private	String	key;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of an enumeration constant for a placeholder.
+		 *
+		 * @param key
+		 *          the key of the placeholder.
+		 */
+
+		private Placeholder(
+			String	key)
+		{
+			// Initialise instance variables
+			this.key = key;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Class methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the placeholder that is associated with the specified key.
+		 *
+		 * @param  key
+		 *           the key whose associated placeholder is required.
+		 * @return the placeholder that is associated with {@code key}, or {@code null} if there is no such
+		 *         placeholder.
+		 */
+
+		private static Placeholder forKey(
+			String	key)
+		{
+			return Arrays.stream(values()).filter(value -> value.key.equals(key)).findFirst().orElse(null);
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the key of this placeholder.
+		 *
+		 * @return the key of this placeholder.
+		 */
+
+		private String getKey()
+		{
+			return key;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the value of this placeholder for the specified parts of a file-system location.
+		 *
+		 * @param  parts
+		 *           the parts of the location for which the value of this placeholder is desired.
+		 * @return the value of this placeholder for {@code parts}.
+		 */
+
+		String value(
+			Parts	parts)
+		{
+			StringBuilder buffer = new StringBuilder(parts.pathname.length());
+			append(parts, false, buffer);
+			return buffer.toString();
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Appends the value of this placeholder for the specified parts of a file-system location to the specified
+		 * buffer.
+		 *
+		 * @param parts
+		 *          the parts of the location whose value of this placeholder will be appended to {@code buffer}.
+		 * @param shellQuoted
+		 *          if {@code true}, the value will be quoted for a POSIX shell if necessary.
+		 * @param buffer
+		 *          the buffer to which the value will be appended.
+		 */
+
+		void append(
+			Parts			parts,
+			boolean			shellQuoted,
+			StringBuilder	buffer)
+		{
+			String value = value(parts);
+			PathnameTemplate.append(value, 0, value.length(), shellQuoted, buffer);
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member records
+////////////////////////////////////////////////////////////////////////
+
+
+	// RECORD: SEGMENT OF TEMPLATE
+
+
+	/**
+	 * This record encapsulates a segment of a template, which is either literal text or a placeholder.
+	 *
+	 * @param literal
+	 *          the text of a literal segment, or {@code null} for a placeholder.
+	 * @param placeholder
+	 *          the placeholder of a placeholder segment, or {@code null} for a literal.
+	 * @param shellQuoted
+	 *          if {@code true}, the value of the placeholder is quoted for a POSIX shell.
+	 */
+
+	private record Segment(
+		String		literal,
+		Placeholder	placeholder,
+		boolean		shellQuoted)
+	{ }
+
+	//==================================================================
+
+////////////////////////////////////////////////////////////////////////
+//  Member classes : non-inner classes
+////////////////////////////////////////////////////////////////////////
+
+
+	// CLASS: PARTS OF A LOCATION
+
+
+	/**
+	 * This class encapsulates the absolute pathname of a file-system location that is being rendered, and the indices
+	 * of the parts of the pathname, which are found when they are first required.
+	 */
+
+	private static class Parts
+	{
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance variables
+	////////////////////////////////////////////////////////////////////
+
+		/** The normalised absolute pathname of the location. */
+		private	String	pathname;
+
+		/** The number of names of the location below its root. */
+		private	int		numNames;
+
+		/** Flag: if {@code true}, the location is a directory; if {@code null}, it is not known whether the location is
+			a directory. */
+		private	Boolean	directory;
+
+		/** The index of the start of the filename in {@link #pathname}, or -1 if it has not been found. */
+		private	int		nameStart;
+
+		/** The index of the separator of the extension of the filename in {@link #pathname}, -1 if the filename has no
+			extension, or -2 if it has not been found. */
+		private	int		extensionSeparatorIndex;
+
+	////////////////////////////////////////////////////////////////////
+	//  Constructors
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Creates a new instance of the parts of the location that has the specified pathname.
+		 *
+		 * @param pathname
+		 *          the normalised absolute pathname of the location.
+		 * @param numNames
+		 *          the number of names of the location below its root.
+		 * @param directory
+		 *          {@code true} if the location is a directory; {@code false} if it is not a directory; {@code null} if
+		 *          it is not known whether the location is a directory.
+		 */
+
+		private Parts(
+			String	pathname,
+			int		numNames,
+			Boolean	directory)
+		{
+			// Initialise instance variables
+			this.pathname = pathname;
+			this.numNames = numNames;
+			this.directory = directory;
+			nameStart = -1;
+			extensionSeparatorIndex = -2;
+		}
+
+		//--------------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////
+	//  Instance methods
+	////////////////////////////////////////////////////////////////////
+
+		/**
+		 * Returns the index of the start of the filename of the location in its pathname.
+		 *
+		 * @return the index of the start of the filename of the location in its pathname, or the length of the
+		 *         pathname if the location is a root.
+		 */
+
+		private int nameStart()
+		{
+			if (nameStart < 0)
+			{
+				nameStart = (numNames == 0) ? pathname.length() : pathname.lastIndexOf(File.separatorChar) + 1;
+			}
+			return nameStart;
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the index of the end of the pathname of the parent of the location in its pathname.  The pathname of
+		 * a parent that is a root retains its final separator.
+		 *
+		 * @return the index of the end of the pathname of the parent of the location in its pathname, or 0 if the
+		 *         location is a root.
+		 */
+
+		private int parentEnd()
+		{
+			return switch (numNames)
+			{
+				case 0  -> 0;
+				case 1  -> nameStart();
+				default -> nameStart() - 1;
+			};
+		}
+
+		//--------------------------------------------------------------
+
+		/**
+		 * Returns the index of the {@linkplain Location#extensionSeparatorIndex(String, int) separator} of the
+		 * extension of the filename of the location in its pathname.
+		 *
+		 * @return the index of the separator of the extension of the filename of the location in its pathname, or -1
+		 *         if the filename has no extension.
+		 */
+
+		private int extensionSeparatorIndex()
+		{
+			if (extensionSeparatorIndex < -1)
+				extensionSeparatorIndex = Location.extensionSeparatorIndex(pathname, nameStart());
+			return extensionSeparatorIndex;
+		}
+
+		//--------------------------------------------------------------
+
+	}
+
+	//==================================================================
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,485 @@
+/*====================================================================*\
+
+Preferences.java
+
+Class: user preferences.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.blankaspect.common.basictree.MapNode;
+
+import uk.blankaspect.common.exception2.BaseException;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: USER PREFERENCES
+
+
+/**
+ * This class implements the user preferences of the application, other than the theme, which is held by the style
+ * manager.
+ */
+
+class Preferences
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The number of characters in one unit of the maximum length of text that is copied to the clipboard. */
+	static final	int		TEXT_LENGTH_UNIT	= 1_000_000;
+
+	/** The minimum value of the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the
+		clipboard. */
+	static final	int		MIN_MAX_CLIPBOARD_TEXT_LENGTH		= 1;
+
+	/** The maximum value of the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the
+		clipboard. */
+	static final	int		MAX_MAX_CLIPBOARD_TEXT_LENGTH		= 1000;
+
+	/** The default value of the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the
+		clipboard. */
+	static final	int		DEFAULT_MAX_CLIPBOARD_TEXT_LENGTH	= 64;
+
+	/** The value of the maximum depth of the expansion of directories that denotes that the depth is unlimited. */
+	static final	int		UNLIMITED_EXPANSION_DEPTH	= 0;
+
+	/** The minimum value of the maximum depth of the expansion of directories. */
+	static final	int		MIN_MAX_EXPANSION_DEPTH		= 0;
+
+	/** The maximum value of the maximum depth of the expansion of directories. */
+	static final	int		MAX_MAX_EXPANSION_DEPTH		= 99;
+
+	/** The default value of the maximum depth of the expansion of directories. */
+	static final	int		DEFAULT_MAX_EXPANSION_DEPTH	= UNLIMITED_EXPANSION_DEPTH;
+
+	/** The default collation with which locations are compared when they are sorted. */
+	static final	LocationSorter.Collation	DEFAULT_SORT_COLLATION	= LocationSorter.Collation.STANDARD;
+
+	/** Keys of properties. */
+	private interface PropertyKey
+	{
+		String	CLIPBOARD			= "clipboard";
+		String	COLLATION			= "collation";
+		String	DIRECTORIES			= "directories";
+		String	EXPAND				= "expand";
+		String	EXPANSION_FILTER	= "expansionFilter";
+		String	FORMATS				= "formats";
+		String	LIST				= "list";
+		String	MAX_EXPANSION_DEPTH	= "maxExpansionDepth";
+		String	MAX_TEXT_LENGTH		= "maxTextLength";
+		String	SHOW_METADATA		= "showMetadata";
+		String	SORT				= "sort";
+		String	TEMPLATES			= "templates";
+	}
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the clipboard.  Longer text
+		is written to a file, and the file is copied to the clipboard. */
+	private	int							maxClipboardTextLength;
+
+	/** The collation with which locations are compared when they are sorted. */
+	private	LocationSorter.Collation	sortCollation;
+
+	/** Flag: if {@code true}, the kind, size and last-modified time of each location are displayed in the list. */
+	private	boolean						showMetadata;
+
+	/** Flag: if {@code true}, a directory that is dropped or pasted is replaced by the files in the tree below it. */
+	private	boolean						expandDirectories;
+
+	/** The maximum depth to which directories are expanded, or {@link #UNLIMITED_EXPANSION_DEPTH} if the depth is
+		unlimited. */
+	private	int							maxExpansionDepth;
+
+	/** The filename patterns of the form <code>*<i>suffix</i></code> of the files that are added when a directory is
+		expanded.  If there are no patterns, all files are added. */
+	private	String						expansionFilterPatterns;
+
+	/** The user-defined pathname templates, which are offered as pathname formats after the built-in formats. */
+	private	List<PathnameTemplate>		pathnameTemplates;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of user preferences with default values.
+	 */
+
+	Preferences()
+	{
+		// Initialise instance variables
+		maxClipboardTextLength = DEFAULT_MAX_CLIPBOARD_TEXT_LENGTH;
+		sortCollation = DEFAULT_SORT_COLLATION;
+		showMetadata = true;
+		maxExpansionDepth = DEFAULT_MAX_EXPANSION_DEPTH;
+		expansionFilterPatterns = "";
+		pathnameTemplates = new ArrayList<>();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Creates a new instance of user preferences that is a copy of the specified preferences.
+	 *
+	 * @param preferences
+	 *          the preferences that will be copied.
+	 */
+
+	Preferences(
+		Preferences	preferences)
+	{
+		// Initialise instance variables
+		maxClipboardTextLength = preferences.maxClipboardTextLength;
+		sortCollation = preferences.sortCollation;
+		showMetadata = preferences.showMetadata;
+		expandDirectories = preferences.expandDirectories;
+		maxExpansionDepth = preferences.maxExpansionDepth;
+		expansionFilterPatterns = preferences.expansionFilterPatterns;
+		pathnameTemplates = new ArrayList<>(preferences.pathnameTemplates);
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the clipboard.
+	 *
+	 * @return the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the clipboard.
+	 */
+
+	int getMaxClipboardTextLength()
+	{
+		return maxClipboardTextLength;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that is copied to the clipboard.
+	 *
+	 * @param length
+	 *          the maximum length of text (in units of {@link #TEXT_LENGTH_UNIT}) that will be copied to the clipboard.
+	 */
+
+	void setMaxClipboardTextLength(
+		int	length)
+	{
+		maxClipboardTextLength =
+				Math.min(Math.max(MIN_MAX_CLIPBOARD_TEXT_LENGTH, length), MAX_MAX_CLIPBOARD_TEXT_LENGTH);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the maximum number of characters of text that is copied to the clipboard.
+	 *
+	 * @return the maximum number of characters of text that is copied to the clipboard.
+	 */
+
+	long getMaxClipboardTextNumChars()
+	{
+		return (long)maxClipboardTextLength * TEXT_LENGTH_UNIT;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the collation with which locations are compared when they are sorted.
+	 *
+	 * @return the collation with which locations are compared when they are sorted.
+	 */
+
+	LocationSorter.Collation getSortCollation()
+	{
+		return sortCollation;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the collation with which locations are compared when they are sorted.
+	 *
+	 * @param collation
+	 *          the collation with which locations will be compared when they are sorted.
+	 */
+
+	void setSortCollation(
+		LocationSorter.Collation	collation)
+	{
+		sortCollation = (collation == null) ? DEFAULT_SORT_COLLATION : collation;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if the kind, size and last-modified time of each location are displayed in the list.
+	 *
+	 * @return {@code true} if the kind, size and last-modified time of each location are displayed in the list.
+	 */
+
+	boolean isShowMetadata()
+	{
+		return showMetadata;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the flag that determines whether the kind, size and last-modified time of each location are displayed in
+	 * the list.
+	 *
+	 * @param show
+	 *          if {@code true}, the kind, size and last-modified time of each location will be displayed in the list.
+	 */
+
+	void setShowMetadata(
+		boolean	show)
+	{
+		showMetadata = show;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns {@code true} if a directory that is dropped or pasted is replaced by the files in the tree below it.
+	 *
+	 * @return {@code true} if a directory that is dropped or pasted is replaced by the files in the tree below it.
+	 */
+
+	boolean isExpandDirectories()
+	{
+		return expandDirectories;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the flag that determines whether a directory that is dropped or pasted is replaced by the files in the tree
+	 * below it.
+	 *
+	 * @param expand
+	 *          if {@code true}, a directory that is dropped or pasted will be replaced by the files in the tree below
+	 *          it.
+	 */
+
+	void setExpandDirectories(
+		boolean	expand)
+	{
+		expandDirectories = expand;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the maximum depth to which directories are expanded.
+	 *
+	 * @return the maximum depth to which directories are expanded, or {@link #UNLIMITED_EXPANSION_DEPTH} if the depth
+	 *         is unlimited.
+	 */
+
+	int getMaxExpansionDepth()
+	{
+		return maxExpansionDepth;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the maximum depth to which directories are expanded.
+	 *
+	 * @param depth
+	 *          the maximum depth to which directories will be expanded, or {@link #UNLIMITED_EXPANSION_DEPTH} if the
+	 *          depth will be unlimited.
+	 */
+
+	void setMaxExpansionDepth(
+		int	depth)
+	{
+		maxExpansionDepth = Math.min(Math.max(MIN_MAX_EXPANSION_DEPTH, depth), MAX_MAX_EXPANSION_DEPTH);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the filename patterns of the form <code>*<i>suffix</i></code> of the files that are added when a
+	 * directory is expanded.
+	 *
+	 * @return the filename patterns of the files that are added when a directory is expanded, which are empty if all
+	 *         files are added.
+	 */
+
+	String getExpansionFilterPatterns()
+	{
+		return expansionFilterPatterns;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the filename patterns of the form <code>*<i>suffix</i></code> of the files that are added when a directory
+	 * is expanded.
+	 *
+	 * @param patterns
+	 *          the filename patterns of the files that will be added when a directory is expanded.  If it is {@code
+	 *          null} or blank, all files will be added.
+	 */
+
+	void setExpansionFilterPatterns(
+		String	patterns)
+	{
+		expansionFilterPatterns = (patterns == null) ? "" : patterns.strip();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns the user-defined pathname templates.
+	 *
+	 * @return a list of the user-defined pathname templates.
+	 */
+
+	List<PathnameTemplate> getPathnameTemplates()
+	{
+		return pathnameTemplates;
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Sets the user-defined pathname templates.  Any repeated template is ignored.
+	 *
+	 * @param templates
+	 *          the user-defined pathname templates.
+	 */
+
+	void setPathnameTemplates(
+		List<PathnameTemplate>	templates)
+	{
+		pathnameTemplates = new ArrayList<>(templates.size());
+		for (PathnameTemplate template : templates)
+		{
+			if (!pathnameTemplates.contains(template))
+				pathnameTemplates.add(template);
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Encodes these preferences to the specified map node.
+	 *
+	 * @param rootNode
+	 *          the node to which the preferences will be encoded.
+	 */
+
+	void encode(
+		MapNode	rootNode)
+	{
+		rootNode.addMap(PropertyKey.CLIPBOARD).addInt(PropertyKey.MAX_TEXT_LENGTH, maxClipboardTextLength);
+		rootNode.addMap(PropertyKey.SORT).addString(PropertyKey.COLLATION, sortCollation.getKey());
+		rootNode.addMap(PropertyKey.LIST).addBoolean(PropertyKey.SHOW_METADATA, showMetadata);
+		MapNode directoriesNode = rootNode.addMap(PropertyKey.DIRECTORIES);
+		directoriesNode.addBoolean(PropertyKey.EXPAND, expandDirectories);
+		directoriesNode.addInt(PropertyKey.MAX_EXPANSION_DEPTH, maxExpansionDepth);
+		directoriesNode.addString(PropertyKey.EXPANSION_FILTER, expansionFilterPatterns);
+		rootNode.addMap(PropertyKey.FORMATS).addStrings(PropertyKey.TEMPLATES,
+														pathnameTemplates.stream().map(PathnameTemplate::getSource)
+																.toList());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Decodes these preferences from the specified map node.
+	 *
+	 * @param rootNode
+	 *          the node from which the preferences will be decoded.
+	 */
+
+	void decode(
+		MapNode	rootNode)
+	{
+		// Decode properties of clipboard
+		String key = PropertyKey.CLIPBOARD;
+		if (rootNode.hasMap(key))
+		{
+			setMaxClipboardTextLength(rootNode.getMapNode(key).getInt(PropertyKey.MAX_TEXT_LENGTH,
+																	   DEFAULT_MAX_CLIPBOARD_TEXT_LENGTH));
+		}
+
+		// Decode properties of sorting
+		key = PropertyKey.SORT;
+		if (rootNode.hasMap(key))
+		{
+			setSortCollation(LocationSorter.Collation.forKey(
+					rootNode.getMapNode(key).getString(PropertyKey.COLLATION, DEFAULT_SORT_COLLATION.getKey())));
+		}
+
+		// Decode properties of list
+		key = PropertyKey.LIST;
+		if (rootNode.hasMap(key))
+			setShowMetadata(rootNode.getMapNode(key).getBoolean(PropertyKey.SHOW_METADATA, true));
+
+		// Decode properties of directories
+		key = PropertyKey.DIRECTORIES;
+		if (rootNode.hasMap(key))
+		{
+			MapNode directoriesNode = rootNode.getMapNode(key);
+			setExpandDirectories(directoriesNode.getBoolean(PropertyKey.EXPAND, false));
+			setMaxExpansionDepth(directoriesNode.getInt(PropertyKey.MAX_EXPANSION_DEPTH, DEFAULT_MAX_EXPANSION_DEPTH));
+			setExpansionFilterPatterns(directoriesNode.getString(PropertyKey.EXPANSION_FILTER, ""));
+		}
+
+		// Decode properties of pathname formats; ignore any template that is not valid
+		key = PropertyKey.FORMATS;
+		if (rootNode.hasMap(key))
+		{
+			MapNode formatsNode = rootNode.getMapNode(key);
+			if (formatsNode.hasList(PropertyKey.TEMPLATES))
+			{
+				List<PathnameTemplate> templates = new ArrayList<>();
+				for (String source : formatsNode.getListNode(PropertyKey.TEMPLATES).getStringList())
+				{
+					try
+					{
+						templates.add(PathnameTemplate.compile(source));
+					}
+					catch (BaseException e)
+					{
+						// ignore
+					}
+				}
+				setPathnameTemplates(templates);
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
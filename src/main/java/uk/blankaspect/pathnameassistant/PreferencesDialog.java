@@ -20,28 +20,43 @@ package uk.blankaspect.pathnameassistant;
 
 import java.lang.invoke.MethodHandles;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
+import java.util.stream.Collectors;
+
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.VPos;
 
 import javafx.scene.control.Button;
-
-import javafx.scene.layout.HBox;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
+
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Region;
 
 import javafx.stage.Window;
 
+import uk.blankaspect.common.exception2.BaseException;
+
 import uk.blankaspect.common.function.IProcedure1;
 
 import uk.blankaspect.ui.jfx.button.Buttons;
 
+import uk.blankaspect.ui.jfx.dialog.ErrorDialog;
 import uk.blankaspect.ui.jfx.dialog.SimpleModalDialog;
 
 import uk.blankaspect.ui.jfx.label.Labels;
 
 import uk.blankaspect.ui.jfx.spinner.CollectionSpinner;
+import uk.blankaspect.ui.jfx.spinner.IntRangeSpinner;
 
 import uk.blankaspect.ui.jfx.style.StyleManager;
 
@@ -56,7 +71,7 @@ import uk.blankaspect.ui.jfx.style.StyleManager;
  */
 
 class PreferencesDialog
-	extends SimpleModalDialog<Boolean>
+	extends SimpleModalDialog<Preferences>
 {
 
 ////////////////////////////////////////////////////////////////////////
@@ -66,19 +81,48 @@ class PreferencesDialog
 	/** The horizontal gap between adjacent components of the control pane. */
 	private static final	double	CONTROL_PANE_H_GAP	= 6.0;
 
+	/** The vertical gap between adjacent components of the control pane. */
+	private static final	double	CONTROL_PANE_V_GAP	= 6.0;
+
 	/** The padding around the control pane. */
 	private static final	Insets	CONTROL_PANE_PADDING	= new Insets(6.0, 12.0, 6.0, 12.0);
 
+	/** The preferred number of columns of the text field for the filter of expanded files. */
+	private static final	int		EXPANSION_FILTER_NUM_COLUMNS	= 24;
+
+	/** The preferred number of columns of the text area for pathname templates. */
+	private static final	int		TEMPLATES_NUM_COLUMNS	= 32;
+
+	/** The preferred number of rows of the text area for pathname templates. */
+	private static final	int		TEMPLATES_NUM_ROWS		= 4;
+
+	/** The separator of pathname templates in the text area. */
+	private static final	String	TEMPLATE_SEPARATOR	= "\n";
+
 	/** Miscellaneous strings. */
-	private static final	String	PREFERENCES_STR		= "Preferences";
-	private static final	String	COLOUR_SCHEME_STR	= "Colour scheme";
+	private static final	String	PREFERENCES_STR					= "Preferences";
+	private static final	String	COLOUR_SCHEME_STR				= "Colour scheme";
+	private static final	String	MAX_CLIPBOARD_TEXT_LENGTH_STR	= "Maximum length of copied text";
+	private static final	String	MILLION_CHARS_STR				= "M characters";
+	private static final	String	SORT_COLLATION_STR				= "Sort collation";
+	private static final	String	SHOW_METADATA_STR				= "Show type, size and modification time";
+	private static final	String	EXPAND_DIRECTORIES_STR			= "Expand dropped or pasted directories";
+	private static final	String	MAX_EXPANSION_DEPTH_STR			= "Maximum depth of expansion";
+	private static final	String	NO_LIMIT_STR					= "No limit";
+	private static final	String	EXPANSION_FILTER_STR			= "Filename patterns of expanded files";
+	private static final	String	EXPANSION_FILTER_PROMPT_STR		= "All files";
+	private static final	String	PATHNAME_TEMPLATES_STR			= "Pathname templates";
+	private static final	String	TEMPLATES_PROMPT_STR			= "One template per line";
 
 ////////////////////////////////////////////////////////////////////////
 //  Instance variables
 ////////////////////////////////////////////////////////////////////////
 
 	/** Flag: if {@code true}, this dialog was accepted. */
-	private	boolean	accepted;
+	private	boolean		accepted;
+
+	/** The preferences that were edited in this dialog. */
+	private	Preferences	result;
 
 ////////////////////////////////////////////////////////////////////////
 //  Constructors
@@ -89,10 +133,13 @@ class PreferencesDialog
 	 *
 	 * @param owner
 	 *          the window that will be the owner of this dialog, or {@code null} if the dialog has no owner.
+	 * @param preferences
+	 *          the preferences that will be edited in the dialog.
 	 */
 
 	private PreferencesDialog(
-		Window	owner)
+		Window		owner,
+		Preferences	preferences)
 	{
 		// Call superclass constructor
 		super(owner, MethodHandles.lookup().lookupClass().getCanonicalName(), null, PREFERENCES_STR);
@@ -118,12 +165,82 @@ class PreferencesDialog
 											 id -> styleManager.findTheme(id).name());
 		themeSpinner.itemProperty().addListener((observable, oldId, id) -> selectTheme.invoke(id));
 
+		// Create spinner: maximum length of clipboard text
+		IntRangeSpinner maxClipboardTextLengthSpinner =
+				IntRangeSpinner.leftRightH(HPos.RIGHT, false, Preferences.MIN_MAX_CLIPBOARD_TEXT_LENGTH,
+										   Preferences.MAX_MAX_CLIPBOARD_TEXT_LENGTH,
+										   preferences.getMaxClipboardTextLength(), null,
+										   value -> value + " " + MILLION_CHARS_STR);
+
+		// Create spinner: sort collation
+		CollectionSpinner<LocationSorter.Collation> sortCollationSpinner =
+				CollectionSpinner.leftRightH(HPos.CENTER, true, LocationSorter.Collation.class,
+											 preferences.getSortCollation(), null, null);
+
+		// Create check box: show metadata
+		CheckBox showMetadataCheckBox = new CheckBox(SHOW_METADATA_STR);
+		showMetadataCheckBox.setSelected(preferences.isShowMetadata());
+
+		// Create check box: expand directories
+		CheckBox expandDirectoriesCheckBox = new CheckBox(EXPAND_DIRECTORIES_STR);
+		expandDirectoriesCheckBox.setSelected(preferences.isExpandDirectories());
+
+		// Create spinner: maximum depth of expansion
+		IntRangeSpinner maxExpansionDepthSpinner =
+				IntRangeSpinner.leftRightH(HPos.RIGHT, false, Preferences.MIN_MAX_EXPANSION_DEPTH,
+										   Preferences.MAX_MAX_EXPANSION_DEPTH, preferences.getMaxExpansionDepth(),
+										   NO_LIMIT_STR,
+										   value -> (value == Preferences.UNLIMITED_EXPANSION_DEPTH)
+																	? NO_LIMIT_STR
+																	: Integer.toString(value));
+		maxExpansionDepthSpinner.disableProperty().bind(expandDirectoriesCheckBox.selectedProperty().not());
+
+		// Create text field: filter of expanded files
+		TextField expansionFilterField = new TextField(preferences.getExpansionFilterPatterns());
+		expansionFilterField.setPrefColumnCount(EXPANSION_FILTER_NUM_COLUMNS);
+		expansionFilterField.setPromptText(EXPANSION_FILTER_PROMPT_STR);
+		expansionFilterField.disableProperty().bind(expandDirectoriesCheckBox.selectedProperty().not());
+
+		// Create text area: pathname templates
+		TextArea templatesTextArea = new TextArea(preferences.getPathnameTemplates().stream()
+															.map(PathnameTemplate::getSource)
+															.collect(Collectors.joining(TEMPLATE_SEPARATOR)));
+		templatesTextArea.setPrefColumnCount(TEMPLATES_NUM_COLUMNS);
+		templatesTextArea.setPrefRowCount(TEMPLATES_NUM_ROWS);
+		templatesTextArea.setPromptText(TEMPLATES_PROMPT_STR);
+		templatesTextArea.setTooltip(new Tooltip(PathnameTemplate.SYNTAX_STR));
+
 		// Create control pane
-		HBox controlPane = new HBox(CONTROL_PANE_H_GAP, Labels.hNoShrink(COLOUR_SCHEME_STR), themeSpinner);
+		GridPane controlPane = new GridPane();
+		controlPane.setHgap(CONTROL_PANE_H_GAP);
+		controlPane.setVgap(CONTROL_PANE_V_GAP);
 		controlPane.setMaxWidth(Region.USE_PREF_SIZE);
-		controlPane.setAlignment(Pos.CENTER_LEFT);
+		controlPane.setAlignment(Pos.CENTER);
 		controlPane.setPadding(CONTROL_PANE_PADDING);
 
+		// Set column constraints
+		ColumnConstraints column = new ColumnConstraints();
+		column.setMinWidth(Region.USE_PREF_SIZE);
+		column.setHalignment(HPos.RIGHT);
+		controlPane.getColumnConstraints().add(column);
+
+		column = new ColumnConstraints();
+		column.setHalignment(HPos.LEFT);
+		controlPane.getColumnConstraints().add(column);
+
+		// Add controls to control pane
+		int row = 0;
+		controlPane.addRow(row++, Labels.hNoShrink(COLOUR_SCHEME_STR), themeSpinner);
+		controlPane.addRow(row++, Labels.hNoShrink(MAX_CLIPBOARD_TEXT_LENGTH_STR), maxClipboardTextLengthSpinner);
+		controlPane.addRow(row++, Labels.hNoShrink(SORT_COLLATION_STR), sortCollationSpinner);
+		controlPane.add(showMetadataCheckBox, 1, row++);
+		controlPane.add(expandDirectoriesCheckBox, 1, row++);
+		controlPane.addRow(row++, Labels.hNoShrink(MAX_EXPANSION_DEPTH_STR), maxExpansionDepthSpinner);
+		controlPane.addRow(row++, Labels.hNoShrink(EXPANSION_FILTER_STR), expansionFilterField);
+		Label templatesLabel = Labels.hNoShrink(PATHNAME_TEMPLATES_STR);
+		GridPane.setValignment(templatesLabel, VPos.TOP);
+		controlPane.addRow(row++, templatesLabel, templatesTextArea);
+
 		// Add control pane to content pane
 		addContent(controlPane);
 
@@ -132,9 +249,38 @@ class PreferencesDialog
 		okButton.getProperties().put(BUTTON_GROUP_KEY, BUTTON_GROUP1);
 		okButton.setOnAction(event ->
 		{
+			// Compile pathname templates
+			List<PathnameTemplate> templates = new ArrayList<>();
+			for (String source : templatesTextArea.getText().split(TEMPLATE_SEPARATOR))
+			{
+				if (!source.isBlank())
+				{
+					try
+					{
+						templates.add(PathnameTemplate.compile(source.strip()));
+					}
+					catch (BaseException e)
+					{
+						ErrorDialog.show(this, PATHNAME_TEMPLATES_STR, e);
+						templatesTextArea.requestFocus();
+						return;
+					}
+				}
+			}
+
 			// Indicate that dialog was accepted
 			accepted = true;
 
+			// Create result
+			result = new Preferences(preferences);
+			result.setMaxClipboardTextLength(maxClipboardTextLengthSpinner.value());
+			result.setSortCollation(sortCollationSpinner.getItem());
+			result.setShowMetadata(showMetadataCheckBox.isSelected());
+			result.setExpandDirectories(expandDirectoriesCheckBox.isSelected());
+			result.setMaxExpansionDepth(maxExpansionDepthSpinner.value());
+			result.setExpansionFilterPatterns(expansionFilterField.getText());
+			result.setPathnameTemplates(templates);
+
 			// Close dialog
 			requestClose();
 		});
@@ -166,10 +312,21 @@ class PreferencesDialog
 //  Class methods
 ////////////////////////////////////////////////////////////////////////
 
-	public static void show(
-		Window	owner)
+	/**
+	 * Displays a modal dialog in which the specified user preferences may be edited.
+	 *
+	 * @param  owner
+	 *           the window that will be the owner of the dialog, or {@code null} if the dialog has no owner.
+	 * @param  preferences
+	 *           the preferences that will be edited in the dialog.
+	 * @return the edited preferences if the dialog was accepted, or {@code null} if the dialog was cancelled.
+	 */
+
+	public static Preferences show(
+		Window		owner,
+		Preferences	preferences)
 	{
-		new PreferencesDialog(owner).showDialog();
+		return new PreferencesDialog(owner, preferences).showDialog();
 	}
 
 	//------------------------------------------------------------------
@@ -179,9 +336,9 @@ class PreferencesDialog
 ////////////////////////////////////////////////////////////////////////
 
 	@Override
-	protected Boolean getResult()
+	protected Preferences getResult()
 	{
-		return accepted;
+		return result;
 	}
 
 	//------------------------------------------------------------------
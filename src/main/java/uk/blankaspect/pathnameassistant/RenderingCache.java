@@ -0,0 +1,166 @@
+/*====================================================================*\
+
+RenderingCache.java
+
+Class: cache of rendered file-system locations.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import uk.blankaspect.common.function.IFunction1;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: CACHE OF RENDERED FILE-SYSTEM LOCATIONS
+
+
+/**
+ * This class implements a cache of the string representations of {@linkplain Location file-system locations}.  The cache
+ * holds a separate map of renderings for each format, so that the renderings of a format are retained when another
+ * format is selected.  Each map is bounded: when it is full, the least recently used rendering is discarded.
+ * <p>
+ * The cache is not thread-safe; it is intended to be accessed only on the JavaFX application thread.
+ * </p>
+ *
+ * @param <F>
+ *          the type of the formats whose renderings are cached.
+ */
+
+class RenderingCache<F>
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The maximum number of renderings that are cached for each format. */
+	private	int								capacity;
+
+	/** A map from formats to the renderings of locations in each format. */
+	private	Map<F, Map<Location, String>>	renderings;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a cache of rendered file-system locations.
+	 *
+	 * @param capacity
+	 *          the maximum number of renderings that will be cached for each format.
+	 */
+
+	RenderingCache(
+		int	capacity)
+	{
+		// Initialise instance variables
+		this.capacity = capacity;
+		renderings = new HashMap<>();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the string representation of the specified location in the specified format.  If the representation is
+	 * not in the cache, it is created with the specified renderer and added to the cache.
+	 *
+	 * @param  format
+	 *           the format of the string representation.
+	 * @param  location
+	 *           the location for which a string representation is desired.
+	 * @param  renderer
+	 *           the function that will create the string representation of {@code location} in {@code format} if it is
+	 *           not in the cache.
+	 * @return the string representation of {@code location} in {@code format}.
+	 */
+
+	String get(
+		F								format,
+		Location						location,
+		IFunction1<String, Location>	renderer)
+	{
+		return renderings.computeIfAbsent(format, key -> new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(
+				Map.Entry<Location, String>	entry)
+			{
+				return (size() > capacity);
+			}
+		})
+		.computeIfAbsent(location, renderer::invoke);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the renderings of the specified locations in all formats from this cache.
+	 *
+	 * @param locations
+	 *          the locations whose renderings will be removed.
+	 */
+
+	void removeAll(
+		Iterable<? extends Location>	locations)
+	{
+		for (Map<Location, String> map : renderings.values())
+		{
+			if (!map.isEmpty())
+			{
+				for (Location location : locations)
+					map.remove(location);
+			}
+		}
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes the renderings of all locations in the specified format from this cache.
+	 *
+	 * @param format
+	 *          the format whose renderings will be removed.
+	 */
+
+	void remove(
+		F	format)
+	{
+		renderings.remove(format);
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Removes all renderings from this cache.
+	 */
+
+	void clear()
+	{
+		renderings.clear();
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
@@ -0,0 +1,240 @@
+/*====================================================================*\
+
+SuffixFilterDialog.java
+
+Class: suffix-filter dialog.
+
+\*====================================================================*/
+
+
+// PACKAGE
+
+
+package uk.blankaspect.pathnameassistant;
+
+//----------------------------------------------------------------------
+
+
+// IMPORTS
+
+
+import java.lang.invoke.MethodHandles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Region;
+
+import javafx.stage.Window;
+
+import uk.blankaspect.ui.jfx.button.Buttons;
+
+import uk.blankaspect.ui.jfx.dialog.SimpleModalDialog;
+
+import uk.blankaspect.ui.jfx.label.Labels;
+
+//----------------------------------------------------------------------
+
+
+// CLASS: SUFFIX-FILTER DIALOG
+
+
+/**
+ * This class implements a modal dialog in which the user may enter a list of filename patterns of the form
+ * <code>*<i>suffix</i></code> (for example, <code>*.java, *.kt</code>).  The list is used to filter the list of
+ * locations so that only the locations that end with one of the suffixes are kept.
+ */
+
+class SuffixFilterDialog
+	extends SimpleModalDialog<String>
+{
+
+////////////////////////////////////////////////////////////////////////
+//  Constants
+////////////////////////////////////////////////////////////////////////
+
+	/** The horizontal gap between adjacent components of the control pane. */
+	private static final	double	CONTROL_PANE_H_GAP	= 6.0;
+
+	/** The vertical gap between adjacent components of the control pane. */
+	private static final	double	CONTROL_PANE_V_GAP	= 6.0;
+
+	/** The padding around the control pane. */
+	private static final	Insets	CONTROL_PANE_PADDING	= new Insets(6.0, 12.0, 6.0, 12.0);
+
+	/** The preferred number of columns of the text field. */
+	private static final	int		TEXT_FIELD_NUM_COLUMNS	= 32;
+
+	/** The characters that separate patterns. */
+	private static final	String	PATTERN_SEPARATORS	= "[,;\\s]+";
+
+	/** The prefix of a pattern that may be omitted. */
+	private static final	String	WILDCARD_PREFIX	= "*";
+
+	/** Miscellaneous strings. */
+	private static final	String	KEEP_LOCATIONS_STR	= "Keep locations";
+	private static final	String	SUFFIXES_STR		= "Filename patterns";
+	private static final	String	PROMPT_STR			= "*.java, *.kt";
+
+////////////////////////////////////////////////////////////////////////
+//  Instance variables
+////////////////////////////////////////////////////////////////////////
+
+	/** The text that was entered in this dialog. */
+	private	String	result;
+
+////////////////////////////////////////////////////////////////////////
+//  Constructors
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new instance of a modal dialog in which the user may enter a list of filename patterns.
+	 *
+	 * @param owner
+	 *          the window that will be the owner of this dialog, or {@code null} if the dialog has no owner.
+	 * @param patterns
+	 *          the text that will initially be displayed in the text field of the dialog, which may be {@code null}.
+	 */
+
+	private SuffixFilterDialog(
+		Window	owner,
+		String	patterns)
+	{
+		// Call superclass constructor
+		super(owner, MethodHandles.lookup().lookupClass().getCanonicalName(), null, KEEP_LOCATIONS_STR);
+
+		// Create text field: patterns
+		TextField patternsField = new TextField(patterns);
+		patternsField.setPrefColumnCount(TEXT_FIELD_NUM_COLUMNS);
+		patternsField.setPromptText(PROMPT_STR);
+
+		// Create control pane
+		GridPane controlPane = new GridPane();
+		controlPane.setHgap(CONTROL_PANE_H_GAP);
+		controlPane.setVgap(CONTROL_PANE_V_GAP);
+		controlPane.setMaxWidth(Region.USE_PREF_SIZE);
+		controlPane.setAlignment(Pos.CENTER);
+		controlPane.setPadding(CONTROL_PANE_PADDING);
+
+		// Set column constraints
+		ColumnConstraints column = new ColumnConstraints();
+		column.setMinWidth(Region.USE_PREF_SIZE);
+		column.setHalignment(HPos.RIGHT);
+		controlPane.getColumnConstraints().add(column);
+
+		column = new ColumnConstraints();
+		column.setHalignment(HPos.LEFT);
+		controlPane.getColumnConstraints().add(column);
+
+		// Add controls to control pane
+		controlPane.addRow(0, Labels.hNoShrink(SUFFIXES_STR), patternsField);
+
+		// Add control pane to content pane
+		addContent(controlPane);
+
+		// Create button: OK
+		Button okButton = Buttons.hNoShrink(OK_STR);
+		okButton.getProperties().put(BUTTON_GROUP_KEY, BUTTON_GROUP1);
+		okButton.disableProperty().bind(patternsField.textProperty().map(text -> parseSuffixes(text).isEmpty()));
+		okButton.setOnAction(event ->
+		{
+			// Set result
+			result = patternsField.getText();
+
+			// Close dialog
+			requestClose();
+		});
+		addButton(okButton, HPos.RIGHT);
+
+		// Create button: cancel
+		Button cancelButton = Buttons.hNoShrink(CANCEL_STR);
+		cancelButton.getProperties().put(BUTTON_GROUP_KEY, BUTTON_GROUP1);
+		cancelButton.setOnAction(event -> requestClose());
+		addButton(cancelButton, HPos.RIGHT);
+
+		// Fire 'cancel' button if Escape key is pressed; fire 'OK' button if Ctrl+Enter is pressed
+		setKeyFireButton(cancelButton, okButton);
+
+		// Apply new style sheet to scene
+		applyStyleSheet();
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Class methods
+////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Displays a modal dialog in which the user may enter a list of filename patterns.
+	 *
+	 * @param  owner
+	 *           the window that will be the owner of the dialog, or {@code null} if the dialog has no owner.
+	 * @param  patterns
+	 *           the text that will initially be displayed in the text field of the dialog, which may be {@code null}.
+	 * @return the text that was entered in the dialog if the dialog was accepted, or {@code null} if the dialog was
+	 *         cancelled.
+	 */
+
+	public static String show(
+		Window	owner,
+		String	patterns)
+	{
+		return new SuffixFilterDialog(owner, patterns).showDialog();
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Parses the specified list of filename patterns and returns the suffixes that they denote.  Patterns are separated
+	 * by commas, semicolons or whitespace, and the leading <code>*</code> of a pattern may be omitted.
+	 *
+	 * @param  patterns
+	 *           the list of patterns that will be parsed.
+	 * @return the suffixes that are denoted by {@code patterns}.
+	 */
+
+	public static List<String> parseSuffixes(
+		String	patterns)
+	{
+		List<String> suffixes = new ArrayList<>();
+		if (patterns != null)
+		{
+			for (String pattern : patterns.split(PATTERN_SEPARATORS))
+			{
+				String suffix = pattern.startsWith(WILDCARD_PREFIX)
+										? pattern.substring(WILDCARD_PREFIX.length())
+										: pattern;
+				if (!suffix.isEmpty())
+					suffixes.add(suffix);
+			}
+		}
+		return suffixes;
+	}
+
+	//------------------------------------------------------------------
+
+////////////////////////////////////////////////////////////////////////
+//  Instance methods : overriding methods
+////////////////////////////////////////////////////////////////////////
+
+	@Override
+	protected String getResult()
+	{
+		return result;
+	}
+
+	//------------------------------------------------------------------
+
+}
+
+//----------------------------------------------------------------------
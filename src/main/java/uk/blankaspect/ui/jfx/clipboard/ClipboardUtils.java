@@ -141,6 +141,40 @@ public class ClipboardUtils
 
 	//------------------------------------------------------------------
 
+	/**
+	 * Returns a list of the files from the system clipboard.  Unlike {@link #locations()}, this method does not convert
+	 * the files to {@linkplain Path file-system locations}, so it may be used to take a snapshot of a large number of
+	 * files from the clipboard and defer their conversion to a background thread.
+	 *
+	 * @return a list of the files from the system clipboard.
+	 */
+
+	public static List<File> files()
+	{
+		return files(Clipboard.getSystemClipboard());
+	}
+
+	//------------------------------------------------------------------
+
+	/**
+	 * Returns a list of the files from the specified clipboard.  Unlike {@link #locations(Clipboard)}, this method does
+	 * not convert the files to {@linkplain Path file-system locations}, so it may be used to take a snapshot of a large
+	 * number of files from the clipboard and defer their conversion to a background thread.
+	 *
+	 * @param  clipboard
+	 *           the clipboard from which a list of files will be returned.
+	 * @return a list of the files from {@code clipboard}.
+	 */
+
+	public static List<File> files(
+		Clipboard	clipboard)
+	{
+		List<File> files = clipboard.getFiles();
+		return (files == null) ? Collections.emptyList() : new ArrayList<>(files);
+	}
+
+	//------------------------------------------------------------------
+
 	/**
 	 * Returns the first file-system location from the system clipboard.
 	 *